@@ -0,0 +1,83 @@
+package top.oneyi.envLauncher.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description 下载落盘吞吐与分配（进程内 HTTP 服务）
+ * <p>
+ * Run with {@code mvn -Pjmh verify -Djmh.include=DownloadToFileBenchmark}. Each operation does
+ * what {@code EnvInstallerService.downloadToFile} does: open a session, report through a
+ * {@link ProgressBus} and hash the file with SHA-256 while it is written. The server's threads
+ * are part of the JVM, so their allocations show up in {@code gc.alloc.rate.norm} as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DownloadToFileBenchmark {
+
+    @Param({"1", "4"})
+    public int segments;
+
+    @Param("32")
+    public int payloadMb;
+
+    private HttpServer server;
+    private String url;
+    private File target;
+    private SegmentedDownloader downloader;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        byte[] payload = new byte[payloadMb * 1024 * 1024];
+        new Random(1).nextBytes(payload);
+        server = DownloadAllocationBenchmark.startServer(payload);
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/jdk.zip";
+        target = Files.createTempFile("download-jmh", ".zip").toFile();
+        downloader = new SegmentedDownloader(segments, 1024 * 1024);
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteTarget() {
+        target.delete();
+        DownloadState.sidecarOf(target).delete();
+    }
+
+    @Benchmark
+    public boolean downloadToFile() throws IOException {
+        MessageDigest digest = Checksum.Source.SHA256_TXT.newDigest();
+        try (ProgressBus progress = new ProgressBus(snapshot -> { });
+             SegmentedDownloader.Session session = downloader.open(url, target, false)) {
+            progress.begin("Downloading", session.getInfo().getContentLength());
+            return downloader.download(session, progress, () -> false, digest);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.stop(0);
+        deleteTarget();
+    }
+}
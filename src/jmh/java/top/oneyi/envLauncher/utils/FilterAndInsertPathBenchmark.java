@@ -0,0 +1,91 @@
+package top.oneyi.envLauncher.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description {@link PathUtils#filterAndInsertPath} 在长 PATH 上的吞吐与分配
+ * <p>
+ * Run with {@code mvn -Pjmh verify -Djmh.include=FilterAndInsertPathBenchmark}. The PATH mixes
+ * typical Windows entries with older JDK, Maven and Node entries that the filters remove.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterAndInsertPathBenchmark {
+
+    private static final String[] COMMON = {
+            "C:\\Windows\\system32",
+            "C:\\Windows",
+            "C:\\Windows\\System32\\Wbem",
+            "C:\\Windows\\System32\\WindowsPowerShell\\v1.0\\",
+            "C:\\Program Files\\Git\\cmd",
+            "C:\\Program Files\\Docker\\Docker\\resources\\bin",
+            "C:\\Users\\dev\\AppData\\Local\\Microsoft\\WindowsApps",
+            "C:\\Users\\dev\\AppData\\Local\\Programs\\Microsoft VS Code\\bin",
+    };
+    private static final String[] TOOLS = {
+            "C:\\Program Files\\Java\\jdk-11\\bin",
+            "D:\\environment\\jdk-17.0.15+6\\bin",
+            "%JAVA_HOME%\\bin",
+            "D:\\environment\\apache-maven-3.8.8\\bin",
+            "D:\\environment\\node-v18.20.8-win-x64",
+            "%NODE_HOME%",
+    };
+
+    /**
+     * Number of PATH entries; Windows caps the variable at 32767 characters, about 400 such entries.
+     */
+    @Param({"20", "100", "400"})
+    public int entries;
+
+    private String path;
+
+    @Setup
+    public void buildPath() {
+        Random random = new Random(entries);
+        List<String> parts = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            if (i % 10 == 5) {
+                parts.add(TOOLS[random.nextInt(TOOLS.length)]);
+            } else if (i < COMMON.length) {
+                parts.add(COMMON[i]);
+            } else {
+                parts.add("C:\\Program Files\\Vendor" + i + "\\Product\\bin");
+            }
+        }
+        path = String.join(";", parts);
+    }
+
+    @Benchmark
+    public String jdkEntry() {
+        return PathUtils.filterAndInsertPath("%JAVA_HOME%\\bin", path, "java", "jdk");
+    }
+
+    /**
+     * What one {@link EnvironmentWriter#commit()} of a one-click install does: three passes in a row.
+     */
+    @Benchmark
+    public String oneClickSession() {
+        String result = PathUtils.filterAndInsertPath("%JAVA_HOME%\\bin", path, "java", "jdk");
+        result = PathUtils.filterAndInsertPath("D:\\environment\\apache-maven-3.9.10\\bin", result, "maven");
+        return PathUtils.filterAndInsertPath("%NODE_HOME%", result, "node");
+    }
+}
@@ -0,0 +1,143 @@
+package top.oneyi.envLauncher.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * @description {@link PathUtils#unzipFile} 解压吞吐与分配（JDK / Maven / Node 发行包布局）
+ * <p>
+ * Run with {@code mvn -Pjmh verify -Djmh.include=UnzipFileBenchmark}. Entry counts follow the
+ * real Windows archives; {@code scale} shrinks the large files (1.0 is roughly the real size).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnzipFileBenchmark {
+
+    @Param({"jdk", "maven", "node"})
+    public String layout;
+
+    @Param("0.1")
+    public double scale;
+
+    private Path work;
+    private File zip;
+    private File target;
+
+    @Setup(Level.Trial)
+    public void writeArchive() throws IOException {
+        work = Files.createTempDirectory("unzip-jmh");
+        zip = work.resolve(layout + ".zip").toFile();
+        switch (layout) {
+            case "jdk":
+                UnzipBenchmark.writeJdkLikeArchive(zip, scale);
+                break;
+            case "maven":
+                writeMavenLikeArchive(zip, scale);
+                break;
+            case "node":
+                writeNodeLikeArchive(zip, scale);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown layout: " + layout);
+        }
+        target = work.resolve("out").toFile();
+    }
+
+    @Benchmark
+    public void unzipFile() throws IOException {
+        PathUtils.unzipFile(zip.getPath(), target.getPath());
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteExtracted() throws IOException {
+        deleteTree(target.toPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWork() throws IOException {
+        deleteTree(work);
+    }
+
+    /**
+     * apache-maven-3.9.x-bin.zip: about 100 entries, mostly already-compressed jars in lib/.
+     */
+    static void writeMavenLikeArchive(File zip, double scale) throws IOException {
+        Random random = new Random(3);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+            String root = "apache-maven-3.9.10/";
+            for (String script : new String[]{"mvn", "mvn.cmd", "mvnDebug", "mvnDebug.cmd", "mvnyjp", "m2.conf"}) {
+                UnzipBenchmark.put(out, root + "bin/" + script, 2 * 1024 + random.nextInt(6 * 1024), random);
+            }
+            UnzipBenchmark.put(out, root + "boot/plexus-classworlds-2.9.0.jar", 60 * 1024, random);
+            UnzipBenchmark.put(out, root + "conf/settings.xml", 11 * 1024, random);
+            UnzipBenchmark.put(out, root + "conf/toolchains.xml", 4 * 1024, random);
+            UnzipBenchmark.put(out, root + "conf/logging/simplelogger.properties", 2 * 1024, random);
+            for (int i = 0; i < 80; i++) {
+                UnzipBenchmark.put(out, root + "lib/lib" + i + ".jar",
+                        UnzipBenchmark.scaled(5 * 1024 + random.nextInt(1200 * 1024), scale), random);
+            }
+            UnzipBenchmark.put(out, root + "lib/ext/README.txt", 1024, random);
+            for (String doc : new String[]{"LICENSE", "NOTICE", "README.txt"}) {
+                UnzipBenchmark.put(out, root + doc, 4 * 1024 + random.nextInt(16 * 1024), random);
+            }
+        }
+    }
+
+    /**
+     * node-v20.x-win-x64.zip: one large node.exe and a few thousand small files in node_modules/npm.
+     */
+    static void writeNodeLikeArchive(File zip, double scale) throws IOException {
+        Random random = new Random(20);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+            String root = "node-v20.19.2-win-x64/";
+            UnzipBenchmark.put(out, root + "node.exe", UnzipBenchmark.scaled(80 * 1024 * 1024, scale), random);
+            for (String script : new String[]{"npm", "npm.cmd", "npx", "npx.cmd", "corepack", "corepack.cmd", "nodevars.bat"}) {
+                UnzipBenchmark.put(out, root + script, 512 + random.nextInt(2 * 1024), random);
+            }
+            for (int pkg = 0; pkg < 250; pkg++) {
+                String dir = root + "node_modules/npm/node_modules/pkg" + pkg + "/";
+                UnzipBenchmark.put(out, dir + "package.json", 512 + random.nextInt(2 * 1024), random);
+                UnzipBenchmark.put(out, dir + "LICENSE", 1024, random);
+                int files = 4 + random.nextInt(12);
+                for (int i = 0; i < files; i++) {
+                    UnzipBenchmark.put(out, dir + "lib/file" + i + ".js", 512 + random.nextInt(24 * 1024), random);
+                }
+            }
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
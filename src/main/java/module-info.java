@@ -3,9 +3,9 @@ module top.oneyi.envLauncher {
     requires javafx.controls;
     requires javafx.fxml;
     requires javafx.graphics;
-
-    requires org.controlsfx.controls;
-    requires org.kordamp.bootstrapfx.core;
+    requires java.net.http;
+    requires java.xml;
+    requires java.management;
 
     opens top.oneyi.envLauncher to javafx.fxml;
     exports top.oneyi.envLauncher;
@@ -1,16 +1,29 @@
 package top.oneyi.envLauncher;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
 import java.util.Objects;
 
 public class MainApp extends Application {
+
+    /**
+     * Print the time from JVM start to the first frame of the main window.
+     */
+    private static final String PROP_STARTUP_TIMING = "envlauncher.startup-timing";
+    /**
+     * Print it and exit right away; used by the AppCDS training run and {@code StartupBenchmark}.
+     */
+    private static final String PROP_EXIT_AFTER_FIRST_FRAME = "envlauncher.exit-after-first-frame";
+
     @Override
     public void start(Stage stage) throws IOException {
         URL resource = MainApp.class.getResource("jdk-installer.fxml");
@@ -27,6 +40,28 @@ public class MainApp extends Application {
         stage.setMinHeight(520);
         stage.setResizable(true);
         stage.show();
+
+        boolean exitAfterFirstFrame = Boolean.getBoolean(PROP_EXIT_AFTER_FIRST_FRAME);
+        if (exitAfterFirstFrame || Boolean.getBoolean(PROP_STARTUP_TIMING)) {
+            reportFirstFrame(exitAfterFirstFrame);
+        }
+    }
+
+    /**
+     * The first animation pulse after {@code show()} is the one that renders the window.
+     */
+    private static void reportFirstFrame(boolean exit) {
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                long startMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+                System.out.println("First frame: " + (System.currentTimeMillis() - startMillis) + " ms");
+                if (exit) {
+                    Platform.exit();
+                }
+            }
+        }.start();
     }
 
     public static void main(String[] args) {
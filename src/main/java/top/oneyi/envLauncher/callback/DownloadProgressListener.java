@@ -0,0 +1,15 @@
+package top.oneyi.envLauncher.callback;
+
+/**
+ * 下载进度回调接口
+ * <p>
+ * May be invoked concurrently from several segment threads.
+ */
+@FunctionalInterface
+public interface DownloadProgressListener {
+    /**
+     * @param downloadedBytes bytes received so far across all segments
+     * @param totalBytes      total size, or -1 when the server did not report it
+     */
+    void onProgress(long downloadedBytes, long totalBytes);
+}
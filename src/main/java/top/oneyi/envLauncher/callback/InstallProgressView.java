@@ -0,0 +1,45 @@
+package top.oneyi.envLauncher.callback;
+
+import top.oneyi.envLauncher.service.ProgressBus;
+
+/**
+ * 安装进度展示接口
+ * <p>
+ * One view per install, opened by the service through a {@link Factory}; the desktop app shows a
+ * dialog, the command line prints to the console. All methods are called from worker threads.
+ */
+public interface InstallProgressView {
+
+    /**
+     * A throttled frame from the {@link ProgressBus}; may arrive from several threads.
+     */
+    void onProgress(ProgressBus.Snapshot snapshot);
+
+    /**
+     * @param fraction new progress in [0, 1], or negative to leave it unchanged
+     */
+    void onStatus(String status, double fraction);
+
+    /**
+     * @param bytes archive size, or a value {@code <= 0} when unknown
+     */
+    void onFileSize(long bytes);
+
+    /**
+     * Report a failed install and close the view.
+     */
+    void onFailed(String message);
+
+    boolean isCancelRequested();
+
+    void close();
+
+    @FunctionalInterface
+    interface Factory {
+        /**
+         * @param name tool being installed, e.g. {@code JDK}
+         * @return the view, or null when it could not be created
+         */
+        InstallProgressView open(String name);
+    }
+}
@@ -0,0 +1,74 @@
+package top.oneyi.envLauncher.cli;
+
+import top.oneyi.envLauncher.callback.InstallProgressView;
+import top.oneyi.envLauncher.service.ProgressBus;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 命令行进度输出
+ * <p>
+ * Prints one line per status change and at most one progress line per interval, each prefixed
+ * with the tool name, so parallel installs stay readable in a log file or CI console.
+ */
+public class ConsoleProgressView implements InstallProgressView {
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final String prefix;
+    private final PrintStream out;
+    private final AtomicLong nextProgressAt = new AtomicLong(System.nanoTime());
+
+    public ConsoleProgressView(String name, PrintStream out) {
+        this.prefix = "[" + name + "] ";
+        this.out = out;
+    }
+
+    @Override
+    public void onProgress(ProgressBus.Snapshot snapshot) {
+        long now = System.nanoTime();
+        long due = nextProgressAt.get();
+        if (now - due < 0 || !nextProgressAt.compareAndSet(due, now + PROGRESS_INTERVAL_NANOS)) {
+            return;
+        }
+        StringBuilder line = new StringBuilder(prefix);
+        double fraction = snapshot.getFraction();
+        if (fraction >= 0) {
+            line.append(String.format("%3d%% ", Math.round(fraction * 100)));
+        }
+        line.append(snapshot.describe())
+                .append(String.format(" (%.2f MB/s)", snapshot.getBytesPerSecond() / (1024.0 * 1024.0)));
+        out.println(line);
+    }
+
+    @Override
+    public void onStatus(String status, double fraction) {
+        out.println(prefix + status);
+    }
+
+    @Override
+    public void onFileSize(long bytes) {
+        if (bytes > 0) {
+            out.println(prefix + String.format("File size: %.2f MB", bytes / (1024.0 * 1024.0)));
+        }
+    }
+
+    @Override
+    public void onFailed(String message) {
+        out.println(prefix + message);
+    }
+
+    /**
+     * Ctrl+C cancels the whole run through the scheduler instead.
+     */
+    @Override
+    public boolean isCancelRequested() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,309 @@
+package top.oneyi.envLauncher.cli;
+
+import top.oneyi.envLauncher.config.DownloadSourceConfig;
+import top.oneyi.envLauncher.service.EnvInstallerService;
+import top.oneyi.envLauncher.service.TaskScheduler;
+import top.oneyi.envLauncher.service.TaskScheduler.State;
+import top.oneyi.envLauncher.service.TaskScheduler.TaskSpec;
+import top.oneyi.envLauncher.service.ToolchainRegistry;
+import top.oneyi.envLauncher.utils.EnvironmentWriter;
+import top.oneyi.envLauncher.utils.LoggerUtil;
+import top.oneyi.envLauncher.utils.PathUtils;
+import top.oneyi.envLauncher.utils.RollingLogFile;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 命令行入口（无界面批量安装）
+ * <p>
+ * {@code envlauncher install jdk=17 maven=3.9.10 node=20.19.2} runs the same task graph as the
+ * one-click install of the desktop app: downloads in parallel, then one environment write for
+ * everything that installed. Versions already in the toolchain registry are not downloaded again;
+ * {@code envlauncher list} prints the registry. Only the service layer is used and no JavaFX class is loaded, so the
+ * command also runs on a JRE without JavaFX. Ctrl+C cancels the run; nothing is written then.
+ * <p>
+ * Exit codes: {@value #EXIT_OK} when every step succeeded, {@value #EXIT_FAILED} when one failed
+ * or was cancelled, {@value #EXIT_USAGE} for invalid arguments.
+ */
+public final class EnvLauncherCli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    /**
+     * JVM start until the first download can begin; reported with {@code --timing}.
+     */
+    static final Duration STARTUP_BUDGET = Duration.ofMillis(500);
+
+    static final String TOOL_JDK = "jdk";
+    static final String TOOL_MAVEN = "maven";
+    static final String TOOL_NODE = "node";
+
+    private static final String TASK_JDK_DOWNLOAD = "JDK download";
+    private static final String TASK_JDK_ENV = "JDK env";
+    private static final String TASK_MAVEN_DOWNLOAD = "Maven download";
+    private static final String TASK_MAVEN_ENV = "Maven env";
+    private static final String TASK_NODE_DOWNLOAD = "Node download";
+    private static final String TASK_NODE_ENV = "Node env";
+    private static final String TASK_ENV_COMMIT = "Write environment";
+
+    private static final Duration CANCEL_GRACE = Duration.ofSeconds(15);
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: envlauncher install [jdk=<version>] [maven=<version>] [node=<version>] [--timing]",
+            "       envlauncher list",
+            "       envlauncher help",
+            "",
+            "  jdk=17            JDK feature version (8, 11, 17, 21)",
+            "  maven=3.9.10      Maven version",
+            "  node=20.19.2      Node version, with or without the leading v",
+            "  --timing          print the startup time against its budget",
+            "",
+            "Download sources are read from download-sources.properties, as in the desktop app.");
+
+    private EnvLauncherCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out));
+    }
+
+    static int run(String[] args, PrintStream out) {
+        Command command;
+        try {
+            command = Command.parse(args);
+        } catch (IllegalArgumentException e) {
+            out.println(e.getMessage());
+            out.println(USAGE);
+            return EXIT_USAGE;
+        }
+        if (command.list) {
+            List<ToolchainRegistry.Toolchain> installed = ToolchainRegistry.shared().list();
+            if (installed.isEmpty()) {
+                out.println("Nothing installed by envLauncher yet.");
+            }
+            installed.forEach(out::println);
+            return EXIT_OK;
+        }
+        if (command.versions.isEmpty()) {
+            out.println(USAGE);
+            if (command.timing) {
+                reportStartup(out);
+            }
+            return EXIT_OK;
+        }
+
+        LoggerUtil.init(LoggerUtil.parseLevel(DownloadSourceConfig.getLogLevel()), List.of(
+                batch -> batch.forEach(entry -> out.println(entry.format())),
+                new RollingLogFile(PathUtils.getLogDir(), DownloadSourceConfig.getLogFileMaxBytes(),
+                        DownloadSourceConfig.getLogFileCount())));
+        // Read the configuration up front so the startup figure covers it.
+        DownloadSourceConfig.getDownloadSegments();
+        if (command.timing) {
+            reportStartup(out);
+        }
+        int exitCode = install(command.versions, out);
+        LoggerUtil.flush(TimeUnit.SECONDS.toMillis(5));
+        return exitCode;
+    }
+
+    private static int install(Map<String, String> versions, PrintStream out) {
+        EnvInstallerService service = new EnvInstallerService(name -> new ConsoleProgressView(name, out));
+        EnvironmentWriter session = service.newEnvironmentSession();
+        List<TaskSpec> graph = new ArrayList<>();
+        List<String> envTasks = new ArrayList<>();
+
+        if (versions.containsKey(TOOL_JDK)) {
+            AtomicReference<String> javaHome = new AtomicReference<>();
+            graph.add(TaskSpec.of(TASK_JDK_DOWNLOAD, cancelRequested -> {
+                String home = service.installJdk(versions.get(TOOL_JDK), cancelRequested);
+                if (home == null || !new File(home).isDirectory()) {
+                    return false;
+                }
+                javaHome.set(home);
+                return true;
+            }));
+            graph.add(TaskSpec.of(TASK_JDK_ENV, cancelRequested -> {
+                service.applyJdkEnvironment(session, javaHome.get());
+                return true;
+            }).after(TASK_JDK_DOWNLOAD));
+            envTasks.add(TASK_JDK_ENV);
+        }
+        if (versions.containsKey(TOOL_MAVEN)) {
+            AtomicReference<String> mavenHome = new AtomicReference<>();
+            graph.add(TaskSpec.of(TASK_MAVEN_DOWNLOAD, cancelRequested -> {
+                mavenHome.set(service.installMaven(versions.get(TOOL_MAVEN), cancelRequested));
+                return mavenHome.get() != null;
+            }));
+            graph.add(TaskSpec.of(TASK_MAVEN_ENV, cancelRequested -> {
+                service.applyMavenEnvironment(session, mavenHome.get());
+                return true;
+            }).after(TASK_MAVEN_DOWNLOAD));
+            envTasks.add(TASK_MAVEN_ENV);
+        }
+        if (versions.containsKey(TOOL_NODE)) {
+            AtomicReference<String> nodeHome = new AtomicReference<>();
+            graph.add(TaskSpec.of(TASK_NODE_DOWNLOAD, cancelRequested -> {
+                nodeHome.set(service.installNode(versions.get(TOOL_NODE), cancelRequested));
+                return nodeHome.get() != null;
+            }));
+            graph.add(TaskSpec.of(TASK_NODE_ENV, cancelRequested -> {
+                service.applyNodeEnvironment(session, nodeHome.get());
+                return true;
+            }).after(TASK_NODE_DOWNLOAD));
+            envTasks.add(TASK_NODE_ENV);
+        }
+        graph.add(TaskSpec.of(TASK_ENV_COMMIT, cancelRequested -> {
+            service.commitEnvironment(session);
+            return true;
+        }).afterSettled(envTasks.toArray(new String[0])).exclusive(EnvInstallerService.ENVIRONMENT_RESOURCE));
+
+        TaskScheduler.Run run = new TaskScheduler().submit(graph, (task, state, error) -> {
+            if (state == State.FAILED && error != null) {
+                LoggerUtil.error(task + " failed: " + error.getMessage());
+            } else if (state != State.PENDING) {
+                LoggerUtil.info(task + ": " + state.name().toLowerCase());
+            }
+        });
+        Thread cancelOnExit = new Thread(() -> {
+            if (run.completion().isDone()) {
+                return;
+            }
+            LoggerUtil.warn("Interrupted, cancelling...");
+            run.cancel();
+            try {
+                // Let running steps stop cleanly so partial downloads keep their resume state.
+                run.completion().get(CANCEL_GRACE.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (Exception ignored) {
+                // Exiting anyway.
+            }
+        }, "cli-cancel");
+        Runtime.getRuntime().addShutdownHook(cancelOnExit);
+
+        Map<String, State> states = run.completion().join();
+        try {
+            Runtime.getRuntime().removeShutdownHook(cancelOnExit);
+        } catch (IllegalStateException ignored) {
+            // Already shutting down; the hook is running.
+        }
+
+        List<String> unfinished = new ArrayList<>();
+        states.forEach((task, state) -> {
+            if (state != State.SUCCEEDED) {
+                unfinished.add(task + " " + state.name().toLowerCase());
+            }
+        });
+        if (unfinished.isEmpty()) {
+            LoggerUtil.info("Install completed. Restart terminal or IDE to pick up the environment.");
+            return EXIT_OK;
+        }
+        LoggerUtil.error("Install did not complete: " + String.join(", ", unfinished));
+        return EXIT_FAILED;
+    }
+
+    private static void reportStartup(PrintStream out) {
+        Duration startup = startupTime();
+        long millis = startup.toMillis();
+        String verdict = startup.compareTo(STARTUP_BUDGET) <= 0 ? "within" : "OVER";
+        out.println("Startup: " + millis + " ms (" + verdict + " the " + STARTUP_BUDGET.toMillis() + " ms budget)");
+    }
+
+    /**
+     * The management bean is only loaded here, so runs without {@code --timing} do not pay for it.
+     */
+    static Duration startupTime() {
+        long startMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        return Duration.between(Instant.ofEpochMilli(startMillis), Instant.now());
+    }
+
+    /**
+     * Parsed command line.
+     */
+    static final class Command {
+        /**
+         * Requested tool versions in tool order; empty for {@code help}.
+         */
+        final Map<String, String> versions;
+        final boolean timing;
+        /**
+         * Print the installed toolchains instead of installing.
+         */
+        final boolean list;
+
+        private Command(Map<String, String> versions, boolean timing, boolean list) {
+            this.versions = versions;
+            this.timing = timing;
+            this.list = list;
+        }
+
+        /**
+         * @throws IllegalArgumentException with a message for the user on invalid arguments
+         */
+        static Command parse(String[] args) {
+            boolean timing = false;
+            List<String> positional = new ArrayList<>();
+            for (String arg : args) {
+                if ("--timing".equals(arg)) {
+                    timing = true;
+                } else if ("-h".equals(arg) || "--help".equals(arg)) {
+                    positional.add(0, "help");
+                } else if (arg.startsWith("-")) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                } else {
+                    positional.add(arg);
+                }
+            }
+            if (positional.isEmpty() || "help".equals(positional.get(0))) {
+                return new Command(Map.of(), timing, false);
+            }
+            if ("list".equals(positional.get(0)) && positional.size() == 1) {
+                return new Command(Map.of(), timing, true);
+            }
+            if (!"install".equals(positional.get(0))) {
+                throw new IllegalArgumentException("Unknown command: " + positional.get(0));
+            }
+
+            Map<String, String> requested = new LinkedHashMap<>();
+            for (String spec : positional.subList(1, positional.size())) {
+                int eq = spec.indexOf('=');
+                String tool = eq < 0 ? spec : spec.substring(0, eq).trim().toLowerCase();
+                String version = eq < 0 ? "" : spec.substring(eq + 1).trim();
+                if (!TOOL_JDK.equals(tool) && !TOOL_MAVEN.equals(tool) && !TOOL_NODE.equals(tool)) {
+                    throw new IllegalArgumentException("Unknown tool: " + tool);
+                }
+                if (version.isEmpty()) {
+                    throw new IllegalArgumentException("Missing version: " + tool + "=<version>");
+                }
+                if (requested.put(tool, version) != null) {
+                    throw new IllegalArgumentException("Tool given twice: " + tool);
+                }
+            }
+            if (requested.isEmpty()) {
+                throw new IllegalArgumentException("Nothing to install.");
+            }
+            String node = requested.get(TOOL_NODE);
+            if (node != null && !node.startsWith("v")) {
+                requested.put(TOOL_NODE, "v" + node);
+            }
+
+            Map<String, String> versions = new LinkedHashMap<>();
+            for (String tool : List.of(TOOL_JDK, TOOL_MAVEN, TOOL_NODE)) {
+                if (requested.containsKey(tool)) {
+                    versions.put(tool, requested.get(tool));
+                }
+            }
+            return new Command(versions, timing, false);
+        }
+    }
+}
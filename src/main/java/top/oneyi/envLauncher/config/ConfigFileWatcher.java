@@ -0,0 +1,108 @@
+package top.oneyi.envLauncher.config;
+
+import top.oneyi.envLauncher.utils.LoggerUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配置文件监听
+ * <p>
+ * Watches the directories of the given files (a file that does not exist yet is picked up once
+ * it is created) and calls {@code onChange} on the "config-watch" thread after a burst of events
+ * on one of them has been quiet for the debounce time, so an editor's write-rename-touch sequence
+ * triggers one reload, not three.
+ */
+public final class ConfigFileWatcher implements Closeable {
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Map<Path, Set<Path>> fileNames = new HashMap<>();
+    private final Runnable onChange;
+    private final long debounceMillis;
+    private final Thread thread;
+
+    public ConfigFileWatcher(List<Path> files, Runnable onChange, long debounceMillis) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.onChange = onChange;
+        this.debounceMillis = debounceMillis;
+        for (Path file : files) {
+            Path absolute = file.toAbsolutePath().normalize();
+            Path dir = absolute.getParent();
+            if (dir == null || !Files.isDirectory(dir)) {
+                continue;
+            }
+            if (!fileNames.containsKey(dir)) {
+                WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                directories.put(key, dir);
+            }
+            fileNames.computeIfAbsent(dir, key -> new HashSet<>()).add(absolute.getFileName());
+        }
+        this.thread = new Thread(this::watchLoop, "config-watch");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean relevant = drain(key);
+                // Let the rest of the burst arrive before reloading once.
+                WatchKey next;
+                while ((next = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    relevant |= drain(next);
+                }
+                if (relevant) {
+                    try {
+                        onChange.run();
+                    } catch (RuntimeException e) {
+                        LoggerUtil.warn("Reload configuration failed: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed.
+        }
+    }
+
+    /**
+     * @return true when one of the watched files changed
+     */
+    private boolean drain(WatchKey key) {
+        Path dir = directories.get(key);
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+            } else if (dir != null && fileNames.get(dir).contains((Path) event.context())) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+}
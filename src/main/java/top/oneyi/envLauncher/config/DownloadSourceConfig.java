@@ -1,5 +1,9 @@
 package top.oneyi.envLauncher.config;
 
+import top.oneyi.envLauncher.utils.HttpTransport;
+import top.oneyi.envLauncher.utils.LoggerUtil;
+import top.oneyi.envLauncher.utils.PathUtils;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -7,7 +11,16 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Centralized download source configuration.
@@ -22,23 +35,124 @@ public final class DownloadSourceConfig {
     private static final String KEY_JDK_URL_TEMPLATE = "jdk.url-template";
     private static final String KEY_MAVEN_BASE = "maven.base-url";
     private static final String KEY_NODE_BASE = "node.base-url";
+    private static final String KEY_JDK_MIRRORS = "jdk.mirrors";
+    private static final String KEY_MAVEN_MIRRORS = "maven.mirrors";
+    private static final String KEY_NODE_MIRRORS = "node.mirrors";
+    private static final String KEY_MIRROR_AUTO_SELECT = "mirror.auto-select";
+    private static final String KEY_MIRROR_TTL_MINUTES = "mirror.probe-ttl-minutes";
+    private static final String KEY_MIRROR_TIMEOUT_MS = "mirror.probe-timeout-ms";
+    private static final String KEY_DOWNLOAD_SEGMENTS = "download.segments";
+    private static final String KEY_DOWNLOAD_MIN_SEGMENT_KB = "download.min-segment-kb";
+    private static final String KEY_DOWNLOAD_BUFFER_KB = "download.buffer-kb";
+    private static final String KEY_CACHE_MAX_SIZE_MB = "cache.max-size-mb";
+    private static final String KEY_INSTALL_STREAMING = "install.streaming";
+    private static final String KEY_INSTALL_DEDUPE = "install.dedupe";
+    private static final String KEY_CHECKSUM_VERIFY = "checksum.verify";
+    private static final String KEY_NPM_REGISTRY = "npm.registry";
+    private static final String KEY_NPM_STRICT_SSL = "npm.strict-ssl";
+    private static final String KEY_NPM_GLOBAL_PACKAGES = "npm.global-packages";
+    private static final String PREFIX_MAVEN_SETTINGS = "maven.settings.";
+    private static final String KEY_CATALOG_TTL_HOURS = "catalog.ttl-hours";
+    private static final String KEY_CATALOG_ADOPTIUM_API = "catalog.adoptium-api";
+    private static final String KEY_LOG_LEVEL = "log.level";
+    private static final String KEY_LOG_FILE_MAX_MB = "log.file-max-mb";
+    private static final String KEY_LOG_FILE_COUNT = "log.file-count";
+    private static final String KEY_LOG_VIEW_MAX_ENTRIES = "log.view-max-entries";
+    private static final String KEY_BANDWIDTH_LIMIT_KBPS = "bandwidth.limit-kbps";
+    private static final String PREFIX_BANDWIDTH_WEIGHT = "bandwidth.weight.";
 
     private static final String DEFAULT_JDK_BASE = "https://mirrors.tuna.tsinghua.edu.cn/Adoptium/";
     private static final String DEFAULT_JDK_URL_TEMPLATE =
             "https://api.adoptium.net/v3/binary/latest/{version}/ga/windows/x64/jdk/hotspot/normal/eclipse";
     private static final String DEFAULT_MAVEN_BASE = "https://archive.apache.org/dist/maven/maven-3/";
     private static final String DEFAULT_NODE_BASE = "https://npmmirror.com/mirrors/node/";
+    private static final String DEFAULT_NPM_REGISTRY = "https://registry.npmmirror.com/";
+    private static final int DEFAULT_DOWNLOAD_SEGMENTS = 4;
+    private static final int DEFAULT_DOWNLOAD_MIN_SEGMENT_KB = 1024;
+    private static final int DEFAULT_DOWNLOAD_BUFFER_KB = 256;
+    private static final int DEFAULT_CACHE_MAX_SIZE_MB = 2048;
+    private static final int DEFAULT_MIRROR_TTL_MINUTES = 30;
+    private static final String DEFAULT_CATALOG_ADOPTIUM_API = "https://api.adoptium.net/v3/";
+    private static final int DEFAULT_CATALOG_TTL_HOURS = 24;
+    private static final int DEFAULT_LOG_FILE_MAX_MB = 5;
+    private static final int DEFAULT_LOG_FILE_COUNT = 3;
+    private static final int DEFAULT_LOG_VIEW_MAX_ENTRIES = 5000;
+    private static final int DEFAULT_MIRROR_TIMEOUT_MS = 3000;
+    private static final int MIRROR_PROBE_BYTES = 64 * 1024;
 
     private static final String LOCAL_FILE_NAME = "download-sources.properties";
     private static final String SYS_PROP_PATH = "envlauncher.sources";
 
-    private static volatile Properties cached;
+    private static final long WATCH_DEBOUNCE_MILLIS = 300;
+
+    /**
+     * Current configuration; replaced as a whole on reload, so readers never lock.
+     */
+    private static final AtomicReference<Snapshot> SNAPSHOT = new AtomicReference<>();
+    private static final List<Runnable> LISTENERS = new CopyOnWriteArrayList<>();
+    private static ConfigFileWatcher watcher;
 
     private DownloadSourceConfig() {
     }
 
-    public static synchronized void reload() {
-        cached = loadProperties();
+    /**
+     * Re-read the configuration files. Nothing happens when no value changed. Otherwise mirror
+     * scores and the version catalog are kept when the keys they were built from are the same,
+     * and rebuilt on next use when not; listeners are told.
+     */
+    public static void reload() {
+        Snapshot next = new Snapshot(loadProperties());
+        Snapshot previous;
+        do {
+            previous = SNAPSHOT.get();
+            if (previous != null && previous.values.equals(next.values)) {
+                // Touched or saved unchanged: keep the mirror scores and the version catalog.
+                return;
+            }
+            if (previous != null) {
+                next.carryOver(previous);
+            }
+        } while (!SNAPSHOT.compareAndSet(previous, next));
+        if (previous != null) {
+            for (Runnable listener : LISTENERS) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    LoggerUtil.warn("Configuration listener failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param listener called after a reload that changed a value, on the thread that reloaded
+     */
+    public static void addListener(Runnable listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(Runnable listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Reload whenever the local override file or the {@code envlauncher.sources} file changes on disk.
+     */
+    public static synchronized void startWatching() {
+        if (watcher != null) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        files.add(getLocalOverridePath());
+        String overridePath = System.getProperty(SYS_PROP_PATH);
+        if (overridePath != null && !overridePath.isBlank()) {
+            files.add(new File(overridePath).toPath());
+        }
+        try {
+            watcher = new ConfigFileWatcher(files, DownloadSourceConfig::reload, WATCH_DEBOUNCE_MILLIS);
+        } catch (IOException e) {
+            LoggerUtil.warn("Watch download sources failed, use Reload Sources instead: " + e.getMessage());
+        }
     }
 
     public static Path getLocalOverridePath() {
@@ -61,37 +175,267 @@ public final class DownloadSourceConfig {
         return get(KEY_JDK_URL_TEMPLATE, DEFAULT_JDK_URL_TEMPLATE);
     }
 
+    /**
+     * Maximum number of parallel range connections per download.
+     */
+    public static int getDownloadSegments() {
+        return getInt(KEY_DOWNLOAD_SEGMENTS, DEFAULT_DOWNLOAD_SEGMENTS);
+    }
+
+    /**
+     * Files smaller than two segments of this size are fetched over one connection.
+     */
+    public static long getDownloadMinSegmentBytes() {
+        return getInt(KEY_DOWNLOAD_MIN_SEGMENT_KB, DEFAULT_DOWNLOAD_MIN_SEGMENT_KB) * 1024L;
+    }
+
+    /**
+     * Size of the direct buffer each download connection reads into.
+     */
+    public static int getDownloadBufferBytes() {
+        return getInt(KEY_DOWNLOAD_BUFFER_KB, DEFAULT_DOWNLOAD_BUFFER_KB) * 1024;
+    }
+
+    /**
+     * Cap on the combined download rate in bytes per second; 0 means unlimited.
+     */
+    public static long getBandwidthLimitBytesPerSecond() {
+        return Math.max(0, getInt(KEY_BANDWIDTH_LIMIT_KBPS, 0)) * 1024L;
+    }
+
+    /**
+     * Share of the bandwidth cap a download of {@code tool} (jdk, maven, node) gets while others run.
+     */
+    public static int getBandwidthWeight(String tool) {
+        return Math.max(1, getInt(PREFIX_BANDWIDTH_WEIGHT + tool, 1));
+    }
+
+    /**
+     * Size cap of the archive cache; 0 disables caching.
+     */
+    public static long getCacheMaxBytes() {
+        return Math.max(0, getInt(KEY_CACHE_MAX_SIZE_MB, DEFAULT_CACHE_MAX_SIZE_MB)) * 1024L * 1024L;
+    }
+
+    /**
+     * Unzip while downloading instead of writing the archive first.
+     * Streamed archives cannot be resumed or cached.
+     */
+    public static boolean isStreamingInstall() {
+        return Boolean.parseBoolean(get(KEY_INSTALL_STREAMING, "false").trim());
+    }
+
+    /**
+     * Store identical files of different versions once under environment/store and hard-link them.
+     */
+    public static boolean isInstallDedupe() {
+        return Boolean.parseBoolean(get(KEY_INSTALL_DEDUPE, "false").trim());
+    }
+
+    /**
+     * Fetch the checksum the mirror publishes and verify archives against it before unzipping.
+     */
+    public static boolean isChecksumVerify() {
+        return Boolean.parseBoolean(get(KEY_CHECKSUM_VERIFY, "true").trim());
+    }
+
+    /**
+     * Lowest log level shown and written to the log file (DEBUG, INFO, WARN, ERROR).
+     */
+    public static String getLogLevel() {
+        return get(KEY_LOG_LEVEL, "INFO");
+    }
+
+    /**
+     * The log file rolls over above this size.
+     */
+    public static long getLogFileMaxBytes() {
+        return Math.max(1, getInt(KEY_LOG_FILE_MAX_MB, DEFAULT_LOG_FILE_MAX_MB)) * 1024L * 1024L;
+    }
+
+    /**
+     * Rolled log files kept besides the current one.
+     */
+    public static int getLogFileCount() {
+        return Math.max(0, getInt(KEY_LOG_FILE_COUNT, DEFAULT_LOG_FILE_COUNT));
+    }
+
+    /**
+     * Entries kept in the log view; older ones are only in the log file.
+     */
+    public static int getLogViewMaxEntries() {
+        return Math.max(100, getInt(KEY_LOG_VIEW_MAX_ENTRIES, DEFAULT_LOG_VIEW_MAX_ENTRIES));
+    }
+
+    /**
+     * Registry written to .npmrc when Node is set up.
+     */
+    public static String getNpmRegistry() {
+        return normalizeBaseUrl(get(KEY_NPM_REGISTRY, DEFAULT_NPM_REGISTRY).trim());
+    }
+
+    public static boolean isNpmStrictSsl() {
+        return Boolean.parseBoolean(get(KEY_NPM_STRICT_SSL, "true").trim());
+    }
+
+    /**
+     * Packages installed globally after Node is set up (e.g. {@code cnpm@7.1.1}); empty skips the step.
+     */
+    public static List<String> getNpmGlobalPackages() {
+        List<String> packages = new ArrayList<>();
+        for (String spec : get(KEY_NPM_GLOBAL_PACKAGES, "").split(",")) {
+            if (!spec.isBlank()) {
+                packages.add(spec.trim());
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * Keys under {@code maven.settings.} with the prefix removed, e.g. {@code mirror.<id>.url};
+     * applied to settings.xml after Maven is unzipped.
+     */
+    public static Map<String, String> getMavenSettingsProfile() {
+        Map<String, String> profile = new TreeMap<>();
+        snapshot().values.forEach((name, value) -> {
+            if (name.startsWith(PREFIX_MAVEN_SETTINGS)) {
+                profile.put(name.substring(PREFIX_MAVEN_SETTINGS.length()), value);
+            }
+        });
+        return profile;
+    }
+
+    /**
+     * Base URL first, then the extra {@code *.mirrors} entries; duplicates removed.
+     */
+    public static List<String> getJdkMirrors() {
+        return mirrors(getJdkBaseUrl(), KEY_JDK_MIRRORS);
+    }
+
+    public static List<String> getMavenMirrors() {
+        return mirrors(getMavenBaseUrl(), KEY_MAVEN_MIRRORS);
+    }
+
+    public static List<String> getNodeMirrors() {
+        return mirrors(getNodeBaseUrl(), KEY_NODE_MIRRORS);
+    }
+
+    /**
+     * Probe the candidate mirrors and use the fastest one; when false the base URL is always used.
+     */
+    public static boolean isMirrorAutoSelect() {
+        return Boolean.parseBoolean(get(KEY_MIRROR_AUTO_SELECT, "true").trim());
+    }
+
+    /**
+     * Resolves the download URL. With more than one candidate this probes the network
+     * (bounded by {@code mirror.probe-timeout-ms}), so call it off the FX thread.
+     */
     public static String buildJdkUrl(String version) {
+        List<String> candidates = new ArrayList<>();
         String template = getJdkUrlTemplate();
         if (template != null && template.contains("{version}")) {
-            return template.replace("{version}", version);
+            candidates.add(template.replace("{version}", version));
         }
 
-        String artifactPath = JDKVersionConfig.getArtifactPath(version);
-        if (artifactPath == null || artifactPath.isBlank()) {
+        String artifactPath = getVersionCatalog().current().getJdkArtifactPath(version);
+        if (artifactPath != null && !artifactPath.isBlank()) {
+            for (String mirror : getJdkMirrors()) {
+                candidates.add(mirror + artifactPath);
+            }
+        }
+        if (candidates.isEmpty()) {
             throw new IllegalArgumentException("Unsupported JDK version: " + version);
         }
-        return getJdkBaseUrl() + artifactPath;
+        return pick(candidates);
     }
 
     public static String buildMavenUrl(String version) {
-        return getMavenBaseUrl() + version + "/binaries/apache-maven-" + version + "-bin.zip";
+        List<String> candidates = new ArrayList<>();
+        for (String mirror : getMavenMirrors()) {
+            candidates.add(mirror + version + "/binaries/apache-maven-" + version + "-bin.zip");
+        }
+        return pick(candidates);
     }
 
     public static String buildNodeUrl(String version) {
-        return getNodeBaseUrl() + version + "/node-" + version + "-win-x64.zip";
+        List<String> candidates = new ArrayList<>();
+        for (String mirror : getNodeMirrors()) {
+            candidates.add(mirror + version + "/node-" + version + "-win-x64.zip");
+        }
+        return pick(candidates);
+    }
+
+    private static String pick(List<String> candidates) {
+        if (candidates.size() < 2 || !isMirrorAutoSelect()) {
+            return candidates.get(0);
+        }
+        return getMirrorSelector().select(candidates);
+    }
+
+    /**
+     * Versions offered in the UI, read from the version cache and refreshed from the configured sources.
+     */
+    public static VersionCatalog getVersionCatalog() {
+        Snapshot snapshot = snapshot();
+        synchronized (snapshot) {
+            if (snapshot.versionCatalog == null) {
+                snapshot.versionCatalog = new VersionCatalog(
+                        PathUtils.getVersionCatalogFile(),
+                        HttpTransport.shared(),
+                        TimeUnit.HOURS.toMillis(Math.max(0, getInt(KEY_CATALOG_TTL_HOURS, DEFAULT_CATALOG_TTL_HOURS))),
+                        getNodeBaseUrl(),
+                        getMavenBaseUrl(),
+                        normalizeBaseUrl(get(KEY_CATALOG_ADOPTIUM_API, DEFAULT_CATALOG_ADOPTIUM_API)));
+            }
+            return snapshot.versionCatalog;
+        }
+    }
+
+    private static MirrorSelector getMirrorSelector() {
+        Snapshot snapshot = snapshot();
+        synchronized (snapshot) {
+            if (snapshot.mirrorSelector == null) {
+                snapshot.mirrorSelector = new MirrorSelector(
+                        TimeUnit.MINUTES.toMillis(getInt(KEY_MIRROR_TTL_MINUTES, DEFAULT_MIRROR_TTL_MINUTES)),
+                        getInt(KEY_MIRROR_TIMEOUT_MS, DEFAULT_MIRROR_TIMEOUT_MS),
+                        MIRROR_PROBE_BYTES);
+            }
+            return snapshot.mirrorSelector;
+        }
+    }
+
+    private static List<String> mirrors(String baseUrl, String key) {
+        List<String> result = new ArrayList<>();
+        if (!baseUrl.isEmpty()) {
+            result.add(baseUrl);
+        }
+        String extra = get(key, "");
+        for (String mirror : extra.split(",")) {
+            String normalized = normalizeBaseUrl(mirror.trim());
+            if (!normalized.isEmpty() && !result.contains(normalized)) {
+                result.add(normalized);
+            }
+        }
+        return result;
     }
 
     public static synchronized void saveLocalOverrides(String jdkBaseUrl,
                                                        String mavenBaseUrl,
                                                        String nodeBaseUrl) throws IOException {
+        Path path = getLocalOverridePath();
         Properties props = new Properties();
+        if (Files.isRegularFile(path)) {
+            // Keep tuning keys that are not editable from the UI.
+            try (InputStream in = Files.newInputStream(path)) {
+                props.load(in);
+            }
+        }
         props.setProperty(KEY_JDK_BASE, normalizeBaseUrl(jdkBaseUrl));
         props.setProperty(KEY_JDK_URL_TEMPLATE, getJdkUrlTemplate());
         props.setProperty(KEY_MAVEN_BASE, normalizeBaseUrl(mavenBaseUrl));
         props.setProperty(KEY_NODE_BASE, normalizeBaseUrl(nodeBaseUrl));
 
-        Path path = getLocalOverridePath();
         if (path.getParent() != null) {
             Files.createDirectories(path.getParent());
         }
@@ -103,16 +447,28 @@ public final class DownloadSourceConfig {
     }
 
     private static String get(String key, String defaultValue) {
-        Properties props = cached;
-        if (props == null) {
-            synchronized (DownloadSourceConfig.class) {
-                if (cached == null) {
-                    cached = loadProperties();
-                }
-                props = cached;
-            }
+        return snapshot().values.getOrDefault(key, defaultValue);
+    }
+
+    private static Snapshot snapshot() {
+        Snapshot current = SNAPSHOT.get();
+        if (current == null) {
+            SNAPSHOT.compareAndSet(null, new Snapshot(loadProperties()));
+            current = SNAPSHOT.get();
+        }
+        return current;
+    }
+
+    private static int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
         }
-        return props.getProperty(key, defaultValue);
     }
 
     private static Properties loadProperties() {
@@ -166,4 +522,45 @@ public final class DownloadSourceConfig {
         }
         return url.endsWith("/") ? url : url + "/";
     }
+
+    /**
+     * Immutable view of the merged properties, plus the mirror scores and version catalog that
+     * were derived from it.
+     */
+    private static final class Snapshot {
+        private final Map<String, String> values;
+        private MirrorSelector mirrorSelector;
+        private VersionCatalog versionCatalog;
+
+        private Snapshot(Properties props) {
+            Map<String, String> map = new HashMap<>();
+            for (String name : props.stringPropertyNames()) {
+                map.put(name, props.getProperty(name));
+            }
+            this.values = Map.copyOf(map);
+        }
+
+        /**
+         * Reuse what was derived from {@code previous} when the keys it was built from did not change.
+         */
+        private void carryOver(Snapshot previous) {
+            synchronized (previous) {
+                mirrorSelector = sameValues(previous, KEY_MIRROR_TTL_MINUTES, KEY_MIRROR_TIMEOUT_MS)
+                        ? previous.mirrorSelector
+                        : null;
+                versionCatalog = sameValues(previous, KEY_CATALOG_TTL_HOURS, KEY_NODE_BASE, KEY_MAVEN_BASE, KEY_CATALOG_ADOPTIUM_API)
+                        ? previous.versionCatalog
+                        : null;
+            }
+        }
+
+        private boolean sameValues(Snapshot other, String... keys) {
+            for (String key : keys) {
+                if (!Objects.equals(values.get(key), other.values.get(key))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
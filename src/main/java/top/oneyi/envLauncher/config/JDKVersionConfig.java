@@ -5,6 +5,9 @@ import java.util.Map;
 
 /**
  *  JDK版本配置
+ *  <p>
+ *  Pinned archive names, used only for feature versions the {@link VersionCatalog} has not
+ *  fetched from the release API yet (first start without network).
  */
 public class JDKVersionConfig {
     private static final Map<String, String> VERSION_MAP = new HashMap<>();
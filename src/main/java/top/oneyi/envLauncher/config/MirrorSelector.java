@@ -0,0 +1,181 @@
+package top.oneyi.envLauncher.config;
+
+import top.oneyi.envLauncher.utils.HttpTransport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 镜像测速与选择
+ * <p>
+ * Probes every candidate URL concurrently with a small range GET, which both checks that the
+ * mirror actually has the file and measures latency (time to response headers) and throughput.
+ * Mirrors are ranked by the time the probe took, i.e. latency plus the transfer time of the
+ * probe bytes; a throughput extrapolated from such a short transfer is too noisy to rank on alone.
+ * Results are cached per URL for a TTL so repeated installs do not re-probe; a failed probe is
+ * only remembered for a short backoff, so one timeout does not bench a mirror for the whole TTL.
+ */
+public final class MirrorSelector {
+
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+    private static final ExecutorService PROBES = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "mirror-probe-" + THREAD_ID.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final long DEFAULT_FAILURE_TTL_MILLIS = 60_000;
+
+    private final long ttlMillis;
+    private final long failureTtlMillis;
+    private final int timeoutMillis;
+    private final int probeBytes;
+    private final Map<String, Score> scores = new ConcurrentHashMap<>();
+
+    public MirrorSelector(long ttlMillis, int timeoutMillis, int probeBytes) {
+        this(ttlMillis, Math.min(ttlMillis, DEFAULT_FAILURE_TTL_MILLIS), timeoutMillis, probeBytes);
+    }
+
+    /**
+     * @param failureTtlMillis how long a failed or timed-out probe keeps a mirror out of selection
+     */
+    public MirrorSelector(long ttlMillis, long failureTtlMillis, int timeoutMillis, int probeBytes) {
+        this.ttlMillis = ttlMillis;
+        this.failureTtlMillis = failureTtlMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.probeBytes = probeBytes;
+    }
+
+    /**
+     * @return the fastest healthy candidate, or the first candidate when none responded
+     */
+    public String select(List<String> candidates) {
+        if (candidates.size() < 2) {
+            return candidates.isEmpty() ? null : candidates.get(0);
+        }
+        return probeAll(candidates).stream()
+                .filter(Score::isHealthy)
+                .min(Comparator.comparingDouble(Score::getCost))
+                .map(Score::getUrl)
+                .orElse(candidates.get(0));
+    }
+
+    /**
+     * Scores in candidate order; fresh cached scores are reused, the rest are probed in parallel.
+     */
+    public List<Score> probeAll(List<String> candidates) {
+        long now = System.currentTimeMillis();
+        List<CompletableFuture<Score>> pending = new ArrayList<>(candidates.size());
+        for (String url : candidates) {
+            Score cachedScore = scores.get(url);
+            long cachedFor = cachedScore == null || cachedScore.healthy ? ttlMillis : failureTtlMillis;
+            if (cachedScore != null && now - cachedScore.measuredAt < cachedFor) {
+                pending.add(CompletableFuture.completedFuture(cachedScore));
+            } else {
+                pending.add(CompletableFuture.supplyAsync(() -> probe(url), PROBES));
+            }
+        }
+
+        List<Score> result = new ArrayList<>(pending.size());
+        for (CompletableFuture<Score> future : pending) {
+            Score score = future.join();
+            scores.put(score.url, score);
+            result.add(score);
+        }
+        return result;
+    }
+
+    public void invalidate() {
+        scores.clear();
+    }
+
+    private Score probe(String url) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = HttpTransport.shared().get(url,
+                    Map.of("Range", "bytes=0-" + (probeBytes - 1)), Duration.ofMillis(timeoutMillis));
+            long headersAt = System.nanoTime();
+            int code = response.statusCode();
+            if (code != HttpURLConnection.HTTP_OK && code != HttpURLConnection.HTTP_PARTIAL) {
+                HttpTransport.closeQuietly(response);
+                return Score.unhealthy(url);
+            }
+
+            long read = 0;
+            byte[] buffer = new byte[8192];
+            try (InputStream in = response.body()) {
+                int n;
+                while (read < probeBytes && (n = in.read(buffer, 0, (int) Math.min(buffer.length, probeBytes - read))) > 0) {
+                    read += n;
+                }
+            }
+            long end = System.nanoTime();
+
+            double latencySeconds = (headersAt - start) / 1e9;
+            double bytesPerSecond = read * 1e9 / Math.max(1, end - headersAt);
+            return new Score(url, true, latencySeconds, bytesPerSecond, (end - start) / 1e9);
+        } catch (IOException | RuntimeException e) {
+            return Score.unhealthy(url);
+        }
+    }
+
+    /**
+     * Probe result for one candidate URL.
+     */
+    public static final class Score {
+        private final String url;
+        private final boolean healthy;
+        private final double latencySeconds;
+        private final double bytesPerSecond;
+        private final double cost;
+        private final long measuredAt;
+
+        Score(String url, boolean healthy, double latencySeconds, double bytesPerSecond, double cost) {
+            this.url = url;
+            this.healthy = healthy;
+            this.latencySeconds = latencySeconds;
+            this.bytesPerSecond = bytesPerSecond;
+            this.cost = cost;
+            this.measuredAt = System.currentTimeMillis();
+        }
+
+        static Score unhealthy(String url) {
+            return new Score(url, false, Double.MAX_VALUE, 0, Double.MAX_VALUE);
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public double getLatencySeconds() {
+            return latencySeconds;
+        }
+
+        public double getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        /**
+         * Seconds the probe took (time to headers plus transfer); lower is better.
+         */
+        public double getCost() {
+            return cost;
+        }
+    }
+}
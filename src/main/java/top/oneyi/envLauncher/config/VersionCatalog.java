@@ -0,0 +1,521 @@
+package top.oneyi.envLauncher.config;
+
+import top.oneyi.envLauncher.utils.HttpTransport;
+import top.oneyi.envLauncher.utils.JsonReader;
+import top.oneyi.envLauncher.utils.LoggerUtil;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 版本目录
+ * <p>
+ * Offers the JDK, Maven and Node versions the configured sources actually have, instead of
+ * lists compiled into the app. {@link #refresh()} fetches the Node {@code index.json}, the Maven
+ * directory listing and the Adoptium release API concurrently and parses each response as it
+ * streams in. Results are kept in {@code versions.properties} with their ETag and fetch time:
+ * {@link #current()} answers from that file without network access, and a refresh only asks
+ * sources older than the TTL, with {@code If-None-Match}. A source that cannot be reached keeps
+ * its last known list; one that was never fetched falls back to {@link Versions#BUILT_IN}.
+ */
+public final class VersionCatalog {
+
+    static final String SOURCE_NODE = "node";
+    static final String SOURCE_MAVEN = "maven";
+    static final String SOURCE_JDK = "jdk";
+    static final String SOURCE_JDK_ASSET = "jdk-asset.";
+
+    /**
+     * Release lines offered per tool, and versions per line (e.g. Node 18/20/22 x 3 patches).
+     */
+    private static final int LINES = 3;
+    private static final int VERSIONS_PER_LINE = 3;
+
+    /**
+     * Numeric, component-wise: 3.9.10 after 3.9.9.
+     */
+    static final Comparator<String> VERSION_ORDER = (a, b) -> compareNumbers(numericKey(a), numericKey(b));
+
+    private static final Pattern MAVEN_DIR = Pattern.compile("href=\"(3\\.\\d+\\.\\d+)/\"");
+    private static final String NODE_WINDOWS_ZIP = "win-x64-zip";
+    private static final String ADOPTIUM_ASSET_QUERY = "/hotspot?architecture=x64&image_type=jdk&os=windows&vendor=eclipse";
+
+    private final File file;
+    private final HttpTransport transport;
+    private final long ttlMillis;
+    private final String nodeBaseUrl;
+    private final String mavenBaseUrl;
+    private final String adoptiumApiUrl;
+
+    /**
+     * Contents of {@code versions.properties}; guarded by {@code this}.
+     */
+    private Properties store;
+    private volatile Versions current;
+    private CompletableFuture<Versions> refreshing;
+
+    /**
+     * @param nodeBaseUrl    Node dist root with {@code index.json}
+     * @param mavenBaseUrl   Maven 3 dist root with one directory per version
+     * @param adoptiumApiUrl Adoptium API root, e.g. {@code https://api.adoptium.net/v3/}
+     */
+    public VersionCatalog(File file, HttpTransport transport, long ttlMillis,
+                          String nodeBaseUrl, String mavenBaseUrl, String adoptiumApiUrl) {
+        this.file = file;
+        this.transport = transport;
+        this.ttlMillis = ttlMillis;
+        this.nodeBaseUrl = nodeBaseUrl;
+        this.mavenBaseUrl = mavenBaseUrl;
+        this.adoptiumApiUrl = adoptiumApiUrl;
+    }
+
+    /**
+     * Versions from the on-disk cache (built-in lists for sources never fetched); no network access.
+     */
+    public Versions current() {
+        Versions versions = current;
+        if (versions == null) {
+            synchronized (this) {
+                if (current == null) {
+                    current = build();
+                }
+                versions = current;
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Fetch stale sources concurrently and save the result. Never completes exceptionally:
+     * failed sources keep their previous list. Calls while a refresh is running share it.
+     */
+    public synchronized CompletableFuture<Versions> refresh() {
+        if (refreshing != null && !refreshing.isDone()) {
+            return refreshing;
+        }
+        loadStore();
+        CompletableFuture<String> node = fetch(SOURCE_NODE, nodeBaseUrl + "index.json", VersionCatalog::parseNodeIndex);
+        CompletableFuture<String> maven = fetch(SOURCE_MAVEN, mavenBaseUrl, VersionCatalog::parseMavenListing);
+        CompletableFuture<Void> jdk = fetch(SOURCE_JDK, adoptiumApiUrl + "info/available_releases", VersionCatalog::parseAdoptiumReleases)
+                .thenCompose(features -> {
+                    List<CompletableFuture<String>> assets = new ArrayList<>();
+                    for (String feature : split(features)) {
+                        assets.add(fetch(SOURCE_JDK_ASSET + feature,
+                                adoptiumApiUrl + "assets/latest/" + feature + ADOPTIUM_ASSET_QUERY,
+                                VersionCatalog::parseAdoptiumAsset));
+                    }
+                    return CompletableFuture.allOf(assets.toArray(new CompletableFuture<?>[0]));
+                });
+
+        refreshing = CompletableFuture.allOf(node, maven, jdk).handle((ignored, error) -> {
+            synchronized (this) {
+                saveStore();
+                current = build();
+                return current;
+            }
+        });
+        return refreshing;
+    }
+
+    /**
+     * @return the cached value of a source: the fresh one from the cache, or a fetched one;
+     * the stale cached value (or null) when the source failed
+     */
+    private CompletableFuture<String> fetch(String id, String url, Parser parser) {
+        String cachedValue;
+        String etag;
+        synchronized (this) {
+            boolean sameUrl = url.equals(store.getProperty(id + ".url"));
+            cachedValue = sameUrl ? store.getProperty(id + ".value") : null;
+            etag = sameUrl ? store.getProperty(id + ".etag") : null;
+            long fetchedAt = sameUrl ? parseLong(store.getProperty(id + ".fetched")) : 0;
+            if (cachedValue != null && System.currentTimeMillis() - fetchedAt < ttlMillis) {
+                return CompletableFuture.completedFuture(cachedValue);
+            }
+        }
+
+        Map<String, String> headers = etag != null && cachedValue != null
+                ? Map.of("If-None-Match", etag)
+                : Collections.emptyMap();
+        CompletableFuture<HttpResponse<InputStream>> request;
+        try {
+            request = transport.getAsync(url, headers);
+        } catch (RuntimeException e) {
+            // e.g. a malformed base URL in the configuration
+            request = CompletableFuture.failedFuture(e);
+        }
+        return request.thenApply(response -> {
+            int code = response.statusCode();
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED && cachedValue != null) {
+                HttpTransport.closeQuietly(response);
+                remember(id, url, etag, cachedValue);
+                return cachedValue;
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                HttpTransport.closeQuietly(response);
+                throw new CompletionException(new IOException("HTTP " + code + " from " + url));
+            }
+            String value;
+            try (Reader reader = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+                value = parser.parse(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            remember(id, url, response.headers().firstValue("ETag").orElse(null), value);
+            return value;
+        }).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            LoggerUtil.warn("Version list refresh failed, keeping the last known list",
+                    "source", id, "error", String.valueOf(cause.getMessage()));
+            return cachedValue;
+        });
+    }
+
+    private synchronized void remember(String id, String url, String etag, String value) {
+        store.setProperty(id + ".url", url);
+        store.setProperty(id + ".value", value);
+        store.setProperty(id + ".fetched", String.valueOf(System.currentTimeMillis()));
+        if (etag != null) {
+            store.setProperty(id + ".etag", etag);
+        } else {
+            store.remove(id + ".etag");
+        }
+    }
+
+    private Versions build() {
+        loadStore();
+        List<String> jdk = split(store.getProperty(SOURCE_JDK + ".value"));
+        if (jdk.isEmpty()) {
+            jdk = Versions.BUILT_IN.jdk;
+        }
+        Map<String, String> jdkAssets = new HashMap<>();
+        for (String feature : jdk) {
+            String name = store.getProperty(SOURCE_JDK_ASSET + feature + ".value");
+            if (name != null && !name.isBlank()) {
+                jdkAssets.put(feature, feature + "/jdk/x64/windows/" + name);
+            }
+        }
+        List<String> maven = split(store.getProperty(SOURCE_MAVEN + ".value"));
+        List<String> node = split(store.getProperty(SOURCE_NODE + ".value"));
+        return new Versions(jdk,
+                maven.isEmpty() ? Versions.BUILT_IN.maven : maven,
+                node.isEmpty() ? Versions.BUILT_IN.node : node,
+                jdkAssets);
+    }
+
+    private void loadStore() {
+        if (store != null) {
+            return;
+        }
+        store = new Properties();
+        if (!file.isFile()) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            store.load(in);
+        } catch (IOException e) {
+            LoggerUtil.warn("Read version cache failed, using built-in versions: " + e.getMessage());
+        }
+    }
+
+    private void saveStore() {
+        try {
+            File dir = file.getParentFile();
+            if (dir != null && !dir.exists() && !dir.mkdirs()) {
+                throw new IOException("Create directory failed: " + dir);
+            }
+            Path target = file.toPath();
+            Path tmp = target.resolveSibling(file.getName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                store.store(out, "envLauncher version catalog");
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LoggerUtil.warn("Write version cache failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Node {@code index.json}: LTS releases that ship a Windows x64 zip.
+     */
+    static String parseNodeIndex(Reader source) throws IOException {
+        List<String> versions = new ArrayList<>();
+        JsonReader json = new JsonReader(source);
+        json.beginArray();
+        while (json.hasNext()) {
+            String version = null;
+            boolean windowsZip = false;
+            boolean lts = false;
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if ("version".equals(name)) {
+                    version = json.nextString();
+                } else if ("lts".equals(name)) {
+                    String value = json.nextString();
+                    lts = value != null && !"false".equals(value);
+                } else if ("files".equals(name)) {
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        windowsZip |= NODE_WINDOWS_ZIP.equals(json.nextString());
+                    }
+                    json.endArray();
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+            if (version != null && windowsZip && lts) {
+                versions.add(version.startsWith("v") ? version.substring(1) : version);
+            }
+        }
+        return String.join(",", newest(versions, 1));
+    }
+
+    /**
+     * Maven dist directory listing: one {@code 3.x.y/} link per release.
+     */
+    static String parseMavenListing(Reader source) throws IOException {
+        List<String> versions = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(source);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            Matcher matcher = MAVEN_DIR.matcher(line);
+            while (matcher.find()) {
+                versions.add(matcher.group(1));
+            }
+        }
+        return String.join(",", newest(versions, 2));
+    }
+
+    /**
+     * Adoptium {@code info/available_releases}: the LTS feature versions.
+     */
+    static String parseAdoptiumReleases(Reader source) throws IOException {
+        List<String> features = new ArrayList<>();
+        JsonReader json = new JsonReader(source);
+        json.beginObject();
+        while (json.hasNext()) {
+            if ("available_lts_releases".equals(json.nextName())) {
+                json.beginArray();
+                while (json.hasNext()) {
+                    features.add(json.nextString());
+                }
+                json.endArray();
+            } else {
+                json.skipValue();
+            }
+        }
+        features.sort(VERSION_ORDER);
+        return String.join(",", features);
+    }
+
+    /**
+     * Adoptium {@code assets/latest/<feature>/hotspot}: file name of the first zip package.
+     */
+    static String parseAdoptiumAsset(Reader source) throws IOException {
+        JsonReader json = new JsonReader(source);
+        json.beginArray();
+        String found = null;
+        while (json.hasNext()) {
+            json.beginObject();
+            while (json.hasNext()) {
+                if ("binary".equals(json.nextName())) {
+                    String name = packageName(json);
+                    if (found == null && name != null && name.endsWith(".zip")) {
+                        found = name;
+                    }
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        if (found == null) {
+            throw new IOException("No zip package in release asset list");
+        }
+        return found;
+    }
+
+    private static String packageName(JsonReader json) throws IOException {
+        String name = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            if ("package".equals(json.nextName())) {
+                json.beginObject();
+                while (json.hasNext()) {
+                    if ("name".equals(json.nextName())) {
+                        name = json.nextString();
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endObject();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return name;
+    }
+
+    /**
+     * The newest {@value #VERSIONS_PER_LINE} versions of each of the newest {@value #LINES}
+     * release lines, oldest first (the order the combo boxes show).
+     *
+     * @param lineDepth version components that make a line: 1 for Node majors, 2 for Maven 3.x
+     */
+    static List<String> newest(List<String> versions, int lineDepth) {
+        Map<String, List<String>> lines = new TreeMap<>(VERSION_ORDER.reversed());
+        for (String version : versions) {
+            String[] parts = version.split("\\.");
+            if (parts.length < lineDepth) {
+                continue;
+            }
+            String line = String.join(".", Arrays.copyOf(parts, lineDepth));
+            lines.computeIfAbsent(line, key -> new ArrayList<>()).add(version);
+        }
+
+        List<String> result = new ArrayList<>();
+        int taken = 0;
+        for (List<String> line : lines.values()) {
+            if (taken++ == LINES) {
+                break;
+            }
+            line.sort(VERSION_ORDER.reversed());
+            result.addAll(line.subList(0, Math.min(VERSIONS_PER_LINE, line.size())));
+        }
+        result.sort(VERSION_ORDER);
+        return result;
+    }
+
+    private static int[] numericKey(String version) {
+        String[] parts = version.split("\\.");
+        int[] key = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                key[i] = Integer.parseInt(parts[i]);
+            } catch (NumberFormatException e) {
+                key[i] = 0;
+            }
+        }
+        return key;
+    }
+
+    private static int compareNumbers(int[] a, int[] b) {
+        for (int i = 0; i < Math.max(a.length, b.length); i++) {
+            int x = i < a.length ? a[i] : 0;
+            int y = i < b.length ? b[i] : 0;
+            if (x != y) {
+                return Integer.compare(x, y);
+            }
+        }
+        return 0;
+    }
+
+    private static List<String> split(String value) {
+        List<String> result = new ArrayList<>();
+        if (value == null) {
+            return result;
+        }
+        for (String item : value.split(",")) {
+            if (!item.isBlank()) {
+                result.add(item.trim());
+            }
+        }
+        return result;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value == null ? 0 : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @FunctionalInterface
+    interface Parser {
+        String parse(Reader source) throws IOException;
+    }
+
+    /**
+     * The versions offered for each tool, oldest first.
+     */
+    public static final class Versions {
+
+        /**
+         * Used for sources that were never fetched (first start without network).
+         */
+        public static final Versions BUILT_IN = new Versions(
+                List.of("8", "11", "17", "21"),
+                List.of("3.8.8", "3.9.8", "3.9.9", "3.9.10"),
+                List.of("18.20.8", "20.19.2", "22.16.0"),
+                Collections.emptyMap());
+
+        private final List<String> jdk;
+        private final List<String> maven;
+        private final List<String> node;
+        private final Map<String, String> jdkArtifactPaths;
+
+        Versions(List<String> jdk, List<String> maven, List<String> node, Map<String, String> jdkArtifactPaths) {
+            this.jdk = List.copyOf(jdk);
+            this.maven = List.copyOf(maven);
+            this.node = List.copyOf(node);
+            this.jdkArtifactPaths = Collections.unmodifiableMap(new LinkedHashMap<>(jdkArtifactPaths));
+        }
+
+        /**
+         * JDK feature versions, e.g. 17.
+         */
+        public List<String> getJdk() {
+            return jdk;
+        }
+
+        public List<String> getMaven() {
+            return maven;
+        }
+
+        /**
+         * Node versions without the leading {@code v}.
+         */
+        public List<String> getNode() {
+            return node;
+        }
+
+        /**
+         * @return path of the Windows x64 JDK zip below a mirror root, from the release API when
+         * known, else the one pinned in {@link JDKVersionConfig}
+         */
+        public String getJdkArtifactPath(String feature) {
+            String path = jdkArtifactPaths.get(feature);
+            return path != null ? path : JDKVersionConfig.getArtifactPath(feature);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package top.oneyi.envLauncher.controller;
+
+import javafx.collections.ObservableListBase;
+import top.oneyi.envLauncher.utils.LogEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 日志列表（固定容量环形缓冲）
+ * <p>
+ * Backs the log view: keeps the newest {@code capacity} entries in a fixed array, so a long
+ * session costs the same memory as a short one and appending never copies what is already
+ * there. Evicted entries are still in the on-disk log. Like every list bound to a control,
+ * it must only be changed on the FX thread.
+ */
+public class BoundedLogList extends ObservableListBase<LogEntry> {
+
+    private final LogEntry[] ring;
+    private int head;
+    private int size;
+    private long evicted;
+
+    public BoundedLogList(int capacity) {
+        this.ring = new LogEntry[Math.max(1, capacity)];
+    }
+
+    @Override
+    public LogEntry get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return ring[slot(index)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * @return entries dropped so far to stay within the capacity
+     */
+    public long getEvictedCount() {
+        return evicted;
+    }
+
+    /**
+     * Add a batch at the end, dropping the oldest entries beyond the capacity; one change event.
+     */
+    public void append(List<LogEntry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Of a batch larger than the whole ring only the tail can survive.
+        List<LogEntry> kept = batch.size() > ring.length
+                ? batch.subList(batch.size() - ring.length, batch.size())
+                : batch;
+        evicted += batch.size() - kept.size();
+        int drop = Math.max(0, size + kept.size() - ring.length);
+
+        beginChange();
+        if (drop > 0) {
+            List<LogEntry> removed = new ArrayList<>(drop);
+            for (int i = 0; i < drop; i++) {
+                removed.add(ring[slot(i)]);
+                ring[slot(i)] = null;
+            }
+            head = slot(drop);
+            size -= drop;
+            evicted += drop;
+            nextRemove(0, removed);
+        }
+        int from = size;
+        for (LogEntry entry : kept) {
+            ring[slot(size)] = entry;
+            size++;
+        }
+        nextAdd(from, size);
+        endChange();
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        List<LogEntry> removed = new ArrayList<>(this);
+        for (int i = 0; i < size; i++) {
+            ring[slot(i)] = null;
+        }
+        head = 0;
+        size = 0;
+        beginChange();
+        nextRemove(0, removed);
+        endChange();
+    }
+
+    private int slot(int index) {
+        return (head + index) % ring.length;
+    }
+}
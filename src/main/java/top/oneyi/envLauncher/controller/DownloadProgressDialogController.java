@@ -31,6 +31,16 @@ public class DownloadProgressDialogController {
         return cancelRequested;
     }
 
+    /**
+     * Back to the freshly loaded state, so a cached dialog can be shown for the next download.
+     */
+    public void reset() {
+        cancelRequested = false;
+        progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        statusLabel.setText("Downloading...");
+        sizeLabel.setText("");
+    }
+
     public void closeStream(InputStream inputStream,
                             FileOutputStream fileOutputStream,
                             String destinationPath) throws IOException {
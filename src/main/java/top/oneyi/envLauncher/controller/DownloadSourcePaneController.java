@@ -0,0 +1,125 @@
+package top.oneyi.envLauncher.controller;
+
+import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.TextField;
+import top.oneyi.envLauncher.config.DownloadSourceConfig;
+import top.oneyi.envLauncher.service.EnvInstallerService;
+import top.oneyi.envLauncher.utils.LoggerUtil;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * 下载源配置面板控制器
+ * <p>
+ * Loaded by {@link EnvInstallerController} when the pane is first expanded, so the fields are
+ * not built and the configuration is not read while the main window starts.
+ */
+public class DownloadSourcePaneController {
+    @FXML
+    private TextField jdkSourceField;
+    @FXML
+    private TextField mavenSourceField;
+    @FXML
+    private TextField nodeSourceField;
+    @FXML
+    private Button reloadSourcesButton;
+    @FXML
+    private Button saveSourcesButton;
+    @FXML
+    private TextField bandwidthField;
+
+    private BooleanSupplier busy = () -> false;
+
+    @FXML
+    private void initialize() {
+        loadDownloadSourceFields();
+    }
+
+    void setBusyCheck(BooleanSupplier busy) {
+        this.busy = busy;
+    }
+
+    public void onReloadDownloadSources() {
+        if (busy.getAsBoolean()) {
+            LoggerUtil.info("Task is running. Please wait.");
+            return;
+        }
+
+        DownloadSourceConfig.reload();
+        loadDownloadSourceFields();
+        LoggerUtil.info("Download sources reloaded.");
+    }
+
+    public void onSaveDownloadSources() {
+        if (busy.getAsBoolean()) {
+            LoggerUtil.info("Task is running. Please wait.");
+            return;
+        }
+
+        String jdkBase = safeTrim(jdkSourceField.getText());
+        String mavenBase = safeTrim(mavenSourceField.getText());
+        String nodeBase = safeTrim(nodeSourceField.getText());
+
+        if (!isValidUrl(jdkBase) || !isValidUrl(mavenBase) || !isValidUrl(nodeBase)) {
+            LoggerUtil.warn("Save failed: source URL must start with http:// or https://");
+            return;
+        }
+
+        try {
+            DownloadSourceConfig.saveLocalOverrides(jdkBase, mavenBase, nodeBase);
+            loadDownloadSourceFields();
+            LoggerUtil.info("Download sources saved to: " + DownloadSourceConfig.getLocalOverridePath());
+        } catch (Exception e) {
+            LoggerUtil.error("Save download sources failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Takes effect on running downloads too; the file value applies again after a restart.
+     */
+    public void onApplyBandwidthLimit() {
+        long kbps;
+        try {
+            kbps = Long.parseLong(safeTrim(bandwidthField.getText()));
+        } catch (NumberFormatException e) {
+            kbps = -1;
+        }
+        if (kbps < 0) {
+            LoggerUtil.warn("Bandwidth limit must be a whole number of KB/s, 0 for unlimited.");
+            return;
+        }
+        EnvInstallerService.getBandwidthLimiter().setRate(kbps * 1024);
+        LoggerUtil.info(kbps == 0 ? "Bandwidth limit removed." : "Bandwidth limit set: " + kbps + " KB/s");
+    }
+
+    void refreshUiState(boolean busy) {
+        reloadSourcesButton.setDisable(busy);
+        saveSourcesButton.setDisable(busy);
+        jdkSourceField.setDisable(busy);
+        mavenSourceField.setDisable(busy);
+        nodeSourceField.setDisable(busy);
+    }
+
+    /**
+     * Show the values of the current configuration, e.g. after the file changed on disk.
+     */
+    void refreshFields() {
+        loadDownloadSourceFields();
+    }
+
+    private void loadDownloadSourceFields() {
+        jdkSourceField.setText(DownloadSourceConfig.getJdkBaseUrl());
+        mavenSourceField.setText(DownloadSourceConfig.getMavenBaseUrl());
+        nodeSourceField.setText(DownloadSourceConfig.getNodeBaseUrl());
+        bandwidthField.setText(String.valueOf(EnvInstallerService.getBandwidthLimiter().getRate() / 1024));
+    }
+
+    private boolean isValidUrl(String value) {
+        return value != null && (value.startsWith("http://") || value.startsWith("https://"));
+    }
+
+    private String safeTrim(String value) {
+        return value == null ? "" : value.trim();
+    }
+}
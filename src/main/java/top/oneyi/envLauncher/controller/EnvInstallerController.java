@@ -1,29 +1,65 @@
 package top.oneyi.envLauncher.controller;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.concurrent.Task;
 import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
-import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
+import javafx.scene.control.TitledPane;
 import javafx.stage.DirectoryChooser;
+import top.oneyi.envLauncher.MainApp;
 import top.oneyi.envLauncher.config.DownloadSourceConfig;
+import top.oneyi.envLauncher.config.VersionCatalog;
 import top.oneyi.envLauncher.service.EnvInstallerService;
-import top.oneyi.envLauncher.utils.EnvUtil;
+import top.oneyi.envLauncher.service.TaskScheduler;
+import top.oneyi.envLauncher.service.ToolchainRegistry;
+import top.oneyi.envLauncher.service.TaskScheduler.State;
+import top.oneyi.envLauncher.service.TaskScheduler.TaskSpec;
+import top.oneyi.envLauncher.utils.EnvironmentWriter;
 import top.oneyi.envLauncher.utils.LoggerUtil;
 import top.oneyi.envLauncher.utils.PathUtils;
+import top.oneyi.envLauncher.utils.RollingLogFile;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class EnvInstallerController {
 
+    private static final String TOOL_JDK = "jdk";
+    private static final String TOOL_MAVEN = "maven";
+    private static final String TOOL_NODE = "node";
+
+    private static final String TASK_JDK_DOWNLOAD = "JDK download";
+    private static final String TASK_JDK_ENV = "JDK env";
+    private static final String TASK_MAVEN_DOWNLOAD = "Maven download";
+    private static final String TASK_MAVEN_ENV = "Maven env";
+    private static final String TASK_NODE_DOWNLOAD = "Node download";
+    private static final String TASK_NODE_ENV = "Node env";
+    private static final String TASK_ENV_COMMIT = "Write environment";
+
+    private static final String RECOMMENDED_JDK = "17";
+    private static final String RECOMMENDED_MAVEN = "3.9.10";
+    private static final String RECOMMENDED_NODE = "20.19.2";
+
     @FXML
     private TextField jdkPathField;
+    /**
+     * Controller of the included log-pane.fxml.
+     */
     @FXML
-    private TextArea outputArea;
+    private LogPaneController logPaneController;
 
     @FXML
     private ComboBox<String> jdkVersionCombo;
@@ -33,11 +69,7 @@ public class EnvInstallerController {
     private ComboBox<String> nodeVersionCombo;
 
     @FXML
-    private TextField jdkSourceField;
-    @FXML
-    private TextField mavenSourceField;
-    @FXML
-    private TextField nodeSourceField;
+    private TitledPane downloadSourcePane;
 
     @FXML
     private Button chooseJdkButton;
@@ -54,23 +86,36 @@ public class EnvInstallerController {
     @FXML
     private Button oneClickInstallButton;
     @FXML
-    private Button reloadSourcesButton;
-    @FXML
-    private Button saveSourcesButton;
+    private Button cancelTasksButton;
 
     @FXML
     private Label flowStepLabel;
 
-    private final EnvInstallerService service = new EnvInstallerService();
+    private final EnvInstallerService service = new EnvInstallerService(FxProgressView::open);
+    private final TaskScheduler scheduler = new TaskScheduler();
 
     private boolean jdkReady;
     private boolean mavenReady;
     private boolean nodeReady;
     private boolean jdkEnvReady;
-    private boolean busy;
+
+    /**
+     * Tools with a task graph in flight; only touched on the FX thread.
+     */
+    private final Set<String> busyTools = new HashSet<>();
+    private final Set<String> runningTasks = new LinkedHashSet<>();
+    /**
+     * Graphs still in flight, so the cancel button can stop them; only touched on the FX thread.
+     */
+    private final Set<TaskScheduler.Run> activeRuns = new HashSet<>();
+
+    /**
+     * Null until the download source pane has been expanded once.
+     */
+    private DownloadSourcePaneController sourcePaneController;
 
     public void onChooseJdkDir() {
-        if (busy) {
+        if (busyTools.contains(TOOL_JDK)) {
             LoggerUtil.info("Task is running. Please wait.");
             return;
         }
@@ -87,7 +132,7 @@ public class EnvInstallerController {
     }
 
     public void onSetEnvironmentVariables() {
-        if (busy) {
+        if (busyTools.contains(TOOL_JDK)) {
             LoggerUtil.info("Task is running. Please wait.");
             return;
         }
@@ -98,87 +143,37 @@ public class EnvInstallerController {
             return;
         }
 
-        setBusy(true, "Step 4/4: Set JDK environment variables");
         LoggerUtil.info("Setting JDK environment variables...");
-
-        Task<Void> task = new Task<>() {
-            @Override
-            protected Void call() throws Exception {
-                EnvUtil.setJdkEnvironmentVariables(javaHome, "%JAVA_HOME%\\bin");
-                return null;
+        EnvironmentWriter session = service.newEnvironmentSession();
+        List<TaskSpec> graph = List.of(jdkEnvTask(session, () -> javaHome), envCommitTask(session, TASK_JDK_ENV));
+        runGraph("Step 4/4: Set JDK environment variables", Set.of(TOOL_JDK), graph, states -> {
+            if (isEnvironmentWritten(states, TASK_JDK_ENV)) {
+                jdkEnvReady = true;
+                LoggerUtil.info("JDK environment variables set. Restart terminal or IDE.");
             }
-        };
-
-        task.setOnSucceeded(event -> {
-            jdkEnvReady = true;
-            LoggerUtil.info("JDK environment variables set. Restart terminal or IDE.");
-            setBusy(false, null);
-        });
-
-        task.setOnFailed(event -> {
-            LoggerUtil.info("Set JDK environment failed: " + safeError(task.getException()));
-            setBusy(false, null);
         });
-
-        new Thread(task, "set-jdk-env-thread").start();
     }
 
     public void onShowCurrentConfig() {
-        if (busy) {
+        if (isBusy()) {
             LoggerUtil.info("Task is running. Please wait.");
             return;
         }
 
-        try {
-            String jdkEnv = EnvUtil.getJdkEnvironmentVariables();
-            String mavenEnv = EnvUtil.getMavenEnvironmentVariables();
-            LoggerUtil.info("Current JDK config: " + jdkEnv);
-            LoggerUtil.info("Current Maven config: " + mavenEnv);
-            LoggerUtil.info("Download source (JDK): " + DownloadSourceConfig.getJdkBaseUrl());
-            LoggerUtil.info("Download source (Maven): " + DownloadSourceConfig.getMavenBaseUrl());
-            LoggerUtil.info("Download source (Node): " + DownloadSourceConfig.getNodeBaseUrl());
-        } catch (Exception e) {
-            LoggerUtil.info("Read current config failed: " + safeError(e));
+        List<ToolchainRegistry.Toolchain> installed = service.listInstalled();
+        if (installed.isEmpty()) {
+            LoggerUtil.info("Nothing installed by envLauncher yet.");
         }
-    }
-
-    public void onReloadDownloadSources() {
-        if (busy) {
-            LoggerUtil.info("Task is running. Please wait.");
-            return;
-        }
-
-        DownloadSourceConfig.reload();
-        loadDownloadSourceFields();
-        LoggerUtil.info("Download sources reloaded.");
-    }
-
-    public void onSaveDownloadSources() {
-        if (busy) {
-            LoggerUtil.info("Task is running. Please wait.");
-            return;
-        }
-
-        String jdkBase = safeTrim(jdkSourceField.getText());
-        String mavenBase = safeTrim(mavenSourceField.getText());
-        String nodeBase = safeTrim(nodeSourceField.getText());
-
-        if (!isValidUrl(jdkBase) || !isValidUrl(mavenBase) || !isValidUrl(nodeBase)) {
-            LoggerUtil.info("Save failed: source URL must start with http:// or https://");
-            return;
-        }
-
-        try {
-            DownloadSourceConfig.saveLocalOverrides(jdkBase, mavenBase, nodeBase);
-            loadDownloadSourceFields();
-            LoggerUtil.info("Download sources saved to: " + DownloadSourceConfig.getLocalOverridePath());
-        } catch (Exception e) {
-            LoggerUtil.info("Save download sources failed: " + safeError(e));
+        for (ToolchainRegistry.Toolchain toolchain : installed) {
+            LoggerUtil.info("Installed: " + toolchain);
         }
+        LoggerUtil.info("Download source (JDK): " + DownloadSourceConfig.getJdkBaseUrl());
+        LoggerUtil.info("Download source (Maven): " + DownloadSourceConfig.getMavenBaseUrl());
+        LoggerUtil.info("Download source (Node): " + DownloadSourceConfig.getNodeBaseUrl());
     }
 
     public void onDownloadJdk() {
-        if (busy) {
+        if (busyTools.contains(TOOL_JDK)) {
             LoggerUtil.info("Task is running. Please wait.");
             return;
         }
@@ -189,43 +184,49 @@ public class EnvInstallerController {
             return;
         }
 
-        setBusy(true, "Step 2/4: Download JDK");
         LoggerUtil.info("Start downloading JDK " + version + " ...");
-
-        service.onDownloadJdk(version, this::updateJdkPathInput, success -> {
-            if (success) {
+        List<TaskSpec> graph = List.of(jdkDownloadTask(version, new AtomicReference<>()));
+        runGraph("Step 2/4: Download JDK", Set.of(TOOL_JDK), graph, states -> {
+            if (states.get(TASK_JDK_DOWNLOAD) == State.SUCCEEDED) {
                 jdkReady = true;
                 LoggerUtil.info("JDK download and unzip completed.");
             } else {
                 LoggerUtil.info("JDK download flow did not complete.");
             }
-            setBusy(false, null);
         });
     }
 
     public void onSetupMaven() {
-        if (busy) {
+        if (busyTools.contains(TOOL_MAVEN)) {
             LoggerUtil.info("Task is running. Please wait.");
             return;
         }
 
         String version = mavenVersionCombo.getValue();
-        setBusy(true, "Step 3/4: Setup Maven");
+        if (version == null || version.isBlank()) {
+            LoggerUtil.info("Please select a Maven version.");
+            return;
+        }
+
         LoggerUtil.info("Start Maven setup " + version + " ...");
 
-        service.onSetupMaven(version, success -> {
-            if (success) {
+        AtomicReference<String> mavenHome = new AtomicReference<>();
+        EnvironmentWriter session = service.newEnvironmentSession();
+        List<TaskSpec> graph = List.of(mavenDownloadTask(version, mavenHome),
+                mavenEnvTask(session, mavenHome),
+                envCommitTask(session, TASK_MAVEN_ENV));
+        runGraph("Step 3/4: Setup Maven", Set.of(TOOL_MAVEN), graph, states -> {
+            if (isEnvironmentWritten(states, TASK_MAVEN_ENV)) {
                 mavenReady = true;
                 LoggerUtil.info("Maven setup completed.");
             } else {
                 LoggerUtil.info("Maven setup did not complete.");
             }
-            setBusy(false, null);
         });
     }
 
     public void onSetupNode() {
-        if (busy) {
+        if (busyTools.contains(TOOL_NODE)) {
             LoggerUtil.info("Task is running. Please wait.");
             return;
         }
@@ -236,201 +237,312 @@ public class EnvInstallerController {
             return;
         }
 
-        setBusy(true, "Step 3/4: Setup Node");
         LoggerUtil.info("Start Node setup v" + version + " ...");
 
-        service.onSetupNode("v" + version, success -> {
-            if (success) {
+        AtomicReference<String> nodeHome = new AtomicReference<>();
+        EnvironmentWriter session = service.newEnvironmentSession();
+        List<TaskSpec> graph = List.of(nodeDownloadTask("v" + version, nodeHome),
+                nodeEnvTask(session, nodeHome),
+                envCommitTask(session, TASK_NODE_ENV));
+        runGraph("Step 3/4: Setup Node", Set.of(TOOL_NODE), graph, states -> {
+            if (isEnvironmentWritten(states, TASK_NODE_ENV)) {
                 nodeReady = true;
                 LoggerUtil.info("Node setup completed.");
             } else {
                 LoggerUtil.info("Node setup did not complete.");
             }
-            setBusy(false, null);
         });
     }
 
+    /**
+     * Cancels every running graph: running tasks see the request through their cancel flag and
+     * tasks that have not started yet are skipped.
+     */
+    public void onCancelTasks() {
+        if (activeRuns.isEmpty()) {
+            return;
+        }
+        LoggerUtil.info("Cancel requested.");
+        for (TaskScheduler.Run run : activeRuns) {
+            run.cancel();
+        }
+    }
+
+    /**
+     * JDK, Maven and Node downloads run in parallel; each env step waits for its own download
+     * and stages its variables, and one final step writes them all with a single PATH update.
+     */
     public void onOneClickInstall() {
-        if (busy) {
+        if (isBusy()) {
             LoggerUtil.info("Task is running. Please wait.");
             return;
         }
 
+        String jdkVersion = jdkVersionCombo.getValue();
+        String mavenVersion = mavenVersionCombo.getValue();
+        String nodeVersion = nodeVersionCombo.getValue();
+        if (!hasJdkPath() && (jdkVersion == null || jdkVersion.isBlank())) {
+            LoggerUtil.warn("One-click failed: no JDK version selected.");
+            return;
+        }
+        if (mavenVersion == null || mavenVersion.isBlank()) {
+            LoggerUtil.warn("One-click failed: no Maven version selected.");
+            return;
+        }
+        if (nodeVersion == null || nodeVersion.isBlank()) {
+            LoggerUtil.warn("One-click failed: no Node version selected.");
+            return;
+        }
+
         LoggerUtil.info("Start one-click install flow.");
 
-        if (!hasJdkPath()) {
+        AtomicReference<String> javaHome = new AtomicReference<>();
+        AtomicReference<String> mavenHome = new AtomicReference<>();
+        AtomicReference<String> nodeHome = new AtomicReference<>();
+        EnvironmentWriter session = service.newEnvironmentSession();
+        List<TaskSpec> graph = new ArrayList<>();
+        if (hasJdkPath()) {
+            javaHome.set(jdkPathField.getText());
+            jdkReady = true;
+            graph.add(jdkEnvTask(session, javaHome::get));
+        } else {
             LoggerUtil.info("No JDK path detected. Download JDK first.");
-            startOneClickJdk();
-            return;
+            graph.add(jdkDownloadTask(jdkVersion, javaHome));
+            graph.add(jdkEnvTask(session, javaHome::get).after(TASK_JDK_DOWNLOAD));
         }
-
-        jdkReady = true;
-        startOneClickMaven();
+        graph.add(mavenDownloadTask(mavenVersion, mavenHome));
+        graph.add(mavenEnvTask(session, mavenHome));
+        graph.add(nodeDownloadTask("v" + nodeVersion, nodeHome));
+        graph.add(nodeEnvTask(session, nodeHome));
+        graph.add(envCommitTask(session, TASK_JDK_ENV, TASK_MAVEN_ENV, TASK_NODE_ENV));
+
+        runGraph("One-click install", Set.of(TOOL_JDK, TOOL_MAVEN, TOOL_NODE), graph, states -> {
+            jdkReady |= !states.containsKey(TASK_JDK_DOWNLOAD) || states.get(TASK_JDK_DOWNLOAD) == State.SUCCEEDED;
+            jdkEnvReady |= isEnvironmentWritten(states, TASK_JDK_ENV);
+            mavenReady |= isEnvironmentWritten(states, TASK_MAVEN_ENV);
+            nodeReady |= isEnvironmentWritten(states, TASK_NODE_ENV);
+
+            List<String> unfinished = new ArrayList<>();
+            states.forEach((task, state) -> {
+                if (state != State.SUCCEEDED) {
+                    unfinished.add(task + " " + state.name().toLowerCase());
+                }
+            });
+            if (unfinished.isEmpty()) {
+                LoggerUtil.info("One-click completed.");
+            } else {
+                LoggerUtil.info("One-click interrupted: " + String.join(", ", unfinished));
+            }
+        });
     }
 
     @FXML
     private void initialize() {
-        ObservableList<String> jdkVersions = FXCollections.observableArrayList("8", "11", "17", "21");
-        jdkVersionCombo.setItems(jdkVersions);
-        jdkVersionCombo.setValue("17");
-
-        ObservableList<String> mavenVersions = FXCollections.observableArrayList("3.8.8", "3.9.8", "3.9.9", "3.9.10");
-        mavenVersionCombo.setItems(mavenVersions);
-        mavenVersionCombo.setValue("3.9.10");
+        showVersions(VersionCatalog.Versions.BUILT_IN);
 
-        nodeVersionCombo.getItems().addAll("18.20.8", "20.19.2", "22.16.0");
-        nodeVersionCombo.setValue("20.19.2");
-
-        LoggerUtil.init(outputArea);
+        LoggerUtil.init(LoggerUtil.parseLevel(DownloadSourceConfig.getLogLevel()), List.of(
+                logPaneController::append,
+                new RollingLogFile(PathUtils.getLogDir(), DownloadSourceConfig.getLogFileMaxBytes(),
+                        DownloadSourceConfig.getLogFileCount())));
         LoggerUtil.info("UI initialized. Recommended versions selected.");
+        loadVersionCatalog();
+
+        DownloadSourceConfig.addListener(() -> Platform.runLater(this::onDownloadSourcesChanged));
+        DownloadSourceConfig.startWatching();
 
-        loadDownloadSourceFields();
+        downloadSourcePane.expandedProperty().addListener((observable, wasExpanded, expanded) -> {
+            if (expanded) {
+                loadDownloadSourcePane();
+            }
+        });
         refreshUiState();
     }
 
-    private void updateJdkPathInput(String jdkExtractedPath) {
-        if (jdkExtractedPath == null || jdkExtractedPath.isBlank()) {
-            LoggerUtil.info("Invalid JDK path.");
-            return;
+    /**
+     * The configuration was reloaded with different values; new downloads already use them.
+     */
+    private void onDownloadSourcesChanged() {
+        LoggerUtil.setLevel(LoggerUtil.parseLevel(DownloadSourceConfig.getLogLevel()));
+        if (sourcePaneController != null) {
+            sourcePaneController.refreshFields();
         }
+        loadVersionCatalog();
+        LoggerUtil.info("Download sources changed, reloaded.");
+    }
 
-        File extractedRoot = new File(jdkExtractedPath);
-        if (!extractedRoot.exists() || !extractedRoot.isDirectory()) {
-            LoggerUtil.info("Extracted path is invalid: " + jdkExtractedPath);
+    /**
+     * Show the cached version lists, then the refreshed ones; both off the FX thread.
+     */
+    private void loadVersionCatalog() {
+        Thread loader = new Thread(() -> {
+            VersionCatalog catalog = DownloadSourceConfig.getVersionCatalog();
+            VersionCatalog.Versions cached = catalog.current();
+            Platform.runLater(() -> showVersions(cached));
+            VersionCatalog.Versions refreshed = catalog.refresh().join();
+            Platform.runLater(() -> showVersions(refreshed));
+        }, "version-catalog");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void showVersions(VersionCatalog.Versions versions) {
+        showVersions(jdkVersionCombo, versions.getJdk(), RECOMMENDED_JDK);
+        showVersions(mavenVersionCombo, versions.getMaven(), RECOMMENDED_MAVEN);
+        showVersions(nodeVersionCombo, versions.getNode(), RECOMMENDED_NODE);
+    }
+
+    /**
+     * Keeps the user's choice when it is still listed, else the recommended version, else the newest.
+     */
+    private static void showVersions(ComboBox<String> combo, List<String> versions, String recommended) {
+        if (versions.equals(combo.getItems())) {
             return;
         }
-
-        File javaExeFile = PathUtils.findJavaExecutable(extractedRoot);
-        if (javaExeFile != null) {
-            File jdkHome = javaExeFile.getParentFile().getParentFile();
-            jdkPathField.setText(jdkHome.getAbsolutePath());
-            LoggerUtil.info("JDK home auto-detected: " + jdkHome.getAbsolutePath());
-        } else {
-            jdkPathField.setText(extractedRoot.getAbsolutePath());
-            LoggerUtil.info("java.exe not found. Use extracted path: " + extractedRoot.getAbsolutePath());
+        String selected = combo.getValue();
+        combo.setItems(FXCollections.observableArrayList(versions));
+        if (selected != null && versions.contains(selected)) {
+            combo.setValue(selected);
+        } else if (versions.contains(recommended)) {
+            combo.setValue(recommended);
+        } else if (!versions.isEmpty()) {
+            combo.setValue(versions.get(versions.size() - 1));
         }
+    }
 
+    private void updateJdkPathInput(String jdkHome) {
+        jdkPathField.setText(jdkHome);
         jdkReady = true;
         refreshUiState();
     }
 
-    private void startOneClickJdk() {
-        String version = jdkVersionCombo.getValue();
-        if (version == null || version.isBlank()) {
-            LoggerUtil.info("One-click failed: no JDK version selected.");
-            refreshUiState();
-            return;
-        }
-
-        setBusy(true, "Step 2/4: Download JDK");
-        service.onDownloadJdk(version, this::updateJdkPathInput, success -> {
-            if (!success) {
-                LoggerUtil.info("One-click interrupted: JDK download failed.");
-                setBusy(false, null);
-                return;
+    private TaskSpec jdkDownloadTask(String version, AtomicReference<String> javaHome) {
+        return TaskSpec.of(TASK_JDK_DOWNLOAD, cancelRequested -> {
+            String home = service.installJdk(version, cancelRequested);
+            if (home == null || !new File(home).isDirectory()) {
+                return false;
             }
-            jdkReady = true;
-            LoggerUtil.info("One-click: JDK done, continue Maven.");
-            startOneClickMaven();
+            javaHome.set(home);
+            Platform.runLater(() -> updateJdkPathInput(home));
+            return true;
         });
     }
 
-    private void startOneClickMaven() {
-        setBusy(true, "Step 3/4: Setup Maven");
-        String mavenVersion = mavenVersionCombo.getValue();
-        service.onSetupMaven(mavenVersion, success -> {
-            if (!success) {
-                LoggerUtil.info("One-click interrupted: Maven setup failed.");
-                setBusy(false, null);
-                return;
-            }
-            mavenReady = true;
-            LoggerUtil.info("One-click: Maven done, continue Node.");
-            startOneClickNode();
+    private TaskSpec jdkEnvTask(EnvironmentWriter session, Supplier<String> javaHome) {
+        return TaskSpec.of(TASK_JDK_ENV, cancelRequested -> {
+            service.applyJdkEnvironment(session, javaHome.get());
+            return true;
         });
     }
 
-    private void startOneClickNode() {
-        setBusy(true, "Step 3/4: Setup Node");
-        String nodeVersion = nodeVersionCombo.getValue();
-        if (nodeVersion == null || nodeVersion.isBlank()) {
-            LoggerUtil.info("One-click interrupted: no Node version selected.");
-            setBusy(false, null);
-            return;
-        }
-
-        service.onSetupNode("v" + nodeVersion, success -> {
-            if (!success) {
-                LoggerUtil.info("One-click interrupted: Node setup failed.");
-                setBusy(false, null);
-                return;
-            }
-            nodeReady = true;
-            LoggerUtil.info("One-click: Node done, continue JDK env.");
-            startOneClickSetJdkEnv();
+    private TaskSpec mavenDownloadTask(String version, AtomicReference<String> mavenHome) {
+        return TaskSpec.of(TASK_MAVEN_DOWNLOAD, cancelRequested -> {
+            mavenHome.set(service.installMaven(version, cancelRequested));
+            return mavenHome.get() != null;
         });
     }
 
-    private void startOneClickSetJdkEnv() {
-        String javaHome = jdkPathField.getText();
-        if (javaHome == null || javaHome.isBlank()) {
-            LoggerUtil.info("One-click interrupted: JDK path is empty.");
-            setBusy(false, null);
-            return;
-        }
+    private TaskSpec mavenEnvTask(EnvironmentWriter session, AtomicReference<String> mavenHome) {
+        return TaskSpec.of(TASK_MAVEN_ENV, cancelRequested -> {
+            service.applyMavenEnvironment(session, mavenHome.get());
+            return true;
+        }).after(TASK_MAVEN_DOWNLOAD);
+    }
 
-        setBusy(true, "Step 4/4: Set JDK environment variables");
+    private TaskSpec nodeDownloadTask(String version, AtomicReference<String> nodeHome) {
+        return TaskSpec.of(TASK_NODE_DOWNLOAD, cancelRequested -> {
+            nodeHome.set(service.installNode(version, cancelRequested));
+            return nodeHome.get() != null;
+        });
+    }
 
-        Task<Void> task = new Task<>() {
-            @Override
-            protected Void call() throws Exception {
-                EnvUtil.setJdkEnvironmentVariables(javaHome, "%JAVA_HOME%\\bin");
-                return null;
-            }
-        };
+    private TaskSpec nodeEnvTask(EnvironmentWriter session, AtomicReference<String> nodeHome) {
+        return TaskSpec.of(TASK_NODE_ENV, cancelRequested -> {
+            service.applyNodeEnvironment(session, nodeHome.get());
+            return true;
+        }).after(TASK_NODE_DOWNLOAD);
+    }
 
-        task.setOnSucceeded(event -> {
-            jdkEnvReady = true;
-            LoggerUtil.info("One-click completed.");
-            setBusy(false, "Done: click Show Config to verify");
-        });
+    /**
+     * Writes what {@code envTasks} staged in {@code session} once they have all finished, so the
+     * tools that did install get their variables even when another one failed.
+     */
+    private TaskSpec envCommitTask(EnvironmentWriter session, String... envTasks) {
+        return TaskSpec.of(TASK_ENV_COMMIT, cancelRequested -> {
+            service.commitEnvironment(session);
+            return true;
+        }).afterSettled(envTasks).exclusive(EnvInstallerService.ENVIRONMENT_RESOURCE);
+    }
 
-        task.setOnFailed(event -> {
-            LoggerUtil.info("One-click interrupted at JDK env step: " + safeError(task.getException()));
-            setBusy(false, null);
-        });
+    private static boolean isEnvironmentWritten(Map<String, State> states, String envTask) {
+        return states.get(envTask) == State.SUCCEEDED && states.get(TASK_ENV_COMMIT) == State.SUCCEEDED;
+    }
 
-        new Thread(task, "one-click-set-env-thread").start();
+    /**
+     * Marks the tools busy, runs the graph and calls {@code onDone} on the FX thread with the final states.
+     */
+    private void runGraph(String stepText,
+                          Set<String> tools,
+                          List<TaskSpec> graph,
+                          Consumer<Map<String, State>> onDone) {
+        busyTools.addAll(tools);
+        flowStepLabel.setText(stepText);
+
+        TaskScheduler.Run run = scheduler.submit(graph, (task, state, error) -> {
+            if (state == State.FAILED && error != null) {
+                LoggerUtil.error(task + " failed: " + safeError(error));
+            } else if (state != State.RUNNING && state != State.SUCCEEDED) {
+                LoggerUtil.info(task + ": " + state.name().toLowerCase());
+            }
+            Platform.runLater(() -> onTaskStateChanged(task, state));
+        });
+        activeRuns.add(run);
+        refreshUiState();
+        run.completion().thenAccept(states -> Platform.runLater(() -> {
+            activeRuns.remove(run);
+            busyTools.removeAll(tools);
+            onDone.accept(states);
+            refreshUiState();
+        }));
     }
 
-    private void setBusy(boolean busyState, String customStepText) {
-        this.busy = busyState;
-        if (customStepText != null && !customStepText.isBlank()) {
-            flowStepLabel.setText(customStepText);
+    private void onTaskStateChanged(String task, State state) {
+        if (state == State.RUNNING) {
+            runningTasks.add(task);
+        } else {
+            runningTasks.remove(task);
         }
-        refreshUiState();
+        if (!runningTasks.isEmpty()) {
+            flowStepLabel.setText("Running: " + String.join(", ", runningTasks));
+        }
+    }
+
+    private boolean isBusy() {
+        return !busyTools.isEmpty();
     }
 
     private void refreshUiState() {
         boolean hasJdk = hasJdkPath();
-
-        chooseJdkButton.setDisable(busy);
-        downloadJdkButton.setDisable(busy);
-        setupMavenButton.setDisable(busy);
-        setupNodeButton.setDisable(busy);
+        boolean busy = isBusy();
+        boolean jdkBusy = busyTools.contains(TOOL_JDK);
+        boolean mavenBusy = busyTools.contains(TOOL_MAVEN);
+        boolean nodeBusy = busyTools.contains(TOOL_NODE);
+
+        chooseJdkButton.setDisable(jdkBusy);
+        downloadJdkButton.setDisable(jdkBusy);
+        setupMavenButton.setDisable(mavenBusy);
+        setupNodeButton.setDisable(nodeBusy);
         showConfigButton.setDisable(busy);
         oneClickInstallButton.setDisable(busy);
-        reloadSourcesButton.setDisable(busy);
-        saveSourcesButton.setDisable(busy);
+        cancelTasksButton.setDisable(activeRuns.isEmpty());
 
-        jdkVersionCombo.setDisable(busy);
-        mavenVersionCombo.setDisable(busy);
-        nodeVersionCombo.setDisable(busy);
-        jdkSourceField.setDisable(busy);
-        mavenSourceField.setDisable(busy);
-        nodeSourceField.setDisable(busy);
+        jdkVersionCombo.setDisable(jdkBusy);
+        mavenVersionCombo.setDisable(mavenBusy);
+        nodeVersionCombo.setDisable(nodeBusy);
+        if (sourcePaneController != null) {
+            sourcePaneController.refreshUiState(busy);
+        }
 
-        setEnvButton.setDisable(busy || !hasJdk);
+        setEnvButton.setDisable(jdkBusy || !hasJdk);
 
         if (busy) {
             return;
@@ -454,24 +566,29 @@ public class EnvInstallerController {
         flowStepLabel.setText("Done: click Show Config to verify");
     }
 
-    private void loadDownloadSourceFields() {
-        jdkSourceField.setText(DownloadSourceConfig.getJdkBaseUrl());
-        mavenSourceField.setText(DownloadSourceConfig.getMavenBaseUrl());
-        nodeSourceField.setText(DownloadSourceConfig.getNodeBaseUrl());
+    /**
+     * Builds the download source pane the first time it is expanded.
+     */
+    private void loadDownloadSourcePane() {
+        if (sourcePaneController != null) {
+            return;
+        }
+        FXMLLoader loader = new FXMLLoader(MainApp.class.getResource("download-source-pane.fxml"));
+        try {
+            downloadSourcePane.setContent(loader.load());
+        } catch (IOException e) {
+            LoggerUtil.error("Load download source pane failed: " + safeError(e));
+            return;
+        }
+        sourcePaneController = loader.getController();
+        sourcePaneController.setBusyCheck(this::isBusy);
+        refreshUiState();
     }
 
     private boolean hasJdkPath() {
         return jdkPathField.getText() != null && !jdkPathField.getText().isBlank();
     }
 
-    private boolean isValidUrl(String value) {
-        return value != null && (value.startsWith("http://") || value.startsWith("https://"));
-    }
-
-    private String safeTrim(String value) {
-        return value == null ? "" : value.trim();
-    }
-
     private String safeError(Throwable t) {
         return t == null ? "unknown" : String.valueOf(t.getMessage());
     }
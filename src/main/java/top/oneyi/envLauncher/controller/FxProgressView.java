@@ -0,0 +1,193 @@
+package top.oneyi.envLauncher.controller;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Scene;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import top.oneyi.envLauncher.MainApp;
+import top.oneyi.envLauncher.callback.InstallProgressView;
+import top.oneyi.envLauncher.service.ProgressBus;
+import top.oneyi.envLauncher.utils.LoggerUtil;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 下载进度弹窗
+ * <p>
+ * One window per running install, so parallel installs do not share a stage. The FXML is only
+ * parsed when no idle window is left: a closed window is reset and reused by the next install.
+ * Every update is handed to the FX thread; progress frames are coalesced into at most one pending
+ * {@code Platform.runLater}, so if the FX thread falls behind it simply renders the newest snapshot.
+ */
+public class FxProgressView implements InstallProgressView {
+
+    /**
+     * Closed windows ready for reuse; only touched on the FX thread.
+     */
+    private static final Deque<Dialog> IDLE_DIALOGS = new ArrayDeque<>();
+
+    private final Dialog dialog;
+    private final AtomicReference<ProgressBus.Snapshot> latest = new AtomicReference<>();
+
+    /**
+     * Set on the FX thread once the window went back to the pool; later updates are dropped so
+     * they cannot leak into the next install that reuses it.
+     */
+    private boolean released;
+
+    private FxProgressView(Dialog dialog) {
+        this.dialog = dialog;
+    }
+
+    /**
+     * Opens the dialog on the FX thread and waits for it, so it can be called from any thread.
+     *
+     * @return the view, or null when the dialog could not be created
+     */
+    public static InstallProgressView open(String name) {
+        FutureTask<FxProgressView> open = new FutureTask<>(() -> show(name + " Download Progress"));
+        if (Platform.isFxApplicationThread()) {
+            open.run();
+        } else {
+            Platform.runLater(open);
+        }
+        try {
+            return open.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            LoggerUtil.error("Create progress dialog failed: " + e.getCause());
+            return null;
+        }
+    }
+
+    private static FxProgressView show(String title) {
+        Dialog dialog = IDLE_DIALOGS.poll();
+        if (dialog == null) {
+            dialog = createDialog();
+            if (dialog == null) {
+                return null;
+            }
+        } else {
+            dialog.controller.reset();
+        }
+        dialog.stage.setTitle(title);
+        dialog.stage.show();
+        return new FxProgressView(dialog);
+    }
+
+    private static Dialog createDialog() {
+        Stage stage = new Stage();
+        stage.initModality(Modality.NONE);
+        URL fxmlUrl = MainApp.class.getResource("download-progress-dialog.fxml");
+        FXMLLoader loader = new FXMLLoader(fxmlUrl);
+
+        try {
+            stage.setScene(new Scene(loader.load(), 450, 180));
+        } catch (IOException e) {
+            LoggerUtil.error("Create progress dialog failed: " + e.getMessage());
+            return null;
+        }
+
+        return new Dialog(stage, loader.getController());
+    }
+
+    @Override
+    public void onProgress(ProgressBus.Snapshot snapshot) {
+        if (latest.getAndSet(snapshot) == null) {
+            Platform.runLater(() -> render(latest.getAndSet(null)));
+        }
+    }
+
+    @Override
+    public void onStatus(String status, double fraction) {
+        Platform.runLater(() -> {
+            if (released) {
+                return;
+            }
+            if (fraction >= 0) {
+                dialog.controller.progressBar.setProgress(fraction);
+            }
+            dialog.controller.statusLabel.setText(status);
+        });
+    }
+
+    @Override
+    public void onFileSize(long bytes) {
+        String sizeText = bytes > 0
+                ? String.format("File size: %.2f MB", bytes / (1024.0 * 1024.0))
+                : "File size unknown";
+        Platform.runLater(() -> {
+            if (!released) {
+                dialog.controller.sizeLabel.setText(sizeText);
+            }
+        });
+    }
+
+    @Override
+    public void onFailed(String message) {
+        Platform.runLater(() -> {
+            if (released) {
+                return;
+            }
+            dialog.controller.progressBar.setProgress(0);
+            dialog.controller.statusLabel.setText(message);
+            release();
+        });
+    }
+
+    @Override
+    public boolean isCancelRequested() {
+        return dialog.controller.isCancelRequested();
+    }
+
+    @Override
+    public void close() {
+        Platform.runLater(this::release);
+    }
+
+    private void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        dialog.stage.close();
+        IDLE_DIALOGS.push(dialog);
+    }
+
+    private void render(ProgressBus.Snapshot snapshot) {
+        if (released || snapshot == null) {
+            return;
+        }
+        double mb = 1024.0 * 1024.0;
+        String speed = String.format("%.2f MB/s", snapshot.getBytesPerSecond() / mb);
+        String size = snapshot.getTotal() > 0
+                ? String.format("Size: %.2f MB | %s", snapshot.getTotal() / mb, speed)
+                : "Size unknown | " + speed;
+
+        dialog.controller.progressBar.setProgress(snapshot.getFraction());
+        dialog.controller.sizeLabel.setText(size);
+        dialog.controller.statusLabel.setText(snapshot.describe());
+    }
+
+    /**
+     * A parsed progress window and its controller.
+     */
+    private static final class Dialog {
+        private final Stage stage;
+        private final DownloadProgressDialogController controller;
+
+        Dialog(Stage stage, DownloadProgressDialogController controller) {
+            this.stage = stage;
+            this.controller = controller;
+        }
+    }
+}
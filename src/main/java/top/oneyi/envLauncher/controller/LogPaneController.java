@@ -0,0 +1,196 @@
+package top.oneyi.envLauncher.controller;
+
+import javafx.application.Platform;
+import javafx.collections.transformation.FilteredList;
+import javafx.css.PseudoClass;
+import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.control.TextField;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import top.oneyi.envLauncher.config.DownloadSourceConfig;
+import top.oneyi.envLauncher.utils.LogEntry;
+import top.oneyi.envLauncher.utils.PathUtils;
+import top.oneyi.envLauncher.utils.RollingLogFile;
+
+import java.io.File;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 日志面板控制器
+ * <p>
+ * The log is a virtualized {@link ListView}: only the visible rows have cells, whatever the
+ * number of entries. Entries live in a {@link BoundedLogList} capped at {@code log.view-max-entries};
+ * older ones are only in the log file. Level, tool and search filters go through a
+ * {@link FilteredList}, which keeps an index of the matching rows instead of copying them.
+ */
+public class LogPaneController {
+
+    private static final String ALL_LEVELS = "All levels";
+    private static final String ALL_TOOLS = "All tools";
+    private static final PseudoClass WARN = PseudoClass.getPseudoClass("warn");
+    private static final PseudoClass ERROR = PseudoClass.getPseudoClass("error");
+    private static final KeyCombination COPY = new KeyCodeCombination(KeyCode.C, KeyCombination.SHORTCUT_DOWN);
+
+    @FXML
+    private ListView<LogEntry> logList;
+    @FXML
+    private ComboBox<String> levelFilter;
+    @FXML
+    private ComboBox<String> toolFilter;
+    @FXML
+    private TextField searchField;
+    @FXML
+    private Button clearLogButton;
+    @FXML
+    private Label logInfoLabel;
+
+    private BoundedLogList entries;
+    private FilteredList<LogEntry> visible;
+
+    @FXML
+    private void initialize() {
+        entries = new BoundedLogList(DownloadSourceConfig.getLogViewMaxEntries());
+        visible = new FilteredList<>(entries);
+
+        logList.setItems(visible);
+        logList.setPlaceholder(new Label("Execution logs will appear here"));
+        logList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        logList.setCellFactory(list -> new LogCell());
+        MenuItem copy = new MenuItem("Copy");
+        copy.setOnAction(event -> copySelection());
+        logList.setContextMenu(new ContextMenu(copy));
+        logList.setOnKeyPressed(event -> {
+            if (COPY.match(event)) {
+                copySelection();
+                event.consume();
+            }
+        });
+
+        levelFilter.getItems().add(ALL_LEVELS);
+        for (LogEntry.Level level : LogEntry.Level.values()) {
+            if (level != LogEntry.Level.DEBUG) {
+                levelFilter.getItems().add(level.name() + "+");
+            }
+        }
+        levelFilter.setValue(ALL_LEVELS);
+        toolFilter.getItems().addAll(ALL_TOOLS, "JDK", "Maven", "Node");
+        toolFilter.setValue(ALL_TOOLS);
+
+        levelFilter.valueProperty().addListener((observable, oldValue, newValue) -> applyFilter());
+        toolFilter.valueProperty().addListener((observable, oldValue, newValue) -> applyFilter());
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> applyFilter());
+        updateInfo();
+    }
+
+    /**
+     * Log sink; called on the log writer thread with one batch per frame.
+     */
+    public void append(List<LogEntry> batch) {
+        Platform.runLater(() -> {
+            entries.append(batch);
+            // Follow the newest entry unless the user is looking at a selection.
+            if (logList.getSelectionModel().isEmpty() && !visible.isEmpty()) {
+                logList.scrollTo(visible.size() - 1);
+            }
+            updateInfo();
+        });
+    }
+
+    @FXML
+    private void onClearLog() {
+        logList.getSelectionModel().clearSelection();
+        entries.clear();
+        updateInfo();
+    }
+
+    private void applyFilter() {
+        String level = levelFilter.getValue();
+        LogEntry.Level minLevel = level == null || ALL_LEVELS.equals(level)
+                ? LogEntry.Level.DEBUG
+                : LogEntry.Level.valueOf(level.substring(0, level.length() - 1));
+        String tool = ALL_TOOLS.equals(toolFilter.getValue()) ? null : toolFilter.getValue();
+        String search = searchField.getText() == null ? "" : searchField.getText().trim();
+
+        Predicate<LogEntry> filter = null;
+        if (minLevel != LogEntry.Level.DEBUG) {
+            filter = entry -> entry.getLevel().compareTo(minLevel) >= 0;
+        }
+        if (tool != null) {
+            filter = and(filter, entry -> tool.equals(entry.getField(LogEntry.FIELD_TOOL)));
+        }
+        if (!search.isEmpty()) {
+            filter = and(filter, entry -> containsIgnoreCase(entry.getMessage(), search));
+        }
+        // null shows everything without evaluating a predicate per row.
+        visible.setPredicate(filter);
+        updateInfo();
+    }
+
+    private void updateInfo() {
+        StringBuilder info = new StringBuilder();
+        if (visible.getPredicate() != null) {
+            info.append(visible.size()).append(" of ");
+        }
+        info.append(entries.size()).append(" entries");
+        if (entries.getEvictedCount() > 0) {
+            File logFile = new File(PathUtils.getLogDir(), RollingLogFile.FILE_NAME);
+            info.append(" | ").append(entries.getEvictedCount())
+                    .append(" older entries in ").append(logFile.getAbsolutePath());
+        }
+        logInfoLabel.setText(info.toString());
+        clearLogButton.setDisable(entries.isEmpty());
+    }
+
+    private void copySelection() {
+        List<LogEntry> selected = logList.getSelectionModel().getSelectedItems();
+        if (selected.isEmpty()) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (LogEntry entry : selected) {
+            text.append(entry.format()).append(System.lineSeparator());
+        }
+        ClipboardContent content = new ClipboardContent();
+        content.putString(text.toString());
+        Clipboard.getSystemClipboard().setContent(content);
+    }
+
+    private static Predicate<LogEntry> and(Predicate<LogEntry> first, Predicate<LogEntry> second) {
+        return first == null ? second : first.and(second);
+    }
+
+    /**
+     * Case-insensitive {@code contains} without lower-casing a copy of every message.
+     */
+    static boolean containsIgnoreCase(String text, String part) {
+        int last = text.length() - part.length();
+        for (int i = 0; i <= last; i++) {
+            if (text.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class LogCell extends ListCell<LogEntry> {
+        @Override
+        protected void updateItem(LogEntry entry, boolean empty) {
+            super.updateItem(entry, empty);
+            setText(empty || entry == null ? null : entry.format());
+            pseudoClassStateChanged(WARN, !empty && entry != null && entry.getLevel() == LogEntry.Level.WARN);
+            pseudoClassStateChanged(ERROR, !empty && entry != null && entry.getLevel() == LogEntry.Level.ERROR);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package top.oneyi.envLauncher.service;
+
+import top.oneyi.envLauncher.utils.LoggerUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Persistent, size-bounded cache of downloaded archives.
+ * <p>
+ * Entries are keyed by the artifact {@link Identity} (tool, version and archive name), which does
+ * not depend on the mirror, so {@link #find} can serve a reinstall before any mirror is probed,
+ * also offline. Each entry records the published checksum the archive was verified against (if
+ * any), a digest of the stored file and its size and modification time; a download of the same
+ * artifact replaces the older entry. A hit is trusted as long as size and modification time are
+ * unchanged; only then is the file hashed again. All metadata lives in {@code index.properties},
+ * which is read once, so lookups never scan the directory. When the total size exceeds the cap,
+ * the least recently used archives are evicted.
+ */
+public class ArchiveCache {
+
+    private static final String INDEX_FILE = "index.properties";
+
+    private final File directory;
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long totalBytes;
+
+    public ArchiveCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        loadIndex();
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Find the cached archive of {@code identity}. When its size or modification time differ from
+     * the recorded ones it is hashed against the recorded digest, and dropped if it no longer matches.
+     *
+     * @return the hit, or null on a miss
+     */
+    public Hit find(Identity identity) {
+        String key = keyOf(identity);
+        Entry entry;
+        synchronized (this) {
+            if (!isEnabled()) {
+                return null;
+            }
+            entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+        }
+
+        File file = new File(directory, entry.fileName);
+        boolean unchanged = file.isFile() && file.length() == entry.size && file.lastModified() == entry.modified;
+        // Hash outside the lock; the file is only replaced under a new entry.
+        boolean intact = unchanged || file.isFile() && digestMatches(file, entry.digest);
+        synchronized (this) {
+            if (entries.get(key) != entry) {
+                return null;
+            }
+            if (!intact) {
+                // Removed, truncated or changed behind our back.
+                LoggerUtil.warn("Cached archive failed local verification, dropped: " + file.getAbsolutePath());
+                remove(key);
+                saveIndexQuietly();
+                return null;
+            }
+            if (!unchanged) {
+                // Touched but still the same bytes: trust the new size and time from now on.
+                totalBytes += file.length() - entry.size;
+                entry.size = file.length();
+                entry.modified = file.lastModified();
+            }
+            entry.lastAccess = System.currentTimeMillis();
+            saveIndexQuietly();
+            return new Hit(file, entry.checksum);
+        }
+    }
+
+    /**
+     * Move {@code archive} into the cache, replacing an older download of the same artifact, and
+     * evict older entries if the cap is exceeded.
+     *
+     * @param checksum the verified published checksum as {@code algorithm:hex}; null when unverified
+     * @return the cached file, or null when the archive was not cached (cache disabled or larger than the cap)
+     */
+    public synchronized File put(Identity identity, String checksum, File archive) throws IOException {
+        if (!isEnabled() || archive.length() > maxBytes) {
+            return null;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Create cache directory failed: " + directory);
+        }
+
+        String key = keyOf(identity);
+        remove(key);
+
+        Entry entry = new Entry();
+        entry.identity = identity;
+        entry.fileName = key.substring(0, 16) + "-" + identity.getFileName();
+        entry.checksum = checksum;
+        entry.digest = checksum != null ? checksum : "SHA-256:" + sha256(archive);
+        entry.lastAccess = System.currentTimeMillis();
+
+        File cached = new File(directory, entry.fileName);
+        moveOrCopy(archive.toPath(), cached.toPath());
+        entry.size = cached.length();
+        entry.modified = cached.lastModified();
+        entries.put(key, entry);
+        totalBytes += entry.size;
+
+        evict(key);
+        saveIndex();
+        return cached;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private void evict(String keep) {
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+        List<Map.Entry<String, Entry>> byAge = new ArrayList<>(entries.entrySet());
+        byAge.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+        for (Map.Entry<String, Entry> candidate : byAge) {
+            if (totalBytes <= maxBytes) {
+                break;
+            }
+            if (candidate.getKey().equals(keep)) {
+                continue;
+            }
+            LoggerUtil.info("Archive cache evict: " + candidate.getValue().fileName);
+            remove(candidate.getKey());
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        totalBytes -= entry.size;
+        File file = new File(directory, entry.fileName);
+        if (file.exists() && !file.delete()) {
+            LoggerUtil.warn("Delete cached archive failed: " + file.getAbsolutePath());
+        }
+    }
+
+    private void loadIndex() {
+        File index = new File(directory, INDEX_FILE);
+        if (!index.isFile()) {
+            return;
+        }
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(index.toPath())) {
+            props.load(in);
+        } catch (IOException e) {
+            LoggerUtil.warn("Read archive cache index failed, start empty: " + e.getMessage());
+            return;
+        }
+
+        for (String name : props.stringPropertyNames()) {
+            if (!name.endsWith(".file")) {
+                continue;
+            }
+            String key = name.substring(0, name.length() - ".file".length());
+            try {
+                Entry entry = new Entry();
+                entry.identity = new Identity(props.getProperty(key + ".tool"),
+                        props.getProperty(key + ".version"), props.getProperty(key + ".name"));
+                entry.fileName = props.getProperty(key + ".file");
+                entry.checksum = props.getProperty(key + ".checksum");
+                entry.digest = props.getProperty(key + ".digest");
+                entry.size = Long.parseLong(props.getProperty(key + ".size"));
+                entry.modified = Long.parseLong(props.getProperty(key + ".modified"));
+                entry.lastAccess = Long.parseLong(props.getProperty(key + ".accessed", "0"));
+                entries.put(key, entry);
+                totalBytes += entry.size;
+            } catch (RuntimeException ignored) {
+                // Skip malformed entries.
+            }
+        }
+    }
+
+    private void saveIndexQuietly() {
+        try {
+            saveIndex();
+        } catch (IOException e) {
+            LoggerUtil.warn("Write archive cache index failed: " + e.getMessage());
+        }
+    }
+
+    private void saveIndex() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Create cache directory failed: " + directory);
+        }
+        Properties props = new Properties();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            String key = e.getKey();
+            Entry entry = e.getValue();
+            props.setProperty(key + ".tool", entry.identity.getTool());
+            props.setProperty(key + ".version", entry.identity.getVersion());
+            props.setProperty(key + ".name", entry.identity.getFileName());
+            props.setProperty(key + ".file", entry.fileName);
+            if (entry.checksum != null) {
+                props.setProperty(key + ".checksum", entry.checksum);
+            }
+            if (entry.digest != null) {
+                props.setProperty(key + ".digest", entry.digest);
+            }
+            props.setProperty(key + ".size", String.valueOf(entry.size));
+            props.setProperty(key + ".modified", String.valueOf(entry.modified));
+            props.setProperty(key + ".accessed", String.valueOf(entry.lastAccess));
+        }
+
+        Path index = new File(directory, INDEX_FILE).toPath();
+        Path tmp = index.resolveSibling(INDEX_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, "envLauncher archive cache");
+        }
+        Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void moveOrCopy(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Different volume: copy, then drop the original.
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(source);
+        }
+    }
+
+    /**
+     * @param digest {@code algorithm:hex}
+     */
+    private static boolean digestMatches(File file, String digest) {
+        int colon = digest == null ? -1 : digest.indexOf(':');
+        if (colon <= 0) {
+            return false;
+        }
+        try {
+            return digest.substring(colon + 1).equalsIgnoreCase(hash(file, digest.substring(0, colon)));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return false;
+        }
+    }
+
+    private static String sha256(File file) throws IOException {
+        try {
+            return hash(file, "SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hash(File file, String algorithm) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance(algorithm);
+        byte[] buffer = new byte[256 * 1024];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return Checksum.toHex(digest.digest());
+    }
+
+    static String keyOf(Identity identity) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(identity.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * What an archive is, independent of the mirror it was downloaded from.
+     */
+    public static final class Identity {
+        private final String tool;
+        private final String version;
+        private final String fileName;
+
+        /**
+         * @param fileName name of the archive, e.g. {@code apache-maven-3.9.10.zip}
+         */
+        public Identity(String tool, String version, String fileName) {
+            this.tool = Objects.requireNonNull(tool, "tool");
+            this.version = Objects.requireNonNull(version, "version");
+            this.fileName = Objects.requireNonNull(fileName, "fileName");
+        }
+
+        public String getTool() {
+            return tool;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        @Override
+        public String toString() {
+            return tool + "/" + version + "/" + fileName;
+        }
+    }
+
+    /**
+     * A cached archive that passed local verification.
+     */
+    public static final class Hit {
+        private final File file;
+        private final String checksum;
+
+        Hit(File file, String checksum) {
+            this.file = file;
+            this.checksum = checksum;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return the published checksum it was verified against when downloaded, null when it was not
+         */
+        public String getChecksum() {
+            return checksum;
+        }
+    }
+
+    private static final class Entry {
+        Identity identity;
+        String fileName;
+        String checksum;
+        String digest;
+        long size;
+        long modified;
+        long lastAccess;
+    }
+}
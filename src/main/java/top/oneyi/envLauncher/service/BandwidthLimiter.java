@@ -0,0 +1,198 @@
+package top.oneyi.envLauncher.service;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 下载限速（令牌桶，按权重分配）
+ * <p>
+ * A global cap in bytes per second, shared by all downloads that are running. Each download opens
+ * a {@link Share} with a weight and gets {@code cap * weight / sum of running weights}, enforced
+ * by its own token bucket; all connections of one download draw from the same bucket. Readers
+ * take the bytes they just read and sleep off any debt, so the achieved rate follows the cap
+ * without a pacing thread. The cap can be changed while downloads run; 0 means unlimited.
+ */
+public final class BandwidthLimiter {
+
+    /**
+     * A bucket holds at most this much time worth of its rate, so an idle share cannot burst for long.
+     */
+    private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    /**
+     * Reads are sized to about this much time worth of the rate, so cancel stays responsive.
+     */
+    private static final long CHUNK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int MIN_CHUNK = 4096;
+
+    private final List<Share> shares = new ArrayList<>();
+    private volatile long bytesPerSecond;
+    private volatile double totalWeight;
+
+    /**
+     * @param bytesPerSecond global cap, 0 for unlimited
+     */
+    public BandwidthLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = Math.max(0, bytesPerSecond);
+    }
+
+    /**
+     * Change the cap; running downloads follow within one read.
+     */
+    public void setRate(long bytesPerSecond) {
+        this.bytesPerSecond = Math.max(0, bytesPerSecond);
+    }
+
+    public long getRate() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @param weight relative share of the cap while other downloads run; values below 0.01 count as 0.01
+     */
+    public Share open(double weight) {
+        Share share = new Share(Math.max(0.01, weight));
+        synchronized (shares) {
+            shares.add(share);
+            updateTotalWeight();
+        }
+        return share;
+    }
+
+    private void close(Share share) {
+        synchronized (shares) {
+            shares.remove(share);
+            updateTotalWeight();
+        }
+    }
+
+    private void updateTotalWeight() {
+        double sum = 0;
+        for (Share share : shares) {
+            sum += share.weight;
+        }
+        totalWeight = sum;
+    }
+
+    /**
+     * The part of the cap one download may use. Thread-safe; close it when the download ends so the
+     * others get its bandwidth.
+     */
+    public final class Share implements Closeable {
+        private final double weight;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private double lastRate;
+
+        private Share(double weight) {
+            this.weight = weight;
+        }
+
+        /**
+         * @return current rate of this share in bytes per second, 0 when unlimited
+         */
+        public double getRate() {
+            long cap = bytesPerSecond;
+            double total = totalWeight;
+            if (cap <= 0) {
+                return 0;
+            }
+            return total <= 0 ? cap : cap * weight / total;
+        }
+
+        /**
+         * @return how much to read at once: {@code preferred}, or less when limited
+         */
+        public int chunkSize(int preferred) {
+            double rate = getRate();
+            if (rate <= 0) {
+                return preferred;
+            }
+            long chunk = (long) (rate * CHUNK_NANOS / 1e9);
+            return (int) Math.max(MIN_CHUNK, Math.min(preferred, chunk));
+        }
+
+        /**
+         * Account for {@code bytes} just read and wait until the share is back within its rate.
+         */
+        public void acquire(long bytes) throws InterruptedIOException {
+            synchronized (this) {
+                refill();
+                tokens -= bytes;
+            }
+            while (true) {
+                long waitNanos;
+                synchronized (this) {
+                    double rate = refill();
+                    if (rate <= 0 || tokens >= 0) {
+                        return;
+                    }
+                    waitNanos = (long) (-tokens / rate * 1e9);
+                }
+                LockSupport.parkNanos(Math.min(waitNanos, MAX_PARK_NANOS));
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while throttled");
+                }
+            }
+        }
+
+        /**
+         * @return {@code in}, throttled by this share
+         */
+        public InputStream wrap(InputStream in) {
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        acquire(1);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = super.read(b, off, Math.min(len, chunkSize(len)));
+                    if (read > 0) {
+                        acquire(read);
+                    }
+                    return read;
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            BandwidthLimiter.this.close(this);
+        }
+
+        /**
+         * @return the current rate, after adding the tokens earned since the last call
+         */
+        private double refill() {
+            long now = System.nanoTime();
+            double rate = getRate();
+            if (rate <= 0) {
+                tokens = 0;
+            } else {
+                if (rate != lastRate) {
+                    // A new rate applies from now; debt from a slower rate is not carried into it.
+                    tokens = Math.max(tokens, -rate * CHUNK_NANOS / 1e9);
+                }
+                double burst = rate * BURST_NANOS / 1e9;
+                tokens = Math.min(burst, tokens + rate * (now - refilledAt) / 1e9);
+            }
+            lastRate = rate;
+            refilledAt = now;
+            return rate;
+        }
+    }
+}
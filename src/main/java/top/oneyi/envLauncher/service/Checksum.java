@@ -0,0 +1,177 @@
+package top.oneyi.envLauncher.service;
+
+import top.oneyi.envLauncher.utils.HttpTransport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Published checksum of an archive.
+ * <p>
+ * Fetched from the checksum file the mirror publishes next to the archive, with
+ * {@link #fetchAsync} so it can run while the archive itself is downloading.
+ */
+public final class Checksum {
+
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(10);
+    private static final int MAX_CHECKSUM_FILE_BYTES = 256 * 1024;
+
+    /**
+     * Where a mirror publishes the checksum of {@code <dir>/<file>}.
+     */
+    public enum Source {
+        /**
+         * Adoptium: {@code <file>.sha256.txt}.
+         */
+        SHA256_TXT("SHA-256"),
+        /**
+         * Apache: {@code <file>.sha512}.
+         */
+        SHA512("SHA-512"),
+        /**
+         * Node.js: one {@code SHASUMS256.txt} per release directory.
+         */
+        SHASUMS256("SHA-256");
+
+        private final String algorithm;
+
+        Source(String algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        public MessageDigest newDigest() {
+            try {
+                return MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(algorithm + " not available", e);
+            }
+        }
+
+        String checksumUrl(URI archive) {
+            String url = archive.toString();
+            int query = url.indexOf('?');
+            if (query >= 0) {
+                url = url.substring(0, query);
+            }
+            switch (this) {
+                case SHA256_TXT:
+                    return url + ".sha256.txt";
+                case SHA512:
+                    return url + ".sha512";
+                default:
+                    return url.substring(0, url.lastIndexOf('/') + 1) + "SHASUMS256.txt";
+            }
+        }
+    }
+
+    private final String algorithm;
+    private final String hex;
+
+    public Checksum(String algorithm, String hex) {
+        this.algorithm = algorithm;
+        this.hex = hex.toLowerCase();
+    }
+
+    /**
+     * Download and parse the checksum published for {@code archiveUrl} (the redirect-resolved URL).
+     *
+     * @return completes with null when the mirror publishes none or it cannot be read
+     */
+    public static CompletableFuture<Checksum> fetchAsync(Source source, String archiveUrl) {
+        URI archive = URI.create(archiveUrl);
+        String fileName = archive.getPath().substring(archive.getPath().lastIndexOf('/') + 1);
+        return HttpTransport.shared()
+                .getAsync(source.checksumUrl(archive), Map.of(), FETCH_TIMEOUT)
+                .thenApply(response -> {
+                    try {
+                        if (response.statusCode() != 200) {
+                            HttpTransport.closeQuietly(response);
+                            return null;
+                        }
+                        String hex = parse(source, read(response), fileName);
+                        return hex == null ? null : new Checksum(source.algorithm, hex);
+                    } catch (IOException e) {
+                        return null;
+                    }
+                })
+                .exceptionally(error -> null);
+    }
+
+    /**
+     * @return the hex digest for {@code fileName}, or null when the content has none
+     */
+    static String parse(Source source, String content, String fileName) {
+        int hexLength = "SHA-512".equals(source.algorithm) ? 128 : 64;
+        Pattern hex = Pattern.compile("(?i)\\b[0-9a-f]{" + hexLength + "}\\b");
+        if (source == Source.SHASUMS256) {
+            for (String line : content.split("\\R")) {
+                String[] parts = line.trim().split("\\s+\\*?");
+                if (parts.length == 2 && parts[1].equals(fileName) && hex.matcher(parts[0]).matches()) {
+                    return parts[0].toLowerCase();
+                }
+            }
+            return null;
+        }
+        Matcher m = hex.matcher(content);
+        if (m.find()) {
+            return m.group().toLowerCase();
+        }
+        // gpg --print-md style: "<file>: 1A2B 3C4D ..." in space-separated groups.
+        int colon = content.indexOf(':');
+        if (colon >= 0) {
+            m = hex.matcher(content.substring(colon + 1).replaceAll("\\s+", ""));
+            if (m.matches()) {
+                return m.group().toLowerCase();
+            }
+        }
+        return null;
+    }
+
+    private static String read(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream in = response.body()) {
+            return new String(in.readNBytes(MAX_CHECKSUM_FILE_BYTES), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @return true when {@code digest} holds exactly this checksum; the digest is reset
+     */
+    public boolean matches(MessageDigest digest) {
+        return hex.equals(toHex(digest.digest()));
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getHex() {
+        return hex;
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + ":" + hex;
+    }
+}
@@ -0,0 +1,224 @@
+package top.oneyi.envLauncher.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sidecar file kept next to a partial download ({@code <archive>.state}).
+ * <p>
+ * Records the source URL, the validators of the remote file and the byte ranges
+ * already written, so an interrupted download can continue with Range requests, also from
+ * another mirror of the same file.
+ */
+final class DownloadState {
+
+    static final String SUFFIX = ".state";
+
+    private static final String KEY_URL = "url";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "last-modified";
+    private static final String KEY_LENGTH = "length";
+    private static final String KEY_COMPLETED = "completed";
+
+    private final String url;
+    private final String etag;
+    private final String lastModified;
+    private final long length;
+    /**
+     * Sorted, non-overlapping half-open intervals {@code [start, end)}.
+     */
+    private final List<long[]> completed = new ArrayList<>();
+
+    DownloadState(String url, String etag, String lastModified, long length) {
+        this.url = url;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.length = length;
+    }
+
+    static File sidecarOf(File destination) {
+        return new File(destination.getPath() + SUFFIX);
+    }
+
+    /**
+     * @return the stored state, or null when no readable sidecar exists
+     */
+    static DownloadState load(File sidecar) {
+        if (!sidecar.isFile()) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(sidecar.toPath())) {
+            props.load(in);
+            DownloadState state = new DownloadState(
+                    props.getProperty(KEY_URL),
+                    props.getProperty(KEY_ETAG),
+                    props.getProperty(KEY_LAST_MODIFIED),
+                    Long.parseLong(props.getProperty(KEY_LENGTH, "-1")));
+            String ranges = props.getProperty(KEY_COMPLETED, "");
+            for (String range : ranges.split(",")) {
+                int dash = range.indexOf('-');
+                if (dash > 0) {
+                    state.add(Long.parseLong(range.substring(0, dash).trim()),
+                            Long.parseLong(range.substring(dash + 1).trim()));
+                }
+            }
+            return state;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write atomically so a crash never leaves a half-written sidecar.
+     */
+    synchronized void save(File sidecar) throws IOException {
+        Properties props = new Properties();
+        props.setProperty(KEY_URL, url);
+        props.setProperty(KEY_LENGTH, String.valueOf(length));
+        if (etag != null) {
+            props.setProperty(KEY_ETAG, etag);
+        }
+        if (lastModified != null) {
+            props.setProperty(KEY_LAST_MODIFIED, lastModified);
+        }
+        StringBuilder ranges = new StringBuilder();
+        for (long[] range : completed) {
+            if (ranges.length() > 0) {
+                ranges.append(',');
+            }
+            ranges.append(range[0]).append('-').append(range[1]);
+        }
+        props.setProperty(KEY_COMPLETED, ranges.toString());
+
+        Path target = sidecar.toPath();
+        Path tmp = target.resolveSibling(sidecar.getName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, "envLauncher partial download");
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The partial file may only be continued when it still describes the same remote content.
+     * At least one strong validator is required, otherwise a silent change could corrupt the archive.
+     * <p>
+     * The sidecar lives next to the archive, so it already names the artifact; {@code url} may be
+     * another mirror of it. From the same URL both validators must match. From another mirror an
+     * equal strong ETag is enough. Last-Modified has one-second resolution and each mirror sets it
+     * on its own, so an equal date only counts when a published checksum will verify the result.
+     *
+     * @param verified asked only for another mirror without a shared ETag; may block
+     */
+    boolean matches(String url, String etag, String lastModified, long length, BooleanSupplier verified) {
+        if (this.length != length || length <= 0) {
+            return false;
+        }
+        if (etag == null && lastModified == null) {
+            return false;
+        }
+        if (Objects.equals(this.url, url)) {
+            return Objects.equals(this.etag, etag) && Objects.equals(this.lastModified, lastModified);
+        }
+        if (etag != null && !etag.startsWith("W/") && etag.equals(this.etag)) {
+            return true;
+        }
+        return lastModified != null && lastModified.equals(this.lastModified) && verified.getAsBoolean();
+    }
+
+    /**
+     * @return the same progress, attributed to another source of the same file
+     */
+    synchronized DownloadState movedTo(String url, String etag, String lastModified) {
+        DownloadState moved = new DownloadState(url, etag, lastModified, length);
+        for (long[] range : completed) {
+            moved.completed.add(range.clone());
+        }
+        return moved;
+    }
+
+    /**
+     * Mark {@code [start, end)} as written, merging with neighbouring ranges.
+     */
+    synchronized void add(long start, long end) {
+        if (end <= start) {
+            return;
+        }
+        List<long[]> merged = new ArrayList<>(completed.size() + 1);
+        long s = start;
+        long e = end;
+        boolean inserted = false;
+        for (long[] range : completed) {
+            if (range[1] < s) {
+                merged.add(range);
+            } else if (range[0] > e) {
+                if (!inserted) {
+                    merged.add(new long[]{s, e});
+                    inserted = true;
+                }
+                merged.add(range);
+            } else {
+                s = Math.min(s, range[0]);
+                e = Math.max(e, range[1]);
+            }
+        }
+        if (!inserted) {
+            merged.add(new long[]{s, e});
+        }
+        completed.clear();
+        completed.addAll(merged);
+    }
+
+    /**
+     * @return half-open intervals still to be fetched, in file order
+     */
+    synchronized List<long[]> missing() {
+        List<long[]> result = new ArrayList<>();
+        long cursor = 0;
+        for (long[] range : completed) {
+            if (range[0] > cursor) {
+                result.add(new long[]{cursor, range[0]});
+            }
+            cursor = Math.max(cursor, range[1]);
+        }
+        if (cursor < length) {
+            result.add(new long[]{cursor, length});
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    synchronized long completedBytes() {
+        long sum = 0;
+        for (long[] range : completed) {
+            sum += range[1] - range[0];
+        }
+        return sum;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    long getLength() {
+        return length;
+    }
+
+    String getEtag() {
+        return etag;
+    }
+
+    String getLastModified() {
+        return lastModified;
+    }
+}
@@ -1,184 +1,296 @@
 package top.oneyi.envLauncher.service;
 
-import javafx.application.Platform;
-import javafx.concurrent.Task;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Scene;
-import javafx.stage.Modality;
-import javafx.stage.Stage;
-import top.oneyi.envLauncher.MainApp;
-import top.oneyi.envLauncher.callback.JdkDownloadCallback;
+import top.oneyi.envLauncher.callback.InstallProgressView;
 import top.oneyi.envLauncher.config.DownloadSourceConfig;
-import top.oneyi.envLauncher.controller.DownloadProgressDialogController;
+import top.oneyi.envLauncher.utils.ContentStore;
 import top.oneyi.envLauncher.utils.EnvUtil;
+import top.oneyi.envLauncher.utils.EnvironmentWriter;
+import top.oneyi.envLauncher.utils.LogEntry;
 import top.oneyi.envLauncher.utils.LoggerUtil;
+import top.oneyi.envLauncher.utils.MavenSettingsEditor;
+import top.oneyi.envLauncher.utils.ParallelUnzipper;
 import top.oneyi.envLauncher.utils.PathUtils;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
-import java.util.function.Consumer;
-
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Install steps for JDK, Maven and Node.
+ * <p>
+ * Every method blocks the calling thread and opens its own {@link InstallProgressView}, so several
+ * installs can run at once (see {@link TaskScheduler}). The service does not touch JavaFX; the
+ * desktop app and the command line only differ in the view factory they pass in.
+ * <p>
+ * The {@code apply*Environment} methods only stage changes in an {@link EnvironmentWriter}
+ * session; {@link #commitEnvironment} writes the shared PATH value and must not run concurrently
+ * with itself.
+ */
 public class EnvInstallerService {
 
-    private Stage dialogStage;
+    /**
+     * Exclusive {@link TaskScheduler} resource for steps that write system environment variables.
+     */
+    public static final String ENVIRONMENT_RESOURCE = "system-environment";
 
-    public void onSetupNode(String version) {
-        onSetupNode(version, null);
-    }
+    private static final String MAVEN_LOCAL_REPOSITORY = "local-repository";
+    private static final int STREAM_CHUNK_SIZE = 64 * 1024;
+    private static final int STREAM_QUEUE_CHUNKS = 32;
 
-    public void onSetupNode(String version, Consumer<Boolean> doneCallback) {
-        String nodeUrl = DownloadSourceConfig.buildNodeUrl(version);
-        String destinationPath = PathUtils.getNodeDownloadPath(version);
+    private static volatile ArchiveCache archiveCache;
+    private static volatile ContentStore contentStore;
+    private static volatile BandwidthLimiter bandwidthLimiter;
 
-        LoggerUtil.info("Node source: " + DownloadSourceConfig.getNodeBaseUrl());
-        LoggerUtil.info("Start Node setup: " + version);
+    private final InstallProgressView.Factory progressViews;
 
-        DownloadProgressDialogController controller = createDialog("Node Download Progress");
-        if (controller == null) {
-            notifyDone(doneCallback, false);
-            return;
-        }
+    public EnvInstallerService(InstallProgressView.Factory progressViews) {
+        this.progressViews = progressViews;
+    }
 
-        Task<Boolean> task = new Task<>() {
-            @Override
-            protected Boolean call() {
-                try {
-                    boolean success = downloadFileWithProgress(nodeUrl, destinationPath, controller, dialogStage, null);
-                    if (!success) {
-                        return false;
-                    }
+    /**
+     * Download and unzip a JDK, unless the registry already has this version.
+     *
+     * @return JDK home, or null when cancelled or failed
+     */
+    public String installJdk(String version, BooleanSupplier cancelRequested) {
+        return LoggerUtil.withField(LogEntry.FIELD_TOOL, "JDK", () -> doInstallJdk(version, cancelRequested));
+    }
 
-                    String extractedDir = destinationPath.replace(".zip", "");
-                    File nodeRoot = findNodeHome(new File(extractedDir));
-                    if (nodeRoot == null) {
-                        LoggerUtil.info("node.exe not found after unzip.");
-                        return false;
-                    }
+    private String doInstallJdk(String version, BooleanSupplier cancelRequested) {
+        ToolchainRegistry.Toolchain installed = findInstalled(ToolchainRegistry.Kind.JDK, version);
+        if (installed != null) {
+            return installed.getHome();
+        }
+        String destinationPath = PathUtils.getDownloadPath(version);
+        ArchiveCache.Identity identity = identityOf("jdk", version, destinationPath);
+        Archive cached = installFromCache(identity, destinationPath, "JDK");
+        if (cached != null) {
+            String jdkHome = resolveJdkHome(destinationPath.replace(".zip", ""));
+            recordInstalled(ToolchainRegistry.Kind.JDK, version, jdkHome, cached);
+            return jdkHome;
+        }
+        String jdkDownloadUrl;
+        try {
+            // Mirror selection may probe the network, so this must not run on the FX thread.
+            jdkDownloadUrl = DownloadSourceConfig.buildJdkUrl(version);
+        } catch (IllegalArgumentException e) {
+            LoggerUtil.error("Unsupported JDK version: " + version);
+            return null;
+        }
 
-                    String nodeHome = nodeRoot.getAbsolutePath();
-                    LoggerUtil.info("Node home found: " + nodeHome);
-                    EnvUtil.setNodeEnvironmentVariables(nodeHome, "%NODE_HOME%");
-                    return true;
-                } catch (Exception e) {
-                    LoggerUtil.info("Node setup failed: " + safeError(e));
-                    return false;
-                }
-            }
-        };
+        LoggerUtil.info("JDK resolved url: " + jdkDownloadUrl);
+        LoggerUtil.info("Start JDK download: " + version);
 
-        hookTaskDone(task, doneCallback);
-        new Thread(task, "setup-node-thread").start();
+        InstallProgressView view = progressViews.open("JDK");
+        if (view == null) {
+            return null;
+        }
+        Archive archive = downloadFileWithProgress(identity, jdkDownloadUrl, destinationPath, Checksum.Source.SHA256_TXT, "jdk", view, cancelRequested);
+        if (archive == null) {
+            return null;
+        }
+        String jdkHome = resolveJdkHome(destinationPath.replace(".zip", ""));
+        recordInstalled(ToolchainRegistry.Kind.JDK, version, jdkHome, archive);
+        return jdkHome;
     }
 
-    public void onSetupMaven(String version) {
-        onSetupMaven(version, null);
+    /**
+     * Download and unzip Maven unless the registry already has this version, then create its
+     * local repository and update settings.xml.
+     *
+     * @return Maven home, or null when cancelled or failed
+     */
+    public String installMaven(String version, BooleanSupplier cancelRequested) {
+        return LoggerUtil.withField(LogEntry.FIELD_TOOL, "Maven", () -> doInstallMaven(version, cancelRequested));
     }
 
-    public void onSetupMaven(String version, Consumer<Boolean> doneCallback) {
-        String mavenUrl = DownloadSourceConfig.buildMavenUrl(version);
-        String destinationPath = PathUtils.getMavenDownloadPath(version);
-
-        LoggerUtil.info("Maven source: " + DownloadSourceConfig.getMavenBaseUrl());
-        LoggerUtil.info("Start Maven setup: " + version);
+    private String doInstallMaven(String version, BooleanSupplier cancelRequested) {
+        String mavenHome;
+        ToolchainRegistry.Toolchain installed = findInstalled(ToolchainRegistry.Kind.MAVEN, version);
+        if (installed != null) {
+            mavenHome = installed.getHome();
+        } else {
+            mavenHome = downloadMaven(version, cancelRequested);
+            if (mavenHome == null) {
+                return null;
+            }
+        }
+        // Also for an installed version: the settings profile may have changed since.
+        Map<String, String> settingsProfile = new LinkedHashMap<>(DownloadSourceConfig.getMavenSettingsProfile());
+        String localRepository = settingsProfile.getOrDefault(MAVEN_LOCAL_REPOSITORY, "");
+        if (localRepository.isBlank()) {
+            localRepository = new File(mavenHome, "maven-repository").getAbsolutePath();
+            settingsProfile.put(MAVEN_LOCAL_REPOSITORY, localRepository);
+        }
+        createMavenRepository(new File(localRepository));
+        configureMavenSettings(mavenHome, settingsProfile);
+        return mavenHome;
+    }
 
-        DownloadProgressDialogController controller = createDialog("Maven Download Progress");
-        if (controller == null) {
-            notifyDone(doneCallback, false);
-            return;
+    private String downloadMaven(String version, BooleanSupplier cancelRequested) {
+        String destinationPath = PathUtils.getMavenDownloadPath(version);
+        ArchiveCache.Identity identity = identityOf("maven", version, destinationPath);
+        Archive archive = installFromCache(identity, destinationPath, "Maven");
+        if (archive == null) {
+            String mavenUrl = DownloadSourceConfig.buildMavenUrl(version);
+            LoggerUtil.info("Maven source: " + mavenUrl);
+            LoggerUtil.info("Start Maven setup: " + version);
+
+            InstallProgressView view = progressViews.open("Maven");
+            if (view == null) {
+                return null;
+            }
+            archive = downloadFileWithProgress(identity, mavenUrl, destinationPath, Checksum.Source.SHA512, "maven", view, cancelRequested);
+            if (archive == null) {
+                return null;
+            }
         }
 
-        Task<Boolean> task = new Task<>() {
-            @Override
-            protected Boolean call() {
-                try {
-                    boolean success = downloadFileWithProgress(mavenUrl, destinationPath, controller, dialogStage, null);
-                    if (!success) {
-                        return false;
-                    }
+        String mavenHome = findMavenHome(new File(destinationPath.replace(".zip", "")));
+        if (mavenHome == null) {
+            LoggerUtil.error("Valid Maven root not found.");
+            return null;
+        }
+        recordInstalled(ToolchainRegistry.Kind.MAVEN, version, mavenHome, archive);
+        return mavenHome;
+    }
 
-                    String extractedDir = destinationPath.replace(".zip", "");
-                    String mavenHome = findMavenHome(new File(extractedDir));
-                    if (mavenHome == null) {
-                        LoggerUtil.info("Valid Maven root not found.");
-                        return false;
-                    }
+    /**
+     * Download and unzip Node, unless the registry already has this version.
+     *
+     * @param version version with the leading {@code v}, e.g. {@code v20.19.2}
+     * @return Node home, or null when cancelled or failed
+     */
+    public String installNode(String version, BooleanSupplier cancelRequested) {
+        return LoggerUtil.withField(LogEntry.FIELD_TOOL, "Node", () -> doInstallNode(version, cancelRequested));
+    }
 
-                    createMavenRepository(mavenHome);
-                    configureMavenSettings(mavenHome);
-                    EnvUtil.setMavenEnvironmentVariables(mavenHome, mavenHome + "\\bin");
-                    return true;
-                } catch (Exception e) {
-                    LoggerUtil.info("Maven setup failed: " + safeError(e));
-                    return false;
-                }
+    private String doInstallNode(String version, BooleanSupplier cancelRequested) {
+        ToolchainRegistry.Toolchain installed = findInstalled(ToolchainRegistry.Kind.NODE, version);
+        if (installed != null) {
+            return installed.getHome();
+        }
+        String destinationPath = PathUtils.getNodeDownloadPath(version);
+        ArchiveCache.Identity identity = identityOf("node", version, destinationPath);
+        Archive archive = installFromCache(identity, destinationPath, "Node");
+        if (archive == null) {
+            String nodeUrl = DownloadSourceConfig.buildNodeUrl(version);
+            LoggerUtil.info("Node source: " + nodeUrl);
+            LoggerUtil.info("Start Node setup: " + version);
+
+            InstallProgressView view = progressViews.open("Node");
+            if (view == null) {
+                return null;
             }
-        };
+            archive = downloadFileWithProgress(identity, nodeUrl, destinationPath, Checksum.Source.SHASUMS256, "node", view, cancelRequested);
+            if (archive == null) {
+                return null;
+            }
+        }
 
-        hookTaskDone(task, doneCallback);
-        new Thread(task, "setup-maven-thread").start();
+        File nodeRoot = findNodeHome(new File(destinationPath.replace(".zip", "")));
+        if (nodeRoot == null) {
+            LoggerUtil.error("node.exe not found after unzip.");
+            return null;
+        }
+        LoggerUtil.info("Node home found: " + nodeRoot.getAbsolutePath());
+        recordInstalled(ToolchainRegistry.Kind.NODE, version, nodeRoot.getAbsolutePath(), archive);
+        return nodeRoot.getAbsolutePath();
     }
 
-    public void onDownloadJdk(String version, JdkDownloadCallback callback) {
-        onDownloadJdk(version, callback, null);
+    /**
+     * @return what this app installed so far, from the registry; no disk scan
+     */
+    public List<ToolchainRegistry.Toolchain> listInstalled() {
+        return ToolchainRegistry.shared().list();
     }
 
-    public void onDownloadJdk(String version,
-                              JdkDownloadCallback callback,
-                              Consumer<Boolean> doneCallback) {
-        String jdkDownloadUrl;
-        try {
-            jdkDownloadUrl = DownloadSourceConfig.buildJdkUrl(version);
-        } catch (IllegalArgumentException e) {
-            LoggerUtil.info("Unsupported JDK version: " + version);
-            notifyDone(doneCallback, false);
-            return;
+    private ToolchainRegistry.Toolchain findInstalled(ToolchainRegistry.Kind kind, String version) {
+        ToolchainRegistry.Toolchain installed = ToolchainRegistry.shared().find(kind, version);
+        if (installed != null) {
+            LoggerUtil.info("Already installed, download skipped: " + installed.getHome());
         }
+        return installed;
+    }
 
-        String destinationPath = PathUtils.getDownloadPath(version);
-
-        LoggerUtil.info("JDK source: " + DownloadSourceConfig.getJdkBaseUrl());
-        LoggerUtil.info("JDK resolved url: " + jdkDownloadUrl);
-        LoggerUtil.info("Start JDK download: " + version);
+    private void recordInstalled(ToolchainRegistry.Kind kind, String version, String home, Archive archive) {
+        try {
+            ToolchainRegistry.shared().record(new ToolchainRegistry.Toolchain(kind, version, home,
+                    archive.checksum, archive.size,
+                    System.currentTimeMillis()));
+        } catch (IOException e) {
+            LoggerUtil.warn("Record installed " + kind + " " + version + " failed: " + safeError(e));
+        }
+    }
 
-        DownloadProgressDialogController controller = createDialog("JDK Download Progress");
-        if (controller == null) {
-            notifyDone(doneCallback, false);
-            return;
+    /**
+     * Locate the JDK home (parent of bin/java.exe) below the extracted directory.
+     *
+     * @return the JDK home, or the extracted directory itself when java.exe is not found
+     */
+    private String resolveJdkHome(String jdkExtractedPath) {
+        File extractedRoot = new File(jdkExtractedPath);
+        File javaExeFile = PathUtils.findJavaExecutable(extractedRoot);
+        if (javaExeFile != null) {
+            File jdkHome = javaExeFile.getParentFile().getParentFile();
+            LoggerUtil.info("JDK home auto-detected: " + jdkHome.getAbsolutePath());
+            return jdkHome.getAbsolutePath();
         }
+        LoggerUtil.warn("java.exe not found. Use extracted path: " + extractedRoot.getAbsolutePath());
+        return extractedRoot.getAbsolutePath();
+    }
 
-        Task<Boolean> task = new Task<>() {
-            @Override
-            protected Boolean call() {
-                return downloadFileWithProgress(jdkDownloadUrl, destinationPath, controller, dialogStage, callback);
-            }
-        };
+    /**
+     * @return writer that collects the environment changes of one install session
+     */
+    public EnvironmentWriter newEnvironmentSession() {
+        return EnvUtil.newEnvironmentWriter();
+    }
 
-        hookTaskDone(task, doneCallback);
-        new Thread(task, "download-jdk-thread").start();
+    public void applyJdkEnvironment(EnvironmentWriter session, String javaHome) {
+        LoggerUtil.withField(LogEntry.FIELD_TOOL, "JDK", () -> EnvUtil.setJdkEnvironmentVariables(session, javaHome, "%JAVA_HOME%\\bin"));
     }
 
-    private void hookTaskDone(Task<Boolean> task, Consumer<Boolean> doneCallback) {
-        task.setOnSucceeded(event -> notifyDone(doneCallback, Boolean.TRUE.equals(task.getValue())));
-        task.setOnFailed(event -> {
-            LoggerUtil.info("Background task failed: " + safeError(task.getException()));
-            notifyDone(doneCallback, false);
-        });
+    public void applyMavenEnvironment(EnvironmentWriter session, String mavenHome) {
+        LoggerUtil.withField(LogEntry.FIELD_TOOL, "Maven", () -> EnvUtil.setMavenEnvironmentVariables(session, mavenHome, mavenHome + "\\bin"));
     }
 
-    private void notifyDone(Consumer<Boolean> doneCallback, boolean success) {
-        if (doneCallback != null) {
-            doneCallback.accept(success);
+    public void applyNodeEnvironment(EnvironmentWriter session, String nodeHome) throws Exception {
+        LoggerUtil.withField(LogEntry.FIELD_TOOL, "Node", () -> doApplyNodeEnvironment(session, nodeHome));
+    }
+
+    private void doApplyNodeEnvironment(EnvironmentWriter session, String nodeHome) throws Exception {
+        Map<String, String> npmSettings = new LinkedHashMap<>();
+        npmSettings.put("registry", DownloadSourceConfig.getNpmRegistry());
+        npmSettings.put("strict-ssl", String.valueOf(DownloadSourceConfig.isNpmStrictSsl()));
+        EnvUtil.setNodeEnvironmentVariables(session, nodeHome, "%NODE_HOME%", npmSettings);
+
+        List<String> globalPackages = DownloadSourceConfig.getNpmGlobalPackages();
+        if (!globalPackages.isEmpty()) {
+            // Optional: a failed install is logged but does not fail the Node setup.
+            EnvUtil.installNpmGlobalPackages(nodeHome, globalPackages, PathUtils.getNpmPackageDir());
         }
     }
 
+    /**
+     * Write everything the {@code apply*Environment} calls staged in {@code session}, PATH once.
+     */
+    public void commitEnvironment(EnvironmentWriter session) throws IOException {
+        session.commit();
+    }
+
     private File findNodeHome(File extractedDir) {
         File nodeExe = new File(extractedDir, "node.exe");
         if (nodeExe.exists()) {
@@ -217,228 +329,402 @@ public class EnvInstallerService {
         return new File(dir, "conf").exists() && new File(dir, "bin").exists();
     }
 
-    private void createMavenRepository(String mavenHome) {
-        File repoDir = new File(mavenHome, "maven-repository");
+    private void createMavenRepository(File repoDir) {
         if (!repoDir.exists() && repoDir.mkdirs()) {
             LoggerUtil.info("Maven local repository created: " + repoDir.getAbsolutePath());
         } else if (repoDir.exists()) {
             LoggerUtil.info("Maven local repository already exists: " + repoDir.getAbsolutePath());
         } else {
-            LoggerUtil.info("Create Maven local repository failed.");
+            LoggerUtil.warn("Create Maven local repository failed.");
         }
     }
 
-    private void configureMavenSettings(String mavenHome) {
+    /**
+     * Apply the settings profile (local repository, mirrors, proxies, servers) to conf/settings.xml.
+     */
+    private void configureMavenSettings(String mavenHome, Map<String, String> profile) {
         File settingsFile = new File(mavenHome, "conf" + File.separator + "settings.xml");
         if (!settingsFile.exists()) {
-            LoggerUtil.info("settings.xml not found.");
+            LoggerUtil.warn("settings.xml not found.");
             return;
         }
 
         try {
-            StringBuilder content = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new FileReader(settingsFile))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    content.append(line).append(System.lineSeparator());
-                }
-            }
-
-            String localRepoPath = new File(mavenHome, "maven-repository").getAbsolutePath().replace("\\", "\\\\");
-            String updated = content.toString();
+            MavenSettingsEditor.fromProfile(profile).apply(settingsFile);
+            LoggerUtil.info("Maven settings updated. Local repo: " + profile.get(MAVEN_LOCAL_REPOSITORY));
+        } catch (IOException e) {
+            LoggerUtil.error("Update settings.xml failed: " + safeError(e));
+        }
+    }
 
-            if (!updated.contains("<localRepository>")) {
-                updated = updated.replace("</settings>",
-                        "  <localRepository>" + localRepoPath + "</localRepository>" + System.lineSeparator() + "</settings>");
-            }
+    /**
+     * @return the installed archive, or null when cancelled or failed
+     */
+    private Archive downloadFileWithProgress(ArchiveCache.Identity identity,
+                                             String url,
+                                             String destinationPath,
+                                             Checksum.Source checksumSource,
+                                             String tool,
+                                             InstallProgressView view,
+                                             BooleanSupplier cancelRequested) {
+        BooleanSupplier cancelled = () -> view.isCancelRequested() || cancelRequested.getAsBoolean();
+        try (ProgressBus progress = new ProgressBus(view::onProgress)) {
+            SegmentedDownloader downloader = new SegmentedDownloader(
+                    DownloadSourceConfig.getDownloadSegments(),
+                    DownloadSourceConfig.getDownloadMinSegmentBytes(),
+                    DownloadSourceConfig.getDownloadBufferBytes(),
+                    getBandwidthLimiter(),
+                    DownloadSourceConfig.getBandwidthWeight(tool));
+            String extractedDir = destinationPath.replace(".zip", "");
+            String resolvedUrl;
+            String cacheChecksum;
+            Archive archive;
+            try (SegmentedDownloader.Session session = downloader.open(url, new File(destinationPath), DownloadSourceConfig.isStreamingInstall())) {
+                resolvedUrl = session.getInfo().getResolvedUrl();
+                // The checksum file is fetched while the archive body is already on its way.
+                CompletableFuture<Checksum> expected = DownloadSourceConfig.isChecksumVerify()
+                        ? Checksum.fetchAsync(checksumSource, resolvedUrl)
+                        : CompletableFuture.completedFuture(null);
+
+                if (DownloadSourceConfig.isStreamingInstall()) {
+                    Archive installed = streamInstall(session, extractedDir, checksumSource, expected, tool, view, progress, cancelled);
+                    view.close();
+                    return installed;
+                }
 
-            String aliyunMirror =
-                    "    <mirror>" + System.lineSeparator() +
-                    "      <id>aliyunmaven</id>" + System.lineSeparator() +
-                    "      <mirrorOf>*</mirrorOf>" + System.lineSeparator() +
-                    "      <name>aliyun maven</name>" + System.lineSeparator() +
-                    "      <url>https://maven.aliyun.com/repository/public</url>" + System.lineSeparator() +
-                    "    </mirror>" + System.lineSeparator();
-
-            if (!updated.contains("<id>aliyunmaven</id>")) {
-                if (updated.contains("<mirrors>")) {
-                    updated = updated.replace("</mirrors>", aliyunMirror + "  </mirrors>");
-                } else {
-                    String mirrorsBlock = "  <mirrors>" + System.lineSeparator() + aliyunMirror + "  </mirrors>" + System.lineSeparator();
-                    updated = updated.replace("</settings>", mirrorsBlock + "</settings>");
+                MessageDigest digest = DownloadSourceConfig.isChecksumVerify()
+                        ? checksumSource.newDigest()
+                        : null;
+                // Resuming bytes fetched from another mirror is only safe when the result is checked.
+                session.verifiedBy(() -> digest != null && expected.join() != null);
+                boolean downloadSuccess = downloadToFile(downloader, session, destinationPath, digest, view, progress, cancelled);
+                if (!downloadSuccess || cancelled.getAsBoolean()) {
+                    LoggerUtil.warn("Download canceled or failed.");
+                    view.close();
+                    return null;
                 }
+                Checksum checksum = expected.join();
+                if (!verifyChecksum(checksum, digest, resolvedUrl)) {
+                    deleteArchive(destinationPath);
+                    throw new IOException("Checksum mismatch, archive deleted: " + resolvedUrl);
+                }
+                cacheChecksum = checksum == null ? null : checksum.toString();
+                archive = new Archive(checksum, new File(destinationPath).length());
             }
 
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(settingsFile))) {
-                writer.write(updated);
+            boolean unzipSuccess = unzipAndNotify(destinationPath, extractedDir, view, progress);
+            if (!unzipSuccess) {
+                view.close();
+                return null;
             }
 
-            LoggerUtil.info("Maven settings updated. Local repo: " + localRepoPath);
-        } catch (IOException e) {
-            LoggerUtil.info("Update settings.xml failed: " + safeError(e));
+            cacheOrDeleteZipFile(identity, cacheChecksum, destinationPath);
+
+            view.close();
+            return archive;
+        } catch (Exception e) {
+            handleDownloadError(e, view);
+            return null;
         }
     }
 
-    private boolean downloadFileWithProgress(String url,
-                                             String destinationPath,
-                                             DownloadProgressDialogController controller,
-                                             Stage stage,
-                                             JdkDownloadCallback callback) {
-        try {
-            long contentLength = PathUtils.getFileSize(url);
-            updateFileSizeLabel(controller, contentLength);
-
-            boolean downloadSuccess = downloadToFile(url, destinationPath, contentLength, controller);
-            if (!downloadSuccess || controller.isCancelRequested()) {
-                LoggerUtil.info("Download canceled or failed.");
-                Platform.runLater(stage::close);
-                return false;
-            }
-
-            String extractedDir = destinationPath.replace(".zip", "");
-            boolean unzipSuccess = unzipAndNotify(destinationPath, extractedDir, controller);
+    /**
+     * Unzip the cached archive of {@code identity}, if there is one. Called before a mirror is
+     * selected, so a reinstall needs no network at all.
+     *
+     * @param name tool name shown in the progress window
+     * @return the installed archive, or null on a miss or when the cached archive could not be unzipped
+     */
+    private Archive installFromCache(ArchiveCache.Identity identity, String destinationPath, String name) {
+        ArchiveCache.Hit hit = getArchiveCache().find(identity);
+        if (hit == null) {
+            return null;
+        }
+        File cached = hit.getFile();
+        LoggerUtil.info("Archive cache hit: " + cached.getAbsolutePath());
+        InstallProgressView view = progressViews.open(name);
+        if (view == null) {
+            return null;
+        }
+        try (ProgressBus progress = new ProgressBus(view::onProgress)) {
+            view.onFileSize(cached.length());
+            view.onStatus("Using cached archive", 1.0);
+            boolean unzipSuccess = unzipAndNotify(cached.getAbsolutePath(), destinationPath.replace(".zip", ""), view, progress);
+            view.close();
             if (!unzipSuccess) {
-                Platform.runLater(stage::close);
-                return false;
+                LoggerUtil.warn("Cached archive could not be unzipped, download again: " + identity);
+                return null;
             }
+            return new Archive(hit.getChecksum(), cached.length());
+        }
+    }
 
-            autoDeleteZipFile(destinationPath);
-
-            if (callback != null) {
-                callback.onDownloadComplete(extractedDir);
-            }
+    private static ArchiveCache.Identity identityOf(String tool, String version, String destinationPath) {
+        return new ArchiveCache.Identity(tool, version, new File(destinationPath).getName());
+    }
 
-            Platform.runLater(stage::close);
+    /**
+     * @return false only on a mismatch; a missing published checksum is logged and accepted
+     */
+    private boolean verifyChecksum(Checksum expected, MessageDigest digest, String resolvedUrl) {
+        if (digest == null) {
             return true;
-        } catch (Exception e) {
-            handleDownloadError(e, controller, stage);
+        }
+        if (expected == null) {
+            LoggerUtil.info("No published checksum found, archive not verified: " + resolvedUrl);
+            return true;
+        }
+        if (!expected.matches(digest)) {
+            LoggerUtil.error("Checksum mismatch (" + expected.getAlgorithm() + "): " + resolvedUrl);
             return false;
         }
+        LoggerUtil.info("Checksum verified (" + expected.getAlgorithm() + "): " + resolvedUrl);
+        return true;
     }
 
-    private void updateFileSizeLabel(DownloadProgressDialogController controller, long contentLength) {
-        if (contentLength <= 0) {
-            Platform.runLater(() -> controller.sizeLabel.setText("File size unknown"));
-            return;
+    private void deleteDirectory(File dir) {
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            LoggerUtil.warn("Delete directory failed: " + dir.getAbsolutePath());
         }
+    }
 
-        String sizeText = String.format("File size: %.2f MB", contentLength / (1024.0 * 1024.0));
-        Platform.runLater(() -> controller.sizeLabel.setText(sizeText));
+    /**
+     * Remove a corrupt archive together with its resume sidecar so the next attempt starts clean.
+     */
+    private void deleteArchive(String zipPath) {
+        autoDeleteZipFile(zipPath);
+        File sidecar = DownloadState.sidecarOf(new File(zipPath));
+        if (sidecar.exists() && !sidecar.delete()) {
+            LoggerUtil.warn("Delete file failed: " + sidecar.getAbsolutePath());
+        }
     }
 
-    private boolean downloadToFile(String url,
+    private boolean downloadToFile(SegmentedDownloader downloader,
+                                   SegmentedDownloader.Session session,
                                    String destinationPath,
-                                   long contentLength,
-                                   DownloadProgressDialogController controller) throws IOException {
-        URL downloadUrl = new URL(url);
-        byte[] buffer = new byte[1024];
-        long totalBytesRead = 0;
-
-        Platform.runLater(() -> controller.statusLabel.setText("Downloading..."));
-
-        try (InputStream inputStream = new BufferedInputStream(downloadUrl.openStream());
-             FileOutputStream fileOutputStream = new FileOutputStream(destinationPath)) {
-
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                if (controller.isCancelRequested()) {
-                    fileOutputStream.flush();
-                    File file = new File(destinationPath);
-                    if (file.exists() && !file.delete()) {
-                        LoggerUtil.info("Delete temp file after cancel failed: " + destinationPath);
-                    }
-                    return false;
-                }
-
-                fileOutputStream.write(buffer, 0, bytesRead);
-                totalBytesRead += bytesRead;
-
-                String status;
-                double progress;
-                if (contentLength > 0) {
-                    progress = (double) totalBytesRead / contentLength;
-                    status = String.format("Downloaded %.2f MB / %.2f MB",
-                            totalBytesRead / (1024.0 * 1024.0),
-                            contentLength / (1024.0 * 1024.0));
-                } else {
-                    progress = -1;
-                    status = String.format("Downloaded %.2f MB", totalBytesRead / (1024.0 * 1024.0));
-                }
-
-                double finalProgress = progress;
-                Platform.runLater(() -> {
-                    controller.progressBar.setProgress(finalProgress);
-                    controller.statusLabel.setText(status);
-                });
-            }
+                                   MessageDigest digest,
+                                   InstallProgressView view,
+                                   ProgressBus progress,
+                                   BooleanSupplier cancelled) throws IOException {
+        progress.begin("Downloading", session.getInfo().getContentLength());
+        boolean completed = downloader.download(session, progress, cancelled, digest);
+        progress.close();
+
+        if (!completed) {
+            // Keep the partial archive and its .state sidecar so the next attempt can resume.
+            LoggerUtil.info("Partial download kept for resume: " + destinationPath);
+            return false;
         }
 
-        Platform.runLater(() -> {
-            controller.progressBar.setProgress(1.0);
-            controller.statusLabel.setText("Download complete");
-        });
+        view.onStatus("Download complete", 1.0);
         LoggerUtil.info("File downloaded: " + destinationPath);
         return true;
     }
 
+    /**
+     * Download and extract in one pass; the archive is never written to disk, so it is not cached either.
+     * Extraction overlaps the download, so a checksum mismatch can only be detected at the end; the
+     * extracted directory is then removed again.
+     *
+     * @return the streamed archive, with a checksum only when the body was hashed and matched it; null when cancelled
+     */
+    private Archive streamInstall(SegmentedDownloader.Session session,
+                                  String extractDir,
+                                  Checksum.Source checksumSource,
+                                  CompletableFuture<Checksum> expected,
+                                  String tool,
+                                  InstallProgressView view,
+                                  ProgressBus progress,
+                                  BooleanSupplier cancelled) throws IOException {
+        AtomicInteger extractedEntries = new AtomicInteger();
+        progress.begin("Downloading and unzipping", -1);
+
+        StreamingInstaller installer = new StreamingInstaller(STREAM_CHUNK_SIZE, STREAM_QUEUE_CHUNKS);
+        IntConsumer entries = count -> {
+            extractedEntries.set(count);
+            progress.setItems(count);
+        };
+        InputStream body = session.takeWholeBody();
+        long total = session.getInfo().getContentLength();
+        MessageDigest digest = DownloadSourceConfig.isChecksumVerify() && body != null
+                ? checksumSource.newDigest()
+                : null;
+        boolean completed;
+        try (BandwidthLimiter.Share share = getBandwidthLimiter().open(DownloadSourceConfig.getBandwidthWeight(tool))) {
+            completed = body != null
+                    ? installer.install(share.wrap(body), total, new File(extractDir), progress, entries, cancelled, digest)
+                    : installer.install(session.getInfo().getResolvedUrl(), new File(extractDir), progress, entries, cancelled);
+        }
+        progress.close();
+
+        if (!completed) {
+            LoggerUtil.info("Streaming install canceled: " + extractDir);
+            return null;
+        }
+        String resolvedUrl = session.getInfo().getResolvedUrl();
+        // Without a digest over the body (verification off, or the body was fetched again) nothing was checked.
+        Checksum verified = digest == null ? null : expected.join();
+        if (!verifyChecksum(verified, digest, resolvedUrl)) {
+            deleteDirectory(new File(extractDir));
+            throw new IOException("Checksum mismatch, extracted files removed: " + resolvedUrl);
+        }
+
+        int files = extractedEntries.get();
+        view.onStatus("Unzip complete (" + files + " files)", 1.0);
+        LoggerUtil.info("Streamed and unzipped to: " + extractDir);
+
+        ContentStore store = getContentStore();
+        if (store != null) {
+            // Entries of a streamed zip may not declare their CRC up front, so dedupe afterwards.
+            view.onStatus("Deduplicating files", -1);
+            LoggerUtil.info("Dedupe: " + store.dedupe(new File(extractDir).toPath()));
+        }
+        return new Archive(verified, total);
+    }
+
     private boolean unzipAndNotify(String zipPath,
                                    String extractDir,
-                                   DownloadProgressDialogController controller) {
+                                   InstallProgressView view,
+                                   ProgressBus progress) {
         try {
-            Platform.runLater(() -> controller.statusLabel.setText("Unzipping..."));
-            PathUtils.unzipFile(zipPath, extractDir);
-            Platform.runLater(() -> controller.statusLabel.setText("Unzip complete"));
+            progress.begin("Unzipping", -1);
+            ContentStore store = getContentStore();
+            ContentStore.Report report = new ContentStore.Report();
+            if (store != null) {
+                new ParallelUnzipper(Runtime.getRuntime().availableProcessors(), store, report)
+                        .extract(new File(zipPath), new File(extractDir), progress);
+            } else {
+                PathUtils.unzipFile(zipPath, extractDir, progress);
+            }
+            progress.close();
+            view.onStatus("Unzip complete", -1);
             LoggerUtil.info("Unzipped to: " + extractDir);
+            if (store != null) {
+                LoggerUtil.info("Dedupe: " + report);
+            }
             return true;
         } catch (IOException e) {
-            Platform.runLater(() -> controller.statusLabel.setText("Unzip failed: " + safeError(e)));
-            LoggerUtil.info("Unzip failed: " + safeError(e));
+            progress.close();
+            view.onStatus("Unzip failed: " + safeError(e), -1);
+            LoggerUtil.error("Unzip failed: " + safeError(e));
             return false;
         }
     }
 
+    /**
+     * Keep the archive in the cache for later reinstalls of {@code identity}; delete it when it cannot be cached.
+     *
+     * @param checksum the verified published checksum, reported again on a hit; null when unverified
+     */
+    private void cacheOrDeleteZipFile(ArchiveCache.Identity identity, String checksum, String zipPath) {
+        try {
+            File cached = getArchiveCache().put(identity, checksum, new File(zipPath));
+            if (cached != null) {
+                LoggerUtil.info("ZIP moved to archive cache: " + cached.getAbsolutePath());
+                return;
+            }
+        } catch (IOException e) {
+            LoggerUtil.warn("Archive cache write failed: " + safeError(e));
+        }
+        autoDeleteZipFile(zipPath);
+    }
+
+    private static ArchiveCache getArchiveCache() {
+        ArchiveCache cache = archiveCache;
+        if (cache == null) {
+            synchronized (EnvInstallerService.class) {
+                if (archiveCache == null) {
+                    archiveCache = new ArchiveCache(PathUtils.getArchiveCacheDir(), DownloadSourceConfig.getCacheMaxBytes());
+                }
+                cache = archiveCache;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Shared by every download of the app. Starts at the configured cap and follows configuration
+     * reloads; the window may also change it directly.
+     */
+    public static BandwidthLimiter getBandwidthLimiter() {
+        BandwidthLimiter limiter = bandwidthLimiter;
+        if (limiter == null) {
+            synchronized (EnvInstallerService.class) {
+                if (bandwidthLimiter == null) {
+                    BandwidthLimiter created = new BandwidthLimiter(DownloadSourceConfig.getBandwidthLimitBytesPerSecond());
+                    DownloadSourceConfig.addListener(
+                            () -> created.setRate(DownloadSourceConfig.getBandwidthLimitBytesPerSecond()));
+                    bandwidthLimiter = created;
+                }
+                limiter = bandwidthLimiter;
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * @return the shared content store, or null when dedupe is off or the store cannot be opened
+     */
+    private static ContentStore getContentStore() {
+        if (!DownloadSourceConfig.isInstallDedupe()) {
+            return null;
+        }
+        ContentStore store = contentStore;
+        if (store == null) {
+            synchronized (EnvInstallerService.class) {
+                if (contentStore == null) {
+                    try {
+                        contentStore = new ContentStore(PathUtils.getContentStoreDir());
+                    } catch (IOException e) {
+                        LoggerUtil.warn("Open content store failed, dedupe skipped: " + e.getMessage());
+                        return null;
+                    }
+                }
+                store = contentStore;
+            }
+        }
+        return store;
+    }
+
     private void autoDeleteZipFile(String zipPath) {
         File zipFile = new File(zipPath);
         if (zipFile.exists() && zipFile.isFile()) {
             if (zipFile.delete()) {
                 LoggerUtil.info("ZIP deleted: " + zipPath);
             } else {
-                LoggerUtil.info("Delete ZIP failed: " + zipPath);
+                LoggerUtil.warn("Delete ZIP failed: " + zipPath);
             }
         }
     }
 
-    private void handleDownloadError(Exception e,
-                                     DownloadProgressDialogController controller,
-                                     Stage stage) {
-        Platform.runLater(() -> {
-            controller.progressBar.setProgress(0);
-            controller.statusLabel.setText("Download failed: " + safeError(e));
-            stage.close();
-        });
-        LoggerUtil.info("Download failed: " + safeError(e));
+    private void handleDownloadError(Exception e, InstallProgressView view) {
+        view.onFailed("Download failed: " + safeError(e));
+        LoggerUtil.error("Download failed: " + safeError(e));
     }
 
-    private DownloadProgressDialogController createDialog(String title) {
-        dialogStage = new Stage();
-        dialogStage.initModality(Modality.APPLICATION_MODAL);
-        dialogStage.setTitle(title);
-        URL fxmlUrl = MainApp.class.getResource("download-progress-dialog.fxml");
-        FXMLLoader loader = new FXMLLoader(fxmlUrl);
+    private String safeError(Throwable t) {
+        return t == null ? "unknown" : String.valueOf(t.getMessage());
+    }
 
-        try {
-            Scene scene = new Scene(loader.load(), 450, 180);
-            dialogStage.setScene(scene);
-            dialogStage.show();
-        } catch (IOException e) {
-            LoggerUtil.info("Create progress dialog failed: " + safeError(e));
-            return null;
+    /**
+     * The archive an install came from, as recorded in the {@link ToolchainRegistry}.
+     */
+    private static final class Archive {
+        /**
+         * {@code algorithm:hex} the archive was verified against; null when it was not verified.
+         */
+        private final String checksum;
+        private final long size;
+
+        Archive(Checksum checksum, long size) {
+            this(checksum == null ? null : checksum.toString(), size);
         }
 
-        return loader.getController();
-    }
-
-    private String safeError(Throwable t) {
-        return t == null ? "unknown" : String.valueOf(t.getMessage());
+        Archive(String checksum, long size) {
+            this.checksum = checksum;
+            this.size = size;
+        }
     }
 }
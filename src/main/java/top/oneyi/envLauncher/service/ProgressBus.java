@@ -0,0 +1,206 @@
+package top.oneyi.envLauncher.service;
+
+import top.oneyi.envLauncher.callback.DownloadProgressListener;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 进度事件总线
+ * <p>
+ * Worker threads (download segments, unzip workers) only update atomic counters. One shared
+ * publisher thread samples them at a fixed frame rate, smooths the throughput with a
+ * time-weighted EWMA, derives the ETA and hands a {@link Snapshot} to the sink. The sink is
+ * therefore called at most once per frame, no matter how many chunks were read in between.
+ */
+public class ProgressBus implements DownloadProgressListener, AutoCloseable {
+
+    static final long FRAME_INTERVAL_MILLIS = 100;
+
+    /**
+     * Time constant of the throughput average; larger values give a calmer but slower speed readout.
+     */
+    private static final double SMOOTHING_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private static final ScheduledExecutorService PUBLISHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "progress-publisher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Consumer<Snapshot> sink;
+    private final AtomicLong done = new AtomicLong();
+    private final AtomicLong total = new AtomicLong(-1);
+    private final AtomicInteger items = new AtomicInteger();
+    private volatile String phase = "";
+    private ScheduledFuture<?> frames;
+
+    // Sampling state, guarded by this.
+    private long lastSampleNanos;
+    private long lastSampleDone;
+    private double bytesPerSecond = -1;
+
+    public ProgressBus(Consumer<Snapshot> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Start a new phase (e.g. download, then unzip); counters and the speed average are reset.
+     */
+    public synchronized void begin(String phase, long totalBytes) {
+        reset(phase, totalBytes, System.nanoTime());
+        if (frames == null) {
+            frames = PUBLISHER.scheduleAtFixedRate(this::publishFrame,
+                    FRAME_INTERVAL_MILLIS, FRAME_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    synchronized void reset(String phase, long totalBytes, long nowNanos) {
+        this.phase = phase;
+        done.set(0);
+        total.set(totalBytes);
+        items.set(0);
+        lastSampleNanos = nowNanos;
+        lastSampleDone = 0;
+        bytesPerSecond = -1;
+    }
+
+    @Override
+    public void onProgress(long downloadedBytes, long totalBytes) {
+        done.set(downloadedBytes);
+        total.set(totalBytes);
+    }
+
+    public void setItems(int count) {
+        items.set(count);
+    }
+
+    /**
+     * Stops the frame timer and delivers one last snapshot so the final numbers are shown.
+     * Closing an idle bus does nothing.
+     */
+    @Override
+    public synchronized void close() {
+        if (frames == null) {
+            return;
+        }
+        frames.cancel(false);
+        frames = null;
+        sink.accept(sample(System.nanoTime()));
+    }
+
+    /**
+     * Runs under the lock so a frame that raced with {@link #close()} cannot overtake the final snapshot.
+     */
+    private synchronized void publishFrame() {
+        if (frames != null) {
+            sink.accept(sample(System.nanoTime()));
+        }
+    }
+
+    synchronized Snapshot sample(long nowNanos) {
+        long current = done.get();
+        long elapsed = nowNanos - lastSampleNanos;
+        if (elapsed > 0) {
+            double instant = (current - lastSampleDone) * 1e9 / elapsed;
+            if (bytesPerSecond < 0) {
+                bytesPerSecond = instant;
+            } else {
+                double alpha = 1 - Math.exp(-elapsed / SMOOTHING_NANOS);
+                bytesPerSecond += alpha * (instant - bytesPerSecond);
+            }
+            lastSampleNanos = nowNanos;
+            lastSampleDone = current;
+        }
+
+        long size = total.get();
+        long etaSeconds = -1;
+        if (size > 0 && bytesPerSecond > 0) {
+            etaSeconds = (long) Math.ceil(Math.max(0, size - current) / bytesPerSecond);
+        }
+        return new Snapshot(phase, current, size, items.get(), Math.max(0, bytesPerSecond), etaSeconds);
+    }
+
+    /**
+     * Immutable view of one frame.
+     */
+    public static final class Snapshot {
+        private final String phase;
+        private final long done;
+        private final long total;
+        private final int items;
+        private final double bytesPerSecond;
+        private final long etaSeconds;
+
+        Snapshot(String phase, long done, long total, int items, double bytesPerSecond, long etaSeconds) {
+            this.phase = phase;
+            this.done = done;
+            this.total = total;
+            this.items = items;
+            this.bytesPerSecond = bytesPerSecond;
+            this.etaSeconds = etaSeconds;
+        }
+
+        public String getPhase() {
+            return phase;
+        }
+
+        public long getDone() {
+            return done;
+        }
+
+        /**
+         * @return total bytes, or -1 when unknown
+         */
+        public long getTotal() {
+            return total;
+        }
+
+        public int getItems() {
+            return items;
+        }
+
+        public double getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        /**
+         * @return remaining seconds, or -1 while the size or the speed is unknown
+         */
+        public long getEtaSeconds() {
+            return etaSeconds;
+        }
+
+        /**
+         * @return 0..1, or -1 (indeterminate) when the total is unknown
+         */
+        public double getFraction() {
+            return total > 0 ? Math.min(1.0, (double) done / total) : -1;
+        }
+
+        /**
+         * @return e.g. {@code Downloading 12.50 / 180.00 MB, 312 files, ETA 0:42}
+         */
+        public String describe() {
+            double mb = 1024.0 * 1024.0;
+            StringBuilder status = new StringBuilder(phase);
+            if (total > 0) {
+                status.append(String.format(" %.2f / %.2f MB", done / mb, total / mb));
+            } else {
+                status.append(String.format(" %.2f MB", done / mb));
+            }
+            if (items > 0) {
+                status.append(", ").append(items).append(" files");
+            }
+            if (etaSeconds >= 0) {
+                status.append(String.format(", ETA %d:%02d", etaSeconds / 60, etaSeconds % 60));
+            }
+            return status.toString();
+        }
+    }
+}
@@ -0,0 +1,917 @@
+package top.oneyi.envLauncher.service;
+
+import top.oneyi.envLauncher.callback.DownloadProgressListener;
+import top.oneyi.envLauncher.utils.HttpTransport;
+import top.oneyi.envLauncher.utils.LoggerUtil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Multi-connection, resumable download engine.
+ * <p>
+ * {@link #open} sends one GET for the first piece of the file; its response carries the length,
+ * the validators and range support, so no separate HEAD round-trip is needed, and its body is
+ * written as the first segment. When ranges are honoured, the file is
+ * preallocated and the remaining byte ranges are requested concurrently over
+ * {@link HttpTransport#segments()}, which stays on HTTP/1.1 so each segment gets its own
+ * connection. Progress is checkpointed to a {@link DownloadState} sidecar, so a
+ * cancelled or broken download continues where it stopped as long as ETag/Last-Modified still
+ * match. A full (200) response is simply read to the end over that single connection.
+ * <p>
+ * With a {@link BandwidthLimiter} all connections of one download draw from one weighted share.
+ */
+public class SegmentedDownloader {
+
+    private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    private static final long CHECKPOINT_INTERVAL_MS = 1000;
+    private static final long PROGRESS_INTERVAL_NANOS = 100_000_000L;
+
+    private final HttpTransport transport = HttpTransport.segments();
+    private final int segmentCount;
+    private final long minSegmentSize;
+    private final int bufferSize;
+    private final BandwidthLimiter limiter;
+    private final double weight;
+
+    public SegmentedDownloader(int segmentCount, long minSegmentSize) {
+        this(segmentCount, minSegmentSize, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize size of the direct buffer each connection reads into
+     */
+    public SegmentedDownloader(int segmentCount, long minSegmentSize, int bufferSize) {
+        this(segmentCount, minSegmentSize, bufferSize, new BandwidthLimiter(0), 1);
+    }
+
+    /**
+     * @param limiter shared with the other downloads that should split one cap
+     * @param weight  share of the cap while other downloads run
+     */
+    public SegmentedDownloader(int segmentCount, long minSegmentSize, int bufferSize,
+                               BandwidthLimiter limiter, double weight) {
+        this.segmentCount = Math.max(1, segmentCount);
+        this.minSegmentSize = Math.max(1, minSegmentSize);
+        this.bufferSize = Math.max(8192, bufferSize);
+        this.limiter = limiter;
+        this.weight = weight;
+    }
+
+    /**
+     * Download {@code url} into {@code destination}.
+     * <p>
+     * On cancel or failure the partial file and its sidecar are kept for the next attempt.
+     *
+     * @return false when cancelled, true when the file is complete
+     */
+    public boolean download(String url,
+                            File destination,
+                            DownloadProgressListener listener,
+                            BooleanSupplier cancelRequested) throws IOException {
+        try (Session session = open(url, destination, false)) {
+            return download(session, listener, cancelRequested);
+        }
+    }
+
+    /**
+     * Send the first GET for {@code url}. When {@code destination} has a resumable sidecar, the
+     * request already asks for the first missing range (guarded by {@code If-Range}); otherwise
+     * it asks for the first {@code minSegmentSize} bytes, which is the whole file when it is small.
+     * <p>
+     * The caller must either pass the session to {@link #download(Session, DownloadProgressListener, BooleanSupplier)}
+     * or close it.
+     *
+     * @param wholeBody request the complete file without a Range header, e.g. to stream it
+     *                  through {@link Session#takeWholeBody()}
+     */
+    public Session open(String url, File destination, boolean wholeBody) throws IOException {
+        DownloadState previous = wholeBody ? null : DownloadState.load(DownloadState.sidecarOf(destination));
+        // The sidecar belongs to the archive, not to a mirror: a retry may pick another mirror.
+        if (previous != null && destination.length() != previous.getLength()) {
+            previous = null;
+        }
+        List<Segment> planned = previous == null ? null : planSegments(previous.missing());
+
+        Map<String, String> headers = new HashMap<>();
+        if (planned != null && !planned.isEmpty()) {
+            Segment first = planned.get(0);
+            headers.put("Range", "bytes=" + first.start + "-" + (first.end - 1));
+            // Another mirror does not know this server's ETag, but usually keeps the file date.
+            String validator = url.equals(previous.getUrl()) || previous.getLastModified() == null
+                    ? ifRangeValidator(previous.getEtag(), previous.getLastModified())
+                    : previous.getLastModified();
+            if (validator != null) {
+                headers.put("If-Range", validator);
+            }
+        } else if (!wholeBody) {
+            headers.put("Range", "bytes=0-" + (minSegmentSize - 1));
+        }
+
+        HttpResponse<InputStream> response = transport.get(url, headers);
+        int code = response.statusCode();
+        if (code != HttpURLConnection.HTTP_OK && code != HttpURLConnection.HTTP_PARTIAL) {
+            HttpTransport.closeQuietly(response);
+            throw new IOException("GET " + url + " returned HTTP " + code);
+        }
+        return new Session(url, destination, response, previous, planned);
+    }
+
+    /**
+     * Download the file behind an opened session. The session's body is consumed or released.
+     *
+     * @return false when cancelled, true when the file is complete
+     */
+    public boolean download(Session session,
+                            DownloadProgressListener listener,
+                            BooleanSupplier cancelRequested) throws IOException {
+        return download(session, listener, cancelRequested, null);
+    }
+
+    /**
+     * Same as {@link #download(Session, DownloadProgressListener, BooleanSupplier)}, and feeds the
+     * complete file, in order, to {@code digest} while it downloads.
+     *
+     * @param digest reset first; holds the hash of the whole file when this returns true. May be null.
+     */
+    public boolean download(Session session,
+                            DownloadProgressListener listener,
+                            BooleanSupplier cancelRequested,
+                            MessageDigest digest) throws IOException {
+        try (BandwidthLimiter.Share share = limiter.open(weight)) {
+            return download(session, listener, cancelRequested, digest, share);
+        }
+    }
+
+    private boolean download(Session session,
+                             DownloadProgressListener listener,
+                             BooleanSupplier cancelRequested,
+                             MessageDigest digest,
+                             BandwidthLimiter.Share share) throws IOException {
+        if (digest != null) {
+            digest.reset();
+        }
+        RemoteFileInfo info = session.info;
+        File destination = session.destination;
+        File sidecar = DownloadState.sidecarOf(destination);
+        if (session.response.statusCode() != HttpURLConnection.HTTP_PARTIAL || info.contentLength <= 0) {
+            // A full body (no range support, or If-Range saw a changed file) is read to the end as is.
+            deleteQuietly(sidecar);
+            return downloadSingle(fullBody(session), info.contentLength, destination, listener, cancelRequested, digest, share);
+        }
+
+        DownloadState state;
+        List<Segment> segments;
+        DownloadState previous = session.previous;
+        if (previous != null && previous.matches(session.url, info.etag, info.lastModified, info.contentLength, session.verified)) {
+            LoggerUtil.info("Resume download: " + previous.completedBytes() + " of "
+                    + info.contentLength + " bytes already on disk");
+            state = session.url.equals(previous.getUrl())
+                    ? previous
+                    : previous.movedTo(session.url, info.etag, info.lastModified);
+            segments = session.planned;
+        } else {
+            if (previous != null) {
+                LoggerUtil.info("Partial download does not match the remote file, start from zero.");
+            }
+            state = new DownloadState(session.url, info.etag, info.lastModified, info.contentLength);
+            if (session.bodyOffset == 0 && session.bodyEnd < info.contentLength) {
+                // The first response already carries [0, bodyEnd); split only the rest.
+                segments = new ArrayList<>();
+                segments.add(new Segment(0, session.bodyEnd));
+                segments.addAll(planSegments(List.of(new long[]{session.bodyEnd, info.contentLength})));
+            } else {
+                segments = planSegments(state.missing());
+            }
+        }
+
+        try {
+            return downloadRanges(session, state, segments, sidecar, listener, cancelRequested, digest, share);
+        } catch (RangeNotHonouredException e) {
+            // Either the server ignores ranges or If-Range detected a changed file.
+            LoggerUtil.info("Range request answered with full body, restart with single stream.");
+            deleteQuietly(sidecar);
+            InputStream full = getWholeBody(info.getResolvedUrl());
+            if (digest != null) {
+                digest.reset();
+            }
+            return downloadSingle(full, info.contentLength, destination, listener, cancelRequested, digest, share);
+        }
+    }
+
+    /**
+     * Split the missing ranges into at most {@code segmentCount} pieces of at least {@code minSegmentSize}.
+     */
+    List<Segment> planSegments(List<long[]> missing) {
+        List<Segment> segments = new ArrayList<>();
+        long missingBytes = 0;
+        for (long[] range : missing) {
+            segments.add(new Segment(range[0], range[1]));
+            missingBytes += range[1] - range[0];
+        }
+        long target = Math.max(segments.size(), Math.min(segmentCount, missingBytes / minSegmentSize));
+        while (segments.size() < target) {
+            Segment largest = segments.stream().max(Comparator.comparingLong(Segment::size)).orElseThrow();
+            if (largest.size() < 2 * minSegmentSize) {
+                break;
+            }
+            long middle = largest.start + largest.size() / 2;
+            segments.remove(largest);
+            segments.add(new Segment(largest.start, middle));
+            segments.add(new Segment(middle, largest.end));
+        }
+        segments.sort(Comparator.comparingLong(s -> s.start));
+        return segments;
+    }
+
+    private InputStream fullBody(Session session) throws IOException {
+        InputStream body = session.takeWholeBody();
+        if (body != null) {
+            return body;
+        }
+        session.close();
+        return getWholeBody(session.info.getResolvedUrl());
+    }
+
+    /**
+     * GET the complete file again; anything but a 200 is an error, never an archive.
+     */
+    private InputStream getWholeBody(String url) throws IOException {
+        HttpResponse<InputStream> response = transport.get(url, Map.of());
+        if (response.statusCode() != HttpURLConnection.HTTP_OK) {
+            HttpTransport.closeQuietly(response);
+            throw new IOException("GET " + url + " returned HTTP " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    /**
+     * Read a whole body. {@link FileChannel#transferFrom} moves it through the JDK's per-thread
+     * temporary direct buffer, so the loop itself allocates nothing; the digest sees that same buffer.
+     */
+    private boolean downloadSingle(InputStream body,
+                                   long total,
+                                   File destination,
+                                   DownloadProgressListener listener,
+                                   BooleanSupplier cancelRequested,
+                                   MessageDigest digest,
+                                   BandwidthLimiter.Share share) throws IOException {
+        ReadableByteChannel source = Channels.newChannel(body);
+        try (ReadableByteChannel in = digest == null ? source : new DigestChannel(source, digest);
+             FileChannel out = FileChannel.open(destination.toPath(),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Progress progress = new Progress(0, total, listener);
+            long position = 0;
+            long transferred;
+            while ((transferred = out.transferFrom(in, position, share.chunkSize(bufferSize))) > 0) {
+                if (cancelRequested.getAsBoolean()) {
+                    return false;
+                }
+                position += transferred;
+                progress.add(transferred);
+                share.acquire(transferred);
+            }
+            progress.flush();
+        }
+        return true;
+    }
+
+    private boolean downloadRanges(Session session,
+                                   DownloadState state,
+                                   List<Segment> segments,
+                                   File sidecar,
+                                   DownloadProgressListener listener,
+                                   BooleanSupplier cancelRequested,
+                                   MessageDigest digest,
+                                   BandwidthLimiter.Share share) throws IOException {
+        RemoteFileInfo info = session.info;
+        Progress progress = new Progress(state.completedBytes(), info.contentLength, listener);
+        progress.flush();
+        if (segments.isEmpty()) {
+            session.close();
+            if (digest != null) {
+                try (FileChannel channel = FileChannel.open(session.destination.toPath(), StandardOpenOption.READ)) {
+                    new PrefixDigest(digest, channel, segments, info.contentLength, bufferSize).finish();
+                }
+            }
+            deleteQuietly(sidecar);
+            return true;
+        }
+        if (segments.size() > 1) {
+            LoggerUtil.info("Segmented download: " + segments.size() + " connections, "
+                    + info.contentLength + " bytes");
+        }
+
+        // The first segment reuses the open body when that body covers it; every other range
+        // request is sent right away so they are all in flight together.
+        Segment first = segments.get(0);
+        boolean reuseBody = first.start == session.bodyOffset && first.end <= session.bodyEnd;
+        List<CompletableFuture<HttpResponse<InputStream>>> responses = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            if (responses.isEmpty() && reuseBody) {
+                responses.add(CompletableFuture.completedFuture(session.response));
+            } else {
+                responses.add(transport.getAsync(info.getResolvedUrl(), rangeHeaders(segment, info)));
+            }
+        }
+        if (!reuseBody) {
+            session.close();
+        }
+
+        boolean completed = false;
+        PrefixDigest hasher = null;
+        try (RandomAccessFile raf = new RandomAccessFile(session.destination, "rw")) {
+            if (raf.length() != info.contentLength) {
+                raf.setLength(info.contentLength);
+            }
+            FileChannel channel = raf.getChannel();
+            Checkpoint checkpoint = new Checkpoint(state, segments, channel, sidecar);
+            checkpoint.save();
+            if (digest != null) {
+                hasher = new PrefixDigest(digest, channel, segments, info.contentLength, bufferSize);
+                hasher.start();
+            }
+
+            if (segments.size() == 1) {
+                // One connection: no pool, read on the calling thread.
+                try {
+                    completed = fetchRange(responses.get(0), segments.get(0), channel, progress, checkpoint, share, cancelRequested)
+                            && !cancelRequested.getAsBoolean();
+                } finally {
+                    if (!completed) {
+                        checkpoint.save();
+                    }
+                }
+            } else {
+                completed = fetchInParallel(responses, segments, channel, progress, checkpoint, share, cancelRequested);
+            }
+            if (hasher != null) {
+                if (completed) {
+                    hasher.finish();
+                } else {
+                    hasher.abandon();
+                }
+            }
+        } finally {
+            if (hasher != null) {
+                hasher.abandon();
+            }
+            // Release bodies of requests that were never read (failure or cancel).
+            responses.forEach(response -> response.thenAccept(HttpTransport::closeQuietly));
+        }
+
+        if (completed) {
+            progress.flush();
+            deleteQuietly(sidecar);
+        }
+        return completed;
+    }
+
+    private boolean fetchInParallel(List<CompletableFuture<HttpResponse<InputStream>>> responses,
+                                    List<Segment> segments,
+                                    FileChannel channel,
+                                    Progress progress,
+                                    Checkpoint checkpoint,
+                                    BandwidthLimiter.Share share,
+                                    BooleanSupplier cancelRequested) throws IOException {
+        AtomicBoolean failed = new AtomicBoolean();
+        BooleanSupplier stop = () -> failed.get() || cancelRequested.getAsBoolean();
+        AtomicInteger workerId = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(segments.size(), r -> {
+            Thread t = new Thread(r, "download-segment-" + workerId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        boolean completed = false;
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>(segments.size());
+            for (int i = 0; i < segments.size(); i++) {
+                CompletableFuture<HttpResponse<InputStream>> response = responses.get(i);
+                Segment segment = segments.get(i);
+                futures.add(pool.submit(() -> {
+                    try {
+                        return fetchRange(response, segment, channel, progress, checkpoint, share, stop);
+                    } catch (IOException | RuntimeException e) {
+                        // Stop the sibling segments as soon as one of them fails.
+                        failed.set(true);
+                        throw e;
+                    }
+                }));
+            }
+
+            boolean allDone = true;
+            for (Future<Boolean> future : futures) {
+                allDone &= waitFor(future);
+            }
+            completed = allDone && !cancelRequested.getAsBoolean();
+            return completed;
+        } finally {
+            pool.shutdownNow();
+            if (!completed) {
+                checkpoint.save();
+            }
+        }
+    }
+
+    private boolean fetchRange(CompletableFuture<HttpResponse<InputStream>> pending,
+                               Segment segment,
+                               FileChannel channel,
+                               Progress progress,
+                               Checkpoint checkpoint,
+                               BandwidthLimiter.Share share,
+                               BooleanSupplier cancelRequested) throws IOException {
+        HttpResponse<InputStream> response = HttpTransport.await(pending);
+        int code = response.statusCode();
+        if (code != HttpURLConnection.HTTP_PARTIAL) {
+            HttpTransport.closeQuietly(response);
+            if (code == HttpURLConnection.HTTP_OK) {
+                throw new RangeNotHonouredException();
+            }
+            throw new IOException("Range request " + segment.start + "-" + (segment.end - 1)
+                    + " returned HTTP " + code);
+        }
+
+        // One direct buffer per connection, reused for every chunk of the segment.
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+        try (ReadableByteChannel in = Channels.newChannel(response.body())) {
+            while (segment.position < segment.end) {
+                buffer.clear();
+                long remaining = segment.end - segment.position;
+                int chunk = share.chunkSize(buffer.capacity());
+                if (remaining < chunk) {
+                    buffer.limit((int) remaining);
+                } else {
+                    buffer.limit(chunk);
+                }
+                int read = in.read(buffer);
+                if (read == -1) {
+                    break;
+                }
+                if (cancelRequested.getAsBoolean()) {
+                    return false;
+                }
+                buffer.flip();
+                long position = segment.position;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                segment.position = position;
+                progress.add(read);
+                checkpoint.maybeSave();
+                share.acquire(read);
+            }
+        }
+        if (segment.position < segment.end) {
+            throw new IOException("Connection closed early for range "
+                    + segment.start + "-" + (segment.end - 1));
+        }
+        return true;
+    }
+
+    private static Map<String, String> rangeHeaders(Segment segment, RemoteFileInfo info) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Range", "bytes=" + segment.start + "-" + (segment.end - 1));
+        String validator = ifRangeValidator(info.etag, info.lastModified);
+        if (validator != null) {
+            headers.put("If-Range", validator);
+        }
+        return headers;
+    }
+
+    /**
+     * If-Range needs a strong ETag; otherwise fall back to Last-Modified.
+     */
+    private static String ifRangeValidator(String etag, String lastModified) {
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return lastModified;
+    }
+
+    private boolean waitFor(Future<Boolean> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(String.valueOf(cause.getMessage()), cause);
+        }
+    }
+
+    private static void deleteQuietly(File file) {
+        if (file.exists() && !file.delete()) {
+            LoggerUtil.warn("Delete file failed: " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Shared byte counter. The listener is called at most every {@link #PROGRESS_INTERVAL_NANOS}
+     * instead of once per chunk, so formatting and UI dispatch stay out of the byte loop.
+     */
+    private static final class Progress {
+        private final AtomicLong received;
+        private final long total;
+        private final DownloadProgressListener listener;
+        private final AtomicLong nextReport;
+
+        Progress(long alreadyReceived, long total, DownloadProgressListener listener) {
+            this.received = new AtomicLong(alreadyReceived);
+            this.total = total;
+            this.listener = listener;
+            this.nextReport = new AtomicLong(System.nanoTime());
+        }
+
+        void add(long bytes) {
+            long value = received.addAndGet(bytes);
+            long now = System.nanoTime();
+            long due = nextReport.get();
+            if (now - due >= 0 && nextReport.compareAndSet(due, now + PROGRESS_INTERVAL_NANOS)) {
+                listener.onProgress(value, total);
+            }
+        }
+
+        void flush() {
+            listener.onProgress(received.get(), total);
+        }
+    }
+
+    /**
+     * One contiguous range {@code [start, end)} fetched by a single connection.
+     */
+    static final class Segment {
+        final long start;
+        final long end;
+        volatile long position;
+
+        Segment(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.position = start;
+        }
+
+        long size() {
+            return end - start;
+        }
+    }
+
+    /**
+     * Feeds every byte read through the channel to a digest.
+     */
+    private static final class DigestChannel implements ReadableByteChannel {
+        private final ReadableByteChannel in;
+        private final MessageDigest digest;
+
+        DigestChannel(ReadableByteChannel in, MessageDigest digest) {
+            this.in = in;
+            this.digest = digest;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int start = dst.position();
+            int read = in.read(dst);
+            if (read > 0) {
+                ByteBuffer chunk = dst.duplicate();
+                chunk.position(start).limit(start + read);
+                digest.update(chunk);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return in.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Hashes the file in order while segments still arrive out of order: a background thread
+     * follows the contiguous prefix that is already written and reads it back, usually straight
+     * from the page cache, so the hash is ready shortly after the last byte instead of needing
+     * a second pass over the archive.
+     */
+    private static final class PrefixDigest implements Runnable {
+        private final MessageDigest digest;
+        private final FileChannel channel;
+        private final List<Segment> segments;
+        private final long length;
+        private final ByteBuffer buffer;
+        private final Thread thread;
+        private volatile boolean stopped;
+        private volatile IOException failure;
+        private long hashed;
+
+        PrefixDigest(MessageDigest digest, FileChannel channel, List<Segment> segments, long length, int bufferSize) {
+            this.digest = digest;
+            this.channel = channel;
+            this.segments = segments;
+            this.length = length;
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+            this.thread = new Thread(this, "download-digest");
+            this.thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped) {
+                    long end = contiguousEnd();
+                    if (end > hashed) {
+                        hashUpTo(end);
+                    } else {
+                        LockSupport.parkNanos(5_000_000L);
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Hash whatever is left once every segment is complete.
+         */
+        void finish() throws IOException {
+            stop();
+            if (failure != null) {
+                throw failure;
+            }
+            hashUpTo(length);
+        }
+
+        void abandon() {
+            stop();
+        }
+
+        private void stop() {
+            stopped = true;
+            if (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * Bytes outside the segments were complete before this run; inside a segment only
+         * {@code [start, position)} is on disk.
+         */
+        private long contiguousEnd() {
+            long end = hashed;
+            for (Segment segment : segments) {
+                if (segment.end <= end) {
+                    continue;
+                }
+                end = Math.max(end, segment.position);
+                if (segment.position < segment.end) {
+                    return end;
+                }
+            }
+            return length;
+        }
+
+        private void hashUpTo(long end) throws IOException {
+            while (hashed < end) {
+                buffer.clear();
+                if (end - hashed < buffer.capacity()) {
+                    buffer.limit((int) (end - hashed));
+                }
+                int read = channel.read(buffer, hashed);
+                if (read <= 0) {
+                    throw new IOException("Unexpected end of file while hashing at " + hashed);
+                }
+                buffer.flip();
+                digest.update(buffer);
+                hashed += read;
+            }
+        }
+    }
+
+    /**
+     * Periodically flushes written data and records segment progress in the sidecar.
+     */
+    private static final class Checkpoint {
+        private final DownloadState state;
+        private final List<Segment> segments;
+        private final FileChannel channel;
+        private final File sidecar;
+        private volatile long lastSave;
+
+        Checkpoint(DownloadState state, List<Segment> segments, FileChannel channel, File sidecar) {
+            this.state = state;
+            this.segments = segments;
+            this.channel = channel;
+            this.sidecar = sidecar;
+        }
+
+        void maybeSave() throws IOException {
+            if (System.currentTimeMillis() - lastSave >= CHECKPOINT_INTERVAL_MS) {
+                save();
+            }
+        }
+
+        synchronized void save() throws IOException {
+            lastSave = System.currentTimeMillis();
+            // Read the positions first: workers keep writing, and the sidecar may only claim bytes
+            // that were written before the force below.
+            long[] positions = new long[segments.size()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = segments.get(i).position;
+            }
+            if (channel.isOpen()) {
+                channel.force(false);
+            }
+            for (int i = 0; i < positions.length; i++) {
+                state.add(segments.get(i).start, positions[i]);
+            }
+            state.save(sidecar);
+        }
+    }
+
+    /**
+     * Raised when a range request is answered with the full body.
+     */
+    private static final class RangeNotHonouredException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        RangeNotHonouredException() {
+            super("Server ignored Range header");
+        }
+    }
+
+    /**
+     * An opened GET: its headers describe the remote file, its body has not been read yet.
+     */
+    public static final class Session implements Closeable {
+        private final String url;
+        private final File destination;
+        private final HttpResponse<InputStream> response;
+        private final RemoteFileInfo info;
+        private final long bodyOffset;
+        private final long bodyEnd;
+        private final DownloadState previous;
+        private final List<Segment> planned;
+        private BooleanSupplier verified = () -> false;
+        private boolean bodyTaken;
+
+        Session(String url, File destination, HttpResponse<InputStream> response,
+                DownloadState previous, List<Segment> planned) {
+            this.url = url;
+            this.destination = destination;
+            this.response = response;
+            this.info = RemoteFileInfo.of(response);
+            boolean partial = response.statusCode() == HttpURLConnection.HTTP_PARTIAL;
+            this.bodyOffset = partial ? info.rangeStart : 0;
+            this.bodyEnd = partial ? info.rangeEnd : info.contentLength;
+            this.previous = previous;
+            this.planned = planned;
+        }
+
+        public RemoteFileInfo getInfo() {
+            return info;
+        }
+
+        /**
+         * Tell the download whether a published checksum will verify the finished file. Only then
+         * may bytes from another mirror be continued on the strength of an equal Last-Modified.
+         *
+         * @param verified asked at most once, when that decision comes up; may block
+         */
+        public void verifiedBy(BooleanSupplier verified) {
+            this.verified = verified;
+        }
+
+        /**
+         * Hand the body over to the caller, who must close it.
+         *
+         * @return the body when it is the complete file, otherwise null
+         */
+        public InputStream takeWholeBody() {
+            boolean whole = response.statusCode() == HttpURLConnection.HTTP_OK
+                    || (bodyOffset == 0 && info.contentLength > 0 && bodyEnd == info.contentLength);
+            if (bodyTaken || !whole) {
+                return null;
+            }
+            bodyTaken = true;
+            return response.body();
+        }
+
+        @Override
+        public void close() {
+            if (!bodyTaken) {
+                bodyTaken = true;
+                HttpTransport.closeQuietly(response);
+            }
+        }
+    }
+
+    /**
+     * What the response headers of the first GET say about the remote file.
+     */
+    public static final class RemoteFileInfo {
+        private static final Pattern CONTENT_RANGE = Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+|\\*)");
+
+        final URI url;
+        final long contentLength;
+        final boolean acceptRanges;
+        final String etag;
+        final String lastModified;
+        /**
+         * Body range {@code [rangeStart, rangeEnd)} of a 206 response.
+         */
+        final long rangeStart;
+        final long rangeEnd;
+
+        RemoteFileInfo(URI url, long contentLength, boolean acceptRanges, String etag, String lastModified,
+                       long rangeStart, long rangeEnd) {
+            this.url = url;
+            this.contentLength = contentLength;
+            this.acceptRanges = acceptRanges;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.rangeStart = rangeStart;
+            this.rangeEnd = rangeEnd;
+        }
+
+        static RemoteFileInfo of(HttpResponse<?> response) {
+            HttpHeaders headers = response.headers();
+            String etag = headers.firstValue("ETag").orElse(null);
+            String lastModified = headers.firstValue("Last-Modified").orElse(null);
+            if (response.statusCode() == HttpURLConnection.HTTP_PARTIAL) {
+                Matcher m = CONTENT_RANGE.matcher(headers.firstValue("Content-Range").orElse(""));
+                if (m.matches()) {
+                    long total = "*".equals(m.group(3)) ? -1 : Long.parseLong(m.group(3));
+                    return new RemoteFileInfo(response.uri(), total, true, etag, lastModified,
+                            Long.parseLong(m.group(1)), Long.parseLong(m.group(2)) + 1);
+                }
+                return new RemoteFileInfo(response.uri(), -1, true, etag, lastModified, 0, 0);
+            }
+            boolean acceptRanges = headers.firstValue("Accept-Ranges")
+                    .map(value -> value.toLowerCase().contains("bytes"))
+                    .orElse(false);
+            long length = headers.firstValueAsLong("Content-Length").orElse(-1);
+            return new RemoteFileInfo(response.uri(), length, acceptRanges, etag, lastModified, 0, length);
+        }
+
+        /**
+         * @return the target after following redirects
+         */
+        public String getResolvedUrl() {
+            return url.toString();
+        }
+
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        public boolean isAcceptRanges() {
+            return acceptRanges;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package top.oneyi.envLauncher.service;
+
+import top.oneyi.envLauncher.callback.DownloadProgressListener;
+import top.oneyi.envLauncher.utils.HttpTransport;
+import top.oneyi.envLauncher.utils.PathUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * Download-and-extract pipeline that never writes the archive to disk.
+ * <p>
+ * The calling thread reads the HTTP body and hands chunks to an extractor thread through a
+ * bounded queue; the extractor runs {@link PathUtils#unzipStream} on them. Extraction therefore
+ * overlaps the download, and a slow disk applies back-pressure to the network read.
+ */
+public class StreamingInstaller {
+
+    private static final byte[] END_OF_STREAM = new byte[0];
+
+    private final int chunkSize;
+    private final int queueChunks;
+
+    public StreamingInstaller(int chunkSize, int queueChunks) {
+        this.chunkSize = Math.max(1024, chunkSize);
+        this.queueChunks = Math.max(1, queueChunks);
+    }
+
+    /**
+     * @return false when cancelled, true when every entry has been extracted
+     */
+    public boolean install(String url,
+                           File extractDir,
+                           DownloadProgressListener downloadListener,
+                           IntConsumer extractedEntriesListener,
+                           BooleanSupplier cancelRequested) throws IOException {
+        HttpResponse<InputStream> response = HttpTransport.shared().get(url, Map.of());
+        if (response.statusCode() >= 400) {
+            HttpTransport.closeQuietly(response);
+            throw new IOException("GET " + url + " returned HTTP " + response.statusCode());
+        }
+        long total = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        return install(response.body(), total, extractDir, downloadListener, extractedEntriesListener, cancelRequested, null);
+    }
+
+    /**
+     * Extract an already opened archive body, e.g. the one of a {@link SegmentedDownloader.Session}.
+     * The body is closed when this returns.
+     *
+     * @param total  expected body length, or -1 when unknown
+     * @param digest fed with every body byte as it is read; may be null
+     * @return false when cancelled, true when every entry has been extracted
+     */
+    public boolean install(InputStream body,
+                           long total,
+                           File extractDir,
+                           DownloadProgressListener downloadListener,
+                           IntConsumer extractedEntriesListener,
+                           BooleanSupplier cancelRequested,
+                           MessageDigest digest) throws IOException {
+        ChunkPipe pipe = new ChunkPipe(queueChunks);
+        Extractor extractor = new Extractor(pipe, extractDir, extractedEntriesListener);
+        Thread extractorThread = new Thread(extractor, "stream-unzip-thread");
+        extractorThread.setDaemon(true);
+        extractorThread.start();
+
+        boolean completed = false;
+        try (InputStream in = body) {
+            long received = 0;
+            byte[] buffer = new byte[chunkSize];
+            boolean extractorRunning = true;
+            int read;
+            while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                if (cancelRequested.getAsBoolean()) {
+                    return false;
+                }
+                if (digest != null) {
+                    digest.update(buffer, 0, read);
+                }
+                if (extractorRunning && !pipe.put(Arrays.copyOf(buffer, read), extractor)) {
+                    extractorRunning = false;
+                    if (extractor.failure != null) {
+                        break;
+                    }
+                    // Extractor reached the central directory; drain the tail to verify the length.
+                }
+                received += read;
+                downloadListener.onProgress(received, total);
+            }
+            if (extractor.failure == null && total > 0 && received < total) {
+                // ZipInputStream treats EOF between entries as a normal end, so check the length here.
+                throw new IOException("Connection closed early: " + received + " of " + total + " bytes");
+            }
+            completed = true;
+        } finally {
+            if (completed) {
+                pipe.close(extractor);
+            } else {
+                pipe.abort();
+            }
+            join(extractorThread);
+        }
+
+        if (extractor.failure != null) {
+            throw new IOException("Streaming extraction failed: " + extractor.failure.getMessage(), extractor.failure);
+        }
+        return true;
+    }
+
+    private static void join(Thread thread) throws IOException {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for extraction", e);
+        }
+    }
+
+    private static final class Extractor implements Runnable {
+        private final ChunkPipe pipe;
+        private final File extractDir;
+        private final IntConsumer entriesListener;
+        private volatile Exception failure;
+        private volatile boolean stopped;
+
+        Extractor(ChunkPipe pipe, File extractDir, IntConsumer entriesListener) {
+            this.pipe = pipe;
+            this.extractDir = extractDir;
+            this.entriesListener = entriesListener;
+        }
+
+        boolean isStopped() {
+            return stopped;
+        }
+
+        @Override
+        public void run() {
+            try (InputStream in = pipe.inputStream()) {
+                PathUtils.unzipStream(in, extractDir.getAbsolutePath(), entriesListener);
+            } catch (Exception e) {
+                failure = e;
+            } finally {
+                stopped = true;
+                // Unblock a producer that is waiting for queue space.
+                pipe.queue.clear();
+            }
+        }
+    }
+
+    /**
+     * Bounded single-producer/single-consumer byte pipe made of whole chunks.
+     */
+    private static final class ChunkPipe {
+        private static final byte[] ABORTED = new byte[0];
+
+        private final BlockingQueue<byte[]> queue;
+
+        ChunkPipe(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /**
+         * Blocks while the queue is full.
+         *
+         * @return false when the consumer has stopped and the chunk was dropped
+         */
+        boolean put(byte[] chunk, Extractor consumer) throws IOException {
+            try {
+                while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    if (consumer.isStopped()) {
+                        return false;
+                    }
+                }
+                return !consumer.isStopped();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while streaming", e);
+            }
+        }
+
+        void close(Extractor consumer) throws IOException {
+            put(END_OF_STREAM, consumer);
+        }
+
+        void abort() {
+            // Single producer: after clearing there is always room for the marker.
+            queue.clear();
+            queue.offer(ABORTED);
+        }
+
+        InputStream inputStream() {
+            return new InputStream() {
+                private byte[] current = new byte[0];
+                private int offset;
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (len == 0) {
+                        return 0;
+                    }
+                    while (offset >= current.length) {
+                        if (finished) {
+                            return -1;
+                        }
+                        byte[] next = take();
+                        if (next == END_OF_STREAM) {
+                            finished = true;
+                            return -1;
+                        }
+                        if (next == ABORTED) {
+                            throw new IOException("Download aborted");
+                        }
+                        current = next;
+                        offset = 0;
+                    }
+                    int n = Math.min(len, current.length - offset);
+                    System.arraycopy(current, offset, b, off, n);
+                    offset += n;
+                    return n;
+                }
+            };
+        }
+
+        private byte[] take() throws IOException {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while extracting", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package top.oneyi.envLauncher.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 依赖感知的任务调度器
+ * <p>
+ * A submitted graph runs every task as soon as all of its dependencies have succeeded, so
+ * independent downloads overlap. Tasks that declare the same exclusive resource (e.g. the
+ * PATH registry value) never run at the same time, even across graphs submitted to the same
+ * scheduler. A failed or cancelled task skips its dependents; unrelated branches keep going.
+ * A task can also wait for others with {@link TaskSpec#afterSettled}, which only orders it
+ * after them and runs it whatever their outcome (e.g. committing what earlier steps staged).
+ */
+public class TaskScheduler {
+
+    public enum State {
+        PENDING, RUNNING, SUCCEEDED, FAILED, CANCELLED, SKIPPED
+    }
+
+    /**
+     * Work of one task; return false (or throw) to fail it.
+     */
+    @FunctionalInterface
+    public interface Step {
+        boolean run(BooleanSupplier cancelRequested) throws Exception;
+    }
+
+    /**
+     * Called from worker threads on every state change.
+     */
+    @FunctionalInterface
+    public interface TaskListener {
+        void onStateChanged(String task, State state, Throwable error);
+    }
+
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    private final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "install-task-" + THREAD_ID.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, Semaphore> resources = new ConcurrentHashMap<>();
+
+    /**
+     * @throws IllegalArgumentException on duplicate names, unknown dependencies or cycles
+     */
+    public Run submit(List<TaskSpec> graph, TaskListener listener) {
+        Map<String, TaskSpec> byName = new LinkedHashMap<>();
+        for (TaskSpec spec : graph) {
+            if (byName.put(spec.name, spec) != null) {
+                throw new IllegalArgumentException("Duplicate task: " + spec.name);
+            }
+        }
+        List<TaskSpec> ordered = topologicalOrder(byName);
+
+        Run run = new Run(listener == null ? (task, state, error) -> { } : listener);
+        Map<String, CompletableFuture<State>> futures = new HashMap<>();
+        for (TaskSpec spec : ordered) {
+            run.states.put(spec.name, State.PENDING);
+            CompletableFuture<?>[] deps = spec.predecessors().stream().map(futures::get).toArray(CompletableFuture[]::new);
+            CompletableFuture<State> future = CompletableFuture.allOf(deps)
+                    .thenApplyAsync(ignored -> execute(run, spec), workers);
+            futures.put(spec.name, future);
+        }
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, error) -> run.completion.complete(Collections.unmodifiableMap(run.states)));
+        return run;
+    }
+
+    private State execute(Run run, TaskSpec spec) {
+        for (String dependency : spec.dependsOn) {
+            if (run.states.get(dependency) != State.SUCCEEDED) {
+                return run.finish(spec.name, State.SKIPPED, null);
+            }
+        }
+        if (run.cancelled) {
+            return run.finish(spec.name, State.CANCELLED, null);
+        }
+
+        Semaphore lock = spec.resource == null ? null : resources.computeIfAbsent(spec.resource, r -> new Semaphore(1, true));
+        try {
+            if (lock != null) {
+                lock.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return run.finish(spec.name, State.CANCELLED, null);
+        }
+        try {
+            if (run.cancelled) {
+                return run.finish(spec.name, State.CANCELLED, null);
+            }
+            run.update(spec.name, State.RUNNING, null);
+            boolean ok = spec.step.run(() -> run.cancelled);
+            if (run.cancelled) {
+                return run.finish(spec.name, State.CANCELLED, null);
+            }
+            return run.finish(spec.name, ok ? State.SUCCEEDED : State.FAILED, null);
+        } catch (Exception e) {
+            return run.finish(spec.name, State.FAILED, e);
+        } finally {
+            if (lock != null) {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Kahn's algorithm; keeps submission order among tasks that are ready at the same time.
+     */
+    private static List<TaskSpec> topologicalOrder(Map<String, TaskSpec> byName) {
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (TaskSpec spec : byName.values()) {
+            Set<String> predecessors = spec.predecessors();
+            pending.put(spec.name, predecessors.size());
+            for (String dependency : predecessors) {
+                if (!byName.containsKey(dependency)) {
+                    throw new IllegalArgumentException("Unknown dependency of " + spec.name + ": " + dependency);
+                }
+                dependents.computeIfAbsent(dependency, d -> new ArrayList<>()).add(spec.name);
+            }
+        }
+
+        Deque<String> ready = new ArrayDeque<>();
+        for (TaskSpec spec : byName.values()) {
+            if (spec.predecessors().isEmpty()) {
+                ready.add(spec.name);
+            }
+        }
+        List<TaskSpec> ordered = new ArrayList<>(byName.size());
+        while (!ready.isEmpty()) {
+            String name = ready.poll();
+            ordered.add(byName.get(name));
+            for (String dependent : dependents.getOrDefault(name, Collections.emptyList())) {
+                if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (ordered.size() != byName.size()) {
+            throw new IllegalArgumentException("Task graph has a cycle");
+        }
+        return ordered;
+    }
+
+    /**
+     * One node of a task graph.
+     */
+    public static final class TaskSpec {
+        private final String name;
+        private final Step step;
+        private final Set<String> dependsOn = new LinkedHashSet<>();
+        private final Set<String> settledAfter = new LinkedHashSet<>();
+        private String resource;
+
+        private TaskSpec(String name, Step step) {
+            this.name = name;
+            this.step = step;
+        }
+
+        public static TaskSpec of(String name, Step step) {
+            return new TaskSpec(name, step);
+        }
+
+        public TaskSpec after(String... tasks) {
+            dependsOn.addAll(Arrays.asList(tasks));
+            return this;
+        }
+
+        /**
+         * Run after {@code tasks} have finished, whether they succeeded, failed or were skipped.
+         */
+        public TaskSpec afterSettled(String... tasks) {
+            settledAfter.addAll(Arrays.asList(tasks));
+            return this;
+        }
+
+        /**
+         * Tasks naming the same resource are serialized.
+         */
+        public TaskSpec exclusive(String resource) {
+            this.resource = resource;
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        private Set<String> predecessors() {
+            Set<String> all = new LinkedHashSet<>(dependsOn);
+            all.addAll(settledAfter);
+            return all;
+        }
+    }
+
+    /**
+     * Handle of a submitted graph.
+     */
+    public static final class Run {
+        private final Map<String, State> states = new ConcurrentHashMap<>();
+        private final CompletableFuture<Map<String, State>> completion = new CompletableFuture<>();
+        private final TaskListener listener;
+        private volatile boolean cancelled;
+
+        private Run(TaskListener listener) {
+            this.listener = listener;
+        }
+
+        /**
+         * Running tasks see the request through their cancel supplier; tasks not started yet are cancelled.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public State getState(String task) {
+            return states.get(task);
+        }
+
+        /**
+         * Completes with the final state of every task once the whole graph has settled.
+         */
+        public CompletableFuture<Map<String, State>> completion() {
+            return completion;
+        }
+
+        private void update(String task, State state, Throwable error) {
+            states.put(task, state);
+            listener.onStateChanged(task, state, error);
+        }
+
+        private State finish(String task, State state, Throwable error) {
+            update(task, state, error);
+            return state;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package top.oneyi.envLauncher.service;
+
+import top.oneyi.envLauncher.utils.LoggerUtil;
+import top.oneyi.envLauncher.utils.PathUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 已安装工具链登记表
+ * <p>
+ * Records every JDK, Maven and Node the app installed in {@code environment/installed.properties}:
+ * home, archive checksum, archive size and install time. The file is read once and rewritten
+ * atomically (temporary file, then rename) after each install, so "what is installed" is a map
+ * lookup instead of a directory scan or a {@code cmd} call, and an install of a version that is
+ * already there can be skipped. Lookups do not lock; an entry whose home was deleted by hand is
+ * treated as not installed.
+ */
+public final class ToolchainRegistry {
+
+    public enum Kind {
+        JDK, MAVEN, NODE
+    }
+
+    private static final String HOME = "home";
+    private static final String CHECKSUM = "checksum";
+    private static final String SIZE = "size";
+    private static final String INSTALLED = "installed";
+
+    private static final DateTimeFormatter INSTALLED_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+
+    private static volatile ToolchainRegistry shared;
+
+    private final File file;
+    private volatile Map<String, Toolchain> entries;
+
+    public ToolchainRegistry(File file) {
+        this.file = file;
+        this.entries = load(file);
+    }
+
+    /**
+     * @return the registry of the environment directory, loaded on first use
+     */
+    public static ToolchainRegistry shared() {
+        ToolchainRegistry registry = shared;
+        if (registry == null) {
+            synchronized (ToolchainRegistry.class) {
+                if (shared == null) {
+                    shared = new ToolchainRegistry(PathUtils.getToolchainRegistryFile());
+                }
+                registry = shared;
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * @return the recorded install, or null when there is none or its home no longer exists
+     */
+    public Toolchain find(Kind kind, String version) {
+        Toolchain toolchain = entries.get(key(kind, version));
+        if (toolchain == null || !new File(toolchain.getHome()).isDirectory()) {
+            return null;
+        }
+        return toolchain;
+    }
+
+    /**
+     * @return every recorded install by kind, then version
+     */
+    public List<Toolchain> list() {
+        List<Toolchain> result = new ArrayList<>(entries.values());
+        result.sort(Comparator.comparing(Toolchain::getKind).thenComparing(Toolchain::getVersion));
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Add or replace an install and write the file.
+     */
+    public synchronized void record(Toolchain toolchain) throws IOException {
+        Map<String, Toolchain> next = new LinkedHashMap<>(entries);
+        next.put(key(toolchain.getKind(), toolchain.getVersion()), toolchain);
+        save(next);
+        entries = next;
+    }
+
+    private void save(Map<String, Toolchain> values) throws IOException {
+        Properties props = new Properties();
+        for (Map.Entry<String, Toolchain> entry : values.entrySet()) {
+            Toolchain toolchain = entry.getValue();
+            String prefix = entry.getKey() + ".";
+            props.setProperty(prefix + HOME, toolchain.getHome());
+            if (toolchain.getChecksum() != null) {
+                props.setProperty(prefix + CHECKSUM, toolchain.getChecksum());
+            }
+            props.setProperty(prefix + SIZE, String.valueOf(toolchain.getSize()));
+            props.setProperty(prefix + INSTALLED, String.valueOf(toolchain.getInstalledAt()));
+        }
+        if (file.getParentFile() != null) {
+            Files.createDirectories(file.getParentFile().toPath());
+        }
+        Path target = file.toPath();
+        Path tmp = target.resolveSibling(file.getName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, "envLauncher installed toolchains");
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Map<String, Toolchain> load(File file) {
+        Map<String, Toolchain> result = new LinkedHashMap<>();
+        if (!file.isFile()) {
+            return result;
+        }
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            props.load(in);
+        } catch (IOException e) {
+            LoggerUtil.warn("Read toolchain registry failed: " + e.getMessage());
+            return result;
+        }
+        for (String name : props.stringPropertyNames()) {
+            if (!name.endsWith("." + HOME)) {
+                continue;
+            }
+            String key = name.substring(0, name.length() - HOME.length() - 1);
+            int dot = key.indexOf('.');
+            if (dot < 0) {
+                continue;
+            }
+            Kind kind;
+            try {
+                kind = Kind.valueOf(key.substring(0, dot).toUpperCase());
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            result.put(key, new Toolchain(kind, key.substring(dot + 1), props.getProperty(name),
+                    props.getProperty(key + "." + CHECKSUM),
+                    parseLong(props.getProperty(key + "." + SIZE)),
+                    parseLong(props.getProperty(key + "." + INSTALLED))));
+        }
+        return result;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value == null ? 0 : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String key(Kind kind, String version) {
+        return kind.name().toLowerCase() + "." + version;
+    }
+
+    /**
+     * One installed tool.
+     */
+    public static final class Toolchain {
+        private final Kind kind;
+        private final String version;
+        private final String home;
+        private final String checksum;
+        private final long size;
+        private final long installedAt;
+
+        /**
+         * @param checksum checksum published for the archive as {@code algorithm:hex}; null when unknown
+         * @param size     archive size in bytes, -1 when unknown
+         */
+        public Toolchain(Kind kind, String version, String home, String checksum, long size, long installedAt) {
+            this.kind = kind;
+            this.version = version;
+            this.home = home;
+            this.checksum = checksum;
+            this.size = size;
+            this.installedAt = installedAt;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public String getHome() {
+            return home;
+        }
+
+        public String getChecksum() {
+            return checksum;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getInstalledAt() {
+            return installedAt;
+        }
+
+        /**
+         * @return e.g. {@code JDK 17 -> D:\environment\jdk-17\jdk-17.0.15+6 (installed 2026-05-01 10:12)}
+         */
+        @Override
+        public String toString() {
+            return kind + " " + version + " -> " + home + " (installed "
+                    + INSTALLED_FORMAT.format(Instant.ofEpochMilli(installedAt)) + ")";
+        }
+    }
+}
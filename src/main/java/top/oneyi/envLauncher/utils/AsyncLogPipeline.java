@@ -0,0 +1,150 @@
+package top.oneyi.envLauncher.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 异步日志管道
+ * <p>
+ * Producers claim a sequence number with one atomic increment and store their entry in a
+ * fixed ring; no lock is taken. A single "log-writer" thread drains the ring about once per
+ * frame (16 ms) and hands each batch to every sink in order, so the UI gets one update per
+ * frame however chatty a child process is, and the file sink writes and flushes once per batch.
+ * <p>
+ * When the ring is full, producers wait for the writer instead of dropping entries.
+ */
+public class AsyncLogPipeline implements AutoCloseable {
+
+    static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int MAX_BATCH = 4096;
+
+    private final AtomicReferenceArray<LogEntry> slots;
+    private final int mask;
+    private final List<Consumer<List<LogEntry>>> sinks;
+    private final Thread writer;
+
+    /**
+     * Next sequence handed to a producer.
+     */
+    private final AtomicLong claimed = new AtomicLong();
+    /**
+     * Next sequence the writer reads; only written by the writer.
+     */
+    private volatile long consumed;
+    /**
+     * Entries before this sequence have been passed to every sink.
+     */
+    private volatile long delivered;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity ring size, rounded up to a power of two
+     * @param sinks    called on the writer thread with each batch, in order
+     */
+    public AsyncLogPipeline(int capacity, List<Consumer<List<LogEntry>>> sinks) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.sinks = List.copyOf(sinks);
+        this.writer = new Thread(this::drainLoop, "log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Safe to call from any thread; returns once the entry is in the ring.
+     */
+    public void publish(LogEntry entry) {
+        long sequence = claimed.getAndIncrement();
+        while (sequence - consumed >= slots.length()) {
+            if (!writer.isAlive()) {
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FULL_WAIT_NANOS);
+        }
+        slots.set(index(sequence), entry);
+    }
+
+    /**
+     * Wait until everything published before this call has reached the sinks.
+     *
+     * @return false when that did not happen within {@code timeoutMillis}
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = claimed.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (delivered < target) {
+            if (!writer.isAlive() || System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FULL_WAIT_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Deliver what is left and stop the writer thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        List<LogEntry> batch = new ArrayList<>();
+        while (true) {
+            long next = consumed;
+            LogEntry entry;
+            // A claimed slot may still be empty while its producer is storing; stop there to keep the order.
+            while (batch.size() < MAX_BATCH && (entry = slots.get(index(next))) != null) {
+                slots.set(index(next), null);
+                batch.add(entry);
+                next++;
+            }
+            consumed = next;
+
+            if (!batch.isEmpty()) {
+                deliver(batch);
+                batch = new ArrayList<>();
+                delivered = next;
+                if (slots.get(index(next)) != null) {
+                    // Hit the batch cap or more arrived while delivering; no need to wait a frame.
+                    continue;
+                }
+            } else if (closed && next >= claimed.get()) {
+                return;
+            }
+            LockSupport.parkNanos(FRAME_NANOS);
+        }
+    }
+
+    private void deliver(List<LogEntry> batch) {
+        List<LogEntry> view = Collections.unmodifiableList(batch);
+        for (Consumer<List<LogEntry>> sink : sinks) {
+            try {
+                sink.accept(view);
+            } catch (RuntimeException e) {
+                System.err.println("Log sink failed: " + e);
+            }
+        }
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence & mask);
+    }
+}
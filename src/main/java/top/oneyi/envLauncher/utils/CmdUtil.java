@@ -1,8 +1,8 @@
 package top.oneyi.envLauncher.utils;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.time.Duration;
+import java.util.Arrays;
 
 /**
  * @author W
@@ -11,6 +11,11 @@ import java.io.InputStreamReader;
  */
 public class CmdUtil {
 
+    /**
+     * 默认超时，足够 reg / setx / npm config 这类本地命令
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(60);
+
     /**
      * 执行 CMD 命令并返回输出结果
      *
@@ -18,107 +23,41 @@ public class CmdUtil {
      * @return 命令执行后的输出内容
      */
     public static String executeCmdCommand(String command) throws IOException {
-        Process process = Runtime.getRuntime().exec("cmd /c " + command);
-
-        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "GBK"));
-        BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream(), "GBK"));
-        StringBuilder output = new StringBuilder();
-        String line;
-
-        while ((line = reader.readLine()) != null) {
-            output.append(line).append(System.lineSeparator());
-        }
-
-        while ((line = errorReader.readLine()) != null) {
-            output.append("ERROR: ").append(line).append(System.lineSeparator());
-        }
-
-        reader.close();
-        errorReader.close();
-
-        return output.toString();
+        return executeCmdCommand(command, DEFAULT_TIMEOUT);
     }
 
     /**
-     * 根据关键词从 PATH 中查找匹配的路径
+     * 执行 CMD 命令并返回输出结果，非 0 退出码只记录日志
      *
-     * @param keywords 要匹配的关键词数组（如 ["jdk", "java"]）
-     * @return 匹配的第一个路径，未找到返回 null
+     * @param command 要执行的命令
+     * @param timeout 超时后连同子进程一起结束
+     * @return 命令执行后的输出内容（stdout 与 stderr 合并）
+     * @throws IOException 启动失败或超时
      */
-    public static String getPathFromEnvironment(String... keywords) throws IOException {
-        Process process = Runtime.getRuntime().exec("cmd /c echo %PATH%");
-        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-        String line;
-
-        while ((line = reader.readLine()) != null) {
-            String[] paths = line.split(";");
-            for (String path : paths) {
-                for (String keyword : keywords) {
-                    if (path.toLowerCase().contains(keyword)) {
-                        System.out.println("✅ 匹配到路径: " + path);
-                        return path;
-                    }
-                }
-            }
+    public static String executeCmdCommand(String command, Duration timeout) throws IOException {
+        ProcessRunner.Result result = ProcessRunner.shared().run(ProcessRunner.shell(command), timeout, () -> false);
+        if (result.isTimedOut()) {
+            throw new IOException("Command timed out after " + timeout.toSeconds() + " s: " + command);
         }
-
-        reader.close();
-        return null;
-    }
-
-    /**
-     * 设置环境变量
-     *
-     * @param newPath  新环境变量值
-     * @param homeType 环境变量类型
-     * @throws Exception
-     */
-    public static void setHomeInWindows(String newPath, String homeType) throws Exception {
-        ProcessBuilder pb = new ProcessBuilder("reg", "add",
-                "HKCU\\Environment", "/v", homeType, "/d", newPath, "/f");
-        Process process = pb.start();
-        process.waitFor();
-
-    }
-
-    /**
-     * 设置 path 环境变量 (修改注册表,坏处是不会立即生效)
-     * @param path
-     * @throws IOException
-     */
-    public static void regAddPath(String path) throws IOException {
-        // 使用 reg add 设置 PATH
-        Process pathProcess = Runtime.getRuntime().exec(
-                new String[]{
-                        "cmd.exe", "/c", "reg", "add",
-                        "HKEY_LOCAL_MACHINE\\SYSTEM\\CurrentControlSet\\Control\\Session Manager\\Environment",
-                        "/v", "Path", "/t", "REG_EXPAND_SZ", "/d", "\"" + path + "\"", "/f"
-                }
-        );
-        printProcessOutput(pathProcess);
+        if (!result.isSuccess()) {
+            LoggerUtil.error("Command failed: " + result);
+        }
+        return result.getOutput();
     }
 
     /**
-     * 辅助方法：读取进程输出
+     * 直接执行程序（不经过 cmd），stdout 与 stderr 合并读取
      *
-     * @param process 进程
-     * @throws IOException
+     * @param command 程序及参数（如 "reg", "import", "env.reg"）
+     * @return 命令输出
+     * @throws IOException 启动失败、超时或退出码非 0
      */
-    private static void printProcessOutput(Process process) throws IOException {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "GBK"));
-        BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream(), "GBK"));
-        String line;
-
-        while ((line = reader.readLine()) != null) {
-            System.out.println(line);
+    public static String executeCommand(String... command) throws IOException {
+        ProcessRunner.Result result = ProcessRunner.shared().run(Arrays.asList(command), DEFAULT_TIMEOUT, () -> false);
+        if (!result.isSuccess()) {
+            throw new IOException(result + ": " + result.getOutput().trim());
         }
-
-        while ((line = errorReader.readLine()) != null) {
-            System.err.println(line);
-        }
-
-        reader.close();
-        errorReader.close();
+        return result.getOutput();
     }
 
 }
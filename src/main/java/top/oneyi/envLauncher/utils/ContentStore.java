@@ -0,0 +1,337 @@
+package top.oneyi.envLauncher.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * 内容寻址文件存储（跨版本去重）
+ * <p>
+ * Keeps one copy of every distinct file content and builds install trees out of hard links to
+ * those copies, so the jars two Maven patch releases share, or the {@code node_modules/npm} of two
+ * Node releases, take disk space once. Zip entries declare their CRC-32 and size, so a candidate
+ * copy is found without reading anything; the entry is then compared byte for byte with it and
+ * only written when it differs. Objects are named {@code <crc>-<size>-<sha256>}, so the store is
+ * its own index and survives restarts without a separate database.
+ * <p>
+ * Stored copies are written into the store itself and made read-only before any install links to
+ * them, so a linked file cannot be edited in place; replacing it (see {@link #deleteIfExists})
+ * leaves the stored copy and the other installs alone. Linking is switched off per target file
+ * system: where it cannot link at all (FAT) or is not the store's volume, files are written plainly.
+ */
+public final class ContentStore {
+
+    /**
+     * Opens the data of one file; called again when the data is needed a second time.
+     */
+    @FunctionalInterface
+    public interface Content {
+        InputStream open() throws IOException;
+    }
+
+    private final Path dir;
+    private final Map<String, List<Path>> objects = new ConcurrentHashMap<>();
+    /**
+     * File systems of install targets that cannot link to the store.
+     */
+    private final Set<FileStore> noLinks = ConcurrentHashMap.newKeySet();
+
+    public ContentStore(File dir) throws IOException {
+        this.dir = dir.toPath().toAbsolutePath().normalize();
+        Files.createDirectories(this.dir);
+        try (Stream<Path> paths = Files.walk(this.dir, 2)) {
+            for (Path object : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                String key = keyOf(object.getFileName().toString());
+                if (key != null) {
+                    candidates(key).add(object);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write one file of an install tree, as a link to a stored copy when one has the same content.
+     *
+     * @param size   declared uncompressed size
+     * @param crc    declared CRC-32
+     * @param buffer scratch space, split in two halves for the comparison
+     * @return true when the file was linked instead of written
+     */
+    public boolean put(Path target, long size, long crc, Content content, byte[] buffer, Report report)
+            throws IOException {
+        report.files.incrementAndGet();
+        String key = key(crc, size);
+        if (canLink(target)) {
+            for (Path candidate : candidates(key)) {
+                if (sameContent(candidate, content, buffer) && link(target, candidate)) {
+                    report.linked(size);
+                    return true;
+                }
+            }
+        }
+
+        report.written.addAndGet(size);
+        if (canLink(target) && link(target, store(key, content))) {
+            return false;
+        }
+        // Never write through an existing link: that would change the stored copy.
+        deleteIfExists(target);
+        try (InputStream in = content.open();
+             OutputStream out = Files.newOutputStream(target)) {
+            in.transferTo(out);
+        }
+        return false;
+    }
+
+    /**
+     * Replace files of an already extracted tree (e.g. a streamed install) with links to stored
+     * copies, and store the ones seen for the first time. Reads every file once.
+     */
+    public Report dedupe(Path root) throws IOException {
+        Report report = new Report();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            long size = Files.size(file);
+            if (size == 0 || !canLink(file)) {
+                continue;
+            }
+            report.files.incrementAndGet();
+            CRC32 crc = new CRC32();
+            MessageDigest sha = sha256();
+            try (InputStream in = new CheckedInputStream(Files.newInputStream(file), crc)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    sha.update(buffer, 0, read);
+                }
+            }
+            String key = key(crc.getValue(), size);
+            String hash = HexFormat.of().formatHex(sha.digest());
+            Path stored = null;
+            for (Path candidate : candidates(key)) {
+                if (candidate.getFileName().toString().endsWith(hash)) {
+                    stored = candidate;
+                    break;
+                }
+            }
+            boolean seen = stored != null;
+            if (!seen) {
+                stored = store(key, () -> Files.newInputStream(file));
+                report.written.addAndGet(size);
+            }
+            if (Files.isSameFile(stored, file)) {
+                report.linked(size);
+                continue;
+            }
+            // Link next to the file first, then swap, so the tree never misses the file.
+            Path sibling = file.resolveSibling(file.getFileName() + ".dedupe");
+            deleteIfExists(sibling);
+            if (link(sibling, stored)) {
+                Files.move(sibling, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                if (seen) {
+                    report.linked(size);
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Delete a file that may be a read-only link to a stored copy. Where the read-only flag blocks
+     * the delete (Windows) it is cleared first, which also clears it on the stored copy; the store
+     * sets it again the next time that copy is linked.
+     */
+    public static void deleteIfExists(Path file) throws IOException {
+        try {
+            Files.deleteIfExists(file);
+        } catch (AccessDeniedException e) {
+            if (!file.toFile().setWritable(true)) {
+                throw e;
+            }
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Write {@code content} into the store as a new read-only copy, or find the copy another
+     * install stored at the same moment.
+     */
+    private Path store(String key, Content content) throws IOException {
+        MessageDigest sha = sha256();
+        Path tmp = Files.createTempFile(dir, key, ".tmp");
+        try {
+            try (InputStream in = content.open();
+                 OutputStream out = new DigestOutputStream(Files.newOutputStream(tmp), sha)) {
+                in.transferTo(out);
+            }
+            Path object = dir.resolve(key.substring(0, 2)).resolve(key + "-" + HexFormat.of().formatHex(sha.digest()));
+            Files.createDirectories(object.getParent());
+            try {
+                Files.move(tmp, object);
+                candidates(key).add(object);
+            } catch (FileAlreadyExistsException e) {
+                // Same name means same bytes; keep the copy that is there.
+            }
+            markReadOnly(object);
+            return object;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return false when the link could not be made; the caller then writes the file itself
+     */
+    private boolean link(Path target, Path object) throws IOException {
+        deleteIfExists(target);
+        try {
+            Files.createLink(target, object);
+            markReadOnly(object);
+            return true;
+        } catch (UnsupportedOperationException e) {
+            disableLinks(target, e);
+            return false;
+        } catch (FileSystemException e) {
+            if (!Files.getFileStore(target.getParent()).equals(Files.getFileStore(object))) {
+                disableLinks(target, e);
+            }
+            return false;
+        }
+    }
+
+    private boolean canLink(Path target) throws IOException {
+        return noLinks.isEmpty() || !noLinks.contains(Files.getFileStore(target.getParent()));
+    }
+
+    private void disableLinks(Path target, Exception e) throws IOException {
+        FileStore fileStore = Files.getFileStore(target.getParent());
+        if (noLinks.add(fileStore)) {
+            LoggerUtil.warn("Cannot link " + fileStore + " to the content store, dedupe disabled there: " + e.getMessage());
+        }
+    }
+
+    private static void markReadOnly(Path object) {
+        object.toFile().setWritable(false);
+    }
+
+    private boolean sameContent(Path object, Content content, byte[] buffer) throws IOException {
+        int half = buffer.length / 2;
+        InputStream stored;
+        try {
+            stored = Files.newInputStream(object);
+        } catch (NoSuchFileException e) {
+            // Removed from the store by hand.
+            objects.values().forEach(list -> list.remove(object));
+            return false;
+        }
+        try (stored;
+             InputStream in = content.open()) {
+            while (true) {
+                int a = stored.readNBytes(buffer, 0, half);
+                int b = in.readNBytes(buffer, half, half);
+                if (a != b || !Arrays.equals(buffer, 0, a, buffer, half, half + b)) {
+                    return false;
+                }
+                if (a < half) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private List<Path> candidates(String key) {
+        return objects.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
+    }
+
+    private static String key(long crc, long size) {
+        return String.format("%08x-%d", crc, size);
+    }
+
+    /**
+     * @return the crc-size part of an object name, or null for files that are not objects
+     */
+    private static String keyOf(String name) {
+        String[] parts = name.split("-");
+        if (parts.length != 3 || parts[0].length() != 8 || parts[2].length() != 64) {
+            return null;
+        }
+        return parts[0] + "-" + parts[1];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * What one extraction or dedupe pass linked and wrote; safe to update from several workers.
+     */
+    public static final class Report {
+        private final AtomicInteger files = new AtomicInteger();
+        private final AtomicInteger linkedFiles = new AtomicInteger();
+        private final AtomicLong linkedBytes = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+
+        public int getFiles() {
+            return files.get();
+        }
+
+        public int getLinkedFiles() {
+            return linkedFiles.get();
+        }
+
+        /**
+         * Bytes not written or stored again because an identical file already existed.
+         */
+        public long getSavedBytes() {
+            return linkedBytes.get();
+        }
+
+        public long getWrittenBytes() {
+            return written.get();
+        }
+
+        private void linked(long size) {
+            linkedFiles.incrementAndGet();
+            linkedBytes.addAndGet(size);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d of %d files linked, %.2f MB saved, %.2f MB written",
+                    getLinkedFiles(), getFiles(),
+                    getSavedBytes() / (1024.0 * 1024.0), getWrittenBytes() / (1024.0 * 1024.0));
+        }
+    }
+}
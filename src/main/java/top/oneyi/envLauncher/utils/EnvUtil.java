@@ -2,6 +2,12 @@ package top.oneyi.envLauncher.utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author W
@@ -10,70 +16,82 @@ import java.io.IOException;
  */
 public class EnvUtil {
 
-    private static String globalPath = null;
+    private static EnvironmentWriter.Backend backend;
 
 
+    public static boolean isWindows() {
+        return System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+    }
+
     /**
-     * 获取当前设置的 jdk 环境变量
+     * 新建一次安装会话的环境变量写入器，所有改动在 {@link EnvironmentWriter#commit()} 时一次写入
      */
-    public static String getJdkEnvironmentVariables() throws IOException {
-        return CmdUtil.getPathFromEnvironment("jdk", "java");
+    public static EnvironmentWriter newEnvironmentWriter() {
+        return new EnvironmentWriter(getBackend());
     }
 
     /**
-     * 获取当前设置的 Maven 环境变量
+     * Windows 写注册表；其他系统写到 environment/environment.properties，便于开发和测试
      */
-    public static String getMavenEnvironmentVariables() throws IOException {
-        return CmdUtil.getPathFromEnvironment("maven");
+    private static synchronized EnvironmentWriter.Backend getBackend() {
+        if (backend == null) {
+            if (isWindows()) {
+                backend = new RegistryEnvironmentBackend();
+            } else {
+                backend = new FileEnvironmentBackend(new File(PathUtils.getEnvironmentDir(), "environment.properties"),
+                        System.getenv("PATH"));
+            }
+        }
+        return backend;
     }
 
     /**
      * 设置 JDK 环境变量
      *
+     * @param writer     本次会话的写入器
      * @param javaHome   javaHome
      * @param jdkBinPath jdkBinPath
      */
-    public static void setJdkEnvironmentVariables(String javaHome, String jdkBinPath) throws Exception {
-        setEnvironmentVariable("JAVA_HOME", javaHome, jdkBinPath, "jdk", "java");
+    public static void setJdkEnvironmentVariables(EnvironmentWriter writer, String javaHome, String jdkBinPath) {
+        setEnvironmentVariable(writer, "JAVA_HOME", javaHome, jdkBinPath, "jdk", "java");
     }
 
     /**
      * 设置 Maven 环境变量
      *
+     * @param writer       本次会话的写入器
      * @param mavenHome    MavenHome
      * @param mavenBinPath mavenBinPath
      */
-    public static void setMavenEnvironmentVariables(String mavenHome, String mavenBinPath) throws Exception {
-        setEnvironmentVariable("MAVEN_HOME", mavenHome, mavenBinPath, "maven");
+    public static void setMavenEnvironmentVariables(EnvironmentWriter writer, String mavenHome, String mavenBinPath) {
+        setEnvironmentVariable(writer, "MAVEN_HOME", mavenHome, mavenBinPath, "maven");
     }
 
     /**
-     * 通用设置环境变量的方法
+     * 通用设置环境变量的方法（只暂存，提交由调用方负责）
      *
+     * @param writer      本次会话的写入器
      * @param homeVarName 环境变量名（如 JAVA_HOME）
      * @param homePath    环境变量值（如 JDK 安装路径）
      * @param pathEntry   要添加到 PATH 的路径
      * @param excludeKeywords 排除的关键词（用于清理旧路径）
      */
-    public static void setEnvironmentVariable(String homeVarName, String homePath, String pathEntry, String... excludeKeywords) throws Exception {
-        // 设置主环境变量（如 JAVA_HOME）
-        String command = "cmd /c setx " + homeVarName + " \"" + homePath + "\" /M";
-        String result = CmdUtil.executeCmdCommand(command);
-        System.out.println("✅ 设置 " + homeVarName + " 成功: " + result);
-
-        // 刷新注册表中的环境变量
-        CmdUtil.setHomeInWindows(homePath, homeVarName);
-
-        // 更新 PATH 环境变量
-        setPah(pathEntry, excludeKeywords);
-
-        LoggerUtil.info("✅ [" + homeVarName + "] 相关环境变量已设置，请重启终端或 IDE 生效。");
+    public static void setEnvironmentVariable(EnvironmentWriter writer, String homeVarName, String homePath, String pathEntry, String... excludeKeywords) {
+        writer.setVariable(homeVarName, homePath)
+                .prependPath(pathEntry, excludeKeywords);
+        LoggerUtil.info("[" + homeVarName + "] staged, written with the other environment changes of this install.");
     }
 
     /**
-     * @param nodeHome
+     * @param writer      本次会话的写入器
+     * @param nodePath    Node 安装目录
+     * @param nodeHome    加入 PATH 的 Node 路径
+     * @param npmSettings 额外写入 .npmrc 的配置（如 registry）
      */
-    public static void setNodeEnvironmentVariables(String nodePath, String nodeHome) throws Exception {
+    public static void setNodeEnvironmentVariables(EnvironmentWriter writer,
+                                                   String nodePath,
+                                                   String nodeHome,
+                                                   Map<String, String> npmSettings) {
         // 创建全局安装位置和缓存路径
         String globalInstallPath = nodePath + "\\node_global";
         String cachePath = nodePath + "\\node_cache";
@@ -85,70 +103,87 @@ public class EnvUtil {
         }
 
         // 设置 NODE_HOME
-        setEnvironmentVariable("NODE_HOME", nodePath, nodeHome);
+        setEnvironmentVariable(writer, "NODE_HOME", nodePath, nodeHome);
 
         // 分别设置 PATH 中的各个路径
-        setPah(globalInstallPath);   // 全局模块路径
-        setPah(cachePath);            // 缓存路径
-        setNpmConfig(cachePath, globalInstallPath);
-
-        LoggerUtil.info("✅ Node 环境变量已设置，请重启软件生效。");
+        writer.prependPath(globalInstallPath);   // 全局模块路径
+        writer.prependPath(cachePath);           // 缓存路径
+        try {
+            setNpmConfig(getUserNpmrc(), cachePath, globalInstallPath, npmSettings);
+        } catch (IOException e) {
+            LoggerUtil.error("❌ 设置 NPM 配置失败: " + e.getMessage());
+        }
     }
 
+    /**
+     * 用户级 .npmrc，优先级高于 npm 的全局配置
+     */
+    public static File getUserNpmrc() {
+        return new File(System.getProperty("user.home"), ".npmrc");
+    }
 
     /**
-     * 设置 NPM 配置
-     * @param cachePath 缓存路径
+     * 设置 NPM 配置：一次写入 .npmrc，不启动 npm
+     *
+     * @param npmrc             要写入的 .npmrc
+     * @param cachePath         缓存路径
      * @param globalInstallPath 全局模块路径
-     * @throws IOException
+     * @param extraSettings     其他配置（registry、strict-ssl 等）
      */
-    public static void setNpmConfig(String cachePath, String globalInstallPath) throws IOException {
-        try {
-            // 设置缓存路径
-            String cacheCommand = "npm config set cache \"" + cachePath + "\" --location=global";
-            String cacheResult = CmdUtil.executeCmdCommand(cacheCommand);
-            LoggerUtil.info("✅ NPM 缓存路径已设置\n" + cacheResult);
-
-            // 设置全局安装路径
-            String prefixCommand = "npm config set prefix \"" + globalInstallPath + "\" --location=global";
-            String prefixResult = CmdUtil.executeCmdCommand(prefixCommand);
-            LoggerUtil.info("✅ NPM 全局安装路径已设置\n" + prefixResult);
-
-            // 设置淘宝镜像源
-            String registryCommand = "npm config set registry https://registry.npm.taobao.org/";
-            String registryResult = CmdUtil.executeCmdCommand(registryCommand);
-            LoggerUtil.info("✅ NPM 镜像源设置为淘宝镜像:\n" + registryResult);
-
-            // 但是淘宝镜像好像过时了
-            String strictCommand = "npm config set strict-ssl false";
-            CmdUtil.executeCmdCommand(strictCommand);
-            LoggerUtil.info("✅ NPM 严格SSL验证已关闭,正在安装cnpm....");
-            String cnpmCommand = "npm install cnpm@7.1.1 -g";
-            CmdUtil.executeCmdCommand(cnpmCommand);
-            LoggerUtil.info("✅ NPM 安装 cnpm 成功");
-
-        } catch (Exception e) {
-            System.err.println("❌ 设置 NPM 配置失败: " + e.getMessage());
-            e.printStackTrace();
-        }
+    public static void setNpmConfig(File npmrc,
+                                    String cachePath,
+                                    String globalInstallPath,
+                                    Map<String, String> extraSettings) throws IOException {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("cache", cachePath);
+        settings.put("prefix", globalInstallPath);
+        settings.putAll(extraSettings);
+        Npmrc.load(npmrc).setAll(settings).save();
+        LoggerUtil.info("✅ NPM 配置已写入 " + npmrc.getAbsolutePath() + ": " + String.join(", ", settings.keySet()));
     }
 
     /**
-     * 设置 PATH 环境变量
+     * 用新装 Node 自带的 npm 全局安装包（一次 npm 进程）。
+     * {@code tarballDir} 中有 {@code npm pack} 生成的 {@code <name>-<version>.tgz} 时直接用本地包。
      *
-     * @param pathHome        PATH 路径
-     * @param excludeKeywords 要排除的关键词
-     * @throws IOException
+     * @param nodePath   Node 安装目录
+     * @param packages   包列表（如 cnpm@7.1.1）
+     * @param tarballDir 本地 tarball 缓存目录
+     * @return true 表示安装成功
      */
-    private static void setPah(String pathHome, String... excludeKeywords) throws IOException {
-        // 获取当前系统的 PATH
-        if (globalPath == null) {
-            globalPath = System.getenv("PATH");
+    public static boolean installNpmGlobalPackages(String nodePath, List<String> packages, File tarballDir) throws IOException {
+        File npm = new File(nodePath, isWindows() ? "npm.cmd" : "bin/npm");
+        List<String> command = new ArrayList<>(Arrays.asList(
+                npm.isFile() ? npm.getAbsolutePath() : "npm", "install", "-g", "--prefer-offline"));
+        for (String spec : packages) {
+            String tarballName = npmTarballName(spec);
+            File tarball = tarballName == null ? null : new File(tarballDir, tarballName);
+            command.add(tarball != null && tarball.isFile() ? tarball.getAbsolutePath() : spec);
         }
 
+        LoggerUtil.info("Installing global npm packages: " + String.join(" ", command.subList(4, command.size())));
+        // 可能走网络下载，给足时间；超时会连同 node 子进程一起结束
+        ProcessRunner.Result result = ProcessRunner.shared().run(command, Duration.ofMinutes(10), () -> false);
+        if (!result.isSuccess()) {
+            LoggerUtil.error("❌ npm global install failed: " + result + System.lineSeparator() + result.getOutput());
+            return false;
+        }
+        LoggerUtil.info("✅ npm global install finished in " + result.getDuration().toSeconds() + " s");
+        return true;
+    }
 
-        globalPath = PathUtils.filterAndInsertPath(pathHome, globalPath, excludeKeywords);
-
-        CmdUtil.regAddPath(globalPath);
+    /**
+     * @return {@code npm pack} 的文件名（{@code @scope/name@1.0.0} → {@code scope-name-1.0.0.tgz}），无版本号时为 null
+     */
+    static String npmTarballName(String spec) {
+        int at = spec.lastIndexOf('@');
+        if (at <= 0) {
+            return null;
+        }
+        String name = spec.substring(0, at);
+        if (name.startsWith("@")) {
+            name = name.substring(1).replace('/', '-');
+        }
+        return name + "-" + spec.substring(at + 1) + ".tgz";
     }
 }
@@ -0,0 +1,101 @@
+package top.oneyi.envLauncher.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 环境变量批量写入
+ * <p>
+ * Collects the variable and PATH changes of one install session and writes them in a single
+ * {@link #commit()}: every variable once, and PATH once with all staged entries applied in
+ * order. Where the changes end up is decided by the {@link Backend}.
+ */
+public class EnvironmentWriter {
+
+    /**
+     * Storage of the environment.
+     */
+    public interface Backend {
+
+        /**
+         * @return the PATH the staged entries are applied to; may be null or empty
+         */
+        String readPath() throws IOException;
+
+        /**
+         * Write one batch.
+         *
+         * @param variables variables to set, in staging order
+         * @param path      the new PATH, or null when it does not change
+         */
+        void write(Map<String, String> variables, String path) throws IOException;
+    }
+
+    private final Backend backend;
+    private final Map<String, String> variables = new LinkedHashMap<>();
+    private final List<PathEntry> pathEntries = new ArrayList<>();
+
+    public EnvironmentWriter(Backend backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * Stage a variable; a later value for the same name replaces the earlier one.
+     */
+    public synchronized EnvironmentWriter setVariable(String name, String value) {
+        variables.put(name, value);
+        return this;
+    }
+
+    /**
+     * Stage a PATH entry. On commit it is put in front of the current entries, and entries
+     * containing any of {@code excludeKeywords} are dropped (see {@link PathUtils#filterAndInsertPath}).
+     */
+    public synchronized EnvironmentWriter prependPath(String entry, String... excludeKeywords) {
+        pathEntries.add(new PathEntry(entry, excludeKeywords));
+        return this;
+    }
+
+    public synchronized boolean isEmpty() {
+        return variables.isEmpty() && pathEntries.isEmpty();
+    }
+
+    /**
+     * Write everything staged so far as one batch. Nothing is cleared when the backend fails,
+     * so the commit can be retried.
+     */
+    public synchronized void commit() throws IOException {
+        if (isEmpty()) {
+            return;
+        }
+        String path = null;
+        if (!pathEntries.isEmpty()) {
+            path = backend.readPath();
+            for (PathEntry entry : pathEntries) {
+                path = PathUtils.filterAndInsertPath(entry.entry, path, entry.excludeKeywords);
+            }
+        }
+        backend.write(new LinkedHashMap<>(variables), path);
+
+        List<String> written = new ArrayList<>(variables.keySet());
+        if (path != null) {
+            written.add("PATH");
+        }
+        LoggerUtil.info("Environment committed: " + String.join(", ", written));
+        variables.clear();
+        pathEntries.clear();
+    }
+
+    private static final class PathEntry {
+        private final String entry;
+        private final String[] excludeKeywords;
+
+        PathEntry(String entry, String[] excludeKeywords) {
+            this.entry = entry;
+            this.excludeKeywords = excludeKeywords;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package top.oneyi.envLauncher.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * {@link EnvironmentWriter.Backend} that keeps the environment in a properties file.
+ * <p>
+ * Used where there is no Windows registry (development on Linux/macOS, tests, benchmarks).
+ * PATH is stored under {@value #PATH_KEY}; each batch replaces the file atomically.
+ */
+public class FileEnvironmentBackend implements EnvironmentWriter.Backend {
+
+    public static final String PATH_KEY = "Path";
+
+    private final File file;
+    private final String initialPath;
+    private Properties values;
+    private int writeCount;
+
+    /**
+     * @param initialPath PATH used until the file holds one
+     */
+    public FileEnvironmentBackend(File file, String initialPath) {
+        this.file = file;
+        this.initialPath = initialPath;
+    }
+
+    @Override
+    public synchronized String readPath() throws IOException {
+        return load().getProperty(PATH_KEY, initialPath);
+    }
+
+    @Override
+    public synchronized void write(Map<String, String> variables, String path) throws IOException {
+        Properties next = new Properties();
+        next.putAll(load());
+        next.putAll(variables);
+        if (path != null) {
+            next.setProperty(PATH_KEY, path);
+        }
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Create directory failed: " + dir);
+        }
+        Path target = file.toPath();
+        Path tmp = target.resolveSibling(file.getName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            next.store(out, "envLauncher environment");
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        values = next;
+        writeCount++;
+    }
+
+    /**
+     * @return the stored value, or null when not set
+     */
+    public synchronized String get(String name) throws IOException {
+        return load().getProperty(name);
+    }
+
+    /**
+     * @return number of batches written by this instance
+     */
+    public synchronized int getWriteCount() {
+        return writeCount;
+    }
+
+    private Properties load() throws IOException {
+        if (values == null) {
+            Properties loaded = new Properties();
+            if (file.isFile()) {
+                try (InputStream in = Files.newInputStream(file.toPath())) {
+                    loaded.load(in);
+                }
+            }
+            values = loaded;
+        }
+        return values;
+    }
+}
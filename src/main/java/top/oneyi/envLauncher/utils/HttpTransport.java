@@ -0,0 +1,200 @@
+package top.oneyi.envLauncher.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP 传输层
+ * <p>
+ * One shared {@link HttpClient} (HTTP/2 when the server offers it, pooled connections) for
+ * probes and single-stream GETs, and one HTTP/1.1 client for the parallel range requests of a
+ * segmented download: over HTTP/2 those would be multiplexed onto a single TCP connection,
+ * which is exactly the bottleneck the segments exist to get around. Redirects are followed
+ * here instead of by the client so the final target can be cached: later requests for the
+ * same URL (e.g. the Adoptium {@code latest} link, or the parallel range requests of one
+ * download) go straight to the resolved URL.
+ */
+public final class HttpTransport {
+
+    private static final int MAX_REDIRECTS = 10;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(15);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration REDIRECT_TTL = Duration.ofMinutes(10);
+    private static final String USER_AGENT = "envLauncher";
+
+    private static final HttpTransport SHARED = new HttpTransport(REDIRECT_TTL);
+    private static final HttpTransport SEGMENTS = new HttpTransport(REDIRECT_TTL, HttpClient.Version.HTTP_1_1);
+
+    /**
+     * Redirect bodies are discarded; everything else is streamed.
+     */
+    private static final HttpResponse.BodyHandler<InputStream> BODY = info -> isRedirect(info.statusCode())
+            ? HttpResponse.BodySubscribers.replacing(InputStream.nullInputStream())
+            : HttpResponse.BodySubscribers.ofInputStream();
+
+    private final HttpClient client;
+    private final HttpClient.Version version;
+    private final long redirectTtlMillis;
+    private final Map<String, Redirect> redirects = new ConcurrentHashMap<>();
+
+    public HttpTransport(Duration redirectTtl) {
+        this(redirectTtl, HttpClient.Version.HTTP_2);
+    }
+
+    /**
+     * @param version {@link HttpClient.Version#HTTP_1_1} to get one connection per concurrent request
+     */
+    public HttpTransport(Duration redirectTtl, HttpClient.Version version) {
+        AtomicInteger threadId = new AtomicInteger();
+        this.version = version;
+        this.client = HttpClient.newBuilder()
+                .version(version)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .executor(Executors.newCachedThreadPool(r -> {
+                    Thread t = new Thread(r, "http-client-" + threadId.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }))
+                .build();
+        this.redirectTtlMillis = redirectTtl.toMillis();
+    }
+
+    public static HttpTransport shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return the HTTP/1.1 transport for concurrent range requests, so N segments use N connections
+     */
+    public static HttpTransport segments() {
+        return SEGMENTS;
+    }
+
+    public HttpClient.Version getVersion() {
+        return version;
+    }
+
+    /**
+     * Asynchronous GET. The future completes once the final (non-redirect) response headers are
+     * in; the body is then read from {@link HttpResponse#body()}, and the response URI is the
+     * resolved target.
+     *
+     * @param headers extra request headers such as {@code Range}; may be empty
+     */
+    public CompletableFuture<HttpResponse<InputStream>> getAsync(String url, Map<String, String> headers) {
+        return getAsync(url, headers, REQUEST_TIMEOUT);
+    }
+
+    /**
+     * @param timeout time allowed until the response headers of each hop arrive
+     */
+    public CompletableFuture<HttpResponse<InputStream>> getAsync(String url, Map<String, String> headers, Duration timeout) {
+        URI origin = URI.create(url);
+        Redirect cached = redirects.get(url);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return send(cached.target, headers, timeout).thenCompose(response -> {
+                if (response.statusCode() < 400 && !isRedirect(response.statusCode())) {
+                    return CompletableFuture.completedFuture(response);
+                }
+                // The cached target went stale (e.g. an expired signed link); resolve again.
+                closeQuietly(response);
+                redirects.remove(url);
+                return follow(url, origin, headers, timeout, 0);
+            });
+        }
+        return follow(url, origin, headers, timeout, 0);
+    }
+
+    /**
+     * Blocking variant of {@link #getAsync(String, Map)}.
+     */
+    public HttpResponse<InputStream> get(String url, Map<String, String> headers) throws IOException {
+        return await(getAsync(url, headers));
+    }
+
+    public HttpResponse<InputStream> get(String url, Map<String, String> headers, Duration timeout) throws IOException {
+        return await(getAsync(url, headers, timeout));
+    }
+
+    /**
+     * Wait for a response future, unwrapping the {@link IOException} behind it.
+     */
+    public static HttpResponse<InputStream> await(CompletableFuture<HttpResponse<InputStream>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("HTTP request interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(String.valueOf(cause.getMessage()), cause);
+        }
+    }
+
+    public static void closeQuietly(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> follow(String url,
+                                                                URI target,
+                                                                Map<String, String> headers,
+                                                                Duration timeout,
+                                                                int hops) {
+        return send(target, headers, timeout).thenCompose(response -> {
+            if (!isRedirect(response.statusCode())) {
+                if (hops > 0 && response.statusCode() < 400) {
+                    redirects.put(url, new Redirect(response.uri(), System.currentTimeMillis() + redirectTtlMillis));
+                }
+                return CompletableFuture.completedFuture(response);
+            }
+            String location = response.headers().firstValue("Location").orElse(null);
+            if (location == null || hops >= MAX_REDIRECTS) {
+                throw new CompletionException(new IOException("Bad redirect from " + target + " (hop " + hops + ")"));
+            }
+            return follow(url, target.resolve(location), headers, timeout, hops + 1);
+        });
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> send(URI target, Map<String, String> headers, Duration timeout) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(target)
+                .timeout(timeout)
+                .header("User-Agent", USER_AGENT)
+                .GET();
+        headers.forEach(request::header);
+        return client.sendAsync(request.build(), BODY);
+    }
+
+    private static boolean isRedirect(int status) {
+        return status == 301 || status == 302 || status == 303 || status == 307 || status == 308;
+    }
+
+    private static final class Redirect {
+        private final URI target;
+        private final long expiresAt;
+
+        Redirect(URI target, long expiresAt) {
+            this.target = target;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
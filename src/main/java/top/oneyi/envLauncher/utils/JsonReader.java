@@ -0,0 +1,260 @@
+package top.oneyi.envLauncher.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 流式 JSON 读取
+ * <p>
+ * Minimal pull parser for the few JSON documents the app reads (release indexes). It reads one
+ * token at a time from the stream, so a large index is never held in memory as a whole and
+ * values the caller does not ask for are skipped without being built. Commas and colons are
+ * treated as separators, i.e. the reader is lenient about them.
+ */
+public final class JsonReader implements Closeable {
+
+    public enum Token {
+        BEGIN_ARRAY, END_ARRAY, BEGIN_OBJECT, END_OBJECT, NAME, STRING, NUMBER, BOOLEAN, NULL, END
+    }
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+
+    private Token peeked;
+    private String peekedText;
+
+    public JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    public Token peek() throws IOException {
+        if (peeked == null) {
+            readToken();
+        }
+        return peeked;
+    }
+
+    /**
+     * @return true while the current array or object has more elements
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_ARRAY && token != Token.END_OBJECT && token != Token.END;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+    }
+
+    public String nextName() throws IOException {
+        return expect(Token.NAME);
+    }
+
+    /**
+     * @return the value of a string, number, boolean or null token as text (null for JSON null)
+     */
+    public String nextString() throws IOException {
+        Token token = peek();
+        if (token != Token.STRING && token != Token.NUMBER && token != Token.BOOLEAN && token != Token.NULL) {
+            throw new IOException("Expected a value but was " + token);
+        }
+        return consume();
+    }
+
+    /**
+     * Skip the next value, including everything nested in it.
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            Token token = peek();
+            if (token == Token.END) {
+                throw new IOException("Unexpected end of JSON");
+            }
+            if (token == Token.BEGIN_ARRAY || token == Token.BEGIN_OBJECT) {
+                depth++;
+            } else if (token == Token.END_ARRAY || token == Token.END_OBJECT) {
+                depth--;
+            }
+            consume();
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String expect(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw new IOException("Expected " + expected + " but was " + token);
+        }
+        return consume();
+    }
+
+    private String consume() {
+        String text = peekedText;
+        peeked = null;
+        peekedText = null;
+        return text;
+    }
+
+    private void readToken() throws IOException {
+        int c = nextSignificant();
+        switch (c) {
+            case -1:
+                peeked = Token.END;
+                return;
+            case '[':
+                peeked = Token.BEGIN_ARRAY;
+                return;
+            case ']':
+                peeked = Token.END_ARRAY;
+                return;
+            case '{':
+                peeked = Token.BEGIN_OBJECT;
+                return;
+            case '}':
+                peeked = Token.END_OBJECT;
+                return;
+            case '"':
+                peekedText = readString();
+                // A string followed by ':' is an object member name.
+                int after = nextNonWhitespace();
+                if (after == ':') {
+                    peeked = Token.NAME;
+                } else {
+                    if (after != -1) {
+                        pos--;
+                    }
+                    peeked = Token.STRING;
+                }
+                return;
+            default:
+                peekedText = readLiteral((char) c);
+                if ("true".equals(peekedText) || "false".equals(peekedText)) {
+                    peeked = Token.BOOLEAN;
+                } else if ("null".equals(peekedText)) {
+                    peeked = Token.NULL;
+                    peekedText = null;
+                } else {
+                    peeked = Token.NUMBER;
+                }
+        }
+    }
+
+    private int nextSignificant() throws IOException {
+        int c;
+        do {
+            c = nextNonWhitespace();
+        } while (c == ',' || c == ':');
+        return c;
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+
+    private String readString() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new IOException("Unterminated string");
+            }
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+            int escaped = read();
+            switch (escaped) {
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'u':
+                    char[] hex = new char[4];
+                    for (int i = 0; i < 4; i++) {
+                        int h = read();
+                        if (h == -1) {
+                            throw new IOException("Unterminated escape");
+                        }
+                        hex[i] = (char) h;
+                    }
+                    try {
+                        text.append((char) Integer.parseInt(new String(hex), 16));
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Bad escape \\u" + new String(hex));
+                    }
+                    break;
+                case -1:
+                    throw new IOException("Unterminated escape");
+                default:
+                    // \" \\ \/
+                    text.append((char) escaped);
+            }
+        }
+    }
+
+    private String readLiteral(char first) throws IOException {
+        StringBuilder text = new StringBuilder().append(first);
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                break;
+            }
+            if (c == ',' || c == ']' || c == '}' || c == ':' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                pos--;
+                break;
+            }
+            text.append((char) c);
+        }
+        return text.toString();
+    }
+
+    private int read() throws IOException {
+        if (pos == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[pos++];
+    }
+}
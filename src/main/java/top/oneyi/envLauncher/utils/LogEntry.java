@@ -0,0 +1,97 @@
+package top.oneyi.envLauncher.utils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一条日志
+ * <p>
+ * Immutable, so producers can hand it to the logging thread without copying. The structured
+ * fields (e.g. {@code tool=JDK}) are kept apart from the message so views can filter on them.
+ */
+public final class LogEntry {
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    /**
+     * Field naming the tool an entry belongs to (JDK, Maven, Node).
+     */
+    public static final String FIELD_TOOL = "tool";
+
+    /**
+     * Built once; {@link DateTimeFormatter} is immutable and thread-safe.
+     */
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final long timeMillis;
+    private final Level level;
+    private final String message;
+    private final Map<String, String> fields;
+
+    public LogEntry(long timeMillis, Level level, String message, Map<String, String> fields) {
+        this.timeMillis = timeMillis;
+        this.level = level;
+        this.message = message;
+        this.fields = fields.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new LinkedHashMap<>(fields));
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return the field value, or null when the entry does not have it
+     */
+    public String getField(String key) {
+        return fields.get(key);
+    }
+
+    public Map<String, String> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return e.g. {@code [2025-06-19 10:00:00] WARN  Checksum mismatch | tool=JDK}, without a line break
+     */
+    public String format() {
+        StringBuilder line = new StringBuilder(48 + message.length());
+        line.append('[').append(TIME_FORMAT.format(Instant.ofEpochMilli(timeMillis))).append("] ");
+        line.append(level.name());
+        for (int i = level.name().length(); i < 6; i++) {
+            line.append(' ');
+        }
+        line.append(message);
+        if (!fields.isEmpty()) {
+            line.append(" |");
+            fields.forEach((key, value) -> {
+                line.append(' ').append(key).append('=');
+                if (value.indexOf(' ') >= 0) {
+                    line.append('"').append(value).append('"');
+                } else {
+                    line.append(value);
+                }
+            });
+        }
+        return line.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
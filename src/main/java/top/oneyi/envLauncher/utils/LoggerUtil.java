@@ -1,35 +1,182 @@
 package top.oneyi.envLauncher.utils;
 
-import javafx.application.Platform;
-import javafx.scene.control.TextArea;
-
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * @author W
  * @date 2025/6/19
  * @description 日志输出类
+ * <p>
+ * Callers only pay for building a {@link LogEntry} and one ring-buffer slot; formatting, the UI
+ * update and the file write happen in batches on the "log-writer" thread (see {@link AsyncLogPipeline}).
+ * Fields are passed as key/value pairs after the message, e.g. {@code warn("Checksum mismatch", "file", name)};
+ * fields set with {@link #withField} are added to every entry of the current thread.
  */
 public class LoggerUtil {
 
-    private static TextArea logArea;
+    private static final int RING_CAPACITY = 8192;
+    private static final long EXIT_FLUSH_MILLIS = 2000;
+
+    private static final ThreadLocal<Map<String, String>> CONTEXT = ThreadLocal.withInitial(LinkedHashMap::new);
+
+    private static volatile AsyncLogPipeline pipeline;
+    private static volatile LogEntry.Level minLevel = LogEntry.Level.INFO;
+    private static Thread exitHook;
+
+    /**
+     * @param level lowest level that is kept; lower entries are dropped before they are queued
+     * @param sinks receive batches on the log writer thread; the desktop app hands each batch to the FX thread
+     */
+    public static synchronized void init(LogEntry.Level level, List<Consumer<List<LogEntry>>> sinks) {
+        AsyncLogPipeline previous = pipeline;
+        minLevel = level;
+        pipeline = new AsyncLogPipeline(RING_CAPACITY, sinks);
+        if (previous != null) {
+            previous.close();
+        }
+        if (exitHook == null) {
+            // Whatever is still queued on exit goes out before the JVM stops.
+            exitHook = new Thread(() -> flush(EXIT_FLUSH_MILLIS), "log-flush");
+            Runtime.getRuntime().addShutdownHook(exitHook);
+        }
+    }
+
+    /**
+     * Change the lowest kept level without replacing the sinks.
+     */
+    public static void setLevel(LogEntry.Level level) {
+        minLevel = level;
+    }
+
+    /**
+     * Wait until everything logged so far has reached the sinks.
+     *
+     * @return false on timeout
+     */
+    public static boolean flush(long timeoutMillis) {
+        AsyncLogPipeline target = pipeline;
+        return target == null || target.flush(timeoutMillis);
+    }
+
+    /**
+     * Parse a configured level name; unknown names fall back to INFO.
+     */
+    public static LogEntry.Level parseLevel(String name) {
+        try {
+            return LogEntry.Level.valueOf(name.trim().toUpperCase());
+        } catch (RuntimeException e) {
+            return LogEntry.Level.INFO;
+        }
+    }
 
-    public static void init(TextArea area) {
-        logArea = area;
+    /**
+     * Add a field to every entry logged by this thread while {@code body} runs.
+     * <pre>
+     * return LoggerUtil.withField("tool", "JDK", () -> install(version));
+     * </pre>
+     */
+    public static <T, E extends Exception> T withField(String key, String value, Body<T, E> body) throws E {
+        Scope scope = withField(key, value);
+        try {
+            return body.call();
+        } finally {
+            scope.close();
+        }
     }
 
-    public static void info(String message) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        String finalMessage = "[" + LocalDateTime.now().format(formatter) + "] :  " + message + "\n";
+    public static <E extends Exception> void withField(String key, String value, VoidBody<E> body) throws E {
+        Scope scope = withField(key, value);
+        try {
+            body.run();
+        } finally {
+            scope.close();
+        }
+    }
 
-        // 确保在 JavaFX 线程中更新 UI
-        Platform.runLater(() -> {
-            if (logArea != null) {
-                logArea.appendText(finalMessage);
+    /**
+     * Add a field to every entry logged by this thread until the returned scope is closed.
+     */
+    public static Scope withField(String key, String value) {
+        Map<String, String> context = CONTEXT.get();
+        String previous = context.put(key, value);
+        return () -> {
+            if (previous == null) {
+                context.remove(key);
             } else {
-                System.out.println("Logger未初始化，日志输出到控制台：" + finalMessage);
+                context.put(key, previous);
             }
-        });
+        };
+    }
+
+    public static void debug(String message, Object... keyValues) {
+        log(LogEntry.Level.DEBUG, message, keyValues);
+    }
+
+    public static void info(String message, Object... keyValues) {
+        log(LogEntry.Level.INFO, message, keyValues);
+    }
+
+    public static void warn(String message, Object... keyValues) {
+        log(LogEntry.Level.WARN, message, keyValues);
+    }
+
+    public static void error(String message, Object... keyValues) {
+        log(LogEntry.Level.ERROR, message, keyValues);
+    }
+
+    public static void log(LogEntry.Level level, String message, Object... keyValues) {
+        if (level.compareTo(minLevel) < 0) {
+            return;
+        }
+        LogEntry entry = new LogEntry(System.currentTimeMillis(), level, String.valueOf(message), fields(keyValues));
+
+        AsyncLogPipeline target = pipeline;
+        if (target == null) {
+            // 未初始化时 JavaFX 工具包可能也未启动，直接输出到控制台
+            System.out.println("Logger未初始化，日志输出到控制台：" + entry.format());
+            return;
+        }
+        target.publish(entry);
+    }
+
+    private static Map<String, String> fields(Object[] keyValues) {
+        Map<String, String> context = CONTEXT.get();
+        if (keyValues.length == 0) {
+            return context.isEmpty() ? Collections.emptyMap() : context;
+        }
+        Map<String, String> fields = new LinkedHashMap<>(context);
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            fields.put(String.valueOf(keyValues[i]), String.valueOf(keyValues[i + 1]));
+        }
+        return fields;
+    }
+
+    /**
+     * Work run with extra log fields, returning a result.
+     */
+    @FunctionalInterface
+    public interface Body<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Work run with extra log fields, without a result.
+     */
+    @FunctionalInterface
+    public interface VoidBody<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * Restores the thread's fields on close.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
     }
 }
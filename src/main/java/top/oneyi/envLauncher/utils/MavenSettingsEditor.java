@@ -0,0 +1,397 @@
+package top.oneyi.envLauncher.utils;
+
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Maven settings.xml 流式编辑器
+ * <p>
+ * Applies a settings profile (local repository plus mirrors, proxies and servers keyed by
+ * {@code <id>}) in one StAX pass from the original file to a temporary one, which then replaces
+ * it. No DOM is built: only one {@code <mirror>}/{@code <proxy>}/{@code <server>} element is
+ * buffered at a time, to read its id. Comments are copied as comments, so a commented-out
+ * {@code <mirrors>} block is never mistaken for the real one. Entries with a known id are
+ * replaced, the rest are appended to their section (created if missing), so applying the same
+ * profile again leaves the file unchanged.
+ */
+public class MavenSettingsEditor {
+
+    private static final String INDENT = "  ";
+
+    /**
+     * Child element order written for each entry kind; unknown children follow alphabetically.
+     */
+    private static final Map<String, List<String>> CHILD_ORDER = Map.of(
+            "mirror", Arrays.asList("id", "name", "url", "mirrorOf"),
+            "proxy", Arrays.asList("id", "active", "protocol", "host", "port", "username", "password", "nonProxyHosts"),
+            "server", Arrays.asList("id", "username", "password", "privateKey", "passphrase",
+                    "filePermissions", "directoryPermissions"));
+
+    /**
+     * Section element name to entry element name, in the order new sections are appended.
+     */
+    private static final Map<String, String> SECTIONS = new LinkedHashMap<>();
+
+    static {
+        SECTIONS.put("proxies", "proxy");
+        SECTIONS.put("servers", "server");
+        SECTIONS.put("mirrors", "mirror");
+    }
+
+    private String localRepository;
+    private final Map<String, Map<String, Map<String, String>>> entries = new LinkedHashMap<>();
+
+    public MavenSettingsEditor() {
+        for (String section : SECTIONS.keySet()) {
+            entries.put(section, new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Build an editor from flat profile keys, e.g. {@code local-repository},
+     * {@code mirror.<id>.url}, {@code proxy.<id>.host} or {@code server.<id>.username}; the id
+     * may contain dots. Keys of other shapes are ignored.
+     */
+    public static MavenSettingsEditor fromProfile(Map<String, String> profile) {
+        MavenSettingsEditor editor = new MavenSettingsEditor();
+        Map<String, Map<String, Map<String, String>>> byKind = new TreeMap<>();
+        for (Map.Entry<String, String> e : new TreeMap<>(profile).entrySet()) {
+            String key = e.getKey();
+            if (key.equals("local-repository")) {
+                if (!e.getValue().isBlank()) {
+                    editor.localRepository(e.getValue().trim());
+                }
+                continue;
+            }
+            // Ids may contain dots (aliyun.central); child names never do.
+            int first = key.indexOf('.');
+            int last = key.lastIndexOf('.');
+            if (first > 0 && last > first + 1 && last < key.length() - 1
+                    && CHILD_ORDER.containsKey(key.substring(0, first))) {
+                byKind.computeIfAbsent(key.substring(0, first), k -> new TreeMap<>())
+                        .computeIfAbsent(key.substring(first + 1, last), id -> new TreeMap<>())
+                        .put(key.substring(last + 1), e.getValue().trim());
+            }
+        }
+        byKind.forEach((kind, byId) -> byId.forEach((id, children) -> editor.add(kind, id, children)));
+        return editor;
+    }
+
+    public MavenSettingsEditor localRepository(String path) {
+        this.localRepository = path;
+        return this;
+    }
+
+    public MavenSettingsEditor mirror(String id, Map<String, String> children) {
+        return add("mirror", id, children);
+    }
+
+    public MavenSettingsEditor proxy(String id, Map<String, String> children) {
+        return add("proxy", id, children);
+    }
+
+    public MavenSettingsEditor server(String id, Map<String, String> children) {
+        return add("server", id, children);
+    }
+
+    private MavenSettingsEditor add(String kind, String id, Map<String, String> children) {
+        Map<String, String> ordered = new LinkedHashMap<>();
+        ordered.put("id", id);
+        List<String> known = CHILD_ORDER.get(kind);
+        for (String name : known) {
+            if (children.containsKey(name) && !name.equals("id")) {
+                ordered.put(name, children.get(name));
+            }
+        }
+        new TreeMap<>(children).forEach(ordered::putIfAbsent);
+        entries.get(sectionOf(kind)).put(id, ordered);
+        return this;
+    }
+
+    /**
+     * Edit {@code settingsFile} in place.
+     */
+    public void apply(File settingsFile) throws IOException {
+        Path target = settingsFile.toPath();
+        Path tmp = target.resolveSibling(settingsFile.getName() + ".tmp");
+        try (InputStream in = Files.newInputStream(target);
+             OutputStream out = Files.newOutputStream(tmp)) {
+            apply(in, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        if (!Files.isWritable(target)) {
+            // A read-only link into the content store; replace it, never write through it.
+            ContentStore.deleteIfExists(target);
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Copy {@code in} to {@code out} (UTF-8) with the profile applied.
+     */
+    public void apply(InputStream in, OutputStream out) throws IOException {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        try {
+            XMLEventReader reader = inputFactory.createXMLEventReader(in);
+            XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(out, StandardCharsets.UTF_8.name());
+            new Pass(reader, writer).run();
+            writer.flush();
+            writer.close();
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Edit settings.xml failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static String sectionOf(String kind) {
+        for (Map.Entry<String, String> e : SECTIONS.entrySet()) {
+            if (e.getValue().equals(kind)) {
+                return e.getKey();
+            }
+        }
+        throw new IllegalArgumentException(kind);
+    }
+
+    /**
+     * State of one copy pass.
+     */
+    private final class Pass {
+        private final XMLEventReader reader;
+        private final XMLEventWriter writer;
+        private final XMLEventFactory events = XMLEventFactory.newInstance();
+        private final Set<String> sectionsDone = new LinkedHashSet<>();
+        private boolean localRepositoryDone;
+        private String namespace = "";
+        private int depth;
+        /**
+         * Whitespace held back so new elements can go before the indentation of a closing tag.
+         */
+        private String pendingWhitespace = "";
+
+        Pass(XMLEventReader reader, XMLEventWriter writer) {
+            this.reader = reader;
+            this.writer = writer;
+        }
+
+        void run() throws XMLStreamException {
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartDocument()) {
+                    // The output is always UTF-8, whatever the original declared.
+                    writer.add(events.createStartDocument(StandardCharsets.UTF_8.name(),
+                            ((StartDocument) event).getVersion()));
+                    writer.add(events.createCharacters("\n"));
+                    continue;
+                }
+                if (event.isCharacters() && event.asCharacters().isWhiteSpace() && depth > 0) {
+                    pendingWhitespace += event.asCharacters().getData();
+                    continue;
+                }
+                if (event.isStartElement()) {
+                    StartElement start = event.asStartElement();
+                    String name = start.getName().getLocalPart();
+                    if (depth == 0) {
+                        namespace = start.getName().getNamespaceURI();
+                    } else if (depth == 1 && name.equals("localRepository") && localRepository != null) {
+                        flushWhitespace();
+                        skipElement();
+                        writeLeaf("localRepository", localRepository);
+                        localRepositoryDone = true;
+                        continue;
+                    } else if (depth == 1 && SECTIONS.containsKey(name) && !entries.get(name).isEmpty()) {
+                        flushWhitespace();
+                        writer.add(event);
+                        copySection(name);
+                        continue;
+                    }
+                    depth++;
+                } else if (event.isEndElement()) {
+                    depth--;
+                    if (depth == 0) {
+                        appendMissing();
+                    }
+                }
+                flushWhitespace();
+                writer.add(event);
+                if (depth == 0 && !event.isStartElement() && !event.isEndDocument()) {
+                    // The reader drops whitespace outside the root element; keep one line break.
+                    writer.add(events.createCharacters("\n"));
+                }
+            }
+        }
+
+        /**
+         * Copy the children of a section, replacing entries with a known id, and append the others
+         * before the section ends. Called right after the section start tag.
+         */
+        private void copySection(String section) throws XMLStreamException {
+            String kind = SECTIONS.get(section);
+            Map<String, Map<String, String>> wanted = entries.get(section);
+            Set<String> written = new LinkedHashSet<>();
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isCharacters() && event.asCharacters().isWhiteSpace()) {
+                    pendingWhitespace += event.asCharacters().getData();
+                    continue;
+                }
+                if (event.isEndElement()) {
+                    for (Map.Entry<String, Map<String, String>> entry : wanted.entrySet()) {
+                        if (!written.contains(entry.getKey())) {
+                            writeNewline(2);
+                            writeEntry(2, kind, entry.getValue());
+                        }
+                    }
+                    flushWhitespace();
+                    writer.add(event);
+                    sectionsDone.add(section);
+                    return;
+                }
+                if (event.isStartElement() && event.asStartElement().getName().getLocalPart().equals(kind)) {
+                    List<XMLEvent> buffered = bufferElement(event);
+                    String id = idOf(buffered);
+                    flushWhitespace();
+                    if (id != null && wanted.containsKey(id) && written.add(id)) {
+                        writeEntry(2, kind, wanted.get(id));
+                    } else if (id == null || !wanted.containsKey(id)) {
+                        for (XMLEvent e : buffered) {
+                            writer.add(e);
+                        }
+                    }
+                    // else: a second entry with an id we already wrote; drop the duplicate.
+                    continue;
+                }
+                flushWhitespace();
+                if (event.isStartElement()) {
+                    // Unexpected element in the section: copy it unchanged.
+                    for (XMLEvent e : bufferElement(event)) {
+                        writer.add(e);
+                    }
+                } else {
+                    writer.add(event);
+                }
+            }
+        }
+
+        private void appendMissing() throws XMLStreamException {
+            if (localRepository != null && !localRepositoryDone) {
+                writeNewline(1);
+                writeLeaf("localRepository", localRepository);
+                localRepositoryDone = true;
+            }
+            for (Map.Entry<String, String> section : SECTIONS.entrySet()) {
+                Map<String, Map<String, String>> wanted = entries.get(section.getKey());
+                if (wanted.isEmpty() || sectionsDone.contains(section.getKey())) {
+                    continue;
+                }
+                writeNewline(1);
+                writer.add(events.createStartElement("", namespace, section.getKey()));
+                for (Map<String, String> entry : wanted.values()) {
+                    writeNewline(2);
+                    writeEntry(2, section.getValue(), entry);
+                }
+                writeNewline(1);
+                writer.add(events.createEndElement("", namespace, section.getKey()));
+                sectionsDone.add(section.getKey());
+            }
+        }
+
+        private List<XMLEvent> bufferElement(XMLEvent start) throws XMLStreamException {
+            List<XMLEvent> buffered = new ArrayList<>();
+            buffered.add(start);
+            int level = 1;
+            while (level > 0) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    level++;
+                } else if (event.isEndElement()) {
+                    level--;
+                }
+                buffered.add(event);
+            }
+            return buffered;
+        }
+
+        private String idOf(List<XMLEvent> element) {
+            for (int i = 1; i + 1 < element.size(); i++) {
+                XMLEvent event = element.get(i);
+                if (event.isStartElement() && event.asStartElement().getName().getLocalPart().equals("id")
+                        && element.get(i + 1).isCharacters()) {
+                    return element.get(i + 1).asCharacters().getData().trim();
+                }
+            }
+            return null;
+        }
+
+        private void skipElement() throws XMLStreamException {
+            int level = 1;
+            while (level > 0) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    level++;
+                } else if (event.isEndElement()) {
+                    level--;
+                }
+            }
+        }
+
+        private void writeEntry(int level, String kind, Map<String, String> children) throws XMLStreamException {
+            writer.add(events.createStartElement("", namespace, kind));
+            for (Map.Entry<String, String> child : children.entrySet()) {
+                writeNewline(level + 1);
+                writeLeaf(child.getKey(), child.getValue());
+            }
+            writeNewline(level);
+            writer.add(events.createEndElement("", namespace, kind));
+        }
+
+        private void writeLeaf(String name, String value) throws XMLStreamException {
+            writer.add(events.createStartElement("", namespace, name));
+            writer.add(events.createCharacters(value));
+            writer.add(events.createEndElement("", namespace, name));
+        }
+
+        private void writeNewline(int level) throws XMLStreamException {
+            writer.add(events.createCharacters("\n" + INDENT.repeat(level)));
+        }
+
+        private void flushWhitespace() throws XMLStreamException {
+            if (!pendingWhitespace.isEmpty()) {
+                writer.add(events.createCharacters(pendingWhitespace));
+                pendingWhitespace = "";
+            }
+        }
+    }
+}
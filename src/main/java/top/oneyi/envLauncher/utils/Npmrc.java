@@ -0,0 +1,167 @@
+package top.oneyi.envLauncher.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * npm 配置文件（.npmrc）读写
+ * <p>
+ * Edits the file the way {@code npm config set} would, without starting Node: keys that are set
+ * replace their existing line, new keys are appended, and comments and unrelated lines are kept.
+ * {@link #save()} writes everything in one atomic replace. Values are escaped like npm's
+ * {@code ini} package does, so paths with {@code ;} or {@code #} survive.
+ */
+public class Npmrc {
+
+    private final File file;
+    private final List<String> lines;
+
+    private Npmrc(File file, List<String> lines) {
+        this.file = file;
+        this.lines = lines;
+    }
+
+    /**
+     * @return the parsed file, or an empty one when it does not exist yet
+     */
+    public static Npmrc load(File file) throws IOException {
+        List<String> lines = file.isFile()
+                ? new ArrayList<>(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8))
+                : new ArrayList<>();
+        return new Npmrc(file, lines);
+    }
+
+    /**
+     * @return the value of the last line setting {@code key} (npm's precedence), or null
+     */
+    public String get(String key) {
+        String value = null;
+        for (String line : lines) {
+            int eq = keyEnd(line, key);
+            if (eq >= 0) {
+                value = unescape(line.substring(eq + 1).trim());
+            }
+        }
+        return value;
+    }
+
+    public Npmrc set(String key, String value) {
+        String entry = key + "=" + escape(value);
+        boolean replaced = false;
+        for (int i = 0; i < lines.size(); i++) {
+            if (keyEnd(lines.get(i), key) < 0) {
+                continue;
+            }
+            if (replaced) {
+                // Drop duplicates so the new value is the one npm reads.
+                lines.remove(i--);
+            } else {
+                lines.set(i, entry);
+                replaced = true;
+            }
+        }
+        if (!replaced) {
+            lines.add(entry);
+        }
+        return this;
+    }
+
+    public Npmrc setAll(Map<String, String> values) {
+        values.forEach(this::set);
+        return this;
+    }
+
+    public Npmrc remove(String key) {
+        lines.removeIf(line -> keyEnd(line, key) >= 0);
+        return this;
+    }
+
+    /**
+     * Replace the file with the edited content in one step.
+     */
+    public void save() throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Create directory failed: " + dir);
+        }
+        Path target = file.toPath();
+        Path tmp = target.resolveSibling(file.getName() + ".tmp");
+        StringBuilder content = new StringBuilder();
+        for (String line : lines) {
+            content.append(line).append(System.lineSeparator());
+        }
+        Files.write(tmp, content.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return index of the {@code =} when {@code line} sets {@code key}, otherwise -1
+     */
+    private static int keyEnd(String line, String key) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith(";") || trimmed.startsWith("#")) {
+            return -1;
+        }
+        int eq = line.indexOf('=');
+        if (eq < 0 || !line.substring(0, eq).trim().equals(key)) {
+            return -1;
+        }
+        return eq;
+    }
+
+    /**
+     * Same rules as {@code ini.safe}: quote values that would not read back as-is, otherwise
+     * only escape the comment characters.
+     */
+    static String escape(String value) {
+        if (value.isEmpty() || value.matches("(?s).*[=\\r\\n].*") || !value.equals(value.trim())
+                || value.startsWith("\"") || value.startsWith("'")) {
+            return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+        }
+        return value.replace(";", "\\;").replace("#", "\\#");
+    }
+
+    /**
+     * Inverse of {@link #escape}, plus {@code ini.unsafe}'s handling of trailing comments.
+     */
+    static String unescape(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            StringBuilder result = new StringBuilder();
+            for (int i = 1; i < value.length() - 1; i++) {
+                char c = value.charAt(i);
+                if (c == '\\' && i + 1 < value.length() - 1) {
+                    c = value.charAt(++i);
+                }
+                result.append(c);
+            }
+            return result.toString();
+        }
+        if (value.length() >= 2 && value.startsWith("'") && value.endsWith("'")) {
+            return value.substring(1, value.length() - 1);
+        }
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length() && "\\;#".indexOf(value.charAt(i + 1)) >= 0) {
+                result.append(value.charAt(++i));
+            } else if (c == ';' || c == '#') {
+                break;
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString().trim();
+    }
+}
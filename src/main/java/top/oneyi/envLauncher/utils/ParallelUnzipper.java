@@ -0,0 +1,221 @@
+package top.oneyi.envLauncher.utils;
+
+import top.oneyi.envLauncher.callback.DownloadProgressListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 并行解压引擎
+ * <p>
+ * Reads the central directory through {@link ZipFile}, validates every entry path (zip-slip),
+ * creates all directories in one pre-pass and then inflates file entries on a bounded pool.
+ * Entries are handed out largest first so a single huge file (e.g. {@code lib/modules})
+ * does not end up last on one thread.
+ * <p>
+ * With a {@link ContentStore} files whose content is already stored are linked instead of written.
+ */
+public class ParallelUnzipper {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int threads;
+    private final ContentStore store;
+    private final ContentStore.Report report;
+
+    public ParallelUnzipper(int threads) {
+        this(threads, null, null);
+    }
+
+    /**
+     * @param store  deduplicates the extracted files; may be null
+     * @param report collects what the store linked and wrote; required with a store
+     */
+    public ParallelUnzipper(int threads, ContentStore store, ContentStore.Report report) {
+        this.threads = Math.max(1, threads);
+        this.store = store;
+        this.report = report;
+    }
+
+    public ParallelUnzipper() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return number of files written
+     */
+    public int extract(File zip, File destDir) throws IOException {
+        return extract(zip, destDir, null);
+    }
+
+    /**
+     * @param listener receives uncompressed bytes written so far and the total uncompressed size
+     *                 (-1 if an entry does not declare it); called from the worker threads, may be null
+     * @return number of files written
+     */
+    public int extract(File zip, File destDir, DownloadProgressListener listener) throws IOException {
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            List<ZipEntry> files = new ArrayList<>();
+            TreeSet<File> directories = new TreeSet<>();
+            directories.add(destDir);
+
+            Path destRoot = destDir.toPath().toAbsolutePath().normalize();
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                File target = resolve(destRoot, entry);
+                if (entry.isDirectory()) {
+                    directories.add(target);
+                } else {
+                    directories.add(target.getParentFile());
+                    files.add(entry);
+                }
+            }
+
+            for (File dir : directories) {
+                Files.createDirectories(dir.toPath());
+            }
+
+            files.sort(Comparator.comparingLong(ZipEntry::getCompressedSize).reversed());
+            inflateAll(zipFile, files, destDir, listener == null ? null : new Written(files, listener));
+            return files.size();
+        }
+    }
+
+    private void inflateAll(ZipFile zipFile, List<ZipEntry> files, File destDir, Written written) throws IOException {
+        int workers = Math.min(threads, files.size());
+        if (workers <= 1) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (ZipEntry entry : files) {
+                inflate(zipFile, entry, destDir, buffer, written);
+            }
+            return;
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicInteger threadId = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "unzip-worker-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int index;
+                    while (!failed.get() && (index = next.getAndIncrement()) < files.size()) {
+                        try {
+                            inflate(zipFile, files.get(index), destDir, buffer, written);
+                        } catch (IOException | RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                await(future);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void inflate(ZipFile zipFile, ZipEntry entry, File destDir, byte[] buffer, Written written)
+            throws IOException {
+        File target = new File(destDir, entry.getName());
+        if (store != null && entry.getSize() > 0 && entry.getCrc() != -1) {
+            store.put(target.toPath(), entry.getSize(), entry.getCrc(), () -> zipFile.getInputStream(entry), buffer, report);
+            if (written != null) {
+                written.add(entry.getSize());
+            }
+            return;
+        }
+        // Replace rather than overwrite: an earlier install may have linked this file into a store.
+        ContentStore.deleteIfExists(target.toPath());
+        try (InputStream in = zipFile.getInputStream(entry);
+             OutputStream out = Files.newOutputStream(target.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+                if (written != null) {
+                    written.add(read);
+                }
+            }
+        }
+    }
+
+    /**
+     * Shared byte counter for all workers.
+     */
+    private static final class Written {
+        private final AtomicLong bytes = new AtomicLong();
+        private final long total;
+        private final DownloadProgressListener listener;
+
+        Written(List<ZipEntry> files, DownloadProgressListener listener) {
+            long sum = 0;
+            for (ZipEntry entry : files) {
+                if (entry.getSize() < 0) {
+                    sum = -1;
+                    break;
+                }
+                sum += entry.getSize();
+            }
+            this.total = sum;
+            this.listener = listener;
+        }
+
+        void add(long read) {
+            listener.onProgress(bytes.addAndGet(read), total);
+        }
+    }
+
+    /**
+     * Lexical check only (no file system calls), so the pre-pass stays cheap for thousands of entries.
+     */
+    private static File resolve(Path destRoot, ZipEntry entry) throws IOException {
+        Path target = destRoot.resolve(entry.getName()).normalize();
+        if (!target.startsWith(destRoot)) {
+            throw new IOException("Zip entry outside target dir: " + entry.getName());
+        }
+        return target.toFile();
+    }
+
+    private static void await(Future<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Unzip interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(String.valueOf(cause.getMessage()), cause);
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package top.oneyi.envLauncher.utils;
 
+import top.oneyi.envLauncher.callback.DownloadProgressListener;
+
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.InputStream;
+import java.util.function.IntConsumer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -25,18 +26,74 @@ public class PathUtils {
     }
 
     /**
-     * 获取下载路径
-     * @param version 版本号
-     * @return 下载的路径
+     * 获取环境安装根目录（当前驱动器下的 environment），不存在时创建
+     * @return environment 目录
      */
-    public static String getDownloadPath(String version) {
+    public static File getEnvironmentDir() {
         File downloadDir = new File(getCurrentDrive() + "environment");
 
         if (!downloadDir.exists()) {
             downloadDir.mkdirs();
         }
 
-        return new File(downloadDir, "jdk-" + version + ".zip").getAbsolutePath();
+        return downloadDir;
+    }
+
+    /**
+     * 获取压缩包缓存目录
+     * @return environment/cache 目录
+     */
+    public static File getArchiveCacheDir() {
+        return new File(getEnvironmentDir(), "cache");
+    }
+
+    /**
+     * 获取去重内容存储目录（与安装目录同盘，才能建立硬链接）
+     * @return environment/store 目录
+     */
+    public static File getContentStoreDir() {
+        return new File(getEnvironmentDir(), "store");
+    }
+
+    /**
+     * 获取已安装工具链登记文件
+     * @return environment/installed.properties
+     */
+    public static File getToolchainRegistryFile() {
+        return new File(getEnvironmentDir(), "installed.properties");
+    }
+
+    /**
+     * 获取版本目录缓存文件
+     * @return environment/cache/versions.properties
+     */
+    public static File getVersionCatalogFile() {
+        return new File(getArchiveCacheDir(), "versions.properties");
+    }
+
+    /**
+     * 获取日志目录
+     * @return environment/logs 目录
+     */
+    public static File getLogDir() {
+        return new File(getEnvironmentDir(), "logs");
+    }
+
+    /**
+     * 获取 npm 全局包的本地 tarball 目录
+     * @return environment/npm-packages 目录
+     */
+    public static File getNpmPackageDir() {
+        return new File(getEnvironmentDir(), "npm-packages");
+    }
+
+    /**
+     * 获取下载路径
+     * @param version 版本号
+     * @return 下载的路径
+     */
+    public static String getDownloadPath(String version) {
+        return new File(getEnvironmentDir(), "jdk-" + version + ".zip").getAbsolutePath();
     }
 
     /**
@@ -63,57 +120,64 @@ public class PathUtils {
     }
 
     /**
-     *  获取文件大小
-     * @param url   文件URL
-     * @return
+     * 解压zip文件（多线程并行解压，见 {@link ParallelUnzipper}）
+     * @param zipFilePath zip文件路径
+     * @param destDirectory 解压目标目录
      * @throws IOException
      */
-    public static long getFileSize(String url) throws IOException {
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        connection.setRequestMethod("HEAD");
-        long contentLength = connection.getContentLengthLong();
-        connection.disconnect();
-        return contentLength;
+    public static void unzipFile(String zipFilePath, String destDirectory) throws IOException {
+        unzipFile(zipFilePath, destDirectory, null);
     }
 
     /**
-     * 解压zip文件
-     * @param zipFilePath zip文件路径
+     * 解压 zip 并回调解压进度
+     * @param listener 已写出字节数 / 解压后总大小，可为 null
+     */
+    public static void unzipFile(String zipFilePath, String destDirectory, DownloadProgressListener listener) throws IOException {
+        new ParallelUnzipper().extract(new File(zipFilePath), new File(destDirectory), listener);
+    }
+
+    /**
+     * 从流中顺序解压 zip（边下载边解压时使用，不需要完整的 zip 文件落盘）
+     * @param in zip 数据流
      * @param destDirectory 解压目标目录
+     * @param entryCallback 每解压完一个条目回调一次，参数为已解压条目数，可为 null
      * @throws IOException
      */
-    public static void unzipFile(String zipFilePath, String destDirectory) throws IOException {
+    public static void unzipStream(InputStream in, String destDirectory, IntConsumer entryCallback) throws IOException {
         File destDir = new File(destDirectory);
         if (!destDir.exists()) {
             destDir.mkdirs();
         }
+        String destCanonical = destDir.getCanonicalPath() + File.separator;
+
+        ZipInputStream zipIn = new ZipInputStream(in);
+        byte[] buffer = new byte[64 * 1024];
+        int entries = 0;
+        ZipEntry entry;
+        while ((entry = zipIn.getNextEntry()) != null) {
+            File newFile = new File(destDir, entry.getName());
+            // 防止 zip-slip：条目路径不能跳出目标目录
+            if (!newFile.getCanonicalPath().startsWith(destCanonical)) {
+                throw new IOException("Zip entry outside target dir: " + entry.getName());
+            }
 
-        try (ZipInputStream zipIn = new ZipInputStream(new FileInputStream(zipFilePath))) {
-            ZipEntry entry = zipIn.getNextEntry();
-            // 缓存大小
-            byte[] buffer = new byte[1024];
-            int len;
-
-            while (entry != null) {
-                String filePath = destDirectory + File.separator + entry.getName();
-                File newFile = new File(filePath);
-
-                // 创建父目录
-                if (entry.isDirectory()) {
-                    newFile.mkdirs();
-                } else {
-                    // 确保父目录存在
-                    new File(newFile.getParent()).mkdirs();
-
-                    // 写入文件
-                    FileOutputStream fos = new FileOutputStream(newFile);
+            if (entry.isDirectory()) {
+                newFile.mkdirs();
+            } else {
+                newFile.getParentFile().mkdirs();
+                // Replace rather than overwrite: an earlier install may have linked this file into a store.
+                ContentStore.deleteIfExists(newFile.toPath());
+                try (FileOutputStream fos = new FileOutputStream(newFile)) {
                     int read;
                     while ((read = zipIn.read(buffer)) > 0) {
                         fos.write(buffer, 0, read);
                     }
-                    fos.close();
                 }
-                entry = zipIn.getNextEntry();
+            }
+            entries++;
+            if (entryCallback != null) {
+                entryCallback.accept(entries);
             }
         }
     }
@@ -124,13 +188,7 @@ public class PathUtils {
      * @return Maven下载路径
      */
     public static String getMavenDownloadPath(String version) {
-        File downloadDir = new File(getCurrentDrive() + "environment");
-
-        if (!downloadDir.exists()) {
-            downloadDir.mkdirs();
-        }
-
-        return new File(downloadDir, "apache-maven-" + version + ".zip").getAbsolutePath();
+        return new File(getEnvironmentDir(), "apache-maven-" + version + ".zip").getAbsolutePath();
     }
 
     /**
@@ -139,13 +197,7 @@ public class PathUtils {
      * @return 节点下载路径
      */
     public static String getNodeDownloadPath(String version) {
-        File downloadDir = new File(getCurrentDrive() + "environment");
-
-        if (!downloadDir.exists()) {
-            downloadDir.mkdirs();
-        }
-
-        return new File(downloadDir, "node-" + version + ".zip").getAbsolutePath();
+        return new File(getEnvironmentDir(), "node-" + version + ".zip").getAbsolutePath();
     }
 
     /**
@@ -0,0 +1,263 @@
+package top.oneyi.envLauncher.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 外部进程执行器
+ * <p>
+ * stderr is merged into stdout and drained on its own thread from the moment the process starts,
+ * so a chatty child can never fill a pipe and block. Waiting uses {@link Process#onExit()},
+ * which does not hold a thread per process, so independent commands run in parallel through
+ * {@link #runAsync}. A command that exceeds its timeout, or whose future is cancelled, is killed
+ * together with every process it started.
+ */
+public final class ProcessRunner {
+
+    private static final long CANCEL_POLL_MILLIS = 100;
+    /**
+     * How long to keep reading output after the process tree is gone.
+     */
+    private static final long DRAIN_GRACE_MILLIS = 2000;
+
+    private static final ProcessRunner SHARED = new ProcessRunner(
+            EnvUtil.isWindows() ? Charset.forName("GBK") : Charset.defaultCharset());
+
+    private final Charset charset;
+    private final ExecutorService drains;
+
+    /**
+     * @param charset encoding of the child's console output
+     */
+    public ProcessRunner(Charset charset) {
+        this.charset = charset;
+        AtomicInteger threadId = new AtomicInteger();
+        this.drains = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "process-output-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static ProcessRunner shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return the command line wrapped for the platform shell: {@code cmd /c} on Windows, {@code sh -c} elsewhere
+     */
+    public static List<String> shell(String commandLine) {
+        return EnvUtil.isWindows()
+                ? Arrays.asList("cmd", "/c", commandLine)
+                : Arrays.asList("sh", "-c", commandLine);
+    }
+
+    /**
+     * Start {@code command}. Cancelling the returned future kills the process tree.
+     *
+     * @return completes when the process has exited and its output is read, or fails when it cannot be started
+     */
+    public CompletableFuture<Result> runAsync(List<String> command, Duration timeout) {
+        try {
+            return start(command, timeout).result;
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Run {@code command} and wait for it on the calling thread.
+     *
+     * @param cancelRequested polled while waiting; when it turns true the process tree is killed
+     */
+    public Result run(List<String> command, Duration timeout, BooleanSupplier cancelRequested) throws IOException {
+        Execution execution = start(command, timeout);
+        try {
+            while (true) {
+                try {
+                    return execution.result.get(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (cancelRequested.getAsBoolean()) {
+                        execution.result.cancel(true);
+                        return execution.cancelled();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            execution.result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running " + command.get(0), e);
+        } catch (ExecutionException e) {
+            throw new IOException("Run " + command.get(0) + " failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private Execution start(List<String> command, Duration timeout) throws IOException {
+        Execution execution = new Execution(command, new ProcessBuilder(command).redirectErrorStream(true).start());
+        Process process = execution.process;
+        // Nothing is ever typed into the child; a prompt must fail instead of waiting forever.
+        process.getOutputStream().close();
+
+        CompletableFuture<Void> drained = CompletableFuture.runAsync(execution::drain, drains);
+        AtomicBoolean timedOut = new AtomicBoolean();
+        process.onExit()
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(error -> {
+                    timedOut.set(true);
+                    killTree(process);
+                    return process;
+                })
+                .thenCompose(Process::onExit)
+                .thenCompose(exited -> drained.completeOnTimeout(null, DRAIN_GRACE_MILLIS, TimeUnit.MILLISECONDS))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        execution.result.completeExceptionally(error);
+                    } else {
+                        execution.result.complete(execution.finished(process.exitValue(), timedOut.get()));
+                    }
+                });
+        execution.result.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                killTree(process);
+            }
+        });
+        return execution;
+    }
+
+    /**
+     * Kill the children first: once the parent is gone they are reparented and no longer found.
+     */
+    private static void killTree(Process process) {
+        List<ProcessHandle> children = new ArrayList<>();
+        process.descendants().forEach(children::add);
+        Collections.reverse(children);
+        children.forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private final class Execution {
+        private final List<String> command;
+        private final Process process;
+        private final long startedNanos = System.nanoTime();
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        Execution(List<String> command, Process process) {
+            this.command = command;
+            this.process = process;
+        }
+
+        void drain() {
+            byte[] buffer = new byte[8192];
+            try (InputStream in = process.getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    synchronized (output) {
+                        output.write(buffer, 0, read);
+                    }
+                }
+            } catch (IOException ignored) {
+                // Stream closed because the process was killed; keep what was read.
+            }
+        }
+
+        Result finished(int exitCode, boolean timedOut) {
+            return new Result(command, exitCode, output(), elapsed(), timedOut, false);
+        }
+
+        Result cancelled() {
+            return new Result(command, -1, output(), elapsed(), false, true);
+        }
+
+        private String output() {
+            synchronized (output) {
+                return new String(output.toByteArray(), charset);
+            }
+        }
+
+        private Duration elapsed() {
+            return Duration.ofNanos(System.nanoTime() - startedNanos);
+        }
+    }
+
+    /**
+     * Outcome of one command.
+     */
+    public static final class Result {
+        private final List<String> command;
+        private final int exitCode;
+        private final String output;
+        private final Duration duration;
+        private final boolean timedOut;
+        private final boolean cancelled;
+
+        Result(List<String> command, int exitCode, String output, Duration duration, boolean timedOut, boolean cancelled) {
+            this.command = command;
+            this.exitCode = exitCode;
+            this.output = output;
+            this.duration = duration;
+            this.timedOut = timedOut;
+            this.cancelled = cancelled;
+        }
+
+        public List<String> getCommand() {
+            return command;
+        }
+
+        /**
+         * @return the exit code, or -1 when cancelled
+         */
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        /**
+         * @return stdout and stderr, interleaved as the child wrote them
+         */
+        public String getOutput() {
+            return output;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return true when the command ran to completion with exit code 0
+         */
+        public boolean isSuccess() {
+            return exitCode == 0 && !timedOut && !cancelled;
+        }
+
+        @Override
+        public String toString() {
+            String state = cancelled ? "cancelled" : timedOut ? "timed out" : "exit " + exitCode;
+            return String.join(" ", command) + " (" + state + ", " + duration.toMillis() + " ms)";
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package top.oneyi.envLauncher.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * {@link EnvironmentWriter.Backend} for the Windows registry.
+ * <p>
+ * A batch is rendered into one {@code .reg} file and applied with a single {@code reg import}:
+ * variables go to both the machine and the user environment, PATH to the machine environment
+ * as {@code REG_EXPAND_SZ} so entries like {@code %JAVA_HOME%\bin} keep expanding. One
+ * {@code setx} afterwards makes Windows broadcast the change to new terminals. That is two
+ * processes per batch, where each tool used to cost a {@code setx} and a {@code reg add} per
+ * variable plus a {@code reg add} per PATH entry.
+ */
+public class RegistryEnvironmentBackend implements EnvironmentWriter.Backend {
+
+    static final String MACHINE_KEY = "HKEY_LOCAL_MACHINE\\SYSTEM\\CurrentControlSet\\Control\\Session Manager\\Environment";
+    static final String USER_KEY = "HKEY_CURRENT_USER\\Environment";
+
+    /**
+     * PATH as last written by this process; the inherited PATH is stale once we have written one.
+     */
+    private String lastPath;
+
+    @Override
+    public synchronized String readPath() {
+        return lastPath != null ? lastPath : System.getenv("PATH");
+    }
+
+    @Override
+    public synchronized void write(Map<String, String> variables, String path) throws IOException {
+        File script = File.createTempFile("envLauncher-", ".reg");
+        try {
+            // regedit expects UTF-16LE with a byte order mark.
+            Files.write(script.toPath(), ("\uFEFF" + toRegFile(variables, path)).getBytes(StandardCharsets.UTF_16LE));
+            CmdUtil.executeCommand("reg", "import", script.getAbsolutePath());
+        } finally {
+            if (!script.delete()) {
+                script.deleteOnExit();
+            }
+        }
+        if (path != null) {
+            lastPath = path;
+        }
+
+        if (!variables.isEmpty()) {
+            // reg import does not notify running programs; setx sends WM_SETTINGCHANGE.
+            Map.Entry<String, String> any = variables.entrySet().iterator().next();
+            CmdUtil.executeCommand("setx", any.getKey(), any.getValue(), "/M");
+        }
+    }
+
+    static String toRegFile(Map<String, String> variables, String path) {
+        String newline = "\r\n";
+        StringBuilder reg = new StringBuilder("Windows Registry Editor Version 5.00").append(newline).append(newline);
+
+        reg.append('[').append(MACHINE_KEY).append(']').append(newline);
+        variables.forEach((name, value) -> reg.append(quote(name)).append('=').append(quote(value)).append(newline));
+        if (path != null) {
+            reg.append(quote("Path")).append("=hex(2):").append(expandString(path)).append(newline);
+        }
+        reg.append(newline);
+
+        if (!variables.isEmpty()) {
+            reg.append('[').append(USER_KEY).append(']').append(newline);
+            variables.forEach((name, value) -> reg.append(quote(name)).append('=').append(quote(value)).append(newline));
+            reg.append(newline);
+        }
+        return reg.toString();
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * REG_EXPAND_SZ is written as the comma separated bytes of the NUL terminated UTF-16LE string.
+     */
+    private static String expandString(String value) {
+        byte[] bytes = (value + '\0').getBytes(StandardCharsets.UTF_16LE);
+        StringBuilder hex = new StringBuilder(bytes.length * 3);
+        for (int i = 0; i < bytes.length; i++) {
+            if (i > 0) {
+                hex.append(',');
+            }
+            hex.append(Character.forDigit((bytes[i] >> 4) & 0xF, 16)).append(Character.forDigit(bytes[i] & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
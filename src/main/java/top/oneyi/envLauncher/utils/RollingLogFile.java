@@ -0,0 +1,112 @@
+package top.oneyi.envLauncher.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 滚动日志文件
+ * <p>
+ * Log sink that appends each batch to {@code envlauncher.log} with one write. Above
+ * {@code maxBytes} the file is renamed to {@code envlauncher.log.1} (older ones shift up) and
+ * at most {@code maxFiles} rolled files are kept. Only called from the log writer thread.
+ */
+public class RollingLogFile implements Consumer<List<LogEntry>>, Closeable {
+
+    public static final String FILE_NAME = "envlauncher.log";
+
+    private final File dir;
+    private final File current;
+    private final long maxBytes;
+    private final int maxFiles;
+
+    private OutputStream out;
+    private long size;
+    private boolean failed;
+
+    /**
+     * @param maxBytes roll over above this size
+     * @param maxFiles rolled files to keep besides the current one
+     */
+    public RollingLogFile(File dir, long maxBytes, int maxFiles) {
+        this.dir = dir;
+        this.current = new File(dir, FILE_NAME);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.maxFiles = Math.max(0, maxFiles);
+    }
+
+    public File getFile() {
+        return current;
+    }
+
+    @Override
+    public void accept(List<LogEntry> batch) {
+        if (failed) {
+            return;
+        }
+        StringBuilder text = new StringBuilder(batch.size() * 96);
+        for (LogEntry entry : batch) {
+            text.append(entry.format()).append(System.lineSeparator());
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            if (out == null) {
+                open();
+            } else if (size > 0 && size + bytes.length > maxBytes) {
+                roll();
+            }
+            out.write(bytes);
+            out.flush();
+            size += bytes.length;
+        } catch (IOException e) {
+            // Keep logging to the other sinks; one report is enough.
+            failed = true;
+            System.err.println("Log file disabled: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void open() throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        out = new FileOutputStream(current, true);
+        size = current.length();
+    }
+
+    private void roll() throws IOException {
+        close();
+        File oldest = rolled(maxFiles);
+        if (oldest.exists() && !oldest.delete()) {
+            throw new IOException("Cannot delete " + oldest);
+        }
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            File file = rolled(i);
+            if (file.exists() && !file.renameTo(rolled(i + 1))) {
+                throw new IOException("Cannot rename " + file);
+            }
+        }
+        if (maxFiles == 0) {
+            current.delete();
+        } else if (!current.renameTo(rolled(1))) {
+            throw new IOException("Cannot rename " + current);
+        }
+        open();
+    }
+
+    private File rolled(int index) {
+        return new File(dir, FILE_NAME + "." + index);
+    }
+}
@@ -0,0 +1,77 @@
+package top.oneyi.envLauncher;
+
+import top.oneyi.envLauncher.utils.ProcessRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @description 冷启动耗时对比：无 CDS vs 镜像内的 AppCDS 归档（JVM 启动到主窗口首帧）
+ * <p>
+ * Not a unit test (surefire only picks up *Test). Build the image first, then run:
+ * <pre>
+ * mvn -Pappcds clean package
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=top.oneyi.envLauncher.StartupBenchmark
+ * </pre>
+ * Each run starts {@code target/app} with {@code -Denvlauncher.exit-after-first-frame=true}, so it
+ * needs a desktop session. {@code -Dbench.image=...} points at another image, {@code -Dbench.runs=N}
+ * changes the number of runs per mode.
+ */
+public class StartupBenchmark {
+
+    private static final Pattern FIRST_FRAME = Pattern.compile("First frame: (\\d+) ms");
+    private static final String MAIN = "top.oneyi.envLauncher/top.oneyi.envLauncher.MainApp";
+
+    public static void main(String[] args) throws IOException {
+        File image = new File(System.getProperty("bench.image", "target/app"));
+        int runs = Integer.getInteger("bench.runs", 7);
+        File java = new File(image, "bin/java.exe");
+        if (!java.isFile()) {
+            java = new File(image, "bin/java");
+        }
+        if (!java.isFile()) {
+            System.out.println("No runtime image at " + image.getAbsolutePath() + ", run mvn -Pappcds clean package first.");
+            return;
+        }
+        boolean archived = new File(image, "lib/server/classes.jsa").isFile();
+        System.out.printf("image: %s (CDS archive %s)%n", image.getAbsolutePath(), archived ? "present" : "missing");
+
+        // One throwaway launch each so both modes start from a warm file cache.
+        firstFrame(java, "-Xshare:off");
+        firstFrame(java, "-Xshare:auto");
+        long off = median(java, "-Xshare:off", runs);
+        long cds = median(java, "-Xshare:auto", runs);
+
+        System.out.printf("no CDS (-Xshare:off):     %d ms to first frame%n", off);
+        System.out.printf("AppCDS (-Xshare:auto):    %d ms to first frame%n", cds);
+        System.out.printf("speed-up: %.2fx%n", (double) off / cds);
+    }
+
+    private static long median(File java, String share, int runs) throws IOException {
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            times.add(firstFrame(java, share));
+        }
+        Collections.sort(times);
+        return times.get(times.size() / 2);
+    }
+
+    private static long firstFrame(File java, String share) throws IOException {
+        ProcessRunner.Result result = new ProcessRunner(Charset.defaultCharset()).run(Arrays.asList(
+                java.getAbsolutePath(), share, "-Denvlauncher.exit-after-first-frame=true", "-m", MAIN),
+                Duration.ofMinutes(1), () -> false);
+        Matcher matcher = FIRST_FRAME.matcher(result.getOutput());
+        if (!result.isSuccess() || !matcher.find()) {
+            throw new IOException("Startup run failed: " + result + System.lineSeparator() + result.getOutput());
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+}
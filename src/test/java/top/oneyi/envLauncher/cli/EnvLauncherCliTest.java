@@ -0,0 +1,79 @@
+package top.oneyi.envLauncher.cli;
+
+import org.junit.Test;
+import top.oneyi.envLauncher.utils.ProcessRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description 命令行入口测试
+ */
+public class EnvLauncherCliTest {
+
+    @Test
+    public void installArgumentsAreNormalized() {
+        EnvLauncherCli.Command command = EnvLauncherCli.Command.parse(
+                new String[]{"install", "node=20.19.2", "--timing", "JDK=17"});
+
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("jdk", "17");
+        expected.put("node", "v20.19.2");
+        assertEquals(expected, command.versions);
+        assertTrue(command.timing);
+    }
+
+    @Test
+    public void listIsItsOwnCommand() {
+        EnvLauncherCli.Command command = EnvLauncherCli.Command.parse(new String[]{"list"});
+
+        assertTrue(command.list);
+        assertTrue(command.versions.isEmpty());
+    }
+
+    @Test
+    public void invalidArgumentsAreUsageErrors() {
+        for (String[] args : new String[][]{
+                {"install"}, {"install", "gradle=8"}, {"install", "jdk="}, {"install", "jdk=17", "jdk=21"},
+                {"upgrade", "jdk=17"}, {"list", "jdk"}, {"install", "jdk=17", "--quiet"}}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int exit = EnvLauncherCli.run(args, new PrintStream(out, true, StandardCharsets.UTF_8));
+
+            assertEquals(Arrays.toString(args), EnvLauncherCli.EXIT_USAGE, exit);
+            assertTrue(out.toString(StandardCharsets.UTF_8).contains("Usage: envlauncher install"));
+        }
+    }
+
+    /**
+     * A fresh JVM with only the application classes on the class path: JavaFX is not even
+     * available, so any JavaFX class on the startup path would fail the run.
+     */
+    @Test
+    public void startsWithoutJavaFxWithinBudget() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classes = new File(EnvLauncherCli.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getAbsolutePath();
+
+        ProcessRunner.Result result = new ProcessRunner(Charset.defaultCharset()).run(Arrays.asList(
+                java, "-cp", classes, EnvLauncherCli.class.getName(), "help", "--timing"),
+                Duration.ofSeconds(30), () -> false);
+
+        assertEquals(result.getOutput(), EnvLauncherCli.EXIT_OK, result.getExitCode());
+        Matcher startup = Pattern.compile("Startup: (\\d+) ms").matcher(result.getOutput());
+        assertTrue(result.getOutput(), startup.find());
+        long millis = Long.parseLong(startup.group(1));
+        assertTrue("startup took " + millis + " ms", millis <= EnvLauncherCli.STARTUP_BUDGET.toMillis());
+    }
+}
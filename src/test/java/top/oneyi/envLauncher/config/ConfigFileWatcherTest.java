@@ -0,0 +1,74 @@
+package top.oneyi.envLauncher.config;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description 配置文件监听测试：修改或新建被监听的文件只触发一次回调，其它文件不触发
+ */
+public class ConfigFileWatcherTest {
+
+    private static final long DEBOUNCE_MILLIS = 200;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final Semaphore changes = new Semaphore(0);
+    private ConfigFileWatcher watcher;
+
+    @After
+    public void closeWatcher() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    @Test
+    public void burstOfWritesTriggersOneReload() throws Exception {
+        Path file = temp.newFile("download-sources.properties").toPath();
+        watcher = new ConfigFileWatcher(List.of(file), changes::release, DEBOUNCE_MILLIS);
+
+        for (int i = 0; i < 5; i++) {
+            Files.write(file, ("node.base-url=https://mirror-" + i + "/\n").getBytes(StandardCharsets.UTF_8));
+            Thread.sleep(20);
+        }
+
+        assertTrue(changes.tryAcquire(10, TimeUnit.SECONDS));
+        assertFalse(changes.tryAcquire(DEBOUNCE_MILLIS * 3, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void fileCreatedLaterIsPickedUp() throws Exception {
+        Path file = temp.getRoot().toPath().resolve("download-sources.properties");
+        watcher = new ConfigFileWatcher(List.of(file), changes::release, DEBOUNCE_MILLIS);
+
+        Files.write(file, "log.level=DEBUG\n".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(changes.tryAcquire(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void otherFilesInTheDirectoryAreIgnored() throws Exception {
+        Path file = temp.newFile("download-sources.properties").toPath();
+        watcher = new ConfigFileWatcher(List.of(file), changes::release, DEBOUNCE_MILLIS);
+
+        Files.write(temp.getRoot().toPath().resolve("notes.txt"), "x".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(changes.tryAcquire(DEBOUNCE_MILLIS * 5, TimeUnit.MILLISECONDS));
+        assertEquals(0, changes.availablePermits());
+    }
+}
@@ -0,0 +1,30 @@
+package top.oneyi.envLauncher.config;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @description 下载源配置测试：内容未变的重新加载保留镜像测速结果和版本目录
+ */
+public class DownloadSourceConfigTest {
+
+    @Test
+    public void unchangedReloadKeepsDerivedState() {
+        VersionCatalog catalog = DownloadSourceConfig.getVersionCatalog();
+        AtomicInteger notified = new AtomicInteger();
+        Runnable listener = notified::incrementAndGet;
+        DownloadSourceConfig.addListener(listener);
+        try {
+            DownloadSourceConfig.reload();
+        } finally {
+            DownloadSourceConfig.removeListener(listener);
+        }
+
+        assertSame(catalog, DownloadSourceConfig.getVersionCatalog());
+        assertEquals(0, notified.get());
+    }
+}
@@ -0,0 +1,131 @@
+package top.oneyi.envLauncher.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description 镜像测速选择测试，多个本地 HTTP 服务模拟不同延迟的镜像
+ */
+public class MirrorSelectorTest {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final AtomicInteger probes = new AtomicInteger();
+    private String slow;
+    private String fast;
+    private String missing;
+
+    @Before
+    public void startMirrors() throws IOException {
+        slow = mirror(400, 200);
+        fast = mirror(0, 200);
+        missing = mirror(0, 404);
+    }
+
+    @After
+    public void stopMirrors() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    public void picksFastestHealthyMirror() {
+        MirrorSelector selector = new MirrorSelector(60_000, 2_000, 16 * 1024);
+
+        assertEquals(fast, selector.select(Arrays.asList(missing, slow, fast)));
+    }
+
+    @Test
+    public void probesCandidatesConcurrently() {
+        String slow2 = mirrorUnchecked(400, 200);
+        String slow3 = mirrorUnchecked(400, 200);
+        MirrorSelector selector = new MirrorSelector(60_000, 2_000, 16 * 1024);
+
+        long start = System.nanoTime();
+        selector.probeAll(Arrays.asList(slow, slow2, slow3));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 1_000);
+    }
+
+    @Test
+    public void reusesScoresWithinTtl() {
+        MirrorSelector selector = new MirrorSelector(60_000, 2_000, 16 * 1024);
+        selector.select(Arrays.asList(slow, fast));
+        int afterFirst = probes.get();
+
+        selector.select(Arrays.asList(slow, fast));
+
+        assertEquals(2, afterFirst);
+        assertEquals(afterFirst, probes.get());
+    }
+
+    @Test
+    public void failedProbeIsRetriedAfterShortBackoff() {
+        MirrorSelector selector = new MirrorSelector(60_000, 0, 2_000, 16 * 1024);
+        selector.select(Arrays.asList(missing, fast));
+        int afterFirst = probes.get();
+
+        selector.select(Arrays.asList(missing, fast));
+
+        // Only the failed mirror is probed again; the healthy score is kept for the full TTL.
+        assertEquals(2, afterFirst);
+        assertEquals(afterFirst + 1, probes.get());
+    }
+
+    @Test
+    public void fallsBackToFirstCandidateWhenAllFail() {
+        MirrorSelector selector = new MirrorSelector(0, 500, 16 * 1024);
+        String unreachable = "http://127.0.0.1:1/missing.zip";
+
+        assertEquals(missing, selector.select(Arrays.asList(missing, unreachable)));
+        assertFalse(selector.probeAll(Arrays.asList(unreachable)).get(0).isHealthy());
+    }
+
+    private String mirrorUnchecked(long delayMillis, int status) {
+        try {
+            return mirror(delayMillis, status);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String mirror(long delayMillis, int status) throws IOException {
+        byte[] body = new byte[64 * 1024];
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/node.zip", exchange -> {
+            probes.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (status != 200) {
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (IOException ignored) {
+                // Probe stopped reading early.
+            }
+        });
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/node.zip";
+    }
+}
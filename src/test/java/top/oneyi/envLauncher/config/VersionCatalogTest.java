@@ -0,0 +1,177 @@
+package top.oneyi.envLauncher.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import top.oneyi.envLauncher.utils.HttpTransport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description 版本目录测试，本地 HTTP 服务回放录制的 Node index.json、Maven 目录页和 Adoptium API 响应
+ */
+public class VersionCatalogTest {
+
+    private static final List<String> NODE = List.of(
+            "18.20.8", "20.19.0", "20.19.1", "20.19.2", "22.15.0", "22.15.1", "22.16.0");
+    private static final List<String> MAVEN = List.of(
+            "3.6.3", "3.8.6", "3.8.7", "3.8.8", "3.9.9", "3.9.10", "3.9.11");
+    private static final List<String> JDK = List.of("8", "11", "17", "21");
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private HttpServer server;
+    private String base;
+    private File cacheFile;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private volatile int delayMillis;
+    private volatile boolean nodeBroken;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/node/index.json", exchange -> replay(exchange, nodeBroken ? null : "node-index.json"));
+        server.createContext("/maven/", exchange -> replay(exchange, "maven-listing.html"));
+        server.createContext("/api/info/available_releases", exchange -> replay(exchange, "adoptium-available-releases.json"));
+        server.createContext("/api/assets/latest/", exchange -> {
+            // /api/assets/latest/<feature>/hotspot
+            String feature = exchange.getRequestURI().getPath().split("/")[4];
+            replay(exchange, "adoptium-assets-" + feature + ".json");
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        cacheFile = new File(temp.getRoot(), "cache/versions.properties");
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void fetchesAndParsesAllSources() {
+        VersionCatalog.Versions versions = catalog(TimeUnit.HOURS.toMillis(1)).refresh().join();
+
+        assertEquals(NODE, versions.getNode());
+        assertEquals(MAVEN, versions.getMaven());
+        assertEquals(JDK, versions.getJdk());
+        assertEquals("17/jdk/x64/windows/OpenJDK17U-jdk_x64_windows_hotspot_17.0.15_6.zip",
+                versions.getJdkArtifactPath("17"));
+        // node, maven, the release list and one asset query per LTS feature
+        assertEquals(7, requests.get());
+    }
+
+    @Test
+    public void fetchesSourcesConcurrently() {
+        delayMillis = 300;
+
+        long start = System.nanoTime();
+        catalog(TimeUnit.HOURS.toMillis(1)).refresh().join();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // One after another this would be 7 x 300 ms; concurrently it is the release list plus the assets.
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 1_500);
+    }
+
+    @Test
+    public void servesFromDiskCacheWithoutRequestsWithinTtl() {
+        catalog(TimeUnit.HOURS.toMillis(1)).refresh().join();
+        int afterFirst = requests.get();
+
+        VersionCatalog restarted = catalog(TimeUnit.HOURS.toMillis(1));
+        assertEquals(NODE, restarted.current().getNode());
+        assertEquals(MAVEN, restarted.refresh().join().getMaven());
+
+        assertEquals(afterFirst, requests.get());
+    }
+
+    @Test
+    public void revalidatesWithEtagAfterTtl() {
+        catalog(0).refresh().join();
+
+        VersionCatalog.Versions versions = catalog(0).refresh().join();
+
+        assertEquals(7, notModified.get());
+        assertEquals(NODE, versions.getNode());
+        assertEquals(JDK, versions.getJdk());
+    }
+
+    @Test
+    public void keepsLastKnownListWhenSourceFails() {
+        catalog(0).refresh().join();
+        nodeBroken = true;
+
+        VersionCatalog.Versions versions = catalog(0).refresh().join();
+
+        assertEquals(NODE, versions.getNode());
+        assertEquals(MAVEN, versions.getMaven());
+    }
+
+    @Test
+    public void fallsBackToBuiltInListsWithoutCacheOrNetwork() {
+        VersionCatalog catalog = new VersionCatalog(cacheFile, new HttpTransport(Duration.ZERO), 0,
+                "http://127.0.0.1:1/node/", "http://127.0.0.1:1/maven/", "http://127.0.0.1:1/api/");
+
+        VersionCatalog.Versions versions = catalog.refresh().join();
+
+        assertEquals(VersionCatalog.Versions.BUILT_IN.getNode(), versions.getNode());
+        assertEquals(VersionCatalog.Versions.BUILT_IN.getJdk(), versions.getJdk());
+        assertEquals(JDKVersionConfig.getArtifactPath("21"), versions.getJdkArtifactPath("21"));
+    }
+
+    private VersionCatalog catalog(long ttlMillis) {
+        return new VersionCatalog(cacheFile, new HttpTransport(Duration.ZERO), ttlMillis,
+                base + "node/", base + "maven/", base + "api/");
+    }
+
+    private void replay(HttpExchange exchange, String fixture) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (fixture == null) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        String etag = "\"" + fixture + "\"";
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModified.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body;
+        try (InputStream in = VersionCatalogTest.class.getResourceAsStream("catalog/" + fixture)) {
+            body = in.readAllBytes();
+        }
+        exchange.getResponseHeaders().add("ETag", etag);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
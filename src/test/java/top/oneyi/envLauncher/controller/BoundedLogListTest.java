@@ -0,0 +1,98 @@
+package top.oneyi.envLauncher.controller;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.transformation.FilteredList;
+import org.junit.Test;
+import top.oneyi.envLauncher.utils.LogEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description 日志列表环形缓冲与过滤测试（只用到 javafx.base 集合，无需启动 FX 线程）
+ */
+public class BoundedLogListTest {
+
+    @Test
+    public void keepsNewestEntriesUpToCapacity() {
+        BoundedLogList list = new BoundedLogList(5);
+        list.append(entries(0, 3));
+        list.append(entries(3, 7));
+
+        assertEquals(messages(2, 7), messagesOf(list));
+        assertEquals(2, list.getEvictedCount());
+
+        // A batch larger than the ring leaves only its tail.
+        list.append(entries(7, 20));
+        assertEquals(messages(15, 20), messagesOf(list));
+        assertEquals(15, list.getEvictedCount());
+    }
+
+    @Test
+    public void reportsEvictionAndAppendAsOneChange() {
+        BoundedLogList list = new BoundedLogList(4);
+        list.append(entries(0, 4));
+        List<String> changes = new ArrayList<>();
+        list.addListener((ListChangeListener<LogEntry>) change -> {
+            changes.add("change");
+            while (change.next()) {
+                if (change.wasRemoved()) {
+                    changes.add("removed " + change.getFrom() + " x" + change.getRemovedSize());
+                }
+                if (change.wasAdded()) {
+                    changes.add("added " + change.getFrom() + ".." + change.getTo());
+                }
+            }
+        });
+
+        list.append(entries(4, 6));
+
+        assertEquals(List.of("change", "removed 0 x2", "added 2..4"), changes);
+    }
+
+    @Test
+    public void filteredViewFollowsAppendsAndEvictions() {
+        BoundedLogList list = new BoundedLogList(6);
+        FilteredList<LogEntry> warnings = new FilteredList<>(list,
+                entry -> entry.getLevel().compareTo(LogEntry.Level.WARN) >= 0);
+        for (int i = 0; i < 10; i++) {
+            LogEntry.Level level = i % 3 == 0 ? LogEntry.Level.WARN : LogEntry.Level.INFO;
+            list.append(List.of(new LogEntry(i, level, "line " + i, Collections.emptyMap())));
+        }
+
+        // Lines 4..9 are kept; of those 6 and 9 are warnings.
+        assertEquals(List.of("line 6", "line 9"), messagesOf(warnings));
+
+        list.clear();
+        assertTrue(warnings.isEmpty());
+        assertEquals(4, list.getEvictedCount());
+    }
+
+    @Test
+    public void searchIgnoresCase() {
+        assertTrue(LogPaneController.containsIgnoreCase("Checksum mismatch (SHA-256)", "MISMATCH"));
+        assertTrue(LogPaneController.containsIgnoreCase("abc", ""));
+        assertFalse(LogPaneController.containsIgnoreCase("Download failed", "unzip"));
+    }
+
+    private static List<LogEntry> entries(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> new LogEntry(i, LogEntry.Level.INFO, "line " + i, Collections.emptyMap()))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> messages(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "line " + i).collect(Collectors.toList());
+    }
+
+    private static List<String> messagesOf(List<LogEntry> list) {
+        return list.stream().map(LogEntry::getMessage).collect(Collectors.toList());
+    }
+}
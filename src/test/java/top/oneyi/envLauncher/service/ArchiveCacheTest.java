@@ -0,0 +1,161 @@
+package top.oneyi.envLauncher.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description 压缩包缓存测试
+ */
+public class ArchiveCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static final ArchiveCache.Identity JDK_17 = new ArchiveCache.Identity("jdk", "17", "jdk-17.zip");
+
+    @Test
+    public void putMovesArchiveAndFindLocatesItByIdentity() throws IOException {
+        File dir = temp.newFolder("cache");
+        ArchiveCache cache = new ArchiveCache(dir, 1024);
+        File archive = archive("jdk-17.zip", 100);
+
+        File cached = cache.put(JDK_17, null, archive);
+
+        assertNotNull(cached);
+        assertFalse(archive.exists());
+        ArchiveCache.Hit hit = cache.find(new ArchiveCache.Identity("jdk", "17", "jdk-17.zip"));
+        assertEquals(cached, hit.getFile());
+        assertNull(hit.getChecksum());
+        assertNull(cache.find(new ArchiveCache.Identity("jdk", "21", "jdk-17.zip")));
+        assertNull(cache.find(new ArchiveCache.Identity("node", "17", "jdk-17.zip")));
+    }
+
+    @Test
+    public void verifiedEntryKeepsItsChecksum() throws Exception {
+        ArchiveCache cache = new ArchiveCache(temp.newFolder("cache"), 1024);
+        String checksum = sha256(10);
+        cache.put(identity("node.zip"), checksum, archive("node.zip", 10));
+
+        assertEquals(checksum, cache.find(identity("node.zip")).getChecksum());
+    }
+
+    @Test
+    public void newerDownloadReplacesTheEntry() throws Exception {
+        ArchiveCache cache = new ArchiveCache(temp.newFolder("cache"), 1024);
+        cache.put(JDK_17, null, archive("jdk-17.zip", 100));
+
+        File second = cache.put(JDK_17, sha256(10), archive("jdk-17.zip", 10));
+
+        assertEquals(second, cache.find(JDK_17).getFile());
+        assertEquals(10, second.length());
+        assertEquals(sha256(10), cache.find(JDK_17).getChecksum());
+        assertEquals(10, cache.getTotalBytes());
+    }
+
+    @Test
+    public void unchangedFileIsTrustedWithoutHashing() throws IOException {
+        ArchiveCache cache = new ArchiveCache(temp.newFolder("cache"), 1024);
+        // The recorded checksum does not match the bytes, but size and time are what was recorded.
+        File cached = cache.put(identity("x.zip"), "SHA-256:" + "ab".repeat(32), archive("x.zip", 10));
+
+        assertEquals(cached, cache.find(identity("x.zip")).getFile());
+    }
+
+    @Test
+    public void touchedFileIsHashedAndKeptWhenItStillMatches() throws Exception {
+        ArchiveCache cache = new ArchiveCache(temp.newFolder("cache"), 1024);
+        File cached = cache.put(identity("x.zip"), sha256(10), archive("x.zip", 10));
+        assertTrue(cached.setLastModified(cached.lastModified() - 60_000));
+
+        assertNotNull(cache.find(identity("x.zip")));
+        assertNotNull(cache.find(identity("x.zip")));
+    }
+
+    @Test
+    public void changedFileFailsLocalVerification() throws IOException {
+        ArchiveCache cache = new ArchiveCache(temp.newFolder("cache"), 1024);
+        File cached = cache.put(identity("x.zip"), null, archive("x.zip", 10));
+        Files.write(cached.toPath(), "0123456789".getBytes());
+        assertTrue(cached.setLastModified(cached.lastModified() - 60_000));
+
+        assertNull(cache.find(identity("x.zip")));
+        assertFalse(cached.exists());
+        assertEquals(0, cache.getTotalBytes());
+    }
+
+    @Test
+    public void indexSurvivesRestart() throws Exception {
+        File dir = temp.newFolder("cache");
+        new ArchiveCache(dir, 1024).put(identity("a.zip"), sha256(10), archive("a.zip", 10));
+
+        ArchiveCache reopened = new ArchiveCache(dir, 1024);
+
+        assertEquals(sha256(10), reopened.find(identity("a.zip")).getChecksum());
+        assertEquals(10, reopened.getTotalBytes());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedAboveCap() throws IOException, InterruptedException {
+        File dir = temp.newFolder("cache");
+        ArchiveCache cache = new ArchiveCache(dir, 250);
+        cache.put(identity("1.zip"), null, archive("1.zip", 100));
+        Thread.sleep(5);
+        cache.put(identity("2.zip"), null, archive("2.zip", 100));
+        Thread.sleep(5);
+        assertNotNull(cache.find(identity("1.zip")));
+        Thread.sleep(5);
+
+        cache.put(identity("3.zip"), null, archive("3.zip", 100));
+
+        assertNotNull(cache.find(identity("1.zip")));
+        assertNull(cache.find(identity("2.zip")));
+        assertNotNull(cache.find(identity("3.zip")));
+        assertEquals(200, cache.getTotalBytes());
+    }
+
+    @Test
+    public void oversizedOrDisabledCacheKeepsNothing() throws IOException {
+        File archive = archive("big.zip", 100);
+
+        assertNull(new ArchiveCache(temp.newFolder("small"), 50).put(identity("big.zip"), null, archive));
+        assertNull(new ArchiveCache(temp.newFolder("off"), 0).put(identity("big.zip"), null, archive));
+        assertTrue(archive.exists());
+    }
+
+    @Test
+    public void missingFileIsTreatedAsMiss() throws IOException {
+        File dir = temp.newFolder("cache");
+        ArchiveCache cache = new ArchiveCache(dir, 1024);
+        File cached = cache.put(identity("x.zip"), null, archive("x.zip", 10));
+        Files.delete(cached.toPath());
+
+        assertNull(cache.find(identity("x.zip")));
+        assertEquals(0, cache.getTotalBytes());
+    }
+
+    private static ArchiveCache.Identity identity(String fileName) {
+        return new ArchiveCache.Identity("maven", "3.9.10", fileName);
+    }
+
+    private File archive(String name, int size) throws IOException {
+        File file = new File(temp.getRoot(), name);
+        Files.write(file.toPath(), new byte[size]);
+        return file;
+    }
+
+    private static String sha256(int zeroBytes) throws Exception {
+        return "SHA-256:" + Checksum.toHex(MessageDigest.getInstance("SHA-256").digest(new byte[zeroBytes]));
+    }
+}
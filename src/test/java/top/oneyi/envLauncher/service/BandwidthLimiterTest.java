@@ -0,0 +1,178 @@
+package top.oneyi.envLauncher.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description 下载限速测试，本地 HTTP 服务下测量实际速率、按权重分配和运行中调整上限
+ */
+public class BandwidthLimiterTest {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    private static final int KB = 1024;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final byte[] payload = new byte[600 * KB];
+    private HttpServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        new Random(7).nextBytes(payload);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/file.zip", this::serve);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        // Keep the HTTP client's first start out of the timed runs.
+        download(new BandwidthLimiter(0), 1, temp.newFile(), 64 * KB);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void segmentedDownloadStaysAtTheCap() throws Exception {
+        BandwidthLimiter limiter = new BandwidthLimiter(300 * KB);
+        File target = temp.newFile("capped.zip");
+
+        long elapsedMillis = timed(() -> download(limiter, 1, target, payload.length));
+
+        // 600 KB at 300 KB/s over four connections: about two seconds.
+        double rate = payload.length / (elapsedMillis / 1000.0);
+        assertTrue("achieved " + (long) rate / KB + " KB/s", rate > 240 * KB && rate < 345 * KB);
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void concurrentDownloadsSplitTheCapByWeight() throws Exception {
+        BandwidthLimiter limiter = new BandwidthLimiter(400 * KB);
+        int size = 300 * KB;
+        long start = System.nanoTime();
+
+        CompletableFuture<Long> heavy = CompletableFuture.supplyAsync(() -> finishMillis(limiter, 3, size, start));
+        CompletableFuture<Long> light = CompletableFuture.supplyAsync(() -> finishMillis(limiter, 1, size, start));
+        long heavyMillis = heavy.join();
+        long lightMillis = light.join();
+
+        // Weight 3 gets 300 KB/s and is done after about 1 s; weight 1 gets 100 KB/s until
+        // then and the whole 400 KB/s afterwards, so it ends at about 1.5 s. The heavy one may
+        // start alone and run at the full cap for a moment, hence the loose lower bound.
+        assertTrue("heavy took " + heavyMillis + " ms", heavyMillis > 600 && heavyMillis < 1_300);
+        assertTrue("heavy " + heavyMillis + " ms, light " + lightMillis + " ms", lightMillis - heavyMillis > 250);
+        assertTrue("light took " + lightMillis + " ms", lightMillis > 1_250 && lightMillis < 1_900);
+    }
+
+    @Test
+    public void capChangesApplyToRunningDownloads() throws Exception {
+        BandwidthLimiter limiter = new BandwidthLimiter(50 * KB);
+        File target = temp.newFile("live.zip");
+        CompletableFuture.runAsync(() -> {
+            sleep(500);
+            limiter.setRate(0);
+        });
+
+        long elapsedMillis = timed(() -> download(limiter, 1, target, payload.length));
+
+        // At 50 KB/s this would take 12 s.
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 3_000);
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void unlimitedShareReadsFullChunks() {
+        BandwidthLimiter limiter = new BandwidthLimiter(0);
+        try (BandwidthLimiter.Share share = limiter.open(1)) {
+            assertEquals(256 * KB, share.chunkSize(256 * KB));
+            limiter.setRate(100 * KB);
+            assertEquals(10 * KB, share.chunkSize(256 * KB));
+        }
+    }
+
+    private long finishMillis(BandwidthLimiter limiter, double weight, int size, long startNanos) {
+        try {
+            download(limiter, weight, temp.newFile(), size);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private void download(BandwidthLimiter limiter, double weight, File target, int size) throws IOException {
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 64 * KB, 64 * KB, limiter, weight);
+        assertTrue(downloader.download(url() + "?size=" + size, target, (downloaded, total) -> { }, () -> false));
+    }
+
+    private static long timed(IoAction action) throws IOException {
+        long start = System.nanoTime();
+        action.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/file.zip";
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        int length = query == null ? payload.length : Integer.parseInt(query.substring("size=".length()));
+        exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+        exchange.getResponseHeaders().add("ETag", "\"v1\"");
+        int start = 0;
+        int end = length - 1;
+        int status = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        Matcher m = range == null ? null : RANGE.matcher(range);
+        if (m != null && m.matches()) {
+            start = Integer.parseInt(m.group(1));
+            if (!m.group(2).isEmpty()) {
+                end = Math.min(end, Integer.parseInt(m.group(2)));
+            }
+            status = 206;
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + length);
+        }
+        byte[] body = Arrays.copyOfRange(payload, start, end + 1);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        } catch (IOException ignored) {
+            // Client went away.
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,87 @@
+package top.oneyi.envLauncher.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description 校验和文件解析与获取测试
+ */
+public class ChecksumTest {
+
+    private static final String SHA256 = "a".repeat(64);
+    private static final String SHA512 = "b".repeat(128);
+
+    private HttpServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/dist/v20.19.2/SHASUMS256.txt", exchange -> {
+            byte[] body = (SHA512.substring(0, 64) + "  node-v20.19.2-linux-x64.tar.gz\n"
+                    + SHA256 + "  node-v20.19.2-win-x64.zip\n").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void parsesPublishedFormats() {
+        assertEquals(SHA256, Checksum.parse(Checksum.Source.SHA256_TXT,
+                SHA256 + "  OpenJDK17U-jdk_x64_windows_hotspot_17.0.9_9.zip\n", "ignored"));
+        assertEquals(SHA512, Checksum.parse(Checksum.Source.SHA512, SHA512 + "\n", "ignored"));
+        assertEquals(SHA512, Checksum.parse(Checksum.Source.SHA512,
+                "apache-maven-3.9.6-bin.zip: " + SHA512.replaceAll("(.{8})", "$1 ").toUpperCase(), "ignored"));
+        assertNull(Checksum.parse(Checksum.Source.SHA512, "<html>Not Found</html>", "ignored"));
+    }
+
+    @Test
+    public void fetchesLineForArchiveFromShasums() {
+        Checksum checksum = Checksum.fetchAsync(Checksum.Source.SHASUMS256,
+                url("/dist/v20.19.2/node-v20.19.2-win-x64.zip")).join();
+
+        assertEquals(SHA256, checksum.getHex());
+        assertEquals("SHA-256", checksum.getAlgorithm());
+    }
+
+    @Test
+    public void missingChecksumFileCompletesWithNull() {
+        assertNull(Checksum.fetchAsync(Checksum.Source.SHA512, url("/maven/apache-maven-3.9.6-bin.zip")).join());
+    }
+
+    @Test
+    public void matchesComparesDigest() throws Exception {
+        byte[] data = "archive".getBytes(StandardCharsets.UTF_8);
+        String hex = Checksum.toHex(MessageDigest.getInstance("SHA-256").digest(data));
+        MessageDigest digest = Checksum.Source.SHA256_TXT.newDigest();
+        digest.update(data);
+
+        assertTrue(new Checksum("SHA-256", hex.toUpperCase()).matches(digest));
+        digest.update(data);
+        assertFalse(new Checksum("SHA-256", SHA256).matches(digest));
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+}
@@ -0,0 +1,158 @@
+package top.oneyi.envLauncher.service;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @description 下载循环的内存分配对比：原 1 KB 字节数组循环 vs 下载引擎
+ * <p>
+ * Not a unit test (surefire only picks up *Test). Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=top.oneyi.envLauncher.service.DownloadAllocationBenchmark
+ * </pre>
+ * Both variants read on the calling thread against a local server (the engine is configured
+ * with one segment covering the whole file). The engine's body arrives on the shared HTTP
+ * client's threads, so their allocations are counted too; the server's threads are not.
+ * The legacy loop formats a status string and posts a lambda per chunk, as the old
+ * {@code downloadToFile} did with {@code Platform.runLater}.
+ */
+public class DownloadAllocationBenchmark {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    private static final int PAYLOAD_MB = 64;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        byte[] payload = new byte[PAYLOAD_MB * 1024 * 1024];
+        new Random(1).nextBytes(payload);
+        HttpServer server = startServer(payload);
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/jdk.zip";
+        File target = Files.createTempFile("alloc-bench", ".zip").toFile();
+        Consumer<Runnable> uiQueue = r -> { };
+
+        try {
+            long legacy = Long.MAX_VALUE;
+            long engine = Long.MAX_VALUE;
+            for (int i = 0; i < RUNS; i++) {
+                legacy = Math.min(legacy, allocated(() -> legacyDownload(url, target, payload.length, uiQueue)));
+                File sidecar = DownloadState.sidecarOf(target);
+                target.delete();
+                sidecar.delete();
+                engine = Math.min(engine, allocated(() -> new SegmentedDownloader(1, payload.length)
+                        .download(url, target, (downloaded, total) -> {
+                            String status = String.format("Downloaded %.2f MB / %.2f MB",
+                                    downloaded / (1024.0 * 1024.0), total / (1024.0 * 1024.0));
+                            uiQueue.accept(() -> status.length());
+                        }, () -> false)));
+            }
+            System.out.printf("legacy byte[1024] loop:  %,d bytes allocated (%,d per MB)%n", legacy, legacy / PAYLOAD_MB);
+            System.out.printf("engine (HttpClient):     %,d bytes allocated (%,d per MB)%n", engine, engine / PAYLOAD_MB);
+        } finally {
+            server.stop(0);
+            target.delete();
+        }
+    }
+
+    /**
+     * The loop previously in EnvInstallerService.downloadToFile.
+     */
+    private static void legacyDownload(String url, File target, long contentLength, Consumer<Runnable> uiQueue)
+            throws IOException {
+        byte[] buffer = new byte[1024];
+        long totalBytesRead = 0;
+        try (InputStream inputStream = new BufferedInputStream(new URL(url).openStream());
+             FileOutputStream fileOutputStream = new FileOutputStream(target)) {
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                fileOutputStream.write(buffer, 0, bytesRead);
+                totalBytesRead += bytesRead;
+                double progress = (double) totalBytesRead / contentLength;
+                String status = String.format("Downloaded %.2f MB / %.2f MB",
+                        totalBytesRead / (1024.0 * 1024.0), contentLength / (1024.0 * 1024.0));
+                uiQueue.accept(() -> status.length());
+            }
+        }
+    }
+
+    private static long allocated(Download download) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Map<Long, Long> before = clientThreadAllocations(threads);
+        download.run();
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : clientThreadAllocations(threads).entrySet()) {
+            total += entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+        }
+        return total;
+    }
+
+    /**
+     * Allocated bytes of the calling thread and the HTTP client's threads, by thread id.
+     */
+    private static Map<Long, Long> clientThreadAllocations(com.sun.management.ThreadMXBean threads) {
+        Map<Long, Long> result = new HashMap<>();
+        result.put(Thread.currentThread().getId(), threads.getThreadAllocatedBytes(Thread.currentThread().getId()));
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("http-client-") || thread.getName().startsWith("HttpClient-")) {
+                result.put(thread.getId(), threads.getThreadAllocatedBytes(thread.getId()));
+            }
+        }
+        return result;
+    }
+
+    static HttpServer startServer(byte[] payload) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/jdk.zip", exchange -> {
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            exchange.getResponseHeaders().add("ETag", "\"bench\"");
+            int start = 0;
+            int end = payload.length - 1;
+            int status = 200;
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            Matcher m = range == null ? null : RANGE.matcher(range);
+            if (m != null && m.matches()) {
+                start = Integer.parseInt(m.group(1));
+                if (!m.group(2).isEmpty()) {
+                    end = Integer.parseInt(m.group(2));
+                }
+                status = 206;
+            }
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(payload.length));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = Arrays.copyOfRange(payload, start, end + 1);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    @FunctionalInterface
+    private interface Download {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,78 @@
+package top.oneyi.envLauncher.service;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description 进度事件总线测试
+ */
+public class ProgressBusTest {
+
+    @Test
+    public void smoothsThroughputAndDerivesEta() {
+        ProgressBus bus = new ProgressBus(snapshot -> { });
+        long t0 = System.nanoTime();
+        bus.reset("Downloading", 10_000, t0);
+
+        bus.onProgress(1_000, 10_000);
+        ProgressBus.Snapshot first = bus.sample(t0 + TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1_000, first.getBytesPerSecond(), 1e-6);
+        assertEquals(9, first.getEtaSeconds());
+        assertEquals(0.1, first.getFraction(), 1e-9);
+
+        // A one-second burst at 3000 B/s only moves the average part of the way.
+        bus.onProgress(4_000, 10_000);
+        ProgressBus.Snapshot second = bus.sample(t0 + TimeUnit.SECONDS.toNanos(2));
+        assertTrue(second.getBytesPerSecond() > 1_000 && second.getBytesPerSecond() < 3_000);
+        assertEquals((long) Math.ceil(6_000 / second.getBytesPerSecond()), second.getEtaSeconds());
+    }
+
+    @Test
+    public void coalescesUpdatesIntoFrames() throws InterruptedException {
+        List<ProgressBus.Snapshot> frames = new CopyOnWriteArrayList<>();
+        ProgressBus bus = new ProgressBus(frames::add);
+        bus.begin("Unzipping", 1_000_000);
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= 1_000_000; i++) {
+            bus.onProgress(i, 1_000_000);
+        }
+        Thread.sleep(3 * ProgressBus.FRAME_INTERVAL_MILLIS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        bus.close();
+
+        assertTrue("frames: " + frames.size(), frames.size() <= elapsedMillis / ProgressBus.FRAME_INTERVAL_MILLIS + 2);
+        ProgressBus.Snapshot last = frames.get(frames.size() - 1);
+        assertEquals(1_000_000, last.getDone());
+        assertEquals("Unzipping", last.getPhase());
+    }
+
+    @Test
+    public void unknownTotalHasNoEta() {
+        ProgressBus bus = new ProgressBus(snapshot -> { });
+        long t0 = System.nanoTime();
+        bus.reset("Downloading and unzipping", -1, t0);
+        bus.onProgress(5_000, -1);
+        bus.setItems(12);
+
+        ProgressBus.Snapshot snapshot = bus.sample(t0 + TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(-1, snapshot.getEtaSeconds());
+        assertEquals(-1, snapshot.getFraction(), 0);
+        assertEquals(12, snapshot.getItems());
+    }
+
+    @Test
+    public void closingIdleBusPublishesNothing() {
+        List<ProgressBus.Snapshot> frames = new CopyOnWriteArrayList<>();
+        new ProgressBus(frames::add).close();
+
+        assertTrue(frames.isEmpty());
+    }
+}
@@ -0,0 +1,353 @@
+package top.oneyi.envLauncher.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import top.oneyi.envLauncher.utils.HttpTransport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @description 分段下载测试，使用本地 HTTP 服务模拟镜像
+ */
+public class SegmentedDownloaderTest {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    private static final String LAST_MODIFIED = "Tue, 06 May 2025 08:00:00 GMT";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final byte[] payload = new byte[3 * 1024 * 1024 + 123];
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private final AtomicInteger headRequests = new AtomicInteger();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final Set<Integer> rangeClientPorts = ConcurrentHashMap.newKeySet();
+    private volatile String etag = "\"v1\"";
+    private HttpServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        new Random(42).nextBytes(payload);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ranged.zip", exchange -> serve(exchange, true));
+        // Same file on another mirror: its own ETag, the same date.
+        server.createContext("/mirror/ranged.zip", exchange -> serve(exchange, true, "\"m-" + etag.substring(1)));
+        // Same file on a mirror that shares the origin's ETag.
+        server.createContext("/copy/ranged.zip", exchange -> serve(exchange, true));
+        server.createContext("/plain.zip", exchange -> serve(exchange, false));
+        // Honours the first range only, then fails the full GET the downloader falls back to.
+        AtomicInteger flakyRequests = new AtomicInteger();
+        server.createContext("/flaky.zip", exchange -> {
+            boolean ranged = exchange.getRequestHeaders().containsKey("Range");
+            if (ranged) {
+                serve(exchange, flakyRequests.getAndIncrement() == 0);
+            } else {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+            }
+        });
+        server.setExecutor(java.util.concurrent.Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void downloadsInParallelRangesWhenSupported() throws IOException {
+        File target = temp.newFile("ranged.zip");
+        AtomicLong lastProgress = new AtomicLong();
+
+        boolean completed = new SegmentedDownloader(4, 512 * 1024)
+                .download(url("/ranged.zip"), target,
+                        (downloaded, total) -> lastProgress.accumulateAndGet(downloaded, Math::max),
+                        () -> false);
+
+        assertTrue(completed);
+        // The first GET carries the first 512 KB, the rest is split over the 4 connections.
+        assertEquals(5, rangeRequests.get());
+        assertEquals(0, headRequests.get());
+        assertEquals(payload.length, lastProgress.get());
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void eachSegmentGetsItsOwnConnection() throws IOException {
+        File target = temp.newFile("connections.zip");
+
+        assertTrue(new SegmentedDownloader(4, 512 * 1024).download(url("/ranged.zip"), target, (d, t) -> { }, () -> false));
+
+        // Segments go over HTTP/1.1 (HTTP/2 would multiplex them onto one TCP connection); the
+        // connection of the first GET may be reused once its piece is done.
+        assertEquals(HttpClient.Version.HTTP_1_1, HttpTransport.segments().getVersion());
+        assertTrue("connections: " + rangeClientPorts.size(), rangeClientPorts.size() >= 4);
+    }
+
+    @Test
+    public void fallsBackToSingleStreamWithoutRangeSupport() throws IOException {
+        File target = temp.newFile("plain.zip");
+
+        boolean completed = new SegmentedDownloader(4, 512 * 1024)
+                .download(url("/plain.zip"), target, (downloaded, total) -> { }, () -> false);
+
+        assertTrue(completed);
+        assertEquals(0, rangeRequests.get());
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void smallFilesUseOneConnection() throws IOException {
+        File target = temp.newFile("small.zip");
+
+        boolean completed = new SegmentedDownloader(4, 8 * 1024 * 1024)
+                .download(url("/ranged.zip"), target, (downloaded, total) -> { }, () -> false);
+
+        assertTrue(completed);
+        assertEquals(1, rangeRequests.get());
+        assertEquals(0, headRequests.get());
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void cancelStopsDownload() throws IOException {
+        File target = temp.newFile("cancel.zip");
+
+        boolean completed = new SegmentedDownloader(4, 512 * 1024)
+                .download(url("/ranged.zip"), target, (downloaded, total) -> { }, () -> true);
+
+        assertFalse(completed);
+    }
+
+    @Test
+    public void resumesFromSidecarAfterCancel() throws IOException {
+        File target = temp.newFile("resume.zip");
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 512 * 1024, 64 * 1024);
+        AtomicInteger reads = new AtomicInteger();
+
+        // Progress callbacks are throttled, so cancel after a fixed number of reads instead.
+        boolean first = downloader.download(url("/ranged.zip"), target,
+                (downloaded, total) -> { },
+                () -> reads.incrementAndGet() > 12);
+        assertFalse(first);
+        assertTrue(DownloadState.sidecarOf(target).isFile());
+
+        bytesServed.set(0);
+        boolean second = downloader.download(url("/ranged.zip"), target, (downloaded, total) -> { }, () -> false);
+
+        assertTrue(second);
+        assertTrue("resume should not fetch the whole file again", bytesServed.get() < payload.length);
+        assertFalse(DownloadState.sidecarOf(target).exists());
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void anotherMirrorWithOnlyTheSameDateRestartsUnlessVerified() throws IOException {
+        File target = temp.newFile("mirrored.zip");
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 512 * 1024, 64 * 1024);
+        cancelAfterSomeReads(downloader, "/ranged.zip", target);
+
+        bytesServed.set(0);
+        assertTrue(downloader.download(url("/mirror/ranged.zip"), target, (d, t) -> { }, () -> false));
+
+        // Restarted: the whole file again, plus the discarded first range.
+        assertTrue("unverified bytes from another mirror must not be spliced in", bytesServed.get() >= payload.length);
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void resumesFromAnotherMirrorWhenChecksumWillVerify() throws IOException {
+        File target = temp.newFile("verified.zip");
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 512 * 1024, 64 * 1024);
+        cancelAfterSomeReads(downloader, "/ranged.zip", target);
+
+        bytesServed.set(0);
+        boolean completed;
+        try (SegmentedDownloader.Session session = downloader.open(url("/mirror/ranged.zip"), target, false)) {
+            session.verifiedBy(() -> true);
+            completed = downloader.download(session, (d, t) -> { }, () -> false);
+        }
+
+        assertTrue(completed);
+        assertTrue("resume should not fetch the whole file again", bytesServed.get() < payload.length);
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void resumesFromAnotherMirrorWithTheSameStrongEtag() throws IOException {
+        File target = temp.newFile("same-etag.zip");
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 512 * 1024, 64 * 1024);
+        cancelAfterSomeReads(downloader, "/ranged.zip", target);
+
+        bytesServed.set(0);
+        assertTrue(downloader.download(url("/copy/ranged.zip"), target, (d, t) -> { }, () -> false));
+
+        assertTrue("resume should not fetch the whole file again", bytesServed.get() < payload.length);
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void failedFallbackRequestIsNotWrittenAsArchive() throws IOException {
+        File target = temp.newFile("flaky.zip");
+
+        try {
+            new SegmentedDownloader(4, 512 * 1024).download(url("/flaky.zip"), target, (d, t) -> { }, () -> false);
+            fail("HTTP 503 must not complete the download");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("503"));
+        }
+    }
+
+    @Test
+    public void restartsWhenValidatorChanges() throws IOException {
+        File target = temp.newFile("changed.zip");
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 512 * 1024);
+        AtomicLong progress = new AtomicLong();
+
+        downloader.download(url("/ranged.zip"), target,
+                (downloaded, total) -> progress.set(downloaded),
+                () -> progress.get() > payload.length / 2);
+
+        new Random(7).nextBytes(payload);
+        etag = "\"v2\"";
+        bytesServed.set(0);
+        boolean completed = downloader.download(url("/ranged.zip"), target, (downloaded, total) -> { }, () -> false);
+
+        assertTrue(completed);
+        assertEquals(payload.length, bytesServed.get());
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void digestCoversWholeFileAcrossSegments() throws Exception {
+        File target = temp.newFile("digest.zip");
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 512 * 1024);
+
+        boolean completed;
+        try (SegmentedDownloader.Session session = downloader.open(url("/ranged.zip"), target, false)) {
+            completed = downloader.download(session, (downloaded, total) -> { }, () -> false, digest);
+        }
+
+        assertTrue(completed);
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(payload), digest.digest());
+    }
+
+    @Test
+    public void digestIncludesBytesFromPreviousRun() throws Exception {
+        File target = temp.newFile("digest-resume.zip");
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 512 * 1024, 64 * 1024);
+        AtomicInteger reads = new AtomicInteger();
+        assertFalse(downloader.download(url("/ranged.zip"), target, (downloaded, total) -> { },
+                () -> reads.incrementAndGet() > 12));
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        boolean completed;
+        try (SegmentedDownloader.Session session = downloader.open(url("/ranged.zip"), target, false)) {
+            completed = downloader.download(session, (downloaded, total) -> { }, () -> false, digest);
+        }
+
+        assertTrue(completed);
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(payload), digest.digest());
+    }
+
+    @Test
+    public void digestOfSingleStream() throws Exception {
+        File target = temp.newFile("digest-plain.zip");
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 512 * 1024);
+
+        try (SegmentedDownloader.Session session = downloader.open(url("/plain.zip"), target, false)) {
+            assertTrue(downloader.download(session, (downloaded, total) -> { }, () -> false, digest));
+        }
+
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(payload), digest.digest());
+    }
+
+    private void cancelAfterSomeReads(SegmentedDownloader downloader, String path, File target) throws IOException {
+        AtomicInteger reads = new AtomicInteger();
+        assertFalse(downloader.download(url(path), target, (d, t) -> { }, () -> reads.incrementAndGet() > 12));
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private void serve(HttpExchange exchange, boolean rangeSupport) throws IOException {
+        serve(exchange, rangeSupport, etag);
+    }
+
+    private void serve(HttpExchange exchange, boolean rangeSupport, String etag) throws IOException {
+        if (rangeSupport) {
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            exchange.getResponseHeaders().add("ETag", etag);
+            exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+        }
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        int start = 0;
+        int end = payload.length - 1;
+        int status = 200;
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        if (rangeSupport && range != null && (ifRange == null || ifRange.equals(etag) || ifRange.equals(LAST_MODIFIED))) {
+            Matcher m = RANGE.matcher(range);
+            if (m.matches()) {
+                start = Integer.parseInt(m.group(1));
+                if (!m.group(2).isEmpty()) {
+                    end = Math.min(end, Integer.parseInt(m.group(2)));
+                }
+                status = 206;
+                rangeRequests.incrementAndGet();
+                rangeClientPorts.add(exchange.getRemoteAddress().getPort());
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + start + "-" + end + "/" + payload.length);
+            }
+        }
+
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            headRequests.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Length", String.valueOf(payload.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = Arrays.copyOfRange(payload, start, end + 1);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            // Write in small chunks so a cancelled client stops the transfer early.
+            for (int offset = 0; offset < body.length; offset += 16 * 1024) {
+                int length = Math.min(16 * 1024, body.length - offset);
+                out.write(body, offset, length);
+                bytesServed.addAndGet(length);
+            }
+        } catch (IOException ignored) {
+            // Client went away.
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package top.oneyi.envLauncher.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @description 边下载边解压测试
+ */
+public class StreamingInstallerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private HttpServer server;
+    private byte[] archive;
+    private byte[] evilArchive;
+
+    @Before
+    public void startServer() throws IOException {
+        archive = zip(false);
+        evilArchive = zip(true);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/jdk.zip", exchange -> {
+            exchange.sendResponseHeaders(200, archive.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(archive);
+            } catch (IOException ignored) {
+                // Client went away.
+            }
+        });
+        server.createContext("/evil.zip", exchange -> {
+            exchange.sendResponseHeaders(200, evilArchive.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(evilArchive);
+            } catch (IOException ignored) {
+                // Client went away.
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void extractsWhileDownloading() throws IOException {
+        File target = temp.newFolder("jdk");
+        AtomicLong downloaded = new AtomicLong();
+        AtomicInteger entries = new AtomicInteger();
+
+        boolean completed = new StreamingInstaller(4096, 2).install(url("/jdk.zip"), target,
+                (bytes, total) -> downloaded.set(bytes), entries::set, () -> false);
+
+        assertTrue(completed);
+        assertEquals(archive.length, downloaded.get());
+        assertEquals(201, entries.get());
+        assertEquals("class 199", Files.readString(
+                new File(target, "jdk-17/lib/pkg19/Class199.class").toPath(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void rejectsEntriesOutsideTarget() throws IOException {
+        File target = temp.newFolder("evil");
+        try {
+            new StreamingInstaller(4096, 2).install(url("/evil.zip"), target,
+                    (bytes, total) -> { }, null, () -> false);
+            fail("zip-slip entry must be rejected");
+        } catch (IOException expected) {
+            assertFalse(new File(temp.getRoot(), "escaped.txt").exists());
+        }
+    }
+
+    @Test
+    public void cancelStopsPipeline() throws IOException {
+        boolean completed = new StreamingInstaller(4096, 2).install(url("/jdk.zip"), temp.newFolder("cancel"),
+                (bytes, total) -> { }, null, () -> true);
+
+        assertFalse(completed);
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static byte[] zip(boolean evil) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("jdk-17/"));
+            zip.closeEntry();
+            if (evil) {
+                zip.putNextEntry(new ZipEntry("../escaped.txt"));
+                zip.write("boom".getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            for (int i = 0; i < 200; i++) {
+                zip.putNextEntry(new ZipEntry("jdk-17/lib/pkg" + (i / 10) + "/Class" + i + ".class"));
+                zip.write(("class " + i).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
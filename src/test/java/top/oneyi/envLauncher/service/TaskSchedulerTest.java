@@ -0,0 +1,143 @@
+package top.oneyi.envLauncher.service;
+
+import org.junit.Test;
+import top.oneyi.envLauncher.service.TaskScheduler.State;
+import top.oneyi.envLauncher.service.TaskScheduler.TaskSpec;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @description 依赖感知任务调度测试
+ */
+public class TaskSchedulerTest {
+
+    private final TaskScheduler scheduler = new TaskScheduler();
+
+    @Test
+    public void independentTasksOverlap() throws Exception {
+        CountDownLatch allStarted = new CountDownLatch(3);
+        TaskScheduler.Step download = cancel -> {
+            allStarted.countDown();
+            // Only returns true if all three are running at the same time.
+            return allStarted.await(5, TimeUnit.SECONDS);
+        };
+
+        Map<String, State> states = scheduler.submit(Arrays.asList(
+                TaskSpec.of("jdk", download),
+                TaskSpec.of("maven", download),
+                TaskSpec.of("node", download)), null).completion().get(10, TimeUnit.SECONDS);
+
+        assertEquals(State.SUCCEEDED, states.get("jdk"));
+        assertEquals(State.SUCCEEDED, states.get("maven"));
+        assertEquals(State.SUCCEEDED, states.get("node"));
+    }
+
+    @Test
+    public void dependentsWaitAndExclusiveTasksDoNotOverlap() throws Exception {
+        List<String> order = new CopyOnWriteArrayList<>();
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        TaskScheduler.Step env = cancel -> {
+            maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            inside.decrementAndGet();
+            return true;
+        };
+
+        Map<String, State> states = scheduler.submit(Arrays.asList(
+                TaskSpec.of("maven", cancel -> order.add("maven")),
+                TaskSpec.of("node", cancel -> order.add("node")),
+                TaskSpec.of("maven-env", cancel -> order.add("maven-env") && env.run(cancel))
+                        .after("maven").exclusive("PATH"),
+                TaskSpec.of("node-env", cancel -> order.add("node-env") && env.run(cancel))
+                        .after("node").exclusive("PATH"),
+                TaskSpec.of("jdk-env", env).exclusive("PATH")), null).completion().get(10, TimeUnit.SECONDS);
+
+        assertTrue(states.values().stream().allMatch(state -> state == State.SUCCEEDED));
+        assertEquals(1, maxInside.get());
+        assertTrue(order.indexOf("maven") < order.indexOf("maven-env"));
+        assertTrue(order.indexOf("node") < order.indexOf("node-env"));
+    }
+
+    @Test
+    public void failureSkipsOnlyDependents() throws Exception {
+        List<String> errors = new CopyOnWriteArrayList<>();
+
+        Map<String, State> states = scheduler.submit(Arrays.asList(
+                TaskSpec.of("maven", cancel -> {
+                    throw new IllegalStateException("mirror down");
+                }),
+                TaskSpec.of("maven-env", cancel -> true).after("maven"),
+                TaskSpec.of("node", cancel -> true),
+                TaskSpec.of("node-env", cancel -> true).after("node")),
+                (task, state, error) -> {
+                    if (error != null) {
+                        errors.add(task + ": " + error.getMessage());
+                    }
+                }).completion().get(10, TimeUnit.SECONDS);
+
+        assertEquals(State.FAILED, states.get("maven"));
+        assertEquals(State.SKIPPED, states.get("maven-env"));
+        assertEquals(State.SUCCEEDED, states.get("node-env"));
+        assertEquals(Arrays.asList("maven: mirror down"), errors);
+    }
+
+    @Test
+    public void settledDependencyRunsAfterFailures() throws Exception {
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        Map<String, State> states = scheduler.submit(Arrays.asList(
+                TaskSpec.of("maven", cancel -> false),
+                TaskSpec.of("maven-env", cancel -> order.add("maven-env")).after("maven"),
+                TaskSpec.of("node-env", cancel -> order.add("node-env")),
+                TaskSpec.of("commit", cancel -> order.add("commit")).afterSettled("maven-env", "node-env")),
+                null).completion().get(10, TimeUnit.SECONDS);
+
+        assertEquals(State.SKIPPED, states.get("maven-env"));
+        assertEquals(State.SUCCEEDED, states.get("commit"));
+        assertEquals(Arrays.asList("node-env", "commit"), order);
+    }
+
+    @Test
+    public void cancelStopsRunningAndPendingTasks() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        TaskScheduler.Run run = scheduler.submit(Arrays.asList(
+                TaskSpec.of("download", cancel -> {
+                    started.countDown();
+                    while (!cancel.getAsBoolean()) {
+                        Thread.sleep(5);
+                    }
+                    return false;
+                }),
+                TaskSpec.of("env", cancel -> true).after("download")), null);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        run.cancel();
+        Map<String, State> states = run.completion().get(10, TimeUnit.SECONDS);
+
+        assertEquals(State.CANCELLED, states.get("download"));
+        assertEquals(State.SKIPPED, states.get("env"));
+    }
+
+    @Test
+    public void rejectsCycles() {
+        try {
+            scheduler.submit(Arrays.asList(
+                    TaskSpec.of("a", cancel -> true).after("b"),
+                    TaskSpec.of("b", cancel -> true).after("a")), null);
+            fail("cycle must be rejected");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("cycle"));
+        }
+    }
+}
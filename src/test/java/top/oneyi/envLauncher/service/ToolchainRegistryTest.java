@@ -0,0 +1,88 @@
+package top.oneyi.envLauncher.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @description 已安装工具链登记表测试
+ */
+public class ToolchainRegistryTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void recordsSurviveRestart() throws Exception {
+        File file = new File(temp.getRoot(), "installed.properties");
+        File jdkHome = temp.newFolder("jdk-17", "jdk-17.0.15+6");
+        File nodeHome = temp.newFolder("node-v20.19.2");
+        ToolchainRegistry registry = new ToolchainRegistry(file);
+        registry.record(new ToolchainRegistry.Toolchain(ToolchainRegistry.Kind.NODE, "v20.19.2",
+                nodeHome.getAbsolutePath(), null, -1, 2_000L));
+        registry.record(new ToolchainRegistry.Toolchain(ToolchainRegistry.Kind.JDK, "17",
+                jdkHome.getAbsolutePath(), "SHA-256:abc123", 190_000_000L, 1_000L));
+
+        ToolchainRegistry reloaded = new ToolchainRegistry(file);
+
+        ToolchainRegistry.Toolchain jdk = reloaded.find(ToolchainRegistry.Kind.JDK, "17");
+        assertNotNull(jdk);
+        assertEquals(jdkHome.getAbsolutePath(), jdk.getHome());
+        assertEquals("SHA-256:abc123", jdk.getChecksum());
+        assertEquals(190_000_000L, jdk.getSize());
+        assertEquals(1_000L, jdk.getInstalledAt());
+        assertNull(reloaded.find(ToolchainRegistry.Kind.NODE, "v20.19.2").getChecksum());
+        assertNull(reloaded.find(ToolchainRegistry.Kind.JDK, "21"));
+        List<ToolchainRegistry.Toolchain> list = reloaded.list();
+        assertEquals(ToolchainRegistry.Kind.JDK, list.get(0).getKind());
+        assertEquals(ToolchainRegistry.Kind.NODE, list.get(1).getKind());
+        assertFalse(new File(temp.getRoot(), "installed.properties.tmp").exists());
+    }
+
+    @Test
+    public void deletedHomeIsNotInstalled() throws Exception {
+        File home = temp.newFolder("apache-maven-3.9.10");
+        ToolchainRegistry registry = new ToolchainRegistry(new File(temp.getRoot(), "installed.properties"));
+        registry.record(new ToolchainRegistry.Toolchain(ToolchainRegistry.Kind.MAVEN, "3.9.10",
+                home.getAbsolutePath(), null, 9_000_000L, 1_000L));
+
+        assertNotNull(registry.find(ToolchainRegistry.Kind.MAVEN, "3.9.10"));
+        assertEquals(true, home.delete());
+        assertNull(registry.find(ToolchainRegistry.Kind.MAVEN, "3.9.10"));
+    }
+
+    @Test
+    public void concurrentInstallsAreAllRecorded() throws Exception {
+        File file = new File(temp.getRoot(), "installed.properties");
+        ToolchainRegistry registry = new ToolchainRegistry(file);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            String version = "3.9." + i;
+            File home = temp.newFolder("maven-" + i);
+            futures.add(pool.submit(() -> {
+                registry.record(new ToolchainRegistry.Toolchain(ToolchainRegistry.Kind.MAVEN, version,
+                        home.getAbsolutePath(), null, 1L, 1L));
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(24, new ToolchainRegistry(file).list().size());
+    }
+}
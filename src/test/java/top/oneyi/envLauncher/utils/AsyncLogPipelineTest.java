@@ -0,0 +1,152 @@
+package top.oneyi.envLauncher.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description 异步日志管道、滚动日志文件与日志格式测试
+ */
+public class AsyncLogPipelineTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void deliversEveryEntryInProducerOrderAcrossThreads() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 5000;
+        List<LogEntry> received = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger batches = new AtomicInteger();
+
+        // A small ring makes producers wait for the writer.
+        try (AsyncLogPipeline pipeline = new AsyncLogPipeline(64, List.of(batch -> {
+            batches.incrementAndGet();
+            received.addAll(batch);
+        }))) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                String producer = String.valueOf(p);
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perProducer; i++) {
+                        pipeline.publish(entry(LogEntry.Level.INFO, String.valueOf(i), "producer", producer));
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(pipeline.flush(10_000));
+        }
+
+        assertEquals(producers * perProducer, received.size());
+        assertTrue("entries should be batched", batches.get() < received.size());
+        int[] next = new int[producers];
+        for (LogEntry entry : received) {
+            int producer = Integer.parseInt(entry.getField("producer"));
+            assertEquals(next[producer]++, Integer.parseInt(entry.getMessage()));
+        }
+    }
+
+    @Test
+    public void failingSinkDoesNotStopOtherSinks() {
+        List<LogEntry> received = new ArrayList<>();
+        try (AsyncLogPipeline pipeline = new AsyncLogPipeline(16, List.of(
+                batch -> {
+                    throw new IllegalStateException("broken sink");
+                },
+                received::addAll))) {
+            pipeline.publish(entry(LogEntry.Level.WARN, "first"));
+            pipeline.publish(entry(LogEntry.Level.WARN, "second"));
+            assertTrue(pipeline.flush(5000));
+        }
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void closeDeliversWhatIsQueued() {
+        List<LogEntry> received = Collections.synchronizedList(new ArrayList<>());
+        AsyncLogPipeline pipeline = new AsyncLogPipeline(1024, List.of(received::addAll));
+        for (int i = 0; i < 500; i++) {
+            pipeline.publish(entry(LogEntry.Level.INFO, "line " + i));
+        }
+        pipeline.close();
+        assertEquals(500, received.size());
+    }
+
+    @Test
+    public void formatsLevelMessageAndFields() {
+        String line = entry(LogEntry.Level.WARN, "Checksum mismatch", LogEntry.FIELD_TOOL, "JDK", "file", "jdk 17.zip").format();
+        assertTrue(line, line.matches("\\[\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}] WARN  Checksum mismatch \\| tool=JDK file=\"jdk 17.zip\""));
+        assertTrue(entry(LogEntry.Level.INFO, "plain").format().endsWith("] INFO  plain"));
+    }
+
+    @Test
+    public void rollingFileKeepsConfiguredNumberOfFiles() throws IOException {
+        File dir = new File(temp.getRoot(), "logs");
+        RollingLogFile file = new RollingLogFile(dir, 200, 2);
+        for (int i = 0; i < 10; i++) {
+            // Each batch is about 90 bytes, so a file holds two batches before it rolls.
+            file.accept(List.of(entry(LogEntry.Level.INFO, "batch " + i + " a"), entry(LogEntry.Level.INFO, "batch " + i + " b")));
+        }
+        file.close();
+
+        String current = new String(Files.readAllBytes(file.getFile().toPath()), StandardCharsets.UTF_8);
+        assertTrue(current, current.contains("batch 9 b"));
+        assertTrue(new File(dir, RollingLogFile.FILE_NAME + ".1").isFile());
+        assertTrue(new File(dir, RollingLogFile.FILE_NAME + ".2").isFile());
+        assertFalse(new File(dir, RollingLogFile.FILE_NAME + ".3").exists());
+        String previous = new String(Files.readAllBytes(new File(dir, RollingLogFile.FILE_NAME + ".1").toPath()), StandardCharsets.UTF_8);
+        assertTrue(previous, previous.contains("batch 7 b") && !previous.contains("batch 8"));
+    }
+
+    @Test
+    public void scopedFieldsAreAddedToEntriesOfTheThread() {
+        List<LogEntry> received = Collections.synchronizedList(new ArrayList<>());
+        LoggerUtil.init(LogEntry.Level.INFO, List.of(received::addAll));
+        LoggerUtil.withField(LogEntry.FIELD_TOOL, "Maven",
+                () -> LoggerUtil.warn("Update settings.xml failed", "reason", "locked"));
+        LoggerUtil.info("after scope");
+        LoggerUtil.debug("below level");
+        assertTrue(LoggerUtil.flush(5000));
+
+        assertEquals(2, received.size());
+        assertEquals(LogEntry.Level.WARN, received.get(0).getLevel());
+        assertEquals("Maven", received.get(0).getField(LogEntry.FIELD_TOOL));
+        assertEquals("locked", received.get(0).getField("reason"));
+        assertEquals(Collections.emptyMap(), received.get(1).getFields());
+    }
+
+    private static LogEntry entry(LogEntry.Level level, String message, String... keyValues) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            fields.put(keyValues[i], keyValues[i + 1]);
+        }
+        return new LogEntry(System.currentTimeMillis(), level, message, fields);
+    }
+}
@@ -0,0 +1,172 @@
+package top.oneyi.envLauncher.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.DosFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description 跨版本去重存储测试：相同内容硬链接到同一份，不同内容各自保存
+ */
+public class ContentStoreTest {
+
+    private static final byte[] SHARED_JAR = bytes(200_000, 7);
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void secondVersionLinksSharedFilesInsteadOfWritingThem() throws IOException {
+        File storeDir = new File(temp.getRoot(), "store");
+        File v1 = zip("maven-3.9.9.zip", Map.of(
+                "lib/shared.jar", SHARED_JAR,
+                "lib/maven-core-3.9.9.jar", bytes(50_000, 1)));
+        File v2 = zip("maven-3.9.10.zip", Map.of(
+                "lib/shared.jar", SHARED_JAR,
+                "lib/maven-core-3.9.10.jar", bytes(50_000, 2)));
+
+        ContentStore store = new ContentStore(storeDir);
+        ContentStore.Report first = new ContentStore.Report();
+        new ParallelUnzipper(2, store, first).extract(v1, new File(temp.getRoot(), "a"));
+        // A restarted app finds the stored copies again.
+        ContentStore reopened = new ContentStore(storeDir);
+        ContentStore.Report second = new ContentStore.Report();
+        new ParallelUnzipper(2, reopened, second).extract(v2, new File(temp.getRoot(), "b"));
+
+        assertEquals(0, first.getSavedBytes());
+        assertEquals(1, second.getLinkedFiles());
+        assertEquals(SHARED_JAR.length, second.getSavedBytes());
+        assertEquals(50_000, second.getWrittenBytes());
+        Path sharedA = temp.getRoot().toPath().resolve("a/lib/shared.jar");
+        Path sharedB = temp.getRoot().toPath().resolve("b/lib/shared.jar");
+        assertTrue(Files.isSameFile(sharedA, sharedB));
+        assertArrayEquals(SHARED_JAR, Files.readAllBytes(sharedB));
+        assertArrayEquals(bytes(50_000, 2), Files.readAllBytes(temp.getRoot().toPath().resolve("b/lib/maven-core-3.9.10.jar")));
+    }
+
+    @Test
+    public void sameCrcAndSizeButDifferentContentIsStoredSeparately() throws IOException {
+        ContentStore store = new ContentStore(new File(temp.getRoot(), "store"));
+        ContentStore.Report report = new ContentStore.Report();
+        byte[] buffer = new byte[1024];
+        byte[] one = "first content".getBytes(StandardCharsets.UTF_8);
+        byte[] two = "other content".getBytes(StandardCharsets.UTF_8);
+        Path a = temp.newFile("a.txt").toPath();
+        Path b = temp.newFile("b.txt").toPath();
+
+        // Pretend both declare the same CRC; the byte comparison must still tell them apart.
+        store.put(a, one.length, 42, () -> new ByteArrayInputStream(one), buffer, report);
+        boolean linked = store.put(b, two.length, 42, () -> new ByteArrayInputStream(two), buffer, report);
+
+        assertFalse(linked);
+        assertFalse(Files.isSameFile(a, b));
+        assertArrayEquals(two, Files.readAllBytes(b));
+    }
+
+    @Test
+    public void reinstallOverLinkedTreeDoesNotChangeOtherInstalls() throws IOException {
+        File storeDir = new File(temp.getRoot(), "store");
+        File v1 = zip("node-a.zip", Map.of("npm/index.js", SHARED_JAR));
+        File v2 = zip("node-b.zip", Map.of("npm/index.js", bytes(SHARED_JAR.length, 9)));
+        ContentStore store = new ContentStore(storeDir);
+        new ParallelUnzipper(1, store, new ContentStore.Report()).extract(v1, new File(temp.getRoot(), "a"));
+        new ParallelUnzipper(1, store, new ContentStore.Report()).extract(v1, new File(temp.getRoot(), "b"));
+
+        // Without the store, into the linked tree of "b".
+        new ParallelUnzipper(1).extract(v2, new File(temp.getRoot(), "b"));
+
+        assertArrayEquals(SHARED_JAR, Files.readAllBytes(temp.getRoot().toPath().resolve("a/npm/index.js")));
+    }
+
+    @Test
+    public void installsLinkToReadOnlyStoredCopies() throws IOException {
+        File storeDir = new File(temp.getRoot(), "store");
+        File zip = zip("node.zip", Map.of("npm/index.js", SHARED_JAR));
+        ContentStore store = new ContentStore(storeDir);
+        new ParallelUnzipper(1, store, new ContentStore.Report()).extract(zip, new File(temp.getRoot(), "a"));
+        new ParallelUnzipper(1, store, new ContentStore.Report()).extract(zip, new File(temp.getRoot(), "b"));
+        Path a = temp.getRoot().toPath().resolve("a/npm/index.js");
+        Path b = temp.getRoot().toPath().resolve("b/npm/index.js");
+        Path object;
+        try (Stream<Path> paths = Files.walk(storeDir.toPath())) {
+            object = paths.filter(Files::isRegularFile).findFirst().orElseThrow();
+        }
+
+        assertTrue(Files.isSameFile(object, a));
+        assertTrue(Files.isSameFile(object, b));
+        assertTrue(isReadOnly(object));
+
+        // How installers change a file: replace it instead of writing through the link.
+        ContentStore.deleteIfExists(a);
+        Files.write(a, bytes(10, 5));
+
+        assertArrayEquals(SHARED_JAR, Files.readAllBytes(object));
+        assertArrayEquals(SHARED_JAR, Files.readAllBytes(b));
+    }
+
+    @Test
+    public void dedupeLinksIdenticalFilesOfExtractedTrees() throws IOException {
+        ContentStore store = new ContentStore(new File(temp.getRoot(), "store"));
+        Path a = temp.newFolder("node-v20.19.1").toPath();
+        Path b = temp.newFolder("node-v20.19.2").toPath();
+        Files.write(a.resolve("npm.js"), SHARED_JAR);
+        Files.write(b.resolve("npm.js"), SHARED_JAR);
+        Files.write(b.resolve("node.exe"), bytes(1000, 3));
+
+        ContentStore.Report first = store.dedupe(a);
+        ContentStore.Report second = store.dedupe(b);
+        ContentStore.Report again = store.dedupe(b);
+
+        assertEquals(0, first.getSavedBytes());
+        assertEquals(SHARED_JAR.length, second.getSavedBytes());
+        assertTrue(Files.isSameFile(a.resolve("npm.js"), b.resolve("npm.js")));
+        assertArrayEquals(SHARED_JAR, Files.readAllBytes(b.resolve("npm.js")));
+        assertEquals(2, again.getLinkedFiles());
+        assertEquals(0, again.getWrittenBytes());
+    }
+
+    private static boolean isReadOnly(Path file) throws IOException {
+        if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return !Files.getPosixFilePermissions(file).contains(PosixFilePermission.OWNER_WRITE);
+        }
+        return Files.readAttributes(file, DosFileAttributes.class).isReadOnly();
+    }
+
+    private File zip(String name, Map<String, byte[]> entries) throws IOException {
+        File zip = temp.newFile(name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+        return zip;
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + seed * 17 + i / 251);
+        }
+        return data;
+    }
+}
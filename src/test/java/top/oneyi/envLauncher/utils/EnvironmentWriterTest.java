@@ -0,0 +1,96 @@
+package top.oneyi.envLauncher.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @description 环境变量批量写入测试（文件后端）
+ */
+public class EnvironmentWriterTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void wholeSessionIsOneWrite() throws IOException {
+        File file = new File(temp.getRoot(), "environment.properties");
+        FileEnvironmentBackend backend = new FileEnvironmentBackend(file, "C:\\old-jdk\\bin;C:\\Windows");
+        EnvironmentWriter session = new EnvironmentWriter(backend);
+
+        EnvUtil.setJdkEnvironmentVariables(session, "D:\\jdk-17", "%JAVA_HOME%\\bin");
+        EnvUtil.setMavenEnvironmentVariables(session, "D:\\maven", "D:\\maven\\bin");
+        session.prependPath("D:\\node\\node_global").prependPath("D:\\node\\node_cache");
+        assertEquals(0, backend.getWriteCount());
+
+        session.commit();
+
+        assertEquals(1, backend.getWriteCount());
+        assertTrue(session.isEmpty());
+        // Same result as applying the entries one by one; the old JDK entry is replaced.
+        assertEquals("D:\\node\\node_cache;D:\\node\\node_global;D:\\maven\\bin;%JAVA_HOME%\\bin;C:\\Windows;",
+                backend.readPath());
+        FileEnvironmentBackend reloaded = new FileEnvironmentBackend(file, null);
+        assertEquals("D:\\jdk-17", reloaded.get("JAVA_HOME"));
+        assertEquals("D:\\maven", reloaded.get("MAVEN_HOME"));
+        assertEquals(backend.readPath(), reloaded.readPath());
+    }
+
+    @Test
+    public void failedCommitKeepsStagedChanges() throws IOException {
+        FileEnvironmentBackend target = new FileEnvironmentBackend(new File(temp.getRoot(), "env.properties"), "");
+        boolean[] failNext = {true};
+        EnvironmentWriter session = new EnvironmentWriter(new EnvironmentWriter.Backend() {
+            @Override
+            public String readPath() throws IOException {
+                return target.readPath();
+            }
+
+            @Override
+            public void write(Map<String, String> variables, String path) throws IOException {
+                if (failNext[0]) {
+                    failNext[0] = false;
+                    throw new IOException("access denied");
+                }
+                target.write(variables, path);
+            }
+        });
+        session.setVariable("NODE_HOME", "D:\\node").prependPath("%NODE_HOME%");
+
+        try {
+            session.commit();
+            fail("commit should fail");
+        } catch (IOException expected) {
+            assertNull(target.get("NODE_HOME"));
+        }
+        session.commit();
+
+        assertEquals("D:\\node", target.get("NODE_HOME"));
+        assertEquals("%NODE_HOME%", target.readPath());
+    }
+
+    @Test
+    public void registryBatchIsOneRegFile() {
+        Map<String, String> variables = new LinkedHashMap<>();
+        variables.put("JAVA_HOME", "D:\\jdk \"17\"");
+
+        String reg = RegistryEnvironmentBackend.toRegFile(variables, "%A%");
+
+        assertEquals("Windows Registry Editor Version 5.00\r\n\r\n"
+                + "[" + RegistryEnvironmentBackend.MACHINE_KEY + "]\r\n"
+                + "\"JAVA_HOME\"=\"D:\\\\jdk \\\"17\\\"\"\r\n"
+                + "\"Path\"=hex(2):25,00,41,00,25,00,00,00\r\n\r\n"
+                + "[" + RegistryEnvironmentBackend.USER_KEY + "]\r\n"
+                + "\"JAVA_HOME\"=\"D:\\\\jdk \\\"17\\\"\"\r\n\r\n", reg);
+    }
+}
@@ -0,0 +1,99 @@
+package top.oneyi.envLauncher.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description HTTP 传输层测试，验证重定向目标缓存
+ */
+public class HttpTransportTest {
+
+    private final AtomicInteger redirects = new AtomicInteger();
+    private volatile boolean v2Published = true;
+    private HttpServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/latest", exchange -> {
+            redirects.incrementAndGet();
+            exchange.getResponseHeaders().add("Location", v2Published ? "/v2/jdk.zip" : "/v3/jdk.zip");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.createContext("/v2/jdk.zip", exchange -> {
+            if (v2Published) {
+                respond(exchange, 200, "v2");
+            } else {
+                respond(exchange, 404, "gone");
+            }
+        });
+        server.createContext("/v3/jdk.zip", exchange -> respond(exchange, 200, "v3"));
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void resolvesRedirectOnceAndCachesTarget() throws IOException {
+        HttpTransport transport = new HttpTransport(Duration.ofMinutes(1));
+
+        HttpResponse<InputStream> first = transport.get(url("/latest"), Map.of());
+        HttpResponse<InputStream> second = transport.get(url("/latest"), Map.of());
+
+        assertEquals("v2", read(first));
+        assertEquals("v2", read(second));
+        assertTrue(second.uri().getPath().endsWith("/v2/jdk.zip"));
+        assertEquals(1, redirects.get());
+    }
+
+    @Test
+    public void staleTargetIsResolvedAgain() throws IOException {
+        HttpTransport transport = new HttpTransport(Duration.ofMinutes(1));
+        read(transport.get(url("/latest"), Map.of()));
+
+        v2Published = false;
+        HttpResponse<InputStream> response = transport.get(url("/latest"), Map.of());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("v3", read(response));
+        assertEquals(2, redirects.get());
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static String read(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream in = response.body()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
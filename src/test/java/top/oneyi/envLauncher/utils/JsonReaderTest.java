@@ -0,0 +1,54 @@
+package top.oneyi.envLauncher.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @description 流式 JSON 读取测试
+ */
+public class JsonReaderTest {
+
+    @Test
+    public void readsNestedValuesAndSkipsTheRest() throws IOException {
+        String text = "{\"skip\": {\"a\": [1, {\"b\": null}], \"c\": \"}]\"},"
+                + " \"name\": \"Line \\\"1\\\"\\n\\u00e9\\/\", \"flag\": false, \"n\": -1.5e3, \"none\": null,"
+                + " \"list\": [\"x\", \"y\"]}";
+        JsonReader json = new JsonReader(new StringReader(text));
+
+        json.beginObject();
+        assertEquals("skip", json.nextName());
+        json.skipValue();
+        assertEquals("name", json.nextName());
+        assertEquals("Line \"1\"\né/", json.nextString());
+        assertEquals("flag", json.nextName());
+        assertEquals(JsonReader.Token.BOOLEAN, json.peek());
+        assertEquals("false", json.nextString());
+        assertEquals("n", json.nextName());
+        assertEquals("-1.5e3", json.nextString());
+        assertEquals("none", json.nextName());
+        assertNull(json.nextString());
+        assertEquals("list", json.nextName());
+        List<String> list = new ArrayList<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            list.add(json.nextString());
+        }
+        json.endArray();
+        json.endObject();
+
+        assertEquals(List.of("x", "y"), list);
+        assertEquals(JsonReader.Token.END, json.peek());
+    }
+
+    @Test(expected = IOException.class)
+    public void reportsUnexpectedTokens() throws IOException {
+        new JsonReader(new StringReader("[1]")).beginObject();
+    }
+}
@@ -0,0 +1,150 @@
+package top.oneyi.envLauncher.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description settings.xml 流式编辑测试
+ */
+public class MavenSettingsEditorTest {
+
+    private static final String DEFAULT_SETTINGS = String.join("\n",
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+            "<settings xmlns=\"http://maven.apache.org/SETTINGS/1.2.0\">",
+            "  <!-- localRepository",
+            "  <localRepository>/path/to/local/repo</localRepository>",
+            "  -->",
+            "  <!--",
+            "  <mirrors>",
+            "    <mirror><id>commented</id></mirror>",
+            "  </mirrors>",
+            "  -->",
+            "  <servers>",
+            "    <server>",
+            "      <id>nexus</id>",
+            "      <username>old</username>",
+            "    </server>",
+            "    <server>",
+            "      <id>keep</id>",
+            "    </server>",
+            "  </servers>",
+            "</settings>",
+            "");
+
+    @Test
+    public void editsRealElementsAndLeavesCommentsAlone() throws IOException {
+        String result = apply(profileEditor(), DEFAULT_SETTINGS);
+
+        assertEquals(String.join("\n",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+                "<settings xmlns=\"http://maven.apache.org/SETTINGS/1.2.0\">",
+                "  <!-- localRepository",
+                "  <localRepository>/path/to/local/repo</localRepository>",
+                "  -->",
+                "  <!--",
+                "  <mirrors>",
+                "    <mirror><id>commented</id></mirror>",
+                "  </mirrors>",
+                "  -->",
+                "  <servers>",
+                "    <server>",
+                "      <id>nexus</id>",
+                "      <username>ci</username>",
+                "      <password>a&amp;b</password>",
+                "    </server>",
+                "    <server>",
+                "      <id>keep</id>",
+                "    </server>",
+                "  </servers>",
+                "  <localRepository>D:\\maven\\repo</localRepository>",
+                "  <proxies>",
+                "    <proxy>",
+                "      <id>office</id>",
+                "      <active>true</active>",
+                "      <host>proxy.local</host>",
+                "      <port>8080</port>",
+                "    </proxy>",
+                "  </proxies>",
+                "  <mirrors>",
+                "    <mirror>",
+                "      <id>aliyunmaven</id>",
+                "      <url>https://maven.aliyun.com/repository/public</url>",
+                "      <mirrorOf>*</mirrorOf>",
+                "    </mirror>",
+                "  </mirrors>",
+                "</settings>",
+                ""), result);
+    }
+
+    @Test
+    public void applyingTwiceChangesNothing() throws IOException {
+        String once = apply(profileEditor(), DEFAULT_SETTINGS);
+        String twice = apply(profileEditor(), once);
+
+        assertEquals(once, twice);
+    }
+
+    @Test
+    public void replacesExistingLocalRepositoryAndMirror() throws IOException {
+        String settings = "<settings>\n"
+                + "  <localRepository>C:\\old</localRepository>\n"
+                + "  <mirrors>\n"
+                + "    <mirror><id>aliyunmaven</id><url>http://old</url></mirror>\n"
+                + "    <mirror><id>aliyunmaven</id><url>http://duplicate</url></mirror>\n"
+                + "  </mirrors>\n"
+                + "</settings>\n";
+
+        String result = apply(new MavenSettingsEditor()
+                .localRepository("D:\\repo")
+                .mirror("aliyunmaven", Map.of("url", "https://new", "mirrorOf", "*")), settings);
+
+        assertTrue(result, result.contains("<localRepository>D:\\repo</localRepository>"));
+        assertTrue(result, result.contains("<url>https://new</url>"));
+        assertTrue(result, !result.contains("old") && !result.contains("duplicate"));
+    }
+
+    @Test
+    public void dottedIdsKeepTheirFullName() throws IOException {
+        Map<String, String> profile = new HashMap<>();
+        profile.put("mirror.aliyun.central.url", "https://maven.aliyun.com/repository/central");
+        profile.put("mirror.aliyun.central.mirrorOf", "central");
+        profile.put("server.nexus.internal.username", "ci");
+
+        String result = apply(MavenSettingsEditor.fromProfile(profile), "<settings>\n</settings>\n");
+
+        assertTrue(result, result.contains("<id>aliyun.central</id>"));
+        assertTrue(result, result.contains("<url>https://maven.aliyun.com/repository/central</url>"));
+        assertTrue(result, result.contains("<mirrorOf>central</mirrorOf>"));
+        assertTrue(result, result.contains("<id>nexus.internal</id>"));
+        assertTrue(result, result.contains("<username>ci</username>"));
+    }
+
+    private static MavenSettingsEditor profileEditor() {
+        Map<String, String> profile = new HashMap<>();
+        profile.put("local-repository", "D:\\maven\\repo");
+        profile.put("mirror.aliyunmaven.mirrorOf", "*");
+        profile.put("mirror.aliyunmaven.url", "https://maven.aliyun.com/repository/public");
+        profile.put("proxy.office.host", "proxy.local");
+        profile.put("proxy.office.port", "8080");
+        profile.put("proxy.office.active", "true");
+        profile.put("server.nexus.username", "ci");
+        profile.put("server.nexus.password", "a&b");
+        profile.put("unrelated", "ignored");
+        return MavenSettingsEditor.fromProfile(profile);
+    }
+
+    private static String apply(MavenSettingsEditor editor, String settings) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        editor.apply(new ByteArrayInputStream(settings.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
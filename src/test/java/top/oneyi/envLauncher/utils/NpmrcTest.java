@@ -0,0 +1,82 @@
+package top.oneyi.envLauncher.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @description .npmrc 读写测试
+ */
+public class NpmrcTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void replacesKeysAndKeepsEverythingElse() throws IOException {
+        File file = temp.newFile(".npmrc");
+        Files.write(file.toPath(), Arrays.asList(
+                "; company settings",
+                "//registry.example.com/:_authToken=secret",
+                "registry=https://registry.npm.taobao.org/",
+                "cache=C:\\old\\cache",
+                "registry=https://duplicate.example.com/"), StandardCharsets.UTF_8);
+
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("cache", "D:\\node\\node_cache");
+        settings.put("prefix", "D:\\node\\node_global");
+        settings.put("registry", "https://registry.npmmirror.com/");
+        Npmrc.load(file).setAll(settings).save();
+
+        assertEquals(Arrays.asList(
+                "; company settings",
+                "//registry.example.com/:_authToken=secret",
+                "registry=https://registry.npmmirror.com/",
+                "cache=D:\\node\\node_cache",
+                "prefix=D:\\node\\node_global"), Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        assertEquals("secret", Npmrc.load(file).get("//registry.example.com/:_authToken"));
+    }
+
+    @Test
+    public void valuesReadBackAsWritten() throws IOException {
+        File file = new File(temp.getRoot(), "sub/.npmrc");
+        String[] values = {"D:\\tools;#1\\npm", " padded ", "a=b", "\"quoted\"", ""};
+
+        Npmrc npmrc = Npmrc.load(file);
+        for (int i = 0; i < values.length; i++) {
+            npmrc.set("key" + i, values[i]);
+        }
+        npmrc.save();
+
+        Npmrc reloaded = Npmrc.load(file);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], reloaded.get("key" + i));
+        }
+        assertNull(reloaded.get("missing"));
+    }
+
+    @Test
+    public void inlineCommentsAreNotPartOfTheValue() {
+        assertEquals("false", Npmrc.unescape("false ; set by IT"));
+        assertEquals("C:\\a;b", Npmrc.unescape("C:\\a\\;b"));
+    }
+
+    @Test
+    public void tarballNamesFollowNpmPack() {
+        assertEquals("cnpm-7.1.1.tgz", EnvUtil.npmTarballName("cnpm@7.1.1"));
+        assertEquals("vue-cli-5.0.8.tgz", EnvUtil.npmTarballName("@vue/cli@5.0.8"));
+        assertNull(EnvUtil.npmTarballName("@vue/cli"));
+        assertNull(EnvUtil.npmTarballName("cnpm"));
+    }
+}
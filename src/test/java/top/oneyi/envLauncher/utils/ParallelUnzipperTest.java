@@ -0,0 +1,76 @@
+package top.oneyi.envLauncher.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @description 并行解压测试
+ */
+public class ParallelUnzipperTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void extractsAllEntriesInParallel() throws IOException {
+        File zip = temp.newFile("node.zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("node-v20/node_modules/empty/"));
+            out.closeEntry();
+            for (int i = 0; i < 300; i++) {
+                // No explicit directory entries: parents must come from the pre-pass.
+                out.putNextEntry(new ZipEntry("node-v20/node_modules/m" + (i % 17) + "/f" + i + ".js"));
+                out.write(("module.exports = " + i).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+            out.putNextEntry(new ZipEntry("node-v20/node.exe"));
+            out.write(new byte[256 * 1024]);
+            out.closeEntry();
+        }
+        File dest = new File(temp.getRoot(), "out");
+
+        int files = new ParallelUnzipper(4).extract(zip, dest);
+
+        assertEquals(301, files);
+        assertTrue(new File(dest, "node-v20/node_modules/empty").isDirectory());
+        assertEquals(256 * 1024, new File(dest, "node-v20/node.exe").length());
+        assertEquals("module.exports = 299",
+                Files.readString(new File(dest, "node-v20/node_modules/m10/f299.js").toPath()));
+    }
+
+    @Test
+    public void rejectsZipSlipBeforeWritingAnything() throws IOException {
+        File zip = temp.newFile("evil.zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("ok/a.txt"));
+            out.write(1);
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("ok/../../escaped.txt"));
+            out.write(1);
+            out.closeEntry();
+        }
+        File dest = new File(temp.getRoot(), "out");
+
+        try {
+            new ParallelUnzipper(2).extract(zip, dest);
+            fail("zip-slip entry must be rejected");
+        } catch (IOException expected) {
+            assertFalse(new File(temp.getRoot(), "escaped.txt").exists());
+            assertFalse(new File(dest, "ok/a.txt").exists());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package top.oneyi.envLauncher.utils;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description 外部进程执行器测试（用 sh 代替 cmd）
+ */
+public class ProcessRunnerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final ProcessRunner runner = new ProcessRunner(StandardCharsets.UTF_8);
+
+    @Before
+    public void requireShell() {
+        Assume.assumeFalse(EnvUtil.isWindows());
+    }
+
+    @Test
+    public void returnsExitCodeAndInterleavedOutput() throws IOException {
+        ProcessRunner.Result result = runner.run(sh("echo out; echo err >&2; exit 3"), TIMEOUT, () -> false);
+
+        assertEquals(3, result.getExitCode());
+        assertEquals("out\nerr\n", result.getOutput());
+        assertFalse(result.isSuccess());
+    }
+
+    @Test
+    public void fullStderrPipeDoesNotBlock() throws IOException {
+        // Far more than a pipe buffer, written to stderr before anything reaches stdout.
+        ProcessRunner.Result result = runner.run(
+                sh("head -c 1000000 /dev/zero | tr '\\0' x >&2; echo done"), TIMEOUT, () -> false);
+
+        assertTrue(result.isSuccess());
+        assertEquals(1_000_005, result.getOutput().length());
+    }
+
+    @Test
+    public void timeoutKillsTheWholeTree() throws IOException {
+        // The background child keeps the output pipe open; the result only arrives once it is dead too.
+        ProcessRunner.Result result = runner.run(sh("sleep 30 & sleep 30; wait"), Duration.ofMillis(300), () -> false);
+
+        assertTrue(result.isTimedOut());
+        assertTrue(result.getDuration().toMillis() < 5000);
+    }
+
+    @Test
+    public void cancelKillsTheProcess() throws IOException {
+        AtomicLong cancelAt = new AtomicLong(System.currentTimeMillis() + 200);
+        ProcessRunner.Result result = runner.run(sh("sleep 30"), TIMEOUT,
+                () -> System.currentTimeMillis() >= cancelAt.get());
+
+        assertTrue(result.isCancelled());
+        assertEquals(-1, result.getExitCode());
+        assertTrue(result.getDuration().toMillis() < 5000);
+    }
+
+    @Test
+    public void independentCommandsRunInParallel() throws Exception {
+        long start = System.nanoTime();
+        CompletableFuture<ProcessRunner.Result> first = runner.runAsync(sh("sleep 1; echo a"), TIMEOUT);
+        CompletableFuture<ProcessRunner.Result> second = runner.runAsync(sh("sleep 1; echo b"), TIMEOUT);
+
+        assertEquals("a\n", first.get(5, TimeUnit.SECONDS).getOutput());
+        assertEquals("b\n", second.get(5, TimeUnit.SECONDS).getOutput());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1900);
+    }
+
+    private static List<String> sh(String script) {
+        return Arrays.asList("sh", "-c", script);
+    }
+}
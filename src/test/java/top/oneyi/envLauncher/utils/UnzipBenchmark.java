@@ -0,0 +1,171 @@
+package top.oneyi.envLauncher.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * @description 解压耗时对比：原 ZipInputStream 顺序解压 vs {@link ParallelUnzipper}
+ * <p>
+ * Not a unit test (surefire only picks up *Test). Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=top.oneyi.envLauncher.utils.UnzipBenchmark
+ * </pre>
+ * The archive mimics the Temurin JDK 17 Windows zip: ~70 jmods, a large lib/modules,
+ * bin/*.dll, and a few hundred small legal/ and include/ files.
+ * {@code -Dbench.scale=1.0} gives roughly the real size (~190 MB).
+ */
+public class UnzipBenchmark {
+
+    private static final int WARMUP = 2;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws IOException {
+        double scale = Double.parseDouble(System.getProperty("bench.scale", "0.25"));
+        Path work = Files.createTempDirectory("unzip-bench");
+        File zip = work.resolve("jdk-17.zip").toFile();
+        int entries = writeJdkLikeArchive(zip, scale);
+        System.out.printf("archive: %d entries, %.1f MB%n", entries, zip.length() / (1024.0 * 1024.0));
+
+        long sequential = median(() -> legacyUnzip(zip.getPath(), work.resolve("seq").toString()), work.resolve("seq"));
+        long parallel = median(() -> new ParallelUnzipper().extract(zip, work.resolve("par").toFile()), work.resolve("par"));
+
+        System.out.printf("legacy ZipInputStream (1 KB buffer): %d ms%n", sequential);
+        System.out.printf("ParallelUnzipper (%d threads):       %d ms%n",
+                Runtime.getRuntime().availableProcessors(), parallel);
+        System.out.printf("speed-up: %.2fx%n", (double) sequential / parallel);
+        deleteTree(work);
+    }
+
+    /**
+     * Approximate Temurin JDK 17 Windows archive layout.
+     *
+     * @return number of entries written
+     */
+    public static int writeJdkLikeArchive(File zip, double scale) throws IOException {
+        Random random = new Random(17);
+        int entries = 0;
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+            String root = "jdk-17.0.15+6/";
+            for (int i = 0; i < 120; i++) {
+                entries += put(out, root + "bin/lib" + i + ".dll", scaled(20 * 1024 + random.nextInt(600 * 1024), scale), random);
+            }
+            entries += put(out, root + "bin/server/jvm.dll", scaled(11 * 1024 * 1024, scale), random);
+            for (int i = 0; i < 30; i++) {
+                entries += put(out, root + "conf/security/policy" + i + ".txt", 1024 + random.nextInt(8 * 1024), random);
+            }
+            for (int i = 0; i < 40; i++) {
+                entries += put(out, root + "include/win32/h" + i + ".h", 2 * 1024 + random.nextInt(40 * 1024), random);
+            }
+            for (int i = 0; i < 70; i++) {
+                entries += put(out, root + "jmods/module" + i + ".jmod", scaled(30 * 1024 + random.nextInt(2 * 1024 * 1024), scale), random);
+            }
+            for (int i = 0; i < 70; i++) {
+                for (int j = 0; j < 4; j++) {
+                    entries += put(out, root + "legal/module" + i + "/LICENSE" + j, 512 + random.nextInt(4 * 1024), random);
+                }
+            }
+            for (int i = 0; i < 60; i++) {
+                entries += put(out, root + "lib/file" + i + ".dat", 4 * 1024 + random.nextInt(200 * 1024), random);
+            }
+            entries += put(out, root + "lib/modules", scaled(130 * 1024 * 1024, scale), random);
+            entries += put(out, root + "lib/src.zip", scaled(55 * 1024 * 1024, scale), random);
+        }
+        return entries;
+    }
+
+    static int scaled(int size, double scale) {
+        return Math.max(1024, (int) (size * scale));
+    }
+
+    /**
+     * Half random (already-compressed data such as jmods), half repetitive (class data, text).
+     */
+    static int put(ZipOutputStream out, String name, int size, Random random) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        byte[] chunk = new byte[64 * 1024];
+        int remaining = size;
+        boolean noise = true;
+        while (remaining > 0) {
+            int n = Math.min(chunk.length, remaining);
+            if (noise) {
+                random.nextBytes(chunk);
+            } else {
+                Arrays.fill(chunk, (byte) ('a' + remaining % 26));
+            }
+            out.write(chunk, 0, n);
+            remaining -= n;
+            noise = !noise;
+        }
+        out.closeEntry();
+        return 1;
+    }
+
+    /**
+     * Previous PathUtils.unzipFile, kept as the baseline.
+     */
+    static void legacyUnzip(String zipFilePath, String destDirectory) throws IOException {
+        File destDir = new File(destDirectory);
+        if (!destDir.exists()) {
+            destDir.mkdirs();
+        }
+        try (ZipInputStream zipIn = new ZipInputStream(new FileInputStream(zipFilePath))) {
+            ZipEntry entry = zipIn.getNextEntry();
+            byte[] buffer = new byte[1024];
+            while (entry != null) {
+                File newFile = new File(destDirectory + File.separator + entry.getName());
+                if (entry.isDirectory()) {
+                    newFile.mkdirs();
+                } else {
+                    new File(newFile.getParent()).mkdirs();
+                    try (FileOutputStream fos = new FileOutputStream(newFile)) {
+                        int read;
+                        while ((read = zipIn.read(buffer)) > 0) {
+                            fos.write(buffer, 0, read);
+                        }
+                    }
+                }
+                entry = zipIn.getNextEntry();
+            }
+        }
+    }
+
+    private static long median(Extraction extraction, Path target) throws IOException {
+        long[] times = new long[RUNS];
+        for (int i = 0; i < WARMUP + RUNS; i++) {
+            deleteTree(target);
+            long start = System.nanoTime();
+            extraction.run();
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            if (i >= WARMUP) {
+                times[i - WARMUP] = elapsed;
+            }
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Extraction {
+        void run() throws IOException;
+    }
+}